@@ -0,0 +1,82 @@
+package com.C195.benchmark;
+
+import com.C195.helper.AutoScheduler;
+import com.C195.helper.SchedulePlan;
+import com.C195.model.AppointmentDemand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for planning many appointments at once.
+ *
+ * <p> This class times AutoScheduler placing a demand for each of many customers in a window of two weeks after the
+ * appointments of a BenchmarkDatabase, as the auto schedule screen does. Each demand is for one of the users and may
+ * only go to two of the contacts. The window is too short for all of them, so the local search runs its rounds,
+ * giving some demands to their second contact and leaving some unplaced. With 10,000 demands, about five in six are
+ * placed. The plan is not saved, so every run starts from the same schedule. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AutoSchedulerBenchmark {
+    private static final long SEED = 195;
+    private static final int CONTACTS = 50;
+    private static final int WEEKS = 2;
+    private static final int[] LENGTHS = {30, 30, 45, 60};
+
+    @Param({"10000"})
+    public int demands;
+
+    private List<AppointmentDemand> demandList;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        BenchmarkDatabase.open(demands, CONTACTS, demands);
+
+        Random random = new Random(SEED);
+        LocalDateTime earliestStart = BenchmarkDatabase.getFreeStart(0).toLocalDate().atStartOfDay();
+        LocalDateTime latestEnd = earliestStart.plusWeeks(WEEKS);
+        demandList = new ArrayList<>(demands);
+
+        for (int customerID = 1; customerID <= demands; customerID++) {
+            int firstContactID = 1 + random.nextInt(CONTACTS);
+            int secondContactID = 1 + (firstContactID + random.nextInt(CONTACTS - 1)) % CONTACTS;
+            demandList.add(new AppointmentDemand(customerID, 1 + random.nextInt(CONTACTS), "Planning Session",
+                    "Planned by AutoScheduler", "Phoenix, Arizona", "Planning Session",
+                    Duration.ofMinutes(LENGTHS[random.nextInt(LENGTHS.length)]), earliestStart, latestEnd,
+                    firstContactID, secondContactID));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public SchedulePlan plan() {
+        return AutoScheduler.plan(demandList);
+    }
+}
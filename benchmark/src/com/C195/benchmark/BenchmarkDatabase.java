@@ -0,0 +1,244 @@
+package com.C195.benchmark;
+
+import com.C195.helper.BusinessCalendar;
+import com.C195.helper.DriverDataSource;
+import com.C195.helper.JDBC;
+import com.C195.helper.NameCache;
+import com.C195.helper.QueryStats;
+import com.C195.helper.ScheduleIndex;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Class for the database the benchmarks run against.
+ *
+ * <p> This class fills an in-memory H2 database in MySQL mode with the tables from the app's embedded_schema.sql and a
+ * given number of customers and appointments, and makes it the app's shared connection and DataSource, so the
+ * benchmarks run offline and time the same DAOHelper code and statements as the app. The rows are made from a fixed
+ * seed, so every run of a benchmark reads the same data. </p>
+ * <p> The appointments are laid out one an hour for each contact, through business hours every day, with half of the
+ * days before today and half after, so the more contacts there are the fewer days they cover. Every 100th appointment
+ * repeats weekly. There are as many users as contacts. Customers and users are picked at random, so as in a real
+ * schedule they have some overlapping appointments. </p>
+ */
+public abstract class BenchmarkDatabase {
+    public static final int DEFAULT_CONTACTS = 10;
+
+    // The password of every user, whose names are user1, user2, and so on
+    public static final String PASSWORD = "password";
+
+    private static final String URL = "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+            "NON_KEYWORDS=END,VALUE;DB_CLOSE_DELAY=-1";
+    private static final String SCHEMA = "classpath:/com/C195/resources/sql/embedded_schema.sql";
+    private static final long SEED = 195;
+    private static final int BATCH_SIZE = 1000;
+
+    // Business hours, from 8:00 to 17:00, hold nine one hour appointments a day for each contact
+    private static final int FIRST_HOUR = 8;
+    private static final int HOURS_PER_DAY = 9;
+    private static final int RECURRING_EVERY = 100;
+    private static final int RECURRING_WEEKS = 8;
+
+    private static final String[] FIRST_NAMES = {"Anika", "Daniel", "Li", "Maria", "James", "Aisha", "Kenji", "Olga",
+            "Pedro", "Grace", "Tomas", "Priya", "Samuel", "Ines", "Victor", "Hannah"};
+    private static final String[] LAST_NAMES = {"Costa", "Garcia", "Lee", "Smith", "Nguyen", "Okafor", "Tanaka",
+            "Ivanova", "Silva", "Murphy", "Novak", "Patel", "Brown", "Moreau", "Rossi", "Schmidt"};
+    private static final String[] TITLES = {"Planning Session", "De-Briefing", "Status Review", "Onboarding",
+            "Contract Renewal", "Quarterly Check-In", "Product Demo", "Support Call"};
+    private static final String[] LOCATIONS = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada",
+            "London, England"};
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Follow-Up", "Consultation"};
+
+    private static LocalDate firstDate;
+    private static int days;
+
+    /**
+     * Opens the database.
+     *
+     * <p> This method opens a database with the given number of customers and appointments, and ten contacts. </p>
+     * @param customers The number of customers to add
+     * @param appointments The number of appointments to add
+     * @throws SQLException Exceptions from making the database
+     */
+    public static void open(int customers, int appointments) throws SQLException {
+        open(customers, DEFAULT_CONTACTS, appointments);
+    }
+
+    /**
+     * Opens the database.
+     *
+     * <p> This method replaces any database from an earlier call with a new one holding the given number of customers,
+     * contacts, and appointments, and clears the app's caches so they are read from it. </p>
+     * @param customers The number of customers to add
+     * @param contacts The number of contacts and of users to add
+     * @param appointments The number of appointments to add
+     * @throws SQLException Exceptions from making the database
+     */
+    public static void open(int customers, int contacts, int appointments) throws SQLException {
+        close();
+
+        Connection connection = DriverManager.getConnection(URL);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM '" + SCHEMA + "'");
+        }
+
+        connection.setAutoCommit(false);
+        Random random = new Random(SEED);
+        addLookups(connection, contacts);
+        addCustomers(connection, random, customers);
+        addAppointments(connection, random, customers, contacts, appointments);
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        JDBC.connection = QueryStats.instrument(connection);
+        JDBC.setDataSource(new DriverDataSource(URL, "", "", "org.h2.Driver"));
+        ScheduleIndex.invalidate();
+        NameCache.invalidateAll();
+        BusinessCalendar.reload();
+    }
+
+    /**
+     * Closes the database.
+     *
+     * <p> This method closes the app's shared connection, if it is open. </p>
+     * @throws SQLException Exceptions from closing the connection
+     */
+    public static void close() throws SQLException {
+        if (JDBC.connection != null && !JDBC.connection.isClosed())
+            JDBC.connection.close();
+        JDBC.connection = null;
+    }
+
+    /**
+     * Gets a time no appointment is booked at.
+     *
+     * <p> This method returns the start of the given one hour slot of business hours after the last occurrence of
+     * every appointment, counting from the first slot of the first day. The slot is clear for every customer, contact,
+     * and user until an appointment is booked in it. </p>
+     * @param slot The number of the slot, from 0
+     * @return Returns the time, in the user's time zone
+     */
+    public static LocalDateTime getFreeStart(int slot) {
+        return BusinessCalendar.toLocalTime(firstDate.plusDays(days + 7L * RECURRING_WEEKS + slot / HOURS_PER_DAY)
+                .atTime(FIRST_HOUR + slot % HOURS_PER_DAY, 0));
+    }
+
+    private static void addLookups(Connection connection, int contacts) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO countries (Country) VALUES ('U.S'), ('UK'), ('Canada')");
+            statement.execute("INSERT INTO first_level_divisions (Division, Country_ID) " +
+                    "VALUES ('Arizona', 1), ('New York', 1), ('England', 2), ('Quebec', 3)");
+        }
+
+        try (PreparedStatement contact = connection.prepareStatement(
+                "INSERT INTO contacts (Contact_Name, Email) VALUES (?, ?)");
+             PreparedStatement user = connection.prepareStatement(
+                     "INSERT INTO users (User_Name, Password) VALUES (?, ?)")) {
+            for (int i = 0; i < contacts; i++) {
+                String firstName = FIRST_NAMES[i % FIRST_NAMES.length];
+                contact.setString(1, firstName + " " + LAST_NAMES[i / FIRST_NAMES.length % LAST_NAMES.length]);
+                contact.setString(2, firstName.toLowerCase(Locale.ROOT) + (i + 1) + "@example.com");
+                contact.addBatch();
+
+                user.setString(1, "user" + (i + 1));
+                user.setString(2, PASSWORD);
+                user.addBatch();
+
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    contact.executeBatch();
+                    user.executeBatch();
+                }
+            }
+            contact.executeBatch();
+            user.executeBatch();
+        }
+    }
+
+    private static void addCustomers(Connection connection, Random random, int customers) throws SQLException {
+        String sql = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
+                "Last_Update, Last_Updated_By, Division_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= customers; i++) {
+                preparedStatement.setString(1, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " +
+                        LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                preparedStatement.setString(2, (random.nextInt(9000) + 100) + " Main Street");
+                preparedStatement.setString(3, Integer.toString(random.nextInt(90000) + 10000));
+                preparedStatement.setString(4, "555-" + (random.nextInt(9000) + 1000));
+                preparedStatement.setTimestamp(5, now);
+                preparedStatement.setString(6, "benchmark");
+                preparedStatement.setTimestamp(7, now);
+                preparedStatement.setString(8, "benchmark");
+                preparedStatement.setInt(9, random.nextInt(4) + 1);
+                preparedStatement.addBatch();
+
+                if (i % BATCH_SIZE == 0)
+                    preparedStatement.executeBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private static void addAppointments(Connection connection, Random random, int customers, int contacts,
+                                        int appointments) throws SQLException {
+        String sql = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, " +
+                "Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String recurrenceSql = "INSERT INTO appointment_recurrences (Appointment_ID, Rule) VALUES (?, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int slotsPerDay = contacts * HOURS_PER_DAY;
+        days = (appointments + slotsPerDay - 1) / slotsPerDay;
+        firstDate = BusinessCalendar.toBusinessTime(LocalDateTime.now()).toLocalDate().minusDays(days / 2);
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
+             PreparedStatement recurrence = connection.prepareStatement(recurrenceSql)) {
+            for (int i = 0; i < appointments; i++) {
+                int contactID = i % contacts + 1;
+                int slot = i / contacts;
+                LocalDateTime start = BusinessCalendar.toLocalTime(firstDate.plusDays(slot / HOURS_PER_DAY)
+                        .atTime(FIRST_HOUR + slot % HOURS_PER_DAY, 0));
+
+                preparedStatement.setString(1, TITLES[random.nextInt(TITLES.length)]);
+                preparedStatement.setString(2, "Benchmark appointment " + (i + 1));
+                preparedStatement.setString(3, LOCATIONS[random.nextInt(LOCATIONS.length)]);
+                preparedStatement.setString(4, TYPES[random.nextInt(TYPES.length)]);
+                preparedStatement.setTimestamp(5, Timestamp.valueOf(start));
+                preparedStatement.setTimestamp(6, Timestamp.valueOf(start.plusHours(1)));
+                preparedStatement.setTimestamp(7, now);
+                preparedStatement.setString(8, "benchmark");
+                preparedStatement.setTimestamp(9, now);
+                preparedStatement.setString(10, "benchmark");
+                preparedStatement.setInt(11, random.nextInt(customers) + 1);
+                preparedStatement.setInt(12, random.nextInt(contacts) + 1);
+                preparedStatement.setInt(13, contactID);
+                preparedStatement.addBatch();
+
+                // IDs are given in order from 1, as the database is new
+                if ((i + 1) % RECURRING_EVERY == 0) {
+                    recurrence.setInt(1, i + 1);
+                    recurrence.setString(2, "FREQ=WEEKLY;COUNT=" + RECURRING_WEEKS);
+                    recurrence.addBatch();
+                }
+
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    preparedStatement.executeBatch();
+                    recurrence.executeBatch();
+                }
+            }
+            preparedStatement.executeBatch();
+            recurrence.executeBatch();
+        }
+    }
+}
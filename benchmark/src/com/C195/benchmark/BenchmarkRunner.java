@@ -0,0 +1,38 @@
+package com.C195.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks.
+ *
+ * <p> This class runs the JMH benchmarks in this package and writes their results to benchmark_results.csv, so the
+ * results from before and after a change can be compared. The benchmarks are compiled with the app's classes, with
+ * jmh-core, H2, and the JavaFX jars on the classpath and jmh-generator-annprocess as the annotation processor, and
+ * the app's resources, with embedded_schema.sql, on the classpath. Each benchmark and parameter runs in a JVM of its
+ * own, so the app's caches do not carry over between them. </p>
+ * <p> The benchmarks to run can be narrowed by giving a regular expression, such as "ValidationBenchmark", as the
+ * first argument. </p>
+ */
+public abstract class BenchmarkRunner {
+    private static final String RESULTS = "benchmark_results.csv";
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args The regular expression the benchmarks to run must match, or nothing to run them all
+     * @throws RunnerException Exceptions from running the benchmarks
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : BenchmarkRunner.class.getPackageName() + "\\..*")
+                .resultFormat(ResultFormatType.CSV)
+                .result(RESULTS)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,59 @@
+package com.C195.benchmark;
+
+import com.C195.helper.DAOHelper;
+import com.C195.model.Appointment;
+import com.C195.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for reading rows into models.
+ *
+ * <p> This class times DAOHelper reading every appointment and every customer, which is the query and the mapping of
+ * each row of its ResultSet into an Appointment or Customer, with its recurrence for an appointment. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DaoMappingBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        BenchmarkDatabase.open(rows, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public List<Appointment> getAllAppointments() {
+        return DAOHelper.getAllAppointments();
+    }
+
+    @Benchmark
+    public List<Customer> getAllCustomers() {
+        return DAOHelper.getAllCustomers();
+    }
+}
@@ -0,0 +1,717 @@
+package com.C195.benchmark;
+
+import com.C195.helper.BusinessCalendar;
+import com.C195.helper.JDBC;
+import com.C195.model.Appointment;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that makes large, realistic datasets for load testing.
+ *
+ * <p> This class makes the countries, first level divisions, contacts, users, customers, and appointments of a
+ * schedule, and inserts them into a database or writes them to CSV files. The same seed and settings always make the
+ * same rows, however many threads are used, since each customer and each contact's appointments are made from a
+ * random stream of their own and every row is given its ID. </p>
+ * <p> The rows are made to look like a real schedule. Appointments are 15 minutes to two hours long, mostly half an
+ * hour or an hour, and start on the quarter hour within business hours in Appointment.BUSINESS_ZONE, clustered in the
+ * middle of the morning and afternoon, with few on weekends. Some contacts have many more customers than others, and
+ * have as many more appointments, mostly with their own customers. A contact's appointments do not overlap, except
+ * for a small fraction that are booked on top of another, and each contact's appointments belong to one user. </p>
+ * <p> The rows are inserted with batched statements from several threads, each on a Connection of its own, or
+ * written to one CSV file per table, with the times in UTC, as client_schedule stores them. The tables must be
+ * empty. </p>
+ */
+public class DatasetGenerator {
+    /**
+     * Opens connections to the database to insert into.
+     */
+    public interface ConnectionSource {
+        /**
+         * Opens a connection.
+         *
+         * @return Returns a new Connection, which the caller closes
+         * @throws SQLException Exceptions from opening the connection
+         */
+        Connection open() throws SQLException;
+    }
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Business hours, from 8:00 to 17:00, as quarter hours
+    private static final int FIRST_HOUR = 8;
+    private static final int QUARTERS_PER_DAY = 36;
+
+    // Appointment lengths in quarter hours, and how often each is booked
+    private static final int[] LENGTHS = {1, 2, 3, 4, 6, 8};
+    private static final double[] LENGTH_WEIGHTS = {15, 35, 10, 30, 7, 3};
+
+    // How often appointments start in each hour from 8:00, and on each quarter of the hour
+    private static final double[] HOUR_WEIGHTS = {2, 5, 8, 6, 3, 6, 8, 6, 3};
+    private static final double[] QUARTER_WEIGHTS = {50, 15, 25, 10};
+
+    // How often appointments are on each day of the week, from Monday
+    private static final double[] WEEKDAY_WEIGHTS = {1, 1, 1, 1, 0.9, 0.15, 0.05};
+
+    // How much busier each contact is than the next, as the exponent of a Zipf distribution
+    private static final double CONTACT_SKEW = 0.8;
+
+    // The most appointments a contact is given for each day, before the rest go to other contacts
+    private static final int MAX_CONTACT_APPOINTMENTS_PER_DAY = 6;
+
+    // The fraction of a contact's appointments that are with its own customers
+    private static final double OWN_CUSTOMER_RATE = 0.85;
+
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Follow-Up", "Consultation",
+            "Status Review", "Onboarding"};
+    private static final double[] TYPE_WEIGHTS = {25, 20, 25, 15, 10, 5};
+    private static final String[] LOCATIONS = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada",
+            "London, England"};
+    private static final String[] COUNTRIES = {"U.S", "UK", "Canada"};
+    private static final String[] DIVISIONS = {"Arizona", "California", "New York", "Ohio", "Texas", "England",
+            "Scotland", "Wales", "Northern Ireland", "Ontario", "Quebec", "British Columbia", "Alberta"};
+    private static final int[] DIVISION_COUNTRIES = {1, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3};
+    private static final double[] DIVISION_WEIGHTS = {6, 20, 12, 7, 15, 9, 2, 1, 1, 8, 5, 3, 3};
+    private static final String[] FIRST_NAMES = {"Anika", "Daniel", "Li", "Maria", "James", "Aisha", "Kenji", "Olga",
+            "Pedro", "Grace", "Tomas", "Priya", "Samuel", "Ines", "Victor", "Hannah", "Omar", "Chloe", "Mateo",
+            "Freya"};
+    private static final String[] LAST_NAMES = {"Costa", "Garcia", "Lee", "Smith", "Nguyen", "Okafor", "Tanaka",
+            "Ivanova", "Silva", "Murphy", "Novak", "Patel", "Brown", "Moreau", "Rossi", "Schmidt", "Haddad", "Kim",
+            "Johansson", "Walsh"};
+    private static final String[] STREETS = {"Main Street", "Oak Avenue", "Maple Drive", "High Street",
+            "Station Road", "Rue Principale", "Cedar Lane", "King Street"};
+
+    // The random streams, so a customer's home contact does not depend on how many of its details are drawn
+    private static final long CUSTOMER_STREAM = 1;
+    private static final long HOME_STREAM = 2;
+    private static final long APPOINTMENT_STREAM = 3;
+
+    private static final DateTimeFormatter CSV_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final long seed;
+    private final int customers;
+    private final int contacts;
+    private final int users;
+    private final int appointments;
+    private final LocalDate firstDate;
+    private final int days;
+    private double overlapRate = 0.005;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    // Made by prepare()
+    private int[][] customersByContact;
+    private int[] appointmentCounts;
+    private int[] firstAppointmentIDs;
+    private double[] dayWeights;
+
+    /**
+     * Constructor for DatasetGenerator.
+     *
+     * @param seed The seed the rows are made from
+     * @param customers The number of customers to make
+     * @param contacts The number of contacts to make
+     * @param users The number of users to make
+     * @param appointments The number of appointments to make
+     * @param firstDate The first day, in the business's time zone, that appointments are on
+     * @param days The number of days the appointments are spread over
+     */
+    public DatasetGenerator(long seed, int customers, int contacts, int users, int appointments, LocalDate firstDate,
+                            int days) {
+        this.seed = seed;
+        this.customers = customers;
+        this.contacts = contacts;
+        this.users = users;
+        this.appointments = appointments;
+        this.firstDate = firstDate;
+        this.days = days;
+    }
+
+    /**
+     * Setter for overlap rate.
+     *
+     * @param overlapRate The fraction of appointments booked on top of another appointment of their contact, 0.005 if
+     *                    not set
+     */
+    public void setOverlapRate(double overlapRate) {
+        this.overlapRate = overlapRate;
+    }
+
+    /**
+     * Setter for threads.
+     *
+     * @param threads The number of threads that make and write the rows, the number of processors if not set
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Inserts the dataset into a database.
+     *
+     * <p> This method inserts the countries, divisions, contacts, and users on one connection, and then the customers
+     * and the appointments from several threads, each on a connection of its own, committing after every batch. </p>
+     * @param source Opens the connections to the database
+     * @throws SQLException Exceptions from inserting the rows
+     */
+    public void insert(ConnectionSource source) throws SQLException {
+        prepare();
+        LocalDateTime created = firstDate.atStartOfDay();
+
+        try (Connection connection = source.open()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement country = connection.prepareStatement(
+                    "INSERT INTO countries (Country_ID, Country, Create_Date, Created_By, Last_Update, " +
+                            "Last_Updated_By) VALUES (?, ?, ?, 'generator', ?, 'generator')");
+                 PreparedStatement division = connection.prepareStatement(
+                         "INSERT INTO first_level_divisions (Division_ID, Division, Create_Date, Created_By, " +
+                                 "Last_Update, Last_Updated_By, Country_ID) " +
+                                 "VALUES (?, ?, ?, 'generator', ?, 'generator', ?)")) {
+                for (int i = 0; i < COUNTRIES.length; i++) {
+                    country.setInt(1, i + 1);
+                    country.setString(2, COUNTRIES[i]);
+                    country.setTimestamp(3, Timestamp.valueOf(created));
+                    country.setTimestamp(4, Timestamp.valueOf(created));
+                    country.addBatch();
+                }
+                country.executeBatch();
+
+                for (int i = 0; i < DIVISIONS.length; i++) {
+                    division.setInt(1, i + 1);
+                    division.setString(2, DIVISIONS[i]);
+                    division.setTimestamp(3, Timestamp.valueOf(created));
+                    division.setTimestamp(4, Timestamp.valueOf(created));
+                    division.setInt(5, DIVISION_COUNTRIES[i]);
+                    division.addBatch();
+                }
+                division.executeBatch();
+            }
+
+            try (PreparedStatement contact = connection.prepareStatement(
+                    "INSERT INTO contacts (Contact_ID, Contact_Name, Email) VALUES (?, ?, ?)");
+                 PreparedStatement user = connection.prepareStatement(
+                         "INSERT INTO users (User_ID, User_Name, Password, Create_Date, Created_By, Last_Update, " +
+                                 "Last_Updated_By) VALUES (?, ?, ?, ?, 'generator', ?, 'generator')")) {
+                for (int i = 1; i <= contacts; i++) {
+                    contact.setInt(1, i);
+                    contact.setString(2, contactName(i));
+                    contact.setString(3, "contact" + i + "@example.com");
+                    contact.addBatch();
+                    if (i % BATCH_SIZE == 0)
+                        contact.executeBatch();
+                }
+                contact.executeBatch();
+
+                for (int i = 1; i <= users; i++) {
+                    user.setInt(1, i);
+                    user.setString(2, "user" + i);
+                    user.setString(3, BenchmarkDatabase.PASSWORD);
+                    user.setTimestamp(4, Timestamp.valueOf(created));
+                    user.setTimestamp(5, Timestamp.valueOf(created));
+                    user.addBatch();
+                    if (i % BATCH_SIZE == 0)
+                        user.executeBatch();
+                }
+                user.executeBatch();
+            }
+            connection.commit();
+        }
+
+        String customerSql = "INSERT INTO customers (Customer_ID, Customer_Name, Address, Postal_Code, Phone, " +
+                "Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 'generator', ?, 'generator', ?)";
+        String appointmentSql = "INSERT INTO appointments (Appointment_ID, Title, Description, Location, Type, " +
+                "Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, " +
+                "Contact_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'generator', ?, 'generator', ?, ?, ?)";
+
+        runInParallel(chunks(customers, (from, to) -> () -> {
+            try (Connection connection = source.open();
+                 PreparedStatement preparedStatement = connection.prepareStatement(customerSql)) {
+                connection.setAutoCommit(false);
+                int[] pending = {0};
+                makeCustomers(from, to, (id, name, address, postalCode, phone, divisionID) -> {
+                    preparedStatement.setInt(1, id);
+                    preparedStatement.setString(2, name);
+                    preparedStatement.setString(3, address);
+                    preparedStatement.setString(4, postalCode);
+                    preparedStatement.setString(5, phone);
+                    preparedStatement.setTimestamp(6, Timestamp.valueOf(created));
+                    preparedStatement.setTimestamp(7, Timestamp.valueOf(created));
+                    preparedStatement.setInt(8, divisionID);
+                    addToBatch(connection, preparedStatement, pending);
+                });
+                preparedStatement.executeBatch();
+                connection.commit();
+            }
+            return null;
+        }));
+
+        runInParallel(chunks(contacts, (from, to) -> () -> {
+            try (Connection connection = source.open();
+                 PreparedStatement preparedStatement = connection.prepareStatement(appointmentSql)) {
+                connection.setAutoCommit(false);
+                int[] pending = {0};
+                makeAppointments(from, to, (id, contactID, customerID, userID, type, location, start, end) -> {
+                    Timestamp createDate = Timestamp.valueOf(BusinessCalendar.toLocalTime(start.minusDays(7)));
+                    preparedStatement.setInt(1, id);
+                    preparedStatement.setString(2, type);
+                    preparedStatement.setString(3, type + " with customer " + customerID);
+                    preparedStatement.setString(4, location);
+                    preparedStatement.setString(5, type);
+                    preparedStatement.setTimestamp(6, Timestamp.valueOf(BusinessCalendar.toLocalTime(start)));
+                    preparedStatement.setTimestamp(7, Timestamp.valueOf(BusinessCalendar.toLocalTime(end)));
+                    preparedStatement.setTimestamp(8, createDate);
+                    preparedStatement.setTimestamp(9, createDate);
+                    preparedStatement.setInt(10, customerID);
+                    preparedStatement.setInt(11, userID);
+                    preparedStatement.setInt(12, contactID);
+                    addToBatch(connection, preparedStatement, pending);
+                });
+                preparedStatement.executeBatch();
+                connection.commit();
+            }
+            return null;
+        }));
+    }
+
+    /**
+     * Writes the dataset to CSV files.
+     *
+     * <p> This method writes countries.csv, first_level_divisions.csv, contacts.csv, users.csv, customers.csv, and
+     * appointments.csv to the given directory, each with a header row and its columns in the order of the table, so
+     * they can be loaded with LOAD DATA INFILE ... IGNORE 1 LINES. The customers and appointments are made by several
+     * threads into parts that are then joined in order. </p>
+     * @param directory The directory to write the files to, which is made if it does not exist
+     * @throws IOException Exceptions from writing the files
+     */
+    public void writeCsv(Path directory) throws IOException {
+        prepare();
+        Files.createDirectories(directory);
+        String created = CSV_TIME.format(toUtc(firstDate.atStartOfDay()));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("countries.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("Country_ID,Country,Create_Date,Created_By,Last_Update,Last_Updated_By\n");
+            for (int i = 0; i < COUNTRIES.length; i++)
+                writer.write((i + 1) + "," + csv(COUNTRIES[i]) + "," + created + ",generator," + created +
+                        ",generator\n");
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("first_level_divisions.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("Division_ID,Division,Create_Date,Created_By,Last_Update,Last_Updated_By,Country_ID\n");
+            for (int i = 0; i < DIVISIONS.length; i++)
+                writer.write((i + 1) + "," + csv(DIVISIONS[i]) + "," + created + ",generator," + created +
+                        ",generator," + DIVISION_COUNTRIES[i] + "\n");
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("contacts.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("Contact_ID,Contact_Name,Email\n");
+            for (int i = 1; i <= contacts; i++)
+                writer.write(i + "," + csv(contactName(i)) + ",contact" + i + "@example.com\n");
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("users.csv"),
+                StandardCharsets.UTF_8)) {
+            writer.write("User_ID,User_Name,Password,Create_Date,Created_By,Last_Update,Last_Updated_By\n");
+            for (int i = 1; i <= users; i++)
+                writer.write(i + ",user" + i + "," + BenchmarkDatabase.PASSWORD + "," + created + ",generator," +
+                        created + ",generator\n");
+        }
+
+        writeParts(directory, "customers.csv", "Customer_ID,Customer_Name,Address,Postal_Code,Phone,Create_Date," +
+                "Created_By,Last_Update,Last_Updated_By,Division_ID\n", customers, (from, to, writer) ->
+                makeCustomers(from, to, (id, name, address, postalCode, phone, divisionID) ->
+                        writer.write(id + "," + csv(name) + "," + csv(address) + "," + csv(postalCode) + "," +
+                                csv(phone) + "," + created + ",generator," + created + ",generator," + divisionID +
+                                "\n")));
+
+        writeParts(directory, "appointments.csv", "Appointment_ID,Title,Description,Location,Type,Start,End," +
+                "Create_Date,Created_By,Last_Update,Last_Updated_By,Customer_ID,User_ID,Contact_ID\n", contacts,
+                (from, to, writer) -> makeAppointments(from, to,
+                        (id, contactID, customerID, userID, type, location, start, end) -> {
+                            String createDate = CSV_TIME.format(toUtc(start.minusDays(7)));
+                            writer.write(id + "," + csv(type) + "," + csv(type + " with customer " + customerID) +
+                                    "," + csv(location) + "," + csv(type) + "," + CSV_TIME.format(toUtc(start)) +
+                                    "," + CSV_TIME.format(toUtc(end)) + "," + createDate + ",generator," +
+                                    createDate + ",generator," + customerID + "," + userID + "," + contactID +
+                                    "\n");
+                        }));
+    }
+
+    /**
+     * Makes a dataset.
+     *
+     * <p> This method makes a dataset from the settings in system properties, and writes it to CSV files in the
+     * directory given as the first argument, or with the argument "database", inserts it into the app's database
+     * through JDBC.createConnection(). The settings are com.C195.dataset.seed (195),
+     * com.C195.dataset.appointments (1,000,000), com.C195.dataset.days (730), com.C195.dataset.firstDate (half of the
+     * days before today), com.C195.dataset.contacts (about four appointments a day each, and at least ten),
+     * com.C195.dataset.customers (a tenth of the appointments), com.C195.dataset.users (as many as contacts),
+     * com.C195.dataset.overlapRate (0.005), and com.C195.dataset.threads (the number of processors). The same
+     * settings, including the first date, make the same rows. </p>
+     * @param args The directory to write CSV files to, or "database"
+     * @throws Exception Exceptions from making the dataset
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: DatasetGenerator <directory> | database");
+            return;
+        }
+
+        int appointments = Integer.getInteger("com.C195.dataset.appointments", 1_000_000);
+        int days = Integer.getInteger("com.C195.dataset.days", 730);
+        int contacts = Integer.getInteger("com.C195.dataset.contacts", Math.max(10, appointments / (days * 4)));
+        DatasetGenerator generator = new DatasetGenerator(
+                Long.getLong("com.C195.dataset.seed", 195),
+                Integer.getInteger("com.C195.dataset.customers", Math.max(1, appointments / 10)),
+                contacts,
+                Integer.getInteger("com.C195.dataset.users", contacts),
+                appointments,
+                LocalDate.parse(System.getProperty("com.C195.dataset.firstDate",
+                        LocalDate.now(Appointment.BUSINESS_ZONE).minusDays(days / 2).toString())),
+                days);
+        generator.setOverlapRate(Double.parseDouble(System.getProperty("com.C195.dataset.overlapRate", "0.005")));
+        generator.setThreads(Integer.getInteger("com.C195.dataset.threads",
+                Runtime.getRuntime().availableProcessors()));
+
+        System.out.printf("Making %,d appointments, %,d customers, %,d contacts, and %,d users over %,d days from " +
+                        "%s with seed %d%n", appointments, generator.customers, contacts, generator.users, days,
+                generator.firstDate, generator.seed);
+        long start = System.nanoTime();
+
+        if (args[0].equals("database"))
+            generator.insert(JDBC::createConnection);
+        else
+            generator.writeCsv(Paths.get(args[0]));
+
+        System.out.printf("Done in %,d s%n", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    // Picks each customer's contact, and how many appointments each contact has
+    private synchronized void prepare() {
+        if (appointmentCounts != null)
+            return;
+
+        double[] contactWeights = new double[contacts];
+        for (int i = 0; i < contacts; i++)
+            contactWeights[i] = 1 / Math.pow(i + 1, CONTACT_SKEW);
+        double[] cumulativeContacts = cumulative(contactWeights);
+
+        int[] homeContacts = new int[customers];
+        int[] customerCounts = new int[contacts];
+        for (int i = 0; i < customers; i++) {
+            homeContacts[i] = pick(random(HOME_STREAM, i + 1), cumulativeContacts);
+            customerCounts[homeContacts[i]]++;
+        }
+        customersByContact = new int[contacts][];
+        for (int i = 0; i < contacts; i++)
+            customersByContact[i] = new int[customerCounts[i]];
+        int[] filled = new int[contacts];
+        for (int i = 0; i < customers; i++)
+            customersByContact[homeContacts[i]][filled[homeContacts[i]]++] = i + 1;
+
+        appointmentCounts = shareOut(appointments, contactWeights, MAX_CONTACT_APPOINTMENTS_PER_DAY * days);
+        firstAppointmentIDs = new int[contacts];
+        for (int i = 1; i < contacts; i++)
+            firstAppointmentIDs[i] = firstAppointmentIDs[i - 1] + appointmentCounts[i - 1];
+        for (int i = 0; i < contacts; i++)
+            firstAppointmentIDs[i]++;
+
+        double[] weights = new double[days];
+        for (int i = 0; i < days; i++)
+            weights[i] = WEEKDAY_WEIGHTS[firstDate.plusDays(i).getDayOfWeek().getValue() - 1];
+        dayWeights = cumulative(weights);
+    }
+
+    // Shares a total out in proportion to the weights, giving none more than the cap while others are under it
+    private static int[] shareOut(int total, double[] weights, int cap) {
+        int[] shares = new int[weights.length];
+        boolean[] isCapped = new boolean[weights.length];
+        int left = total;
+
+        while (left > 0) {
+            double weightLeft = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (!isCapped[i])
+                    weightLeft += weights[i];
+            }
+
+            // Every share is full, so the rest is shared out evenly
+            if (weightLeft == 0) {
+                for (int i = 0; i < weights.length; i++)
+                    shares[i] += left / weights.length + (i < left % weights.length ? 1 : 0);
+                break;
+            }
+
+            int given = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (isCapped[i])
+                    continue;
+                int share = (int) (left * weights[i] / weightLeft);
+                if (shares[i] + share >= cap) {
+                    share = cap - shares[i];
+                    isCapped[i] = true;
+                }
+                shares[i] += share;
+                given += share;
+            }
+
+            // What rounding down left over goes one each to the first shares that are not full
+            if (given == 0) {
+                for (int i = 0; i < weights.length && given < left; i++) {
+                    if (!isCapped[i]) {
+                        shares[i]++;
+                        given++;
+                        isCapped[i] = shares[i] >= cap;
+                    }
+                }
+            }
+            left -= given;
+        }
+
+        return shares;
+    }
+
+    private void makeCustomers(int from, int to, CustomerWriter writer) throws Exception {
+        double[] divisionWeights = cumulative(DIVISION_WEIGHTS);
+
+        for (int id = from; id <= to; id++) {
+            SplittableRandom random = random(CUSTOMER_STREAM, id);
+            writer.write(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " +
+                            LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                    (random.nextInt(9900) + 100) + " " + STREETS[random.nextInt(STREETS.length)],
+                    Integer.toString(random.nextInt(90000) + 10000),
+                    random.nextInt(900) + 100 + "-555-" + (random.nextInt(9000) + 1000),
+                    pick(random, divisionWeights) + 1);
+        }
+    }
+
+    // Lays out the appointments of each contact day by day, in the business's time zone
+    private void makeAppointments(int fromContact, int toContact, AppointmentWriter writer) throws Exception {
+        double[] lengthWeights = cumulative(LENGTH_WEIGHTS);
+        double[] hourWeights = cumulative(HOUR_WEIGHTS);
+        double[] quarterWeights = cumulative(QUARTER_WEIGHTS);
+        double[] typeWeights = cumulative(TYPE_WEIGHTS);
+
+        for (int contactID = fromContact; contactID <= toContact; contactID++) {
+            SplittableRandom random = random(APPOINTMENT_STREAM, contactID);
+            int count = appointmentCounts[contactID - 1];
+            int id = firstAppointmentIDs[contactID - 1];
+            int[] ownCustomers = customersByContact[contactID - 1];
+            int userID = (contactID - 1) % users + 1;
+            String location = LOCATIONS[(contactID - 1) % LOCATIONS.length];
+
+            int[] dayOfEach = new int[count];
+            for (int i = 0; i < count; i++)
+                dayOfEach[i] = pick(random, dayWeights);
+            Arrays.sort(dayOfEach);
+
+            int day = -1;
+            long booked = 0;
+            for (int i = 0; i < count; i++) {
+                if (dayOfEach[i] > day) {
+                    day = dayOfEach[i];
+                    booked = 0;
+                }
+
+                int length = LENGTHS[pick(random, lengthWeights)];
+                int start = -1;
+
+                if (booked != 0 && random.nextDouble() < overlapRate) {
+                    // Starts within another appointment of the contact
+                    do {
+                        start = random.nextInt(QUARTERS_PER_DAY);
+                    } while ((booked & (1L << start)) == 0);
+                    start = Math.min(start, QUARTERS_PER_DAY - length);
+                }
+                else {
+                    for (int attempt = 0; attempt < 4 && start < 0; attempt++) {
+                        int quarter = pick(random, hourWeights) * 4 + pick(random, quarterWeights);
+                        if (quarter + length <= QUARTERS_PER_DAY && (booked & mask(quarter, length)) == 0)
+                            start = quarter;
+                    }
+
+                    // The contact's day is full at the busy times, so the first free time is taken, or the next day
+                    while (start < 0) {
+                        start = firstFree(booked, length);
+                        if (start < 0) {
+                            day++;
+                            booked = 0;
+                        }
+                    }
+                }
+                booked |= mask(start, length);
+
+                int customerID = ownCustomers.length > 0 && random.nextDouble() < OWN_CUSTOMER_RATE ?
+                        ownCustomers[random.nextInt(ownCustomers.length)] : random.nextInt(customers) + 1;
+                LocalDateTime startTime = firstDate.plusDays(day).atTime(FIRST_HOUR, 0).plusMinutes(15L * start);
+                writer.write(id++, contactID, customerID, userID, TYPES[pick(random, typeWeights)], location,
+                        startTime, startTime.plusMinutes(15L * length));
+            }
+        }
+    }
+
+    private static long mask(int start, int length) {
+        return ((1L << length) - 1) << start;
+    }
+
+    private static int firstFree(long booked, int length) {
+        for (int start = 0; start + length <= QUARTERS_PER_DAY; start++) {
+            if ((booked & mask(start, length)) == 0)
+                return start;
+        }
+        return -1;
+    }
+
+    private SplittableRandom random(long stream, long index) {
+        return new SplittableRandom(seed ^ (stream << 56) ^ (index * 0x9E3779B97F4A7C15L));
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] sums = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            sums[i] = sum;
+        }
+        return sums;
+    }
+
+    // Picks an index with the chance of its weight, from cumulative weights
+    private static int pick(SplittableRandom random, double[] cumulativeWeights) {
+        double value = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, value);
+        return Math.min(index < 0 ? -index - 1 : index + 1, cumulativeWeights.length - 1);
+    }
+
+    private String contactName(int contactID) {
+        SplittableRandom random = random(CUSTOMER_STREAM, -contactID);
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static LocalDateTime toUtc(LocalDateTime businessTime) {
+        return businessTime.atZone(Appointment.BUSINESS_ZONE).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private static String csv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void addToBatch(Connection connection, PreparedStatement preparedStatement, int[] pending)
+            throws SQLException {
+        preparedStatement.addBatch();
+        if (++pending[0] == BATCH_SIZE) {
+            preparedStatement.executeBatch();
+            connection.commit();
+            pending[0] = 0;
+        }
+    }
+
+    // Splits the IDs from 1 to the total into a few ranges for each thread, so busy ranges do not hold up the rest
+    private List<Callable<Void>> chunks(int total, ChunkTask task) {
+        int count = Math.max(1, Math.min(total, threads * 4));
+        List<Callable<Void>> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = (int) ((long) total * i / count) + 1;
+            int to = (int) ((long) total * (i + 1) / count);
+            if (from <= to)
+                list.add(task.make(from, to));
+        }
+        return list;
+    }
+
+    // Writes a table in parts from several threads, and joins them in order
+    private void writeParts(Path directory, String fileName, String header, int total, PartWriter partWriter)
+            throws IOException {
+        List<Path> parts = new ArrayList<>();
+        List<Callable<Void>> tasks = chunks(total, (from, to) -> {
+            Path part = directory.resolve(fileName + "." + from + ".part");
+            parts.add(part);
+            return () -> {
+                try (BufferedWriter writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+                    partWriter.write(from, to, writer);
+                }
+                return null;
+            };
+        });
+
+        try {
+            runInParallel(tasks);
+        } catch (SQLException e) {
+            throw new IOException(e);
+        }
+
+        try (OutputStream out = Files.newOutputStream(directory.resolve(fileName))) {
+            out.write(header.getBytes(StandardCharsets.UTF_8));
+            for (Path part : parts) {
+                Files.copy(part, out);
+                Files.delete(part);
+            }
+        }
+    }
+
+    private void runInParallel(List<Callable<Void>> tasks) throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = executor.invokeAll(tasks);
+            for (Future<Void> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while making the dataset", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException)
+                throw (SQLException) cause;
+            if (cause instanceof IOException)
+                throw new SQLException(cause);
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new SQLException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface ChunkTask {
+        Callable<Void> make(int from, int to);
+    }
+
+    private interface PartWriter {
+        void write(int from, int to, BufferedWriter writer) throws Exception;
+    }
+
+    private interface CustomerWriter {
+        void write(int id, String name, String address, String postalCode, String phone, int divisionID)
+                throws Exception;
+    }
+
+    private interface AppointmentWriter {
+        void write(int id, int contactID, int customerID, int userID, String type, String location,
+                   LocalDateTime start, LocalDateTime end) throws Exception;
+    }
+}
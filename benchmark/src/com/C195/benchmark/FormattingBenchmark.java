@@ -0,0 +1,59 @@
+package com.C195.benchmark;
+
+import com.C195.model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the times shown in the appointment tables.
+ *
+ * <p> This class times formatting the start and end times of 1,000 appointments, as the appointment tables do for
+ * the rows they show. It needs no database. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FormattingBenchmark {
+    private static final int APPOINTMENTS = 1000;
+
+    private final List<Appointment> appointments = new ArrayList<>(APPOINTMENTS);
+
+    @Setup
+    public void makeAppointments() {
+        LocalDateTime start = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            LocalDateTime time = start.plusMinutes(30L * i);
+            appointments.add(new Appointment(i + 1, "Benchmark", "Benchmark", "Benchmark", "Benchmark", time,
+                    time.plusMinutes(30), 1, 1, 1));
+        }
+    }
+
+    @Benchmark
+    public void getStringStartTime(Blackhole blackhole) {
+        for (Appointment appointment : appointments)
+            blackhole.consume(appointment.getStringStartTime());
+    }
+
+    @Benchmark
+    public void getStringEndTime(Blackhole blackhole) {
+        for (Appointment appointment : appointments)
+            blackhole.consume(appointment.getStringEndTime());
+    }
+}
@@ -0,0 +1,69 @@
+package com.C195.benchmark;
+
+import com.C195.controller.ReportsScreen;
+import com.C195.helper.DAOHelper;
+import com.C195.model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the totals of the reports screen.
+ *
+ * <p> This class times the counting of a customer's appointments in the month on its own, and with the queries
+ * ReportsScreen runs each time a customer is selected, which together are what setTotalAppointments() does. There
+ * are ten appointments for each customer. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReportBenchmark {
+    @Param({"1000", "100000"})
+    public int appointments;
+
+    private List<Appointment> allAppointments;
+    private int customerID;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        BenchmarkDatabase.open(appointments / 10, appointments);
+        allAppointments = DAOHelper.getAllAppointments();
+        customerID = allAppointments.get(appointments / 2).getCustomerID();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public int countMonthAppointments() {
+        return ReportsScreen.countMonthAppointments(allAppointments, customerID, LocalDateTime.now());
+    }
+
+    @Benchmark
+    public void selectCustomer(Blackhole blackhole) {
+        blackhole.consume(DAOHelper.appointmentTypeTotal(customerID));
+        blackhole.consume(ReportsScreen.countMonthAppointments(DAOHelper.getAllAppointments(), customerID,
+                LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,207 @@
+package com.C195.benchmark;
+
+import com.C195.controller.AppointmentsInfo;
+import com.C195.controller.ReportsScreen;
+import com.C195.helper.BookingResult;
+import com.C195.helper.DAOHelper;
+import com.C195.helper.ErrorAlert;
+import com.C195.helper.LatencyHistogram;
+import com.C195.model.Appointment;
+import com.C195.model.Customer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Times whole workflows of the app against an embedded database.
+ *
+ * <p> This class fills a BenchmarkDatabase and then runs the steps a user takes through the app, in order, many
+ * times: logging in, loading the appointments screen, showing the week and the month, searching, booking an
+ * appointment, and opening the reports screen for a customer. Each step runs the same DAOHelper, ErrorAlert, and
+ * controller code as the screens, without showing them, so it runs headless. The p50, p95, and p99 latency of each
+ * step and of the whole workflow are printed and added to scenario_results.csv, so builds can be compared on the
+ * same dataset. </p>
+ * <p> The dataset and the runs are set with system properties:
+ * com.C195.scenario.appointments (10,000), com.C195.scenario.customers (a tenth of the appointments),
+ * com.C195.scenario.contacts (enough to book two years of appointments, and at least ten),
+ * com.C195.scenario.iterations (50), com.C195.scenario.warmup (5), and com.C195.scenario.label, which names the build
+ * in the results. The database is in memory, so a dataset of 10,000,000 appointments needs a heap of several
+ * gigabytes, such as -Xmx16g. </p>
+ */
+public abstract class ScenarioBenchmark {
+    private static final Path RESULTS = Paths.get("scenario_results.csv");
+    private static final int HOURS_PER_DAY = 9;
+    private static final int DAYS = 730;
+
+    /**
+     * Runs the scenario.
+     *
+     * @param args Not used
+     * @throws SQLException Exceptions from making the database
+     */
+    public static void main(String[] args) throws SQLException {
+        int appointments = Integer.getInteger("com.C195.scenario.appointments", 10_000);
+        int customers = Integer.getInteger("com.C195.scenario.customers", Math.max(1, appointments / 10));
+        int contacts = Integer.getInteger("com.C195.scenario.contacts",
+                Math.max(BenchmarkDatabase.DEFAULT_CONTACTS, appointments / (HOURS_PER_DAY * DAYS)));
+        int iterations = Integer.getInteger("com.C195.scenario.iterations", 50);
+        int warmup = Integer.getInteger("com.C195.scenario.warmup", 5);
+        String label = System.getProperty("com.C195.scenario.label", "");
+
+        System.out.printf("Filling the database with %,d appointments, %,d customers, and %,d contacts%n",
+                appointments, customers, contacts);
+        long start = System.nanoTime();
+        BenchmarkDatabase.open(customers, contacts, appointments);
+        System.out.printf("Filled in %,d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        Scenario scenario = new Scenario(customers, contacts);
+        for (int i = 0; i < warmup; i++)
+            scenario.run();
+        scenario.reset();
+        for (int i = 0; i < iterations; i++)
+            scenario.run();
+
+        BenchmarkDatabase.close();
+        report(scenario, label, appointments, customers, contacts);
+        System.exit(0);
+    }
+
+    private static void report(Scenario scenario, String label, int appointments, int customers, int contacts) {
+        System.out.printf("%n%-20s %8s %12s %12s %12s %12s%n", "Step", "Runs", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        StringBuilder csv = new StringBuilder();
+        LocalDateTime now = LocalDateTime.now();
+
+        scenario.steps.forEach((step, latency) -> {
+            System.out.printf(Locale.ROOT, "%-20s %8d %12.2f %12.2f %12.2f %12.2f%n", step, latency.getCount(),
+                    toMillis(latency.getPercentileNanos(50)), toMillis(latency.getPercentileNanos(95)),
+                    toMillis(latency.getPercentileNanos(99)), toMillis(latency.getMaxNanos()));
+            csv.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%s,%d,%.3f,%.3f,%.3f,%.3f%n", now, label,
+                    appointments, customers, contacts, step, latency.getCount(),
+                    toMillis(latency.getPercentileNanos(50)), toMillis(latency.getPercentileNanos(95)),
+                    toMillis(latency.getPercentileNanos(99)), toMillis(latency.getMaxNanos())));
+        });
+
+        try {
+            if (!Files.exists(RESULTS))
+                Files.writeString(RESULTS, "Time,Label,Appointments,Customers,Contacts,Step,Runs,P50_Ms,P95_Ms," +
+                        "P99_Ms,Max_Ms" + System.lineSeparator(), StandardCharsets.UTF_8);
+            try (BufferedWriter writer = Files.newBufferedWriter(RESULTS, StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND)) {
+                writer.write(csv.toString());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // The steps of one pass through the app, each with the latency of its runs
+    private static class Scenario {
+        private final Map<String, LatencyHistogram> steps = new LinkedHashMap<>();
+        private final int customers;
+        private final int contacts;
+        private int run;
+
+        Scenario(int customers, int contacts) {
+            this.customers = customers;
+            this.contacts = contacts;
+            for (String step : new String[]{"login", "loadAppointments", "filterWeek", "filterMonth", "search",
+                    "book", "report", "workflow"})
+                steps.put(step, new LatencyHistogram());
+        }
+
+        void run() {
+            long start = System.nanoTime();
+            int userID = run % contacts + 1;
+            int customerID = run % customers + 1;
+
+            // LoginScreen.onLogin()
+            time("login", () -> {
+                String userName = "user" + userID;
+                if (!DAOHelper.validateUserName(userName) ||
+                        !DAOHelper.validateLogin(userName, BenchmarkDatabase.PASSWORD))
+                    throw new IllegalStateException("Could not log in as " + userName);
+                return userName;
+            });
+
+            // AppointmentsInfo.initialize()
+            time("loadAppointments", () -> AppointmentsInfo.rowsOf(DAOHelper.getAllAppointments(),
+                    appointment -> true, null, null));
+
+            // AppointmentsInfo.onCurrentWeekRadio()
+            time("filterWeek", () -> {
+                LocalDateTime now = LocalDateTime.now();
+                return AppointmentsInfo.rowsOf(DAOHelper.getAllAppointments(), AppointmentsInfo.weekFilter(now),
+                        now, now.plusWeeks(1));
+            });
+
+            // AppointmentsInfo.onCurrentMonthRadio()
+            time("filterMonth", () -> {
+                LocalDateTime startOfMonth = LocalDateTime.now().toLocalDate().withDayOfMonth(1).atStartOfDay();
+                return AppointmentsInfo.rowsOf(DAOHelper.getAllAppointments(),
+                        AppointmentsInfo.monthFilter(startOfMonth), startOfMonth, startOfMonth.plusMonths(1));
+            });
+
+            // AppointmentsInfo.onAppointmentSearch()
+            time("search", () -> AppointmentsInfo.searchAppointments(DAOHelper.getAllAppointments(), "review"));
+
+            // AppointmentAddUpdate.onSave(), in a slot of its own so every run books
+            time("book", () -> {
+                LocalDateTime slot = BenchmarkDatabase.getFreeStart(run);
+                String errorMessage = ErrorAlert.appointmentFormValidation(-1, "Scenario", "Scenario",
+                        "Phoenix, Arizona", "Planning Session", Integer.toString(customerID),
+                        Integer.toString(userID), userID, slot, slot.plusHours(1), null);
+                if (!errorMessage.isEmpty())
+                    throw new IllegalStateException(errorMessage);
+
+                BookingResult result = DAOHelper.bookAppointment(new Appointment(-1, "Scenario", "Scenario",
+                        "Phoenix, Arizona", "Planning Session", slot, slot.plusHours(1), customerID, userID,
+                        userID));
+                if (!result.isBooked())
+                    throw new IllegalStateException(result.toString());
+                return result;
+            });
+
+            // ReportsScreen.initialize() and selecting a customer
+            time("report", () -> {
+                List<Customer> customerList = DAOHelper.getAllCustomers();
+                DAOHelper.customersPerCountry();
+                DAOHelper.appointmentTypeTotal(customerID);
+                return customerList.size() + ReportsScreen.countMonthAppointments(DAOHelper.getAllAppointments(),
+                        customerID, LocalDateTime.now());
+            });
+
+            steps.get("workflow").record(System.nanoTime() - start);
+            run++;
+        }
+
+        void reset() {
+            steps.values().forEach(LatencyHistogram::reset);
+        }
+
+        private void time(String step, Supplier<Object> action) {
+            long start = System.nanoTime();
+            Object result = action.get();
+            steps.get(step).record(System.nanoTime() - start);
+
+            // Keeps the result from being optimized away
+            if (result == null)
+                throw new IllegalStateException(step + " returned nothing");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.C195.benchmark;
+
+import com.C195.controller.AppointmentsInfo;
+import com.C195.controller.CustomerInfo;
+import com.C195.helper.DAOHelper;
+import com.C195.model.Appointment;
+import com.C195.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the searches of the customer and appointment screens.
+ *
+ * <p> This class times the loops CustomerInfo and AppointmentsInfo search their lists with, by part of a name or
+ * title and by ID. The lists are read once, so only the searches are timed. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private List<Customer> customers;
+    private List<Appointment> appointments;
+    private String searchID;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        BenchmarkDatabase.open(rows, rows);
+        customers = DAOHelper.getAllCustomers();
+        appointments = DAOHelper.getAllAppointments();
+        searchID = Integer.toString(rows / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public List<Customer> searchCustomersByName() {
+        return CustomerInfo.searchCustomers(customers, "costa");
+    }
+
+    @Benchmark
+    public List<Customer> searchCustomersByID() {
+        return CustomerInfo.searchCustomers(customers, searchID);
+    }
+
+    @Benchmark
+    public List<Appointment> searchAppointmentsByTitle() {
+        return AppointmentsInfo.searchAppointments(appointments, "review");
+    }
+
+    @Benchmark
+    public List<Appointment> searchAppointmentsByID() {
+        return AppointmentsInfo.searchAppointments(appointments, searchID);
+    }
+}
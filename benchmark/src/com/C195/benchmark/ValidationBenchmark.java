@@ -0,0 +1,80 @@
+package com.C195.benchmark;
+
+import com.C195.helper.DAOHelper;
+import com.C195.helper.ErrorAlert;
+import com.C195.model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for checking the appointment form.
+ *
+ * <p> This class times ErrorAlert.appointmentFormValidation() with 10, 1,000, and 100,000 appointments already
+ * booked, for a new appointment at a free time, which the availability bitmaps clear without looking for overlaps, for
+ * an appointment being updated, and for a new appointment that overlaps one already booked, which both look for the
+ * overlapping appointments. </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ValidationBenchmark {
+    private static final int CUSTOMERS = 1000;
+
+    @Param({"10", "1000", "100000"})
+    public int appointments;
+
+    private Appointment existing;
+    private LocalDateTime freeStart;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        BenchmarkDatabase.open(CUSTOMERS, appointments);
+        existing = DAOHelper.getAllAppointments().get(appointments / 2);
+        freeStart = BenchmarkDatabase.getFreeStart(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        BenchmarkDatabase.close();
+    }
+
+    @Benchmark
+    public String validateFreeAppointment() {
+        return ErrorAlert.appointmentFormValidation(-1, "Benchmark", "Benchmark", existing.getLocation(),
+                existing.getType(), Integer.toString(existing.getCustomerID()), Integer.toString(existing.getUserID()),
+                existing.getContactID(), freeStart, freeStart.plusHours(1), null);
+    }
+
+    @Benchmark
+    public String validateUpdatedAppointment() {
+        return ErrorAlert.appointmentFormValidation(existing.getAppointmentID(), existing.getTitle(),
+                existing.getDescription(), existing.getLocation(), existing.getType(),
+                Integer.toString(existing.getCustomerID()), Integer.toString(existing.getUserID()),
+                existing.getContactID(), existing.getStartTime(), existing.getEndTime(), null);
+    }
+
+    @Benchmark
+    public String validateOverlappingAppointment() {
+        return ErrorAlert.appointmentFormValidation(-1, "Benchmark", "Benchmark", existing.getLocation(),
+                existing.getType(), Integer.toString(existing.getCustomerID()), Integer.toString(existing.getUserID()),
+                existing.getContactID(), existing.getStartTime(), existing.getEndTime(), null);
+    }
+}
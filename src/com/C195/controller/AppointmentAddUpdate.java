@@ -1,21 +1,31 @@
 package com.C195.controller;
 
+import com.C195.helper.BookingResult;
+import com.C195.helper.BusinessCalendar;
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
+import com.C195.helper.IntObjectMap;
 import com.C195.helper.NavigationHelper;
+import com.C195.helper.SlotFinder;
 import com.C195.model.Appointment;
 import com.C195.model.Contact;
+import com.C195.model.RecurrenceRule;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 
 import java.net.URL;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -64,12 +74,26 @@ public class AppointmentAddUpdate implements Initializable {
     private Appointment updateAppointment;
     private boolean isUpdate = false;
     private ObservableList<Contact> contactList;
+    private IntObjectMap<Contact> contactsByID;
+    private ComboBox<String> repeatCombo;
+    private TextField repeatCountTextfield;
+    private DatePicker repeatUntilPicker;
+
+    // Length used for suggested times when the form does not have a valid start and end yet
+    private static final Duration DEFAULT_LENGTH = Duration.ofMinutes(30);
+    // How many days ahead suggested times are searched for, and how many are offered
+    private static final int SUGGESTION_DAYS = 14;
+    private static final int SUGGESTION_COUNT = 10;
+    // Choices of the repeat selector. The first does not repeat, the rest are RecurrenceRule.Frequency in order.
+    private static final String[] REPEAT_CHOICES = {"Does not repeat", "Daily", "Weekly", "Monthly"};
 
     /**
      * The initializer for the controller.
      *
      * <p> This method initializes the controller class. It populates the combo boxes for selecting contacts and a time
-     * within the business hours of the organization. Business hours are found in the Appointment class. </p>
+     * within the business hours of the organization. Business hours are found in BusinessCalendar, and the hours
+     * offered run from the earliest any contact or location opens to the latest any closes. It also adds
+     * the button that suggests open times and the selectors for how the appointment repeats. </p>
      * @param url The location for the controller
      * @param resourceBundle The resources for the controller
      */
@@ -80,6 +104,7 @@ public class AppointmentAddUpdate implements Initializable {
         ObservableList<Integer> endHoursList;
         ObservableList<Integer> endMinutesList;
         contactList = DAOHelper.getAllContacts();
+        contactsByID = IntObjectMap.index(contactList, Contact::getContactID);
         selectContactCombo.setItems(contactList);
 
         //Populate the time selectors
@@ -87,8 +112,11 @@ public class AppointmentAddUpdate implements Initializable {
         startMinutesList = FXCollections.observableArrayList();
         endHoursList = FXCollections.observableArrayList();
         endMinutesList = FXCollections.observableArrayList();
-        ZonedDateTime businessStart = Appointment.BUSINESS_HOURS_START.withZoneSameInstant(ZoneId.systemDefault());
-        ZonedDateTime businessEnd = Appointment.BUSINESS_HOURS_END.withZoneSameInstant(ZoneId.systemDefault());
+        LocalDate businessToday = BusinessCalendar.toBusinessTime(LocalDateTime.now()).toLocalDate();
+        LocalDateTime businessStart = BusinessCalendar.toLocalTime(LocalDateTime.of(businessToday,
+                BusinessCalendar.getEarliestOpen()));
+        LocalDateTime businessEnd = BusinessCalendar.toLocalTime(LocalDateTime.of(businessToday,
+                BusinessCalendar.getLatestClose()));
 
         //Populate Hours
         while (businessStart.compareTo(businessEnd) < 0) {
@@ -108,6 +136,138 @@ public class AppointmentAddUpdate implements Initializable {
         startMinutesCombo.setItems(startMinutesList);
         endHoursCombo.setItems(endHoursList);
         endMinutesCombo.setItems(endMinutesList);
+
+        addSuggestTimesButton();
+        addRepeatControls();
+    }
+
+    /**
+     * Adds the selectors for how the appointment repeats to the form.
+     *
+     * <p> This method places a row with a repeat selector, a number of times, and an end date above the add or
+     * update button. The number of times and end date are optional and can only be entered when the appointment
+     * repeats. In a pane that does not lay out its children, the row is kept above the button's right edge as it
+     * moves. </p>
+     */
+    private void addRepeatControls() {
+        repeatCombo = new ComboBox<>(FXCollections.observableArrayList(REPEAT_CHOICES));
+        repeatCombo.getSelectionModel().selectFirst();
+        repeatCountTextfield = new TextField();
+        repeatCountTextfield.setPromptText("Times");
+        repeatCountTextfield.setPrefColumnCount(4);
+        repeatUntilPicker = new DatePicker();
+        repeatUntilPicker.setPromptText("Until");
+
+        repeatCountTextfield.disableProperty().bind(repeatCombo.getSelectionModel().selectedIndexProperty()
+                .lessThanOrEqualTo(0));
+        repeatUntilPicker.disableProperty().bind(repeatCountTextfield.disableProperty());
+
+        if (!(addUpdateAppointment.getParent() instanceof Pane))
+            return;
+
+        HBox repeatRow = new HBox(10, new Label("Repeats:"), repeatCombo, repeatCountTextfield, repeatUntilPicker);
+        Pane parent = (Pane) addUpdateAppointment.getParent();
+        parent.getChildren().add(parent.getChildren().indexOf(addUpdateAppointment), repeatRow);
+
+        if (parent.getClass() == Pane.class || parent instanceof AnchorPane) {
+            repeatRow.setManaged(false);
+            addUpdateAppointment.boundsInParentProperty().addListener((observable, oldValue, newValue) -> {
+                repeatRow.autosize();
+                repeatRow.relocate(newValue.getMaxX() - repeatRow.getWidth(),
+                        newValue.getMinY() - repeatRow.getHeight() - 10);
+            });
+        }
+    }
+
+    /**
+     * Adds the button that suggests open times to the form.
+     *
+     * <p> This method places a Suggest Times button beside the add or update button. In a layout pane the button is
+     * inserted before it. In a pane that does not lay out its children, the button is kept to its left as it
+     * moves. </p>
+     */
+    private void addSuggestTimesButton() {
+        if (!(addUpdateAppointment.getParent() instanceof Pane))
+            return;
+
+        Button suggestTimesButton = new Button("Suggest Times");
+        suggestTimesButton.setOnAction(this::onSuggestTimes);
+
+        Pane parent = (Pane) addUpdateAppointment.getParent();
+        parent.getChildren().add(parent.getChildren().indexOf(addUpdateAppointment), suggestTimesButton);
+
+        if (parent.getClass() == Pane.class || parent instanceof AnchorPane) {
+            suggestTimesButton.setManaged(false);
+            addUpdateAppointment.boundsInParentProperty().addListener((observable, oldValue, newValue) -> {
+                suggestTimesButton.autosize();
+                suggestTimesButton.relocate(newValue.getMinX() - suggestTimesButton.getWidth() - 10,
+                        newValue.getMinY());
+            });
+        }
+    }
+
+    /**
+     * Suggests open times for the appointment.
+     *
+     * <p> This method finds the earliest times within business hours when the customer, contact, and user in the form
+     * are all free, starting from the selected start date, and lets the user pick one. The picked time is filled into
+     * the date and time selectors. The length of the appointment is taken from the selected start and end, or is 30
+     * minutes if they are not set. </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onSuggestTimes(ActionEvent actionEvent) {
+        int customerID;
+        try {
+            customerID = Integer.parseInt(customerTextfield.getText());
+        } catch (NumberFormatException e) {
+            ErrorAlert.invalidForm("Customer ID must be a valid integer. ");
+            return;
+        }
+
+        if (selectContactCombo.getSelectionModel().isEmpty()) {
+            ErrorAlert.selectionError("a contact");
+            return;
+        }
+
+        // The user is optional. Without one only the customer and contact are checked.
+        int userID = -1;
+        try {
+            userID = Integer.parseInt(userTextfield.getText());
+        } catch (NumberFormatException e) {
+            // userTextfield is not a valid integer
+        }
+
+        Duration length = DEFAULT_LENGTH;
+        if (startDatePicker.getValue() != null && endDatePicker.getValue() != null &&
+                !startHoursCombo.getSelectionModel().isEmpty() && !endHoursCombo.getSelectionModel().isEmpty()) {
+            LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(), LocalTime.of(startHoursCombo.getValue(),
+                    startMinutesCombo.getValue() == null ? 0 : startMinutesCombo.getValue()));
+            LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(), LocalTime.of(endHoursCombo.getValue(),
+                    endMinutesCombo.getValue() == null ? 0 : endMinutesCombo.getValue()));
+
+            if (end.isAfter(start))
+                length = Duration.between(start, end);
+        }
+
+        LocalDate firstDate = startDatePicker.getValue() == null ? LocalDate.now() : startDatePicker.getValue();
+        List<LocalDateTime> slots = SlotFinder.findFreeSlots(customerID, selectContactCombo.getValue().getContactID(),
+                locationTextfield.getText(), userID, length, firstDate, firstDate.plusDays(SUGGESTION_DAYS - 1), SUGGESTION_COUNT,
+                isUpdate ? updateAppointment.getAppointmentID() : -1);
+
+        LocalDateTime chosen = ErrorAlert.chooseSuggestedTime(slots, length);
+        if (chosen == null)
+            return;
+
+        LocalDateTime chosenEnd = chosen.plus(length);
+        startDatePicker.setValue(chosen.toLocalDate());
+        startHoursCombo.setValue(chosen.getHour());
+        startMinutesCombo.setValue(chosen.getMinute());
+        endDatePicker.setValue(chosenEnd.toLocalDate());
+        endHoursCombo.setValue(chosenEnd.getHour());
+        endMinutesCombo.setValue(chosenEnd.getMinute());
+
+        onStartTimeSelect(actionEvent);
+        onEndTimeSelect(actionEvent);
     }
 
     /**
@@ -116,7 +276,7 @@ public class AppointmentAddUpdate implements Initializable {
      * <p> This method is used by the AppointmentsInfo controller to pass the user selected Appointment to this
      * controller. It fills in the fields in the form with the relevant information from the Appointment. It also
      * uses a boolean to alert this controller that the user is modifying an appointment instead of adding
-     * one. </p>
+     * one. For a recurring appointment the form shows its first occurrence and how it repeats. </p>
      * @param updateAppointment The Appointment the user wants to modify
      */
     public void setUpdateAppointment(Appointment updateAppointment) {
@@ -133,14 +293,10 @@ public class AppointmentAddUpdate implements Initializable {
         typeTextfield.setText(updateAppointment.getType());
         customerTextfield.setText(Integer.toString(updateAppointment.getCustomerID()));
         userTextfield.setText(Integer.toString(updateAppointment.getUserID()));
-        
-        Contact updateContact = DAOHelper.getContactFromID(updateAppointment.getContactID());
-        for (Contact contact : contactList) {
-            if (contact.getContactID() == updateContact.getContactID()) {
-                selectContactCombo.setValue(contact);
-                break;
-            }
-        }
+
+        Contact updateContact = contactsByID.get(updateAppointment.getContactID());
+        if (updateContact != null)
+            selectContactCombo.setValue(updateContact);
 
         // Database driver automatically converts from database time zone to local time zone
         LocalDateTime startDateTime = updateAppointment.getStartTime();
@@ -152,6 +308,13 @@ public class AppointmentAddUpdate implements Initializable {
         startMinutesCombo.setValue(startDateTime.getMinute());
         endHoursCombo.setValue(endDateTime.getHour());
         endMinutesCombo.setValue(endDateTime.getMinute());
+
+        RecurrenceRule recurrence = updateAppointment.getRecurrence();
+        if (recurrence != null) {
+            repeatCombo.getSelectionModel().select(recurrence.getFrequency().ordinal() + 1);
+            repeatCountTextfield.setText(recurrence.getCount() > 0 ? Integer.toString(recurrence.getCount()) : "");
+            repeatUntilPicker.setValue(recurrence.getUntil());
+        }
     }
 
     /**
@@ -159,7 +322,8 @@ public class AppointmentAddUpdate implements Initializable {
      *
      * <p> This method creates a new Appointment or modifies the selected Appointment using the information given by
      * the user. If the information doesn't pass the validation check, an alert is displayed with relevant information.
-     * If the information is valid, the database is updated. </p>
+     * If the information is valid, the database is updated and the user is returned to the appointment information
+     * screen, which shows the change without reloading. </p>
      * @param actionEvent The event that called the method
      */
     public void onAddUpdateAppointment(ActionEvent actionEvent) {
@@ -204,9 +368,35 @@ public class AppointmentAddUpdate implements Initializable {
         if (isUpdate)
             appointmentID = updateAppointment.getAppointmentID();
 
+        RecurrenceRule recurrence = null;
+        int repeatChoice = repeatCombo.getSelectionModel().getSelectedIndex();
+        if (repeatChoice > 0) {
+            int count = 0;
+            if (!repeatCountTextfield.getText().isBlank()) {
+                try {
+                    count = Integer.parseInt(repeatCountTextfield.getText().trim());
+                } catch (NumberFormatException e) {
+                    count = -1;
+                }
+
+                if (count < 1) {
+                    ErrorAlert.invalidForm("Repeat times must be a positive integer. ");
+                    return;
+                }
+            }
+
+            // The interval, days, and cancelled dates are not in the form, so an update keeps the ones it had
+            RecurrenceRule.Frequency frequency = RecurrenceRule.Frequency.values()[repeatChoice - 1];
+            RecurrenceRule previous = isUpdate ? updateAppointment.getRecurrence() : null;
+            boolean isSameFrequency = previous != null && previous.getFrequency() == frequency;
+            recurrence = new RecurrenceRule(frequency, isSameFrequency ? previous.getInterval() : 1, count,
+                    repeatUntilPicker.getValue(), isSameFrequency ? previous.getDays() : null,
+                    previous != null ? previous.getExceptions() : Collections.emptyList());
+        }
+
         //Validate form information
         String errorMessage = ErrorAlert.appointmentFormValidation(appointmentID, title, description, location, type, customerID,
-                userID, start, end);
+                userID, contact.getContactID(), start, end, recurrence);
         if (!errorMessage.isEmpty()) {
             ErrorAlert.invalidForm(errorMessage);
             return;
@@ -214,13 +404,19 @@ public class AppointmentAddUpdate implements Initializable {
 
         Appointment appointment = new Appointment(appointmentID, title, description, location, type, start, end,
                 Integer.parseInt(customerID), Integer.parseInt(userID), contact.getContactID());
+        appointment.setRecurrence(recurrence);
+
+        // Add or Update appointment based on its ID, checking for overlaps in the same transaction
+        BookingResult result = DAOHelper.bookAppointment(appointment);
 
-        // Add or Update appointment based on isUpdate
-        if (isUpdate) {
-            DAOHelper.updateAppointment(appointment);
+        if (result.getStatus() == BookingResult.Status.CONFLICT) {
+            ErrorAlert.bookingConflict(result);
+            return;
         }
-        else {
-            DAOHelper.addAppointment(appointment);
+
+        if (!result.isBooked()) {
+            ErrorAlert.databaseError("save the appointment");
+            return;
         }
 
         NavigationHelper.viewAppointmentsInfo(this, actionEvent);
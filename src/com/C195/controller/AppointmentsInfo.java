@@ -1,10 +1,18 @@
 package com.C195.controller;
 
+import com.C195.event.AppointmentEvent;
+import com.C195.event.CustomerEvent;
+import com.C195.event.EventBus;
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
+import com.C195.helper.IntObjectMap;
+import com.C195.helper.NameCache;
 import com.C195.helper.NavigationHelper;
+import com.C195.helper.ScheduleIndex;
 import com.C195.model.Appointment;
 import com.C195.model.Customer;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -16,21 +24,30 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Controller for the screen that lets users view appointments.
  *
  * <p> This class is the controller for the GUI screen that displays appointments and their information. It allows the
- * user to search, add, modify, or delete those appointments. </p>
+ * user to search, add, modify, or delete those appointments. A recurring appointment is one row when all
+ * appointments are shown. The week and month views show a row for each of its occurrences in the week or month, which
+ * are only worked out for those dates. </p>
  */
 public class AppointmentsInfo implements Initializable {
     @FXML
@@ -62,12 +79,31 @@ public class AppointmentsInfo implements Initializable {
     @FXML
     private Button viewAllAppointmentsButton;
 
+    private final TableColumn<Appointment, String> contactNameColumn = new TableColumn<>("Contact Name");
+    private final TableColumn<Appointment, String> customerNameColumn = new TableColumn<>("Customer Name");
+    private final TableColumn<Appointment, String> userNameColumn = new TableColumn<>("User Name");
+    private final TableColumn<Appointment, String> repeatsColumn = new TableColumn<>("Repeats");
+
     private ObservableList<Appointment> appointments = FXCollections.observableArrayList();
 
+    // Decides which appointments belong in the table, so changes can be applied without reloading it
+    private Predicate<Appointment> viewFilter = appointment -> true;
+
+    // The dates the view shows occurrences of recurring appointments for, or null to show each series as one row
+    private LocalDateTime windowStart = null;
+    private LocalDateTime windowEnd = null;
+
+    // Most changes that can wait to be applied before the table is reloaded instead
+    private static final int EVENT_QUEUE_CAPACITY = 4096;
+
+    private EventBus.Subscription appointmentSubscription;
+    private EventBus.Subscription customerSubscription;
+
     /**
      * The initializer for the controller.
      *
-     * <p> This method initializes the controller class. It sets up the table view to show the appointments. </p>
+     * <p> This method initializes the controller class. It sets up the table view to show the appointments and
+     * listens for changes to appointments and customers so the table can be kept up to date. </p>
      * @param url The location for the controller
      * @param resourceBundle The resources for the controller
      */
@@ -90,6 +126,248 @@ public class AppointmentsInfo implements Initializable {
         contactColumn.setCellValueFactory(new PropertyValueFactory<>("contactID"));
         customerIDColumn.setCellValueFactory(new PropertyValueFactory<>("customerID"));
         userIDColumn.setCellValueFactory(new PropertyValueFactory<>("userID"));
+
+        // Name columns are resolved through NameCache so no query is made per row
+        contactNameColumn.setCellValueFactory(cell ->
+                new ReadOnlyStringWrapper(NameCache.getContactName(cell.getValue().getContactID())));
+        customerNameColumn.setCellValueFactory(cell ->
+                new ReadOnlyStringWrapper(NameCache.getCustomerName(cell.getValue().getCustomerID())));
+        userNameColumn.setCellValueFactory(cell ->
+                new ReadOnlyStringWrapper(NameCache.getUserName(cell.getValue().getUserID())));
+        repeatsColumn.setCellValueFactory(cell -> new ReadOnlyStringWrapper(cell.getValue().isRecurring() ?
+                cell.getValue().getRecurrence().describe() : ""));
+
+        addColumnAfter(contactColumn, contactNameColumn);
+        addColumnAfter(customerIDColumn, customerNameColumn);
+        addColumnAfter(userIDColumn, userNameColumn);
+        addColumnAfter(endDateColumn, repeatsColumn);
+
+        appointmentSubscription = EventBus.subscribeAsync(AppointmentEvent.class, this::onAppointmentEvents,
+                Platform::runLater, EVENT_QUEUE_CAPACITY, 0);
+        customerSubscription = EventBus.subscribeAsync(CustomerEvent.class, this::onCustomerEvents,
+                Platform::runLater, EVENT_QUEUE_CAPACITY, 0);
+
+        addRefreshButton();
+    }
+
+    /**
+     * Adds a button that reloads the table.
+     *
+     * <p> This method places the button after the search field. In a pane that does not lay out its children, the
+     * button is kept to the right of the field as it moves. </p>
+     */
+    private void addRefreshButton() {
+        if (!(appointmentSearch.getParent() instanceof Pane))
+            return;
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(this::onRefresh);
+
+        Pane parent = (Pane) appointmentSearch.getParent();
+        parent.getChildren().add(parent.getChildren().indexOf(appointmentSearch) + 1, refreshButton);
+
+        if (parent.getClass() == Pane.class || parent instanceof AnchorPane) {
+            refreshButton.setManaged(false);
+            appointmentSearch.boundsInParentProperty().addListener((observable, oldValue, newValue) -> {
+                refreshButton.autosize();
+                refreshButton.relocate(newValue.getMaxX() + 10, newValue.getMinY());
+            });
+        }
+    }
+
+    /**
+     * Reloads the appointments.
+     *
+     * <p> This method is called by the Refresh button, so appointments other computers added or changed can be seen.
+     * See reload(). </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onRefresh(ActionEvent actionEvent) {
+        reload();
+    }
+
+    /**
+     * Reloads the table.
+     *
+     * <p> This method reads the appointments of the current view from the database again. Changes made by this
+     * program are applied from the EventBus, so the table is only reloaded when the user asks for it or when events
+     * were dropped. ScheduleIndex is read again as well the next time it is used, so the appointments other computers
+     * saved are also checked for conflicts, and the names of their customers, contacts, and users are read again
+     * so they are not left blank. </p>
+     */
+    private void reload() {
+        ScheduleIndex.invalidate();
+        NameCache.invalidateCustomers();
+        NameCache.invalidateContacts();
+        NameCache.invalidateUsers();
+        showAppointments(viewFilter, windowStart, windowEnd);
+    }
+
+    /**
+     * Applies a batch of appointment changes to the table.
+     *
+     * <p> This method adds, replaces, or removes the rows of the changed Appointments, depending on the change and on
+     * whether each Appointment belongs in the current view. The table is walked once for the whole batch and the rest
+     * of it is left as it is. An Appointment with one row before and after the change keeps its place. The rows of a
+     * recurring appointment whose occurrences in the view changed are removed and added again. If events were
+     * dropped, the current view is reloaded instead. </p>
+     * @param events The appointment events, with only the latest event for each Appointment
+     * @param isOverflowed True if events were dropped and the table must be reloaded
+     */
+    private void onAppointmentEvents(List<AppointmentEvent> events, boolean isOverflowed) {
+        if (isOverflowed) {
+            reload();
+            return;
+        }
+
+        IntObjectMap<List<Appointment>> pending = new IntObjectMap<>(events.size());
+        for (AppointmentEvent event : events) {
+            pending.put(event.getEntityID(), event.getAppointment() == null ? Collections.emptyList() :
+                    rowsOf(event.getAppointment()));
+        }
+
+        // Replace the first row of an appointment that still has one row, and collect the other rows of the changed
+        // appointments so they are removed at once
+        IntObjectMap<List<Appointment>> replaced = new IntObjectMap<>();
+        Set<Appointment> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < appointments.size(); i++) {
+            int appointmentID = appointments.get(i).getAppointmentID();
+            List<Appointment> rows = pending.get(appointmentID);
+            if (rows == null)
+                continue;
+
+            if (rows.size() == 1 && !replaced.containsKey(appointmentID)) {
+                appointments.set(i, rows.get(0));
+                replaced.put(appointmentID, rows);
+            } else
+                removed.add(appointments.get(i));
+        }
+
+        if (!removed.isEmpty())
+            appointments.removeIf(removed::contains);
+
+        // Whatever was not replaced is added if it belongs in the view
+        for (AppointmentEvent event : events) {
+            if (!replaced.containsKey(event.getEntityID())) {
+                appointments.addAll(pending.get(event.getEntityID()));
+                replaced.put(event.getEntityID(), Collections.emptyList());
+            }
+        }
+    }
+
+    /**
+     * Gets the rows an appointment has in the current view.
+     *
+     * <p> This method returns the occurrences of a recurring appointment within the view's dates, or the appointment
+     * itself if it does not repeat or the view shows each series as one row, keeping those that pass the view's
+     * filter. </p>
+     * @param appointment The Appointment
+     * @return Returns the rows of the Appointment
+     */
+    private List<Appointment> rowsOf(Appointment appointment) {
+        return rowsOf(appointment, viewFilter, windowStart, windowEnd);
+    }
+
+    private static List<Appointment> rowsOf(Appointment appointment, Predicate<Appointment> filter,
+                                            LocalDateTime start, LocalDateTime end) {
+        List<Appointment> rows = start != null && appointment.isRecurring() ?
+                appointment.occurrencesBetween(start, end) : Collections.singletonList(appointment);
+        List<Appointment> shown = new ArrayList<>(rows.size());
+
+        for (Appointment row : rows) {
+            if (filter.test(row))
+                shown.add(row);
+        }
+
+        return shown;
+    }
+
+    /**
+     * Gets the rows of a view of appointments.
+     *
+     * <p> This method returns the rows the table shows for the given appointments in a view, with the occurrences of
+     * recurring appointments within the view's dates, keeping those that pass the view's filter. It is called by
+     * showAppointments(), and is public so the benchmarks can drive it without a screen. </p>
+     * @param appointments The appointments to show
+     * @param filter The filter the rows must pass
+     * @param start The start of the dates occurrences are shown for, or null to show each series as one row
+     * @param end The end of the dates occurrences are shown for, or null
+     * @return Returns a List of the rows
+     */
+    public static List<Appointment> rowsOf(List<Appointment> appointments, Predicate<Appointment> filter,
+                                           LocalDateTime start, LocalDateTime end) {
+        List<Appointment> rows = new ArrayList<>(appointments.size());
+        for (Appointment current : appointments)
+            rows.addAll(rowsOf(current, filter, start, end));
+
+        return rows;
+    }
+
+    /**
+     * Gets the filter of the month view.
+     *
+     * @param now A time in the month to show
+     * @return Returns a filter passing the appointments that start or end in the month
+     */
+    public static Predicate<Appointment> monthFilter(LocalDateTime now) {
+        return current -> current.getStartTime().getMonth().equals(now.getMonth()) ||
+                current.getEndTime().getMonth().equals(now.getMonth());
+    }
+
+    /**
+     * Gets the filter of the week view.
+     *
+     * @param now The start of the week to show
+     * @return Returns a filter passing the appointments that start or end within a week of the given time
+     */
+    public static Predicate<Appointment> weekFilter(LocalDateTime now) {
+        LocalDateTime endOfWeek = now.plusWeeks(1);
+
+        return current -> {
+            LocalDateTime startTime = current.getStartTime();
+            LocalDateTime endTime = current.getEndTime();
+            return (startTime.isAfter(now) && startTime.isBefore(endOfWeek)) ||
+                    (endTime.isAfter(now) && endTime.isBefore(endOfWeek));
+        };
+    }
+
+    /**
+     * Applies a batch of customer changes to the table.
+     *
+     * <p> This method removes the rows of deleted Customers' Appointments, since deleting a Customer deletes its
+     * Appointments as well, and redraws the customer names when a Customer was renamed. </p>
+     * @param events The customer events, with only the latest event for each Customer
+     * @param isOverflowed True if events were dropped and the table must be reloaded
+     */
+    private void onCustomerEvents(List<CustomerEvent> events, boolean isOverflowed) {
+        if (isOverflowed) {
+            reload();
+            return;
+        }
+
+        IntObjectMap<CustomerEvent> deleted = new IntObjectMap<>();
+        for (CustomerEvent event : events) {
+            if (event.getCustomer() == null)
+                deleted.put(event.getEntityID(), event);
+        }
+
+        if (!deleted.isEmpty())
+            appointments.removeIf(appointment -> deleted.containsKey(appointment.getCustomerID()));
+
+        if (deleted.size() < events.size())
+            appointmentsTable.refresh();
+    }
+
+    /**
+     * Adds a column to the appointments table.
+     *
+     * <p> This method places the given column directly after an existing column of the appointments table. </p>
+     * @param existing The column already in the table
+     * @param column The column to add
+     */
+    private void addColumnAfter(TableColumn<Appointment, ?> existing, TableColumn<Appointment, ?> column) {
+        int index = appointmentsTable.getColumns().indexOf(existing);
+        appointmentsTable.getColumns().add(index + 1, column);
     }
 
     /**
@@ -103,35 +381,23 @@ public class AppointmentsInfo implements Initializable {
         allAppointmentsRadio.setSelected(true);
         String userSearch = appointmentSearch.getText().toLowerCase(Locale.ROOT);
         ObservableList<Appointment> allList = DAOHelper.getAllAppointments();
-        appointments.clear();
+        appointments.setAll(searchAppointments(allList, userSearch));
+        windowStart = null;
+        windowEnd = null;
 
-        // Add all contacts whose name's contain userSearch. Will be all contacts if userSearch is ""
-        for (Appointment appointment : allList) {
-            if (appointment.getTitle().toLowerCase(Locale.ROOT).contains(userSearch))
-                appointments.add(appointment);
-        }
+        viewFilter = appointment -> appointment.getTitle().toLowerCase(Locale.ROOT).contains(userSearch);
 
-        // If no matches for name found, check ID
-        if (appointments.size() == 0) {
-            try {
-                int userID = Integer.parseInt(userSearch);
-
-                for (Appointment appointment: allList) {
-                    if (appointment.getAppointmentID() == userID) {
-                        appointments.add(appointment);
-                        break;
-                    }
-                }
-            } catch (NumberFormatException e) {
-                // userSearch is not a valid integer
-            }
+        // If no matches for title found, the match is the appointment with the ID searched for
+        if (appointments.size() == 1 && !viewFilter.test(appointments.get(0))) {
+            int matchID = appointments.get(0).getAppointmentID();
+            viewFilter = appointment -> appointment.getAppointmentID() == matchID;
         }
 
         if (appointments.size() == 0) {
             ErrorAlert.searchNotFoundError("appointment");
 
-            appointments = allList;
-            appointmentsTable.setItems(appointments);
+            viewFilter = appointment -> true;
+            appointments.addAll(allList);
             return;
         }
 
@@ -140,11 +406,52 @@ public class AppointmentsInfo implements Initializable {
         }
     }
 
+    /**
+     * Finds the appointments that match a search.
+     *
+     * <p> This method returns the appointments whose titles contain the given String, ignoring case, or if none do,
+     * the appointment whose ID is the given String. It returns all the appointments for an empty String. It is called
+     * by onAppointmentSearch(), and is public so the benchmarks can time it. </p>
+     * @param appointments The appointments to search
+     * @param search The partial title or ID to search for
+     * @return Returns a List of the matching Appointments, in the order they were given
+     */
+    public static List<Appointment> searchAppointments(List<Appointment> appointments, String search) {
+        String userSearch = search.toLowerCase(Locale.ROOT);
+        List<Appointment> matches = new ArrayList<>();
+
+        int searchID = -1;
+        boolean isIDSearch = false;
+        try {
+            searchID = Integer.parseInt(userSearch);
+            isIDSearch = true;
+        } catch (NumberFormatException e) {
+            // userSearch is not a valid integer
+        }
+
+        // Add all appointments whose titles contain userSearch. Will be all appointments if userSearch is ""
+        // The ID match is found in the same pass so the list is only scanned once
+        Appointment idMatch = null;
+        for (Appointment appointment : appointments) {
+            if (appointment.getTitle().toLowerCase(Locale.ROOT).contains(userSearch))
+                matches.add(appointment);
+            else if (isIDSearch && idMatch == null && appointment.getAppointmentID() == searchID)
+                idMatch = appointment;
+        }
+
+        // If no matches for title found, use the ID match
+        if (matches.isEmpty() && idMatch != null)
+            matches.add(idMatch);
+
+        return matches;
+    }
+
     /**
      * Loads the form to update an appointment.
      *
      * <p> This method loads the form that allows the user to modify an existing appointment. It passes the selected
-     * Appointment into the AppointmentAddUpdate controller. </p>
+     * Appointment into the AppointmentAddUpdate controller. An occurrence of a recurring appointment updates the whole
+     * series. </p>
      * @param actionEvent The event that called the method
      */
     public void onUpdateAppointment(ActionEvent actionEvent) {
@@ -164,7 +471,7 @@ public class AppointmentsInfo implements Initializable {
 
         AppointmentAddUpdate appointmentAddUpdate = loader.getController();
         Appointment appointment = appointmentsTable.getSelectionModel().getSelectedItem();
-        appointmentAddUpdate.setUpdateAppointment(appointment);
+        appointmentAddUpdate.setUpdateAppointment(appointment.getSeries());
 
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
         stage.setScene(new Scene(root, 1200, 700));
@@ -176,7 +483,9 @@ public class AppointmentsInfo implements Initializable {
      * Deletes the selected appointment.
      *
      * <p> This method deletes the selected appointment from the database. It displays an alert asking for confirmation
-     * and an alert informing the user of the successfully deleted appointment. </p>
+     * and an alert informing the user of the successfully deleted appointment. For a recurring appointment the user
+     * can cancel only the selected occurrence, which is kept as an exception of the series, or delete the whole
+     * series. </p>
      * @param actionEvent The event that called the method
      */
     public void onDeleteAppointment(ActionEvent actionEvent) {
@@ -185,13 +494,31 @@ public class AppointmentsInfo implements Initializable {
             return;
         }
 
-        boolean isConfirmed = ErrorAlert.deleteConfirmation("appointment");
-        if (!isConfirmed)
+        Appointment selected = appointmentsTable.getSelectionModel().getSelectedItem();
+
+        if (selected.isRecurring()) {
+            ButtonType choice = ErrorAlert.deleteRecurringConfirmation();
+            if (choice == ButtonType.CANCEL)
+                return;
+
+            if (choice == ErrorAlert.DELETE_OCCURRENCE) {
+                if (!DAOHelper.addRecurrenceException(selected, selected.getStartTime().toLocalDate())) {
+                    ErrorAlert.databaseError("cancel the appointment");
+                    return;
+                }
+
+                ErrorAlert.appointmentCancelled(selected);
+                return;
+            }
+        } else if (!ErrorAlert.deleteConfirmation("appointment"))
             return;
 
-        Appointment selected = appointmentsTable.getSelectionModel().getSelectedItem();
-        DAOHelper.deleteAppointment(selected.getAppointmentID());
-        appointments.remove(selected);
+        // The row is removed by onAppointmentEvents once the database has deleted the appointment
+        if (!DAOHelper.deleteAppointment(selected.getAppointmentID())) {
+            ErrorAlert.databaseError("cancel the appointment");
+            return;
+        }
+
         ErrorAlert.appointmentCancelled(selected);
     }
 
@@ -223,50 +550,55 @@ public class AppointmentsInfo implements Initializable {
      */
     public void onAllAppointmentsRadio(ActionEvent actionEvent) {
         appointmentSearch.setText("");
-        ObservableList<Appointment> allList = DAOHelper.getAllAppointments();
-        appointments.clear();
-        appointments.addAll(allList);
+        showAppointments(appointment -> true, null, null);
     }
 
     /**
      * Filters the appointments shown to those that occur in the current month.
      *
-     * <p> This method shows only the appointments that occur in the current month. </p>
+     * <p> This method shows only the appointments that occur in the current month, with a row for each occurrence of a
+     * recurring appointment in the month. </p>
      * @param actionEvent The event that called the method
      */
     public void onCurrentMonthRadio(ActionEvent actionEvent) {
         appointmentSearch.setText("");
-        ObservableList<Appointment> allList = DAOHelper.getAllAppointments();
-        appointments.clear();
         LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfMonth = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
 
-        for (Appointment current : allList) {
-            if (current.getStartTime().getMonth().equals(now.getMonth()) ||
-                    current.getEndTime().getMonth().equals(now.getMonth()))
-                appointments.add(current);
-        }
+        showAppointments(monthFilter(now), startOfMonth, startOfMonth.plusMonths(1));
     }
 
     /**
      * Filters the appointments shown to those that occur in the next week.
      *
-     * <p> This methods shows only the appointments that occur in the next week, starting from now. </p>
+     * <p> This methods shows only the appointments that occur in the next week, starting from now, with a row for each
+     * occurrence of a recurring appointment in the week. </p>
      * @param actionEvent The event that called the method
      */
     public void onCurrentWeekRadio(ActionEvent actionEvent) {
         appointmentSearch.setText("");
-        ObservableList<Appointment> allList = DAOHelper.getAllAppointments();
-        appointments.clear();
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime endOfWeek = now.plusWeeks(1);
 
-        for (Appointment current : allList) {
-            LocalDateTime startTime = current.getStartTime();
-            LocalDateTime endTime = current.getEndTime();
-            if ( (startTime.isAfter(now) && startTime.isBefore(endOfWeek)) ||
-                    (endTime.isAfter(now) && endTime.isBefore(endOfWeek)) )
-                appointments.add(current);
-        }
+        showAppointments(weekFilter(now), now, now.plusWeeks(1));
+    }
+
+    /**
+     * Shows the appointments that pass a filter.
+     *
+     * <p> This method loads all appointments from the database and shows those that pass the given filter. The filter
+     * is kept so that later changes to appointments are only added to the table if they pass it too. If the view has
+     * dates, recurring appointments are shown as their occurrences within them, each of which must pass the
+     * filter. </p>
+     * @param filter The filter the shown appointments must pass
+     * @param start The start of the dates occurrences are shown for, or null to show each series as one row
+     * @param end The end of the dates occurrences are shown for, or null
+     */
+    private void showAppointments(Predicate<Appointment> filter, LocalDateTime start, LocalDateTime end) {
+        ObservableList<Appointment> allList = DAOHelper.getAllAppointments();
+        viewFilter = filter;
+        windowStart = start;
+        windowEnd = end;
+        appointments.setAll(rowsOf(allList, filter, start, end));
     }
 
     /**
@@ -319,6 +651,7 @@ public class AppointmentsInfo implements Initializable {
      * @param selectedCustomer The customer whose appointments will be shown
      */
     public void setAppointmentList(Customer selectedCustomer) {
+        viewFilter = appointment -> appointment.getCustomerID() == selectedCustomer.getCustomerID();
         List<Appointment> filteredList = appointments.stream().filter(
                 customer -> customer.getCustomerID() == selectedCustomer.getCustomerID())
                 .collect(Collectors.toList());
@@ -0,0 +1,271 @@
+package com.C195.controller;
+
+import com.C195.helper.AutoScheduler;
+import com.C195.helper.DAOHelper;
+import com.C195.helper.ErrorAlert;
+import com.C195.helper.NameCache;
+import com.C195.helper.SchedulePlan;
+import com.C195.model.Appointment;
+import com.C195.model.AppointmentDemand;
+import com.C195.model.Contact;
+import com.C195.model.Customer;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.util.StringConverter;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Controller for the screen that books an appointment for many customers at once.
+ *
+ * <p> This class lets the user pick customers, a range of dates, and the appointment's information, and asks
+ * AutoScheduler for a contact and time for each customer. Plan shows the appointments that would be booked and how
+ * many customers could not be placed, and Book saves them with DAOHelper.addAppointments() in one transaction. The
+ * screen has no FXML file, so its controls are built here. </p>
+ */
+public class AutoScheduleScreen {
+    // How many weeks from tomorrow the range reaches when the screen opens
+    private static final int DEFAULT_WEEKS = 2;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final BorderPane root = new BorderPane();
+    private final TextField titleField = new TextField();
+    private final TextField descriptionField = new TextField();
+    private final TextField locationField = new TextField();
+    private final TextField typeField = new TextField();
+    private final TextField lengthField = new TextField("30");
+    private final DatePicker fromPicker = new DatePicker(LocalDate.now().plusDays(1));
+    private final DatePicker toPicker = new DatePicker(LocalDate.now().plusDays(1).plusWeeks(DEFAULT_WEEKS));
+    private final ComboBox<Contact> contactBox = new ComboBox<>();
+    private final ComboBox<Integer> userBox = new ComboBox<>();
+    private final ListView<Customer> customerList = new ListView<>();
+    private final Button planButton = new Button("Plan");
+    private final Button bookButton = new Button("Book");
+    private final Label summaryLabel = new Label();
+    private final TableView<Appointment> planTable = new TableView<>();
+    private SchedulePlan plan;
+
+    /**
+     * Constructor for AutoScheduleScreen.
+     *
+     * <p> This is the constructor for the AutoScheduleScreen class. </p>
+     */
+    public AutoScheduleScreen() {
+        contactBox.getItems().setAll(DAOHelper.getAllContacts());
+        contactBox.setPromptText("Any contact");
+
+        List<Integer> userIDs = new ArrayList<>();
+        DAOHelper.getUserNames().forEach((userID, name) -> userIDs.add(userID));
+        userIDs.sort(null);
+        userBox.getItems().setAll(userIDs);
+        userBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Integer userID) {
+                return userID == null ? "" : NameCache.getUserName(userID);
+            }
+
+            @Override
+            public Integer fromString(String name) {
+                return null;
+            }
+        });
+
+        customerList.getItems().setAll(DAOHelper.getAllCustomers());
+        customerList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        customerList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Customer customer, boolean isEmpty) {
+                super.updateItem(customer, isEmpty);
+                setText(isEmpty || customer == null ? null : customer.getCustomerID() + " " + customer.getName());
+            }
+        });
+        Button allCustomersButton = new Button("Select All");
+        allCustomersButton.setOnAction(actionEvent -> customerList.getSelectionModel().selectAll());
+        lengthField.setPrefColumnCount(6);
+
+        planButton.setOnAction(actionEvent -> plan());
+        bookButton.setOnAction(actionEvent -> book());
+        bookButton.setDisable(true);
+
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(10);
+        form.setPadding(new Insets(10));
+        form.addRow(0, new Label("Title"), titleField, new Label("Description"), descriptionField,
+                new Label("Location"), locationField);
+        form.addRow(1, new Label("Type"), typeField, new Label("Minutes"), lengthField, new Label("User"), userBox);
+        form.addRow(2, new Label("From"), fromPicker, new Label("To"), toPicker, new Label("Contact"), contactBox);
+        form.addRow(3, new HBox(10, planButton, bookButton), summaryLabel);
+        GridPane.setColumnSpan(summaryLabel, 5);
+
+        VBox customers = new VBox(10, new Label("Customers"), customerList, allCustomersButton);
+        customers.setPadding(new Insets(0, 10, 10, 10));
+
+        planTable.getColumns().setAll(List.of(
+                column("Customer", 160, appointment -> NameCache.getCustomerName(appointment.getCustomerID())),
+                column("Contact", 140, appointment -> NameCache.getContactName(appointment.getContactID())),
+                column("Start", 130, appointment -> appointment.getStartTime().format(TIME_FORMAT)),
+                column("End", 130, appointment -> appointment.getEndTime().format(TIME_FORMAT)),
+                column("Title", 160, Appointment::getTitle)));
+
+        root.setTop(form);
+        root.setLeft(customers);
+        root.setCenter(planTable);
+    }
+
+    /**
+     * Getter for root.
+     *
+     * @return Returns the node holding the screen, to be shown in a Scene
+     */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Plans the appointments.
+     *
+     * <p> This method makes an AppointmentDemand for each picked customer and runs AutoScheduler on a background
+     * thread, showing the plan once it is done. The picked contact is preferred, but any contact may be given an
+     * appointment if the picked one is busy. The Plan button is disabled until then. </p>
+     */
+    private void plan() {
+        bookButton.setDisable(true);
+        plan = null;
+        planTable.getItems().clear();
+
+        String error = validate();
+        if (!error.isEmpty()) {
+            ErrorAlert.invalidForm(error);
+            return;
+        }
+
+        List<AppointmentDemand> demands = demands();
+        planButton.setDisable(true);
+        summaryLabel.setText("Planning " + demands.size() + " appointments...");
+
+        Thread thread = new Thread(() -> {
+            long startNanos = System.nanoTime();
+            SchedulePlan newPlan = AutoScheduler.plan(demands);
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+            Platform.runLater(() -> {
+                planButton.setDisable(false);
+                plan = newPlan;
+                planTable.getItems().setAll(plan.getAppointments());
+                bookButton.setDisable(plan.getAppointments().isEmpty());
+                summaryLabel.setText(plan + ", planned in " + elapsedMillis + " ms");
+            });
+        }, "auto-schedule");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Books the planned appointments.
+     *
+     * <p> This method saves the plan in one transaction. If someone else booked a conflicting time since the plan
+     * was made, nothing is saved and a new plan is made. </p>
+     */
+    private void book() {
+        int count = plan.getAppointments().size();
+
+        if (!DAOHelper.addAppointments(plan.getAppointments())) {
+            ErrorAlert.databaseError("book the appointments, as the schedule changed since the plan");
+            plan();
+            return;
+        }
+
+        plan = null;
+        planTable.getItems().clear();
+        bookButton.setDisable(true);
+        summaryLabel.setText(count + " appointments were booked");
+    }
+
+    /**
+     * Makes the demands.
+     *
+     * @return Returns an AppointmentDemand for each picked customer, in the order they are listed
+     */
+    private List<AppointmentDemand> demands() {
+        LocalDateTime earliestStart = fromPicker.getValue().atStartOfDay();
+        LocalDateTime latestEnd = toPicker.getValue().plusDays(1).atStartOfDay();
+        Duration length = Duration.ofMinutes(Long.parseLong(lengthField.getText().trim()));
+
+        // The picked contact comes first, and the others after it in case the picked one is busy
+        int[] contactIDs = new int[0];
+        Contact preferred = contactBox.getValue();
+        if (preferred != null) {
+            contactIDs = IntStream.concat(IntStream.of(preferred.getContactID()), contactBox.getItems().stream()
+                    .mapToInt(Contact::getContactID).filter(contactID -> contactID != preferred.getContactID()))
+                    .toArray();
+        }
+
+        List<AppointmentDemand> demands = new ArrayList<>();
+        for (Customer customer : customerList.getSelectionModel().getSelectedItems()) {
+            demands.add(new AppointmentDemand(customer.getCustomerID(), userBox.getValue(), titleField.getText().trim(),
+                    descriptionField.getText().trim(), locationField.getText().trim(), typeField.getText().trim(),
+                    length, earliestStart, latestEnd, contactIDs));
+        }
+
+        return demands;
+    }
+
+    /**
+     * Checks the form.
+     *
+     * @return Returns a message for each part of the form that must be changed, or an empty String
+     */
+    private String validate() {
+        StringBuilder error = new StringBuilder();
+
+        if (titleField.getText().trim().isEmpty() || descriptionField.getText().trim().isEmpty() ||
+                locationField.getText().trim().isEmpty() || typeField.getText().trim().isEmpty())
+            error.append("The title, description, location, and type must be filled in.\n");
+        try {
+            if (Long.parseLong(lengthField.getText().trim()) <= 0)
+                error.append("The appointments must be longer than zero minutes.\n");
+        } catch (NumberFormatException e) {
+            error.append("The length must be a whole number of minutes.\n");
+        }
+        if (fromPicker.getValue() == null || toPicker.getValue() == null ||
+                toPicker.getValue().isBefore(fromPicker.getValue()))
+            error.append("The dates must be picked, with the first on or before the last.\n");
+        if (userBox.getValue() == null)
+            error.append("A user must be selected.\n");
+        if (customerList.getSelectionModel().getSelectedItems().isEmpty())
+            error.append("At least one customer must be selected.\n");
+
+        return error.toString();
+    }
+
+    private TableColumn<Appointment, String> column(String title, double width, Function<Appointment, String> text) {
+        TableColumn<Appointment, String> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(cell -> new SimpleStringProperty(text.apply(cell.getValue())));
+        return column;
+    }
+}
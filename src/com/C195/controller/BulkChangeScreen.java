@@ -0,0 +1,229 @@
+package com.C195.controller;
+
+import com.C195.helper.BulkChange;
+import com.C195.helper.BulkEditor;
+import com.C195.helper.DAOHelper;
+import com.C195.helper.ErrorAlert;
+import com.C195.helper.NameCache;
+import com.C195.model.Appointment;
+import com.C195.model.AppointmentFilter;
+import com.C195.model.Contact;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.RadioButton;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Controller for the screen that moves many of a contact's appointments at once.
+ *
+ * <p> This class lets the user pick a contact and a range of dates, and either shift all of the contact's
+ * appointments in the range by some minutes or give them to another contact. Preview shows every appointment that
+ * would change, with its old and new time and contact and the appointments it would overlap. Apply saves the preview
+ * with DAOHelper.applyBulkChange() in one transaction, and is only enabled when the preview has no conflicts. The
+ * screen has no FXML file, so its controls are built here. </p>
+ */
+public class BulkChangeScreen {
+    // How many months from today the range reaches when the screen opens
+    private static final int DEFAULT_MONTHS = 3;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final BorderPane root = new BorderPane();
+    private final ComboBox<Contact> contactBox = new ComboBox<>();
+    private final DatePicker fromPicker = new DatePicker(LocalDate.now());
+    private final DatePicker toPicker = new DatePicker(LocalDate.now().plusMonths(DEFAULT_MONTHS));
+    private final RadioButton shiftButton = new RadioButton("Shift by minutes");
+    private final TextField shiftField = new TextField("60");
+    private final RadioButton reassignButton = new RadioButton("Give to contact");
+    private final ComboBox<Contact> newContactBox = new ComboBox<>();
+    private final Button applyButton = new Button("Apply");
+    private final Label summaryLabel = new Label();
+    private final TableView<Integer> changeTable = new TableView<>();
+    private BulkChange change;
+
+    /**
+     * Constructor for BulkChangeScreen.
+     *
+     * <p> This is the constructor for the BulkChangeScreen class. </p>
+     * @param contactID The ID of the Contact whose appointments are picked at first, or -1 for none
+     */
+    public BulkChangeScreen(int contactID) {
+        List<Contact> contacts = DAOHelper.getAllContacts();
+        contactBox.getItems().setAll(contacts);
+        newContactBox.getItems().setAll(contacts);
+        contacts.stream().filter(contact -> contact.getContactID() == contactID).findFirst()
+                .ifPresent(contactBox::setValue);
+
+        ToggleGroup operation = new ToggleGroup();
+        shiftButton.setToggleGroup(operation);
+        reassignButton.setToggleGroup(operation);
+        reassignButton.setSelected(true);
+        shiftField.setPrefColumnCount(6);
+
+        Button previewButton = new Button("Preview");
+        previewButton.setOnAction(actionEvent -> preview());
+        applyButton.setOnAction(actionEvent -> apply());
+        applyButton.setDisable(true);
+
+        GridPane form = new GridPane();
+        form.setHgap(10);
+        form.setVgap(10);
+        form.setPadding(new Insets(10));
+        form.addRow(0, new Label("Contact"), contactBox, new Label("From"), fromPicker, new Label("To"), toPicker);
+        form.addRow(1, reassignButton, newContactBox, shiftButton, shiftField);
+        form.addRow(2, new HBox(10, previewButton, applyButton), summaryLabel);
+        GridPane.setColumnSpan(summaryLabel, 5);
+
+        changeTable.getColumns().setAll(List.of(
+                column("ID", 60, (original, changed) -> Integer.toString(original.getAppointmentID())),
+                column("Title", 160, (original, changed) -> original.getTitle()),
+                column("Customer", 140, (original, changed) -> NameCache.getCustomerName(original.getCustomerID())),
+                column("Start", 130, (original, changed) -> original.getStartTime().format(TIME_FORMAT)),
+                column("New Start", 130, (original, changed) -> changed.getStartTime().format(TIME_FORMAT)),
+                column("Contact", 120, (original, changed) -> NameCache.getContactName(original.getContactID())),
+                column("New Contact", 120, (original, changed) -> NameCache.getContactName(changed.getContactID())),
+                conflictColumn()));
+
+        // Conflicting rows are marked so they can be found in a long preview
+        changeTable.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(Integer index, boolean isEmpty) {
+                super.updateItem(index, isEmpty);
+                setStyle(!isEmpty && index != null && change.getConflictIDs(index).length > 0 ?
+                        "-fx-background-color: #f8d0d0;" : "");
+            }
+        });
+
+        root.setTop(form);
+        root.setCenter(changeTable);
+    }
+
+    /**
+     * Getter for root.
+     *
+     * @return Returns the node holding the screen, to be shown in a Scene
+     */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Previews the change.
+     *
+     * <p> This method asks BulkEditor which appointments the picked change would move and shows them. Apply is
+     * enabled if none of them would conflict. </p>
+     */
+    private void preview() {
+        applyButton.setDisable(true);
+        change = null;
+        changeTable.getItems().clear();
+
+        String error = validate();
+        if (!error.isEmpty()) {
+            ErrorAlert.invalidForm(error);
+            return;
+        }
+
+        AppointmentFilter filter = AppointmentFilter.forContact(contactBox.getValue().getContactID(),
+                fromPicker.getValue().atStartOfDay(), toPicker.getValue().plusDays(1).atStartOfDay());
+        change = shiftButton.isSelected() ?
+                BulkEditor.previewShift(filter, Duration.ofMinutes(Long.parseLong(shiftField.getText().trim()))) :
+                BulkEditor.previewReassign(filter, newContactBox.getValue().getContactID());
+
+        changeTable.getItems().setAll(IntStream.range(0, change.getAppointments().size()).boxed()
+                .collect(Collectors.toList()));
+        applyButton.setDisable(!change.isClear());
+        summaryLabel.setText(change.getAppointments().size() + " appointments would change, " +
+                change.getConflictCount() + " of them with conflicts");
+    }
+
+    /**
+     * Saves the previewed change.
+     *
+     * <p> This method saves the preview in one transaction. If the appointments changed since the preview, or
+     * someone else booked a conflicting time, nothing is saved and a new preview is shown. </p>
+     */
+    private void apply() {
+        int count = change.getAppointments().size();
+
+        if (!DAOHelper.applyBulkChange(change)) {
+            ErrorAlert.databaseError("change the appointments, as they or the schedule changed since the preview");
+            preview();
+            return;
+        }
+
+        change = null;
+        changeTable.getItems().clear();
+        applyButton.setDisable(true);
+        summaryLabel.setText(count + " appointments were changed");
+    }
+
+    /**
+     * Checks the form.
+     *
+     * @return Returns a message for each part of the form that must be changed, or an empty String
+     */
+    private String validate() {
+        StringBuilder error = new StringBuilder();
+
+        if (contactBox.getValue() == null)
+            error.append("A contact must be selected.\n");
+        if (fromPicker.getValue() == null || toPicker.getValue() == null ||
+                toPicker.getValue().isBefore(fromPicker.getValue()))
+            error.append("The dates must be picked, with the first on or before the last.\n");
+
+        if (shiftButton.isSelected()) {
+            try {
+                if (Long.parseLong(shiftField.getText().trim()) == 0)
+                    error.append("The shift must not be zero minutes.\n");
+            } catch (NumberFormatException e) {
+                error.append("The shift must be a whole number of minutes.\n");
+            }
+        }
+        else if (newContactBox.getValue() == null)
+            error.append("A contact to give the appointments to must be selected.\n");
+
+        return error.toString();
+    }
+
+    private TableColumn<Integer, String> column(String title, double width, CellText text) {
+        TableColumn<Integer, String> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(cell -> new SimpleStringProperty(text.of(
+                change.getOriginals().get(cell.getValue()), change.getAppointments().get(cell.getValue()))));
+        return column;
+    }
+
+    private TableColumn<Integer, String> conflictColumn() {
+        TableColumn<Integer, String> column = new TableColumn<>("Conflicts With");
+        column.setPrefWidth(160);
+        column.setCellValueFactory(cell -> new SimpleStringProperty(Arrays.stream(
+                change.getConflictIDs(cell.getValue())).mapToObj(Integer::toString)
+                .collect(Collectors.joining(", "))));
+        return column;
+    }
+
+    // The text of a cell, from an appointment as it is and as it would be
+    private interface CellText {
+        String of(Appointment original, Appointment changed);
+    }
+}
@@ -1,29 +1,50 @@
 package com.C195.controller;
 
+import com.C195.event.AppointmentEvent;
+import com.C195.event.CustomerEvent;
+import com.C195.event.EventBus;
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
+import com.C195.helper.IntObjectMap;
+import com.C195.helper.NameCache;
 import com.C195.helper.NavigationHelper;
+import com.C195.helper.ScheduleIndex;
 import com.C195.model.Appointment;
 import com.C195.model.Contact;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 
 import java.net.URL;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 /**
  * Controller for the screen that lets users view contacts.
  *
  * <p> This class is the controller for the GUI screen that displays contacts and their information. It allows the
- * user to select a contact and see that contact's appointments schedule. </p>
+ * user to select a contact and see that contact's appointments schedule. A recurring appointment is shown as its
+ * occurrences in the next few weeks, which are only worked out for those dates. The selected contact's appointments
+ * can be shifted or given to another contact all at once on the BulkChangeScreen. </p>
  */
 public class ContactsInfo implements Initializable {
     @FXML
@@ -53,15 +74,27 @@ public class ContactsInfo implements Initializable {
     @FXML
     private TableColumn<Appointment, String> typeColumn;
 
+    private final TableColumn<Appointment, String> customerNameColumn = new TableColumn<>("Customer Name");
+
     private ObservableList<Contact> contactList;
     private ObservableList<Appointment> appointmentList;
 
+    // Most changes that can wait to be applied before the schedule is reloaded instead
+    private static final int EVENT_QUEUE_CAPACITY = 4096;
+
+    // How many weeks from today the occurrences of recurring appointments are shown for
+    private static final int SCHEDULE_WEEKS = 4;
+
+    private EventBus.Subscription appointmentSubscription;
+    private EventBus.Subscription customerSubscription;
+
     /**
      * The initializer for the controller.
      *
      * <p> This method initializes the controller class. It sets up the table views to show the contacts and a
      * contact's schedule. It sets up a listener on the contacts table to load that contact's appointments when the
-     * contact is selected. </p>
+     * contact is selected, and subscribes to appointment and customer changes so the selected contact's schedule can
+     * be kept up to date. </p>
      * <p> LAMBDA USE: A lambda is used here to reduce the amount of coding needed to set up the listener. The lambda
      * covers overwriting the code for a new ChangeListener. It takes an Observable value, the old value, and the new
      * changed value. It calls the setContactSchedule method on the new value. </p>
@@ -87,9 +120,21 @@ public class ContactsInfo implements Initializable {
         endDateColumn.setCellValueFactory(new PropertyValueFactory<>("stringEndTime"));
         customerIDColumn.setCellValueFactory(new PropertyValueFactory<>("customerID"));
 
+        // Customer names are resolved through NameCache so no query is made per row
+        customerNameColumn.setCellValueFactory(cell ->
+                new ReadOnlyStringWrapper(NameCache.getCustomerName(cell.getValue().getCustomerID())));
+        scheduleTable.getColumns().add(scheduleTable.getColumns().indexOf(customerIDColumn) + 1, customerNameColumn);
+
         contactTable.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> setContactSchedule(newValue));
 
+        appointmentSubscription = EventBus.subscribeAsync(AppointmentEvent.class, this::onAppointmentEvents,
+                Platform::runLater, EVENT_QUEUE_CAPACITY, 0);
+        customerSubscription = EventBus.subscribeAsync(CustomerEvent.class, this::onCustomerEvents,
+                Platform::runLater, EVENT_QUEUE_CAPACITY, 0);
+
+        addScheduleButtons();
+
         //Code the lambda is replacing
 //        contactTable.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Contact>() {
 //
@@ -100,6 +145,149 @@ public class ContactsInfo implements Initializable {
 //        });
     }
 
+    /**
+     * Adds buttons that open the bulk change and auto schedule screens.
+     *
+     * <p> This method places the buttons in a row after the schedule table. In a pane that does not lay out its
+     * children, the row is kept below the table's left edge as it moves. </p>
+     */
+    private void addScheduleButtons() {
+        if (!(scheduleTable.getParent() instanceof Pane))
+            return;
+
+        Button bulkChangeButton = new Button("Bulk Change");
+        bulkChangeButton.setOnAction(this::onBulkChange);
+        Button autoScheduleButton = new Button("Auto Schedule");
+        autoScheduleButton.setOnAction(this::onAutoSchedule);
+        HBox scheduleButtons = new HBox(10, bulkChangeButton, autoScheduleButton);
+
+        Pane parent = (Pane) scheduleTable.getParent();
+        parent.getChildren().add(parent.getChildren().indexOf(scheduleTable) + 1, scheduleButtons);
+
+        if (parent.getClass() == Pane.class || parent instanceof AnchorPane) {
+            scheduleButtons.setManaged(false);
+            scheduleTable.boundsInParentProperty().addListener((observable, oldValue, newValue) -> {
+                scheduleButtons.autosize();
+                scheduleButtons.relocate(newValue.getMinX(), newValue.getMaxY() + 10);
+            });
+        }
+    }
+
+    /**
+     * Applies a batch of appointment changes to the selected contact's schedule.
+     *
+     * <p> This method replaces or removes the rows of the changed Appointments and adds the Appointments that now
+     * belong to the selected Contact. The schedule is walked once for the whole batch. An Appointment with one row
+     * before and after the change keeps its place, and the rows of a recurring appointment whose occurrences changed
+     * are removed and added again. If events were dropped, the schedule is reloaded instead. </p>
+     * @param events The appointment events, with only the latest event for each Appointment
+     * @param isOverflowed True if events were dropped and the schedule must be reloaded
+     */
+    private void onAppointmentEvents(List<AppointmentEvent> events, boolean isOverflowed) {
+        Contact contact = contactTable.getSelectionModel().getSelectedItem();
+        if (contact == null || !isShowing())
+            return;
+
+        if (isOverflowed) {
+            ScheduleIndex.invalidate();
+            setContactSchedule(contact);
+            return;
+        }
+
+        IntObjectMap<List<Appointment>> pending = new IntObjectMap<>(events.size());
+        for (AppointmentEvent event : events) {
+            Appointment appointment = event.getAppointment();
+            pending.put(event.getEntityID(), appointment == null ||
+                    appointment.getContactID() != contact.getContactID() ? Collections.emptyList() :
+                    rowsOf(appointment));
+        }
+
+        // Replace the first row of an appointment that still has one row, and collect the other rows of the changed
+        // appointments to remove them at once
+        IntObjectMap<List<Appointment>> replaced = new IntObjectMap<>();
+        Set<Appointment> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < appointmentList.size(); i++) {
+            int appointmentID = appointmentList.get(i).getAppointmentID();
+            List<Appointment> rows = pending.get(appointmentID);
+            if (rows == null)
+                continue;
+
+            if (rows.size() == 1 && !replaced.containsKey(appointmentID)) {
+                appointmentList.set(i, rows.get(0));
+                replaced.put(appointmentID, rows);
+            } else
+                removed.add(appointmentList.get(i));
+        }
+
+        if (!removed.isEmpty())
+            appointmentList.removeIf(removed::contains);
+
+        for (AppointmentEvent event : events) {
+            if (!replaced.containsKey(event.getEntityID())) {
+                appointmentList.addAll(pending.get(event.getEntityID()));
+                replaced.put(event.getEntityID(), Collections.emptyList());
+            }
+        }
+    }
+
+    /**
+     * Gets the rows an appointment has in the schedule.
+     *
+     * <p> This method returns the occurrences of a recurring appointment from the start of today through the next
+     * SCHEDULE_WEEKS weeks, or the appointment itself if it does not repeat. </p>
+     * @param appointment The Appointment
+     * @return Returns the rows of the Appointment
+     */
+    private List<Appointment> rowsOf(Appointment appointment) {
+        if (!appointment.isRecurring())
+            return Collections.singletonList(appointment);
+
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        return appointment.occurrencesBetween(today, today.plusWeeks(SCHEDULE_WEEKS));
+    }
+
+    /**
+     * Applies a batch of customer changes to the selected contact's schedule.
+     *
+     * <p> This method removes the rows of deleted Customers' Appointments, since deleting a Customer deletes its
+     * Appointments as well, and redraws the customer names when a Customer was renamed. </p>
+     * @param events The customer events, with only the latest event for each Customer
+     * @param isOverflowed True if events were dropped and the schedule must be reloaded
+     */
+    private void onCustomerEvents(List<CustomerEvent> events, boolean isOverflowed) {
+        if (!isShowing())
+            return;
+
+        if (isOverflowed) {
+            ScheduleIndex.invalidate();
+            setContactSchedule(contactTable.getSelectionModel().getSelectedItem());
+            return;
+        }
+
+        IntObjectMap<CustomerEvent> deleted = new IntObjectMap<>();
+        for (CustomerEvent event : events) {
+            if (event.getCustomer() == null)
+                deleted.put(event.getEntityID(), event);
+        }
+
+        if (!deleted.isEmpty())
+            appointmentList.removeIf(appointment -> deleted.containsKey(appointment.getCustomerID()));
+
+        if (deleted.size() < events.size())
+            scheduleTable.refresh();
+    }
+
+    /**
+     * Checks if the screen is being shown.
+     *
+     * <p> A screen that is no longer shown is waiting to be garbage collected, so it does not need to apply
+     * changes. </p>
+     * @return Returns true if the screen's scene is shown in a window
+     */
+    private boolean isShowing() {
+        return contactTable.getScene() != null && contactTable.getScene().getWindow() != null;
+    }
+
     /**
      * Closes the application.
      *
@@ -120,6 +308,29 @@ public class ContactsInfo implements Initializable {
         NavigationHelper.viewAppointmentsInfo(this, actionEvent);
     }
 
+    /**
+     * Opens the bulk change screen.
+     *
+     * <p> This method opens the BulkChangeScreen for the selected contact's appointments, so they can all be shifted
+     * or given to another contact at once. </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onBulkChange(ActionEvent actionEvent) {
+        Contact contact = contactTable.getSelectionModel().getSelectedItem();
+        NavigationHelper.viewBulkChangeScreen(actionEvent, contact == null ? -1 : contact.getContactID());
+    }
+
+    /**
+     * Opens the auto schedule screen.
+     *
+     * <p> This method opens the AutoScheduleScreen, so an appointment can be booked for many customers at once with
+     * the contacts and times chosen by AutoScheduler. </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onAutoSchedule(ActionEvent actionEvent) {
+        NavigationHelper.viewAutoScheduleScreen(actionEvent);
+    }
+
     /**
      * Loads the customers information screen.
      *
@@ -152,27 +363,28 @@ public class ContactsInfo implements Initializable {
         ObservableList<Contact> allList = DAOHelper.getAllContacts();
         contactList.clear();
 
+        int searchID = -1;
+        boolean isIDSearch = false;
+        try {
+            searchID = Integer.parseInt(userSearch);
+            isIDSearch = true;
+        } catch (NumberFormatException e) {
+            // userSearch is not a valid integer
+        }
+
         // Add all contacts whose name's contain userSearch. Will be all contacts if userSearch is ""
+        // The ID match is found in the same pass so the list is only scanned once
+        Contact idMatch = null;
         for (Contact contact : allList) {
             if (contact.getName().toLowerCase(Locale.ROOT).contains(userSearch))
                 contactList.add(contact);
+            else if (isIDSearch && idMatch == null && contact.getContactID() == searchID)
+                idMatch = contact;
         }
 
-        // If no matches for name found, check ID
-        if (contactList.size() == 0) {
-            try {
-                int userID = Integer.parseInt(userSearch);
-
-                for (Contact contact: allList) {
-                    if (contact.getContactID() == userID) {
-                        contactList.add(contact);
-                        break;
-                    }
-                }
-            } catch (NumberFormatException e) {
-               // userSearch is not a valid integer
-            }
-        }
+        // If no matches for name found, use the ID match
+        if (contactList.size() == 0 && idMatch != null)
+            contactList.add(idMatch);
 
         if (contactList.size() == 0) {
             ErrorAlert.searchNotFoundError("contact");
@@ -191,7 +403,8 @@ public class ContactsInfo implements Initializable {
      * Shows the appointments associated with the given contact.
      *
      * <p> This method loads the table view with the appointments that are associated with the given Contact. It is
-     * used by the Initialize method's listener on the contacts table. </p>
+     * used by the Initialize method's listener on the contacts table. Recurring appointments are shown as their
+     * occurrences in the next SCHEDULE_WEEKS weeks. </p>
      * @param contact The user selected Contact
      */
     private void setContactSchedule(Contact contact) {
@@ -200,7 +413,11 @@ public class ContactsInfo implements Initializable {
             return;
         }
 
-        appointmentList = DAOHelper.getAppointmentsFromContact(contact.getContactID());
+        List<Appointment> rows = new ArrayList<>();
+        for (Appointment appointment : DAOHelper.getAppointmentsFromContact(contact.getContactID()))
+            rows.addAll(rowsOf(appointment));
+
+        appointmentList = FXCollections.observableArrayList(rows);
         scheduleTable.setItems(appointmentList);
     }
 }
@@ -2,6 +2,7 @@ package com.C195.controller;
 
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
+import com.C195.helper.IntObjectMap;
 import com.C195.helper.NavigationHelper;
 import com.C195.model.Country;
 import com.C195.model.Customer;
@@ -47,6 +48,7 @@ public class CustomerAddUpdate implements Initializable {
     private Customer updateCustomer = null;
     private ObservableList<Country> countryList;
     private ObservableList<Division> divisionList;
+    private IntObjectMap<Country> countriesByID;
 
     /**
      * The initializer for the controller.
@@ -59,6 +61,7 @@ public class CustomerAddUpdate implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
         countryList = DAOHelper.getAllCountries();
+        countriesByID = IntObjectMap.index(countryList, Country::getCountryID);
         selectCountryCombo.setItems(countryList);
     }
 
@@ -88,13 +91,11 @@ public class CustomerAddUpdate implements Initializable {
         divisionList = DAOHelper.getAllDivisions(updateDivision);
         selectProvinceCombo.setItems(divisionList);
 
-        for (Country country : countryList) {
-            if (country.getCountryName().equals(updateDivision.getCountryName())) {
-                selectCountryCombo.setValue(country);
-                break;
-            }
-        }
+        Country updateCountry = countriesByID.get(updateDivision.getCountryID());
+        if (updateCountry != null)
+            selectCountryCombo.setValue(updateCountry);
 
+        // The division list was just loaded for this one lookup, so indexing it would cost as much as the scan
         for (Division division : divisionList) {
             if (division.getDivisionID() == updateDivision.getDivisionID()) {
                 selectProvinceCombo.setValue(division);
@@ -120,7 +121,8 @@ public class CustomerAddUpdate implements Initializable {
      *
      * <p> This method creates a new Customer or modifies the selected Customer using the information given by the
      * user. If the information doesn't pass the validation check, an alert is displayed with the relevant information.
-     * If the information is valid, the database is updated. </p>
+     * If the information is valid, the database is updated and the user is returned to the customer information
+     * screen, which shows the change without reloading. </p>
      * @param actionEvent The event that called the method
      */
     public void onAddUpdateCustomer(ActionEvent actionEvent) {
@@ -138,13 +140,21 @@ public class CustomerAddUpdate implements Initializable {
         }
 
         Customer customer = new Customer(name, address, postalCode, phone, division.getDivisionID());
+        boolean isSaved;
 
         if (isUpdateCustomer) {
             customer.setCustomerID(updateCustomer.getCustomerID());
-            DAOHelper.updateCustomer(customer);
+            customer.setCreationDate(updateCustomer.getCreationDate());
+            customer.setCreatedBy(updateCustomer.getCreatedBy());
+            isSaved = DAOHelper.updateCustomer(customer);
         }
         else {
-            DAOHelper.addCustomer(customer);
+            isSaved = DAOHelper.addCustomer(customer) != -1;
+        }
+
+        if (!isSaved) {
+            ErrorAlert.databaseError("save the customer");
+            return;
         }
 
         NavigationHelper.viewCustomerInfo(this, actionEvent);
@@ -1,9 +1,16 @@
 package com.C195.controller;
 
+import com.C195.event.CustomerCreated;
+import com.C195.event.CustomerEvent;
+import com.C195.event.EventBus;
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
+import com.C195.helper.IntObjectMap;
+import com.C195.helper.NameCache;
 import com.C195.helper.NavigationHelper;
+import com.C195.helper.ScheduleIndex;
 import com.C195.model.Customer;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -13,14 +20,19 @@ import javafx.fxml.Initializable;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -58,10 +70,16 @@ public class CustomerInfo implements Initializable {
 
     private ObservableList<Customer> customerList = FXCollections.observableArrayList();
 
+    // Most changes that can wait to be applied before the table is reloaded instead
+    private static final int EVENT_QUEUE_CAPACITY = 4096;
+
+    private EventBus.Subscription customerSubscription;
+
     /**
      * The initializer for the controller.
      *
-     * <p> This method initializes the controller class. It sets up the table view to show the customers. </p>
+     * <p> This method initializes the controller class. It sets up the table view to show the customers and listens
+     * for changes to customers so the table can be kept up to date. </p>
      * @param url The location for the controller
      * @param resourceBundle The resources for the controller
      */
@@ -83,6 +101,106 @@ public class CustomerInfo implements Initializable {
         divisionIDColumn.setCellValueFactory(new PropertyValueFactory<>("divisionID"));
         creationDateColumn.setCellValueFactory(new PropertyValueFactory<>("stringCreationDate"));
         lastUpdateColumn.setCellValueFactory(new PropertyValueFactory<>("stringLastUpdate"));
+
+        customerSubscription = EventBus.subscribeAsync(CustomerEvent.class, this::onCustomerEvents,
+                Platform::runLater, EVENT_QUEUE_CAPACITY, 0);
+
+        addRefreshButton();
+    }
+
+    /**
+     * Adds a button that reloads the table.
+     *
+     * <p> This method places the button after the search field. In a pane that does not lay out its children, the
+     * button is kept to the right of the field as it moves. </p>
+     */
+    private void addRefreshButton() {
+        if (!(customerSearch.getParent() instanceof Pane))
+            return;
+
+        Button refreshButton = new Button("Refresh");
+        refreshButton.setOnAction(this::onRefresh);
+
+        Pane parent = (Pane) customerSearch.getParent();
+        parent.getChildren().add(parent.getChildren().indexOf(customerSearch) + 1, refreshButton);
+
+        if (parent.getClass() == Pane.class || parent instanceof AnchorPane) {
+            refreshButton.setManaged(false);
+            customerSearch.boundsInParentProperty().addListener((observable, oldValue, newValue) -> {
+                refreshButton.autosize();
+                refreshButton.relocate(newValue.getMaxX() + 10, newValue.getMinY());
+            });
+        }
+    }
+
+    /**
+     * Reloads the customers.
+     *
+     * <p> This method is called by the Refresh button, so customers other computers added or changed can be seen. It
+     * clears the search and the selection and shows all customers. See reload(). </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onRefresh(ActionEvent actionEvent) {
+        customerSearch.clear();
+        customersTable.getSelectionModel().clearSelection();
+        reload();
+    }
+
+    /**
+     * Reloads the table.
+     *
+     * <p> This method reads all customers from the database again. Changes made by this program are applied from the
+     * EventBus, so the table is only reloaded when the user asks for it or when events were dropped. Customers
+     * deleted on other computers took their appointments with them, so ScheduleIndex is read again the next time it
+     * is used. The customer names shown on the other screens are read again too. </p>
+     */
+    private void reload() {
+        ScheduleIndex.invalidate();
+        NameCache.invalidateCustomers();
+        customerList.setAll(DAOHelper.getAllCustomers());
+    }
+
+    /**
+     * Applies a batch of customer changes to the table.
+     *
+     * <p> This method replaces or removes the rows of the changed Customers and adds the rows of new Customers. The
+     * table is walked once for the whole batch and the rest of it is left as it is. If events were dropped, the
+     * customers are reloaded instead. </p>
+     * @param events The customer events, with only the latest event for each Customer
+     * @param isOverflowed True if events were dropped and the table must be reloaded
+     */
+    private void onCustomerEvents(List<CustomerEvent> events, boolean isOverflowed) {
+        if (isOverflowed) {
+            reload();
+            return;
+        }
+
+        IntObjectMap<CustomerEvent> pending = new IntObjectMap<>(events.size());
+        for (CustomerEvent event : events) {
+            pending.put(event.getEntityID(), event);
+        }
+
+        // Replace the rows already in the table, and collect the deleted ones so they are removed at once
+        IntObjectMap<CustomerEvent> deleted = new IntObjectMap<>();
+        for (int i = 0; i < customerList.size(); i++) {
+            CustomerEvent event = pending.remove(customerList.get(i).getCustomerID());
+            if (event == null)
+                continue;
+
+            if (event.getCustomer() == null)
+                deleted.put(event.getEntityID(), event);
+            else
+                customerList.set(i, event.getCustomer());
+        }
+
+        if (!deleted.isEmpty())
+            customerList.removeIf(customer -> deleted.containsKey(customer.getCustomerID()));
+
+        // Updated Customers that are not in the table were left out by a search, so only new Customers are added
+        for (CustomerEvent event : events) {
+            if (event instanceof CustomerCreated && pending.containsKey(event.getEntityID()))
+                customerList.add(event.getCustomer());
+        }
     }
 
     /**
@@ -113,31 +231,8 @@ public class CustomerInfo implements Initializable {
      * @param actionEvent The event that called the method
      */
     public void onCustomerSearch(ActionEvent actionEvent) {
-        String userSearch = customerSearch.getText().toLowerCase(Locale.ROOT);
         ObservableList<Customer> allList = DAOHelper.getAllCustomers();
-        customerList.clear();
-
-        // Add all contacts whose name's contain userSearch. Will be all contacts if userSearch is ""
-        for (Customer customer : allList) {
-            if (customer.getName().toLowerCase(Locale.ROOT).contains(userSearch))
-                customerList.add(customer);
-        }
-
-        // If no matches for name found, check ID
-        if (customerList.size() == 0) {
-            try {
-                int userID = Integer.parseInt(userSearch);
-
-                for (Customer customer: allList) {
-                    if (customer.getCustomerID() == userID) {
-                        customerList.add(customer);
-                        break;
-                    }
-                }
-            } catch (NumberFormatException e) {
-                // userSearch is not a valid integer
-            }
-        }
+        customerList.setAll(searchCustomers(allList, customerSearch.getText()));
 
         if (customerList.size() == 0) {
             ErrorAlert.searchNotFoundError("customer");
@@ -152,6 +247,46 @@ public class CustomerInfo implements Initializable {
         }
     }
 
+    /**
+     * Finds the customers that match a search.
+     *
+     * <p> This method returns the customers whose names contain the given String, ignoring case, or if none do, the
+     * customer whose ID is the given String. It returns all the customers for an empty String. It is called by
+     * onCustomerSearch(), and is public so the benchmarks can time it. </p>
+     * @param customers The customers to search
+     * @param search The partial name or ID to search for
+     * @return Returns a List of the matching Customers, in the order they were given
+     */
+    public static List<Customer> searchCustomers(List<Customer> customers, String search) {
+        String userSearch = search.toLowerCase(Locale.ROOT);
+        List<Customer> matches = new ArrayList<>();
+
+        int searchID = -1;
+        boolean isIDSearch = false;
+        try {
+            searchID = Integer.parseInt(userSearch);
+            isIDSearch = true;
+        } catch (NumberFormatException e) {
+            // userSearch is not a valid integer
+        }
+
+        // Add all customers whose name's contain userSearch. Will be all customers if userSearch is ""
+        // The ID match is found in the same pass so the list is only scanned once
+        Customer idMatch = null;
+        for (Customer customer : customers) {
+            if (customer.getName().toLowerCase(Locale.ROOT).contains(userSearch))
+                matches.add(customer);
+            else if (isIDSearch && idMatch == null && customer.getCustomerID() == searchID)
+                idMatch = customer;
+        }
+
+        // If no matches for name found, use the ID match
+        if (matches.isEmpty() && idMatch != null)
+            matches.add(idMatch);
+
+        return matches;
+    }
+
     /**
      * Loads the form to update a customer.
      *
@@ -188,7 +323,8 @@ public class CustomerInfo implements Initializable {
      * Deletes the selected customer.
      *
      * <p> This method deletes the selected customer from the database. It displays an alert asking for confirmation
-     * from the user and informing the user that deleting a customer also deletes all associated appointments. </p>
+     * from the user and informing the user that deleting a customer also deletes all associated appointments. If
+     * the database could not delete the customer, the customer stays in the table and an alert is displayed. </p>
      * @param actionEvent The event that called the method
      */
     public void onDeleteCustomer(ActionEvent actionEvent) {
@@ -201,9 +337,10 @@ public class CustomerInfo implements Initializable {
         if (!isConfirmed)
             return;
 
+        // The row is removed by onCustomerEvents once the database has deleted the customer
         Customer customer = customersTable.getSelectionModel().getSelectedItem();
-        DAOHelper.deleteCustomer(customer.getCustomerID());
-        customerList.remove(customer);
+        if (!DAOHelper.deleteCustomer(customer.getCustomerID()))
+            ErrorAlert.databaseError("delete the customer");
     }
 
     /**
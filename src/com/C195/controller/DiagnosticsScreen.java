@@ -0,0 +1,235 @@
+package com.C195.controller;
+
+import com.C195.helper.DiagnosticsSnapshot;
+import com.C195.helper.QueryStats;
+import com.C195.helper.StallSite;
+import com.C195.helper.StallWatchdog;
+import com.C195.model.CacheUsage;
+import com.C195.model.OperationLatency;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+
+import java.lang.management.MemoryUsage;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Controller for the screen that shows the health of the app.
+ *
+ * <p> This class shows the state of the database connections and read replicas, the latency of each DAOHelper
+ * method, the caches, the heap and garbage collections, and the stalls of the FX thread, with the slow queries, replica
+ * changes, stalls, and collections that happened lately, so a slow computer can be looked into over a screen share
+ * without a profiler. A DiagnosticsSnapshot is taken every two seconds on a thread of its own, and is only shown once
+ * the last one has been, so a busy FX thread is never given more work. The screen has no FXML file, so its controls are built here. </p>
+ */
+public class DiagnosticsScreen {
+    private static final long REFRESH_SECONDS = 2;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final BorderPane root = new BorderPane();
+    private final Label databaseLabel = new Label();
+    private final Label replicasLabel = new Label();
+    private final Label memoryLabel = new Label();
+    private final Label collectionLabel = new Label();
+    private final Label fxThreadLabel = new Label();
+    private final Label takenAtLabel = new Label();
+    private final TableView<OperationLatency> operationsTable = new TableView<>();
+    private final TableView<CacheUsage> cachesTable = new TableView<>();
+    private final TableView<StallSite> stallSitesTable = new TableView<>();
+    private final ListView<String> slowQueriesList = new ListView<>();
+    private final ListView<String> replicaChangesList = new ListView<>();
+    private final ListView<String> stallsList = new ListView<>();
+    private final ListView<String> collectionsList = new ListView<>();
+    private final AtomicBoolean isSnapshotPending = new AtomicBoolean();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "diagnostics-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructor for DiagnosticsScreen.
+     *
+     * <p> This is the constructor for the DiagnosticsScreen class. It starts taking snapshots, until stop() is
+     * called. </p>
+     */
+    public DiagnosticsScreen() {
+        operationsTable.getColumns().setAll(List.of(
+                column("Operation", 260, OperationLatency::getOperation),
+                column("Statements", 90, OperationLatency::getStatements),
+                column("Errors", 60, OperationLatency::getErrors),
+                column("p50 ms", 70, operation -> rounded(operation.getP50Millis())),
+                column("p95 ms", 70, operation -> rounded(operation.getP95Millis())),
+                column("p99 ms", 70, operation -> rounded(operation.getP99Millis())),
+                column("Max ms", 70, operation -> rounded(operation.getMaxMillis())),
+                column("Total ms", 90, operation -> rounded(operation.getTotalMillis()))));
+
+        cachesTable.getColumns().setAll(List.of(
+                column("Cache", 140, CacheUsage::getName),
+                column("Size", 80, CacheUsage::getSize),
+                column("Hits", 100, CacheUsage::getHits),
+                column("Misses", 80, CacheUsage::getMisses),
+                column("Hit %", 70, cache -> rounded(cache.getHitRatio() * 100))));
+
+        stallSitesTable.getColumns().setAll(List.of(
+                column("Site", 260, StallSite::getSite),
+                column("Operation", 220, StallSite::getOperation),
+                column("Stalls", 60, StallSite::getStalls),
+                column("Total ms", 90, site -> site.getTotalNanos() / 1_000_000),
+                column("Longest ms", 90, site -> site.getDurations().getMaxNanos() / 1_000_000)));
+
+        SplitPane stalls = new SplitPane(stallSitesTable, stallsList);
+        stalls.setOrientation(Orientation.VERTICAL);
+
+        TabPane tabs = new TabPane(
+                new Tab("Queries", operationsTable),
+                new Tab("Caches", cachesTable),
+                new Tab("Slow Queries", slowQueriesList),
+                new Tab("Replicas", replicaChangesList),
+                new Tab("FX Stalls", stalls),
+                new Tab("Garbage Collection", collectionsList));
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+
+        Button resetButton = new Button("Reset Timings");
+        resetButton.setOnAction(actionEvent -> reset());
+
+        GridPane summary = new GridPane();
+        summary.setHgap(10);
+        summary.setVgap(5);
+        summary.setPadding(new Insets(10));
+        summary.addRow(0, new Label("Database"), databaseLabel);
+        summary.addRow(1, new Label("Read replicas"), replicasLabel);
+        summary.addRow(2, new Label("Memory"), memoryLabel);
+        summary.addRow(3, new Label("Garbage collection"), collectionLabel);
+        summary.addRow(4, new Label("FX thread"), fxThreadLabel);
+        summary.addRow(5, resetButton, takenAtLabel);
+
+        root.setTop(summary);
+        root.setCenter(tabs);
+
+        sampler.scheduleWithFixedDelay(this::sample, 0, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Getter for root.
+     *
+     * @return Returns the node holding the screen, to be shown in a Scene
+     */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Stops taking snapshots.
+     *
+     * <p> This method is called when the screen's window is closed. </p>
+     */
+    public void stop() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * Takes a snapshot and shows it.
+     *
+     * <p> This method runs on the sampler's thread. It skips its turn if the last snapshot has not been shown yet. </p>
+     */
+    private void sample() {
+        if (!isSnapshotPending.compareAndSet(false, true))
+            return;
+
+        try {
+            DiagnosticsSnapshot snapshot = DiagnosticsSnapshot.take();
+            Platform.runLater(() -> {
+                isSnapshotPending.set(false);
+                show(snapshot);
+            });
+        } catch (RuntimeException e) {
+            isSnapshotPending.set(false);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Shows a snapshot.
+     *
+     * @param snapshot The DiagnosticsSnapshot to show
+     */
+    private void show(DiagnosticsSnapshot snapshot) {
+        databaseLabel.setText((!snapshot.isConnected() ? "Not connected" :
+                snapshot.isValid() ? "Connected" : "Connected, not answering") + " | " +
+                snapshot.getOpenConnections() + " open of " + snapshot.getConnectionsOpened() + " opened | " +
+                snapshot.getStatements() + " statements, " + snapshot.getStatementErrors() + " errors, " +
+                snapshot.getSlowStatements() + " slow");
+        replicasLabel.setText(snapshot.getReplicas() == 0 ? "None, every read uses the primary" :
+                snapshot.getFreshReplicas() + " of " + snapshot.getReplicas() + " fresh | " +
+                snapshot.getReplicaReads() + " reads from replicas, " + snapshot.getPrimaryReads() +
+                " from the primary");
+
+        MemoryUsage heap = snapshot.getHeap();
+        memoryLabel.setText("Heap " + heap.getUsed() / BYTES_PER_MB + " MB used of " +
+                heap.getCommitted() / BYTES_PER_MB + " MB, can grow to " +
+                (heap.getMax() < 0 ? "no limit" : heap.getMax() / BYTES_PER_MB + " MB"));
+        collectionLabel.setText(snapshot.getCollections() + " collections, " + snapshot.getCollectionMillis() +
+                " ms in total | p99 " + rounded(snapshot.getCollectionP99Millis()) + " ms, longest " +
+                rounded(snapshot.getCollectionMaxMillis()) + " ms");
+        fxThreadLabel.setText("Heartbeat p99 " + rounded(snapshot.getHeartbeatP99Millis()) + " ms, longest " +
+                rounded(snapshot.getHeartbeatMaxMillis()) + " ms | " +
+                snapshot.getStallSites().stream().mapToLong(StallSite::getStalls).sum() + " stalls over " +
+                StallWatchdog.getStallThreshold().toMillis() + " ms");
+        takenAtLabel.setText("Updated " + snapshot.getTakenAt().format(TIME_FORMAT) + ", every " + REFRESH_SECONDS +
+                " seconds");
+
+        operationsTable.getItems().setAll(snapshot.getOperations());
+        operationsTable.sort();
+        cachesTable.getItems().setAll(snapshot.getCaches());
+        cachesTable.sort();
+        stallSitesTable.getItems().setAll(snapshot.getStallSites());
+        stallSitesTable.sort();
+        slowQueriesList.getItems().setAll(snapshot.getRecentSlowQueries());
+        replicaChangesList.getItems().setAll(snapshot.getRecentReplicaChanges());
+        stallsList.getItems().setAll(snapshot.getRecentStalls());
+        collectionsList.getItems().setAll(snapshot.getRecentCollections());
+    }
+
+    /**
+     * Clears the timings of the statements and the stalls.
+     *
+     * <p> This method lets a problem be timed from a clean start, such as before repeating what the user did when the
+     * app was slow. </p>
+     */
+    private void reset() {
+        QueryStats.reset();
+        StallWatchdog.reset();
+        sampler.execute(this::sample);
+    }
+
+    private static double rounded(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static <T, V> TableColumn<T, V> column(String title, double width, Function<T, V> value) {
+        TableColumn<T, V> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setCellValueFactory(cell -> new SimpleObjectProperty<>(value.apply(cell.getValue())));
+        return column;
+    }
+}
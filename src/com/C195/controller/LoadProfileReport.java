@@ -0,0 +1,176 @@
+package com.C195.controller;
+
+import com.C195.helper.LoadProfiler;
+import com.C195.model.LocationLoad;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Controller for the report of how many appointments each location holds at the same time.
+ *
+ * <p> This class lists each location with the most appointments that ran there at once over a range of months and
+ * when that first happened, and charts the peak and average load of each hour of the day for the selected location.
+ * The months are profiled by LoadProfiler on a thread of their own, so the window stays responsive while a long range
+ * is read. The report has no FXML file, so its controls are built here. </p>
+ */
+public class LoadProfileReport {
+    // How many months back the month pickers reach
+    private static final int PICKER_MONTHS = 120;
+    private static final DateTimeFormatter PEAK_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final BorderPane root = new BorderPane();
+    private final ComboBox<YearMonth> firstMonthBox = new ComboBox<>();
+    private final ComboBox<YearMonth> lastMonthBox = new ComboBox<>();
+    private final Button runButton = new Button("Run");
+    private final Label summaryLabel = new Label();
+    private final TableView<LocationLoad> locationsTable = new TableView<>();
+    private final BarChart<String, Number> hourChart = new BarChart<>(new CategoryAxis(), new NumberAxis());
+
+    /**
+     * Constructor for LoadProfileReport.
+     *
+     * <p> This is the constructor for the LoadProfileReport class. It builds the report for the last twelve
+     * months. </p>
+     */
+    public LoadProfileReport() {
+        YearMonth thisMonth = YearMonth.now();
+        for (int month = PICKER_MONTHS - 1; month >= 0; month--) {
+            firstMonthBox.getItems().add(thisMonth.minusMonths(month));
+            lastMonthBox.getItems().add(thisMonth.minusMonths(month));
+        }
+        firstMonthBox.setValue(thisMonth.minusMonths(11));
+        lastMonthBox.setValue(thisMonth);
+        runButton.setOnAction(actionEvent -> run());
+
+        HBox toolbar = new HBox(10, new Label("From"), firstMonthBox, new Label("To"), lastMonthBox, runButton,
+                summaryLabel);
+        toolbar.setAlignment(Pos.CENTER_LEFT);
+        toolbar.setPadding(new Insets(10));
+
+        TableColumn<LocationLoad, String> locationColumn = new TableColumn<>("Location");
+        locationColumn.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getLocation()));
+        locationColumn.setPrefWidth(200);
+        TableColumn<LocationLoad, Integer> peakColumn = new TableColumn<>("Peak");
+        peakColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getPeakConcurrency()));
+        TableColumn<LocationLoad, String> peakTimeColumn = new TableColumn<>("First Reached");
+        peakTimeColumn.setCellValueFactory(cell -> {
+            LocalDateTime peakTime = cell.getValue().getPeakTime();
+            return new SimpleStringProperty(peakTime == null ? "" : peakTime.format(PEAK_FORMAT));
+        });
+        peakTimeColumn.setPrefWidth(140);
+        TableColumn<LocationLoad, Long> countColumn = new TableColumn<>("Appointments");
+        countColumn.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getAppointmentCount()));
+        countColumn.setPrefWidth(110);
+        locationsTable.getColumns().setAll(List.of(locationColumn, peakColumn, peakTimeColumn, countColumn));
+        locationsTable.getSelectionModel().selectedItemProperty().addListener(
+                (observable, oldValue, newValue) -> showHours(newValue));
+
+        hourChart.setAnimated(false);
+        hourChart.getXAxis().setLabel("Hour");
+        hourChart.getYAxis().setLabel("Appointments");
+
+        SplitPane center = new SplitPane(locationsTable, hourChart);
+        center.setOrientation(Orientation.VERTICAL);
+        root.setTop(toolbar);
+        root.setCenter(center);
+        run();
+    }
+
+    /**
+     * Getter for root.
+     *
+     * @return Returns the node holding the report, to be shown in a Scene
+     */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Profiles the picked months.
+     *
+     * <p> This method runs LoadProfiler on a background thread and fills the table once it is done. The Run button is
+     * disabled until then. </p>
+     */
+    private void run() {
+        YearMonth firstMonth = firstMonthBox.getValue();
+        YearMonth lastMonth = lastMonthBox.getValue();
+        if (firstMonth.isAfter(lastMonth)) {
+            summaryLabel.setText("The first month is after the last month");
+            return;
+        }
+
+        runButton.setDisable(true);
+        summaryLabel.setText("Profiling " + firstMonth + " to " + lastMonth + "...");
+
+        Thread thread = new Thread(() -> {
+            long startNanos = System.nanoTime();
+            List<LocationLoad> loads = LoadProfiler.profile(firstMonth, lastMonth);
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+            Platform.runLater(() -> {
+                runButton.setDisable(false);
+                if (loads == null) {
+                    summaryLabel.setText("The appointments could not be read");
+                    return;
+                }
+
+                long appointments = loads.stream().mapToLong(LocationLoad::getAppointmentCount).sum();
+                locationsTable.getItems().setAll(loads);
+                if (!loads.isEmpty())
+                    locationsTable.getSelectionModel().selectFirst();
+                else
+                    showHours(null);
+                summaryLabel.setText(loads.size() + " locations, " + appointments + " appointments, profiled in " +
+                        elapsedMillis + " ms");
+            });
+        }, "load-profile-report");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Charts a location's load by hour of the day.
+     *
+     * @param load The LocationLoad to chart, or null to clear the chart
+     */
+    private void showHours(LocationLoad load) {
+        hourChart.getData().clear();
+        if (load == null)
+            return;
+
+        XYChart.Series<String, Number> peaks = new XYChart.Series<>();
+        peaks.setName("Peak");
+        XYChart.Series<String, Number> averages = new XYChart.Series<>();
+        averages.setName("Average");
+        for (int hour = 0; hour < 24; hour++) {
+            String label = String.format("%02d", hour);
+            peaks.getData().add(new XYChart.Data<>(label, load.getHourlyPeak(hour)));
+            averages.getData().add(new XYChart.Data<>(label, load.getHourlyAverage(hour)));
+        }
+
+        hourChart.setTitle(load.getLocation().isEmpty() ? "No location" : load.getLocation());
+        hourChart.getData().setAll(List.of(peaks, averages));
+    }
+}
@@ -3,6 +3,7 @@ package com.C195.controller;
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
 import com.C195.helper.NavigationHelper;
+import com.C195.helper.SchedulerMetrics;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -84,9 +85,9 @@ public class LoginScreen implements Initializable {
      * Checks the user ID and password against the database.
      *
      * <p> This method checks the entered user ID and password against the database to make sure they are valid. It
-     * records login attempts in a file. If the log in is successful, it shows an alert informing the user showing
-     * whether there is an appointment in the next 15 minutes. Then it loads the AppointmentsInfo controller, showing
-     * the appointments from the database. </p>
+     * records login attempts in a file and counts them in SchedulerMetrics. If the log in is successful, it shows an
+     * alert informing the user showing whether there is an appointment in the next 15 minutes. Then it loads the
+     * AppointmentsInfo controller, showing the appointments from the database. </p>
      * @param actionEvent The event that called the method
      */
     public void onLogIn(ActionEvent actionEvent) {
@@ -107,6 +108,7 @@ public class LoginScreen implements Initializable {
             if (!isValid) {
                 writer.println("Log-in attempt unsuccessful: invalid user ID.\n");
                 writer.flush();
+                SchedulerMetrics.loginFailed(false);
                 ErrorAlert.incorrectUserID(rbLanguage);
                 return;
             }
@@ -114,12 +116,14 @@ public class LoginScreen implements Initializable {
             if (!isValid) {
                 writer.println("Log-in attempt unsuccessful: invalid password.\n");
                 writer.flush();
+                SchedulerMetrics.loginFailed(true);
                 ErrorAlert.incorrectPassword(rbLanguage);
                 return;
             }
 
             writer.println("Log-in attempt successful.\n");
             writer.flush();
+            SchedulerMetrics.loginSucceeded();
         } catch (IOException e) {
             e.printStackTrace();
         }
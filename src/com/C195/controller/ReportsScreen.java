@@ -1,21 +1,34 @@
 package com.C195.controller;
 
+import com.C195.event.CustomerCreated;
+import com.C195.event.CustomerEvent;
+import com.C195.event.DomainEvent;
+import com.C195.event.EventBus;
 import com.C195.helper.DAOHelper;
 import com.C195.helper.ErrorAlert;
+import com.C195.helper.IntIntMap;
+import com.C195.helper.IntObjectMap;
+import com.C195.helper.NameCache;
 import com.C195.helper.NavigationHelper;
+import com.C195.helper.ScheduleIndex;
 import com.C195.model.Appointment;
 import com.C195.model.Customer;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
 
 import java.net.URL;
 import java.time.LocalDateTime;
@@ -26,7 +39,8 @@ import java.util.*;
  *
  * <p> This class is the controller for the GUI screen that displays reports about the customers. It shows a bar graph
  * of the total amount of customers per country. It also lets the user select a customer to see that customer's total
- * amount of appointments per type and current month. </p>
+ * amount of appointments per type and current month, and opens the WorkloadReport of how booked each contact
+ * is and the LoadProfileReport of how many appointments each location holds at once. </p>
  */
 public class ReportsScreen implements Initializable {
     @FXML
@@ -50,26 +64,27 @@ public class ReportsScreen implements Initializable {
 
     ObservableList<Customer> customerList;
 
+    // Most changes that can wait to be applied before the report is reloaded instead
+    private static final int EVENT_QUEUE_CAPACITY = 4096;
+
+    // Changes are gathered for this long so a burst of them only redraws the report once
+    private static final long EVENT_COALESCE_MILLIS = 250;
+
+    private EventBus.Subscription eventSubscription;
+
     /**
      * The initializer for the controller.
      *
      * <p> This method initializes the controller class. It sets up the table view to show the customers. It adds a
-     * listener to that customer table. It also loads the bar chart graph with the information from the database. </p>
+     * listener to that customer table. It also loads the bar chart graph with the information from the database, and
+     * subscribes to appointment and customer changes so the report can be kept up to date. </p>
      * @param url The location for the controller
      * @param resourceBundle The resources for the controller
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         // Initialize the country bar chart
-        HashMap<String, Integer> countryCustomer = DAOHelper.customersPerCountry();
-        XYChart.Series series = new XYChart.Series();
-        series.setName("Countries");
-
-        for (Map.Entry<String, Integer> current : countryCustomer.entrySet()) {
-            series.getData().add(new XYChart.Data<>(current.getKey(), current.getValue()));
-        }
-
-        barChart.getData().addAll(series);
+        loadCountryChart();
 
         // Initialize the Customer Table
         customerList = DAOHelper.getAllCustomers();
@@ -82,6 +97,147 @@ public class ReportsScreen implements Initializable {
         // A selection on the customer table sets the Total Appointment labels
         customersTable.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> setTotalAppointments(newValue));
+
+        eventSubscription = EventBus.subscribeAsync(DomainEvent.class, this::onEvents, Platform::runLater,
+                EVENT_QUEUE_CAPACITY, EVENT_COALESCE_MILLIS);
+
+        addReportButtons();
+    }
+
+    /**
+     * Adds buttons that open the contact workload and location load reports and the diagnostics screen.
+     *
+     * <p> This method places the buttons in a row after the country bar chart. In a pane that does not lay out its
+     * children, the row is kept below the chart's left edge as it moves. </p>
+     */
+    private void addReportButtons() {
+        if (!(barChart.getParent() instanceof Pane))
+            return;
+
+        Button workloadButton = new Button("Contact Workload");
+        workloadButton.setOnAction(this::onViewWorkload);
+        Button loadProfileButton = new Button("Location Load");
+        loadProfileButton.setOnAction(this::onViewLoadProfile);
+        Button diagnosticsButton = new Button("Diagnostics");
+        diagnosticsButton.setOnAction(this::onViewDiagnostics);
+        HBox reportButtons = new HBox(10, workloadButton, loadProfileButton, diagnosticsButton);
+
+        Pane parent = (Pane) barChart.getParent();
+        parent.getChildren().add(parent.getChildren().indexOf(barChart) + 1, reportButtons);
+
+        if (parent.getClass() == Pane.class || parent instanceof AnchorPane) {
+            reportButtons.setManaged(false);
+            barChart.boundsInParentProperty().addListener((observable, oldValue, newValue) -> {
+                reportButtons.autosize();
+                reportButtons.relocate(newValue.getMinX(), newValue.getMaxY() + 10);
+            });
+        }
+    }
+
+    /**
+     * Loads the bar chart of customers per country.
+     *
+     * <p> This method replaces the bar chart's data with the current amount of customers in each country. </p>
+     */
+    private void loadCountryChart() {
+        IntIntMap countryCustomer = DAOHelper.customersPerCountry();
+        XYChart.Series series = new XYChart.Series();
+        series.setName("Countries");
+
+        countryCustomer.forEach((countryID, total) ->
+                series.getData().add(new XYChart.Data<>(NameCache.getCountryName(countryID), total)));
+
+        barChart.getData().setAll(series);
+    }
+
+    /**
+     * Applies a batch of changes to the report.
+     *
+     * <p> This method redraws the country chart and patches the customer table when Customers were changed, and
+     * refreshes the selected customer's totals. Appointment changes only affect the totals, so the chart is not
+     * reloaded for them. If events were dropped, the whole report is reloaded instead. </p>
+     * @param events The appointment and customer events, with only the latest event for each row
+     * @param isOverflowed True if events were dropped and the report must be reloaded
+     */
+    private void onEvents(List<DomainEvent> events, boolean isOverflowed) {
+        // A report that is no longer shown is waiting to be garbage collected and does not need to be redrawn
+        if (!isShowing())
+            return;
+
+        Customer selected = customersTable.getSelectionModel().getSelectedItem();
+
+        if (isOverflowed) {
+            ScheduleIndex.invalidate();
+            NameCache.invalidateCustomers();
+            loadCountryChart();
+            customerList.setAll(DAOHelper.getAllCustomers());
+        }
+        else {
+            IntObjectMap<CustomerEvent> customerEvents = new IntObjectMap<>();
+            for (DomainEvent event : events) {
+                if (event instanceof CustomerEvent)
+                    customerEvents.put(event.getEntityID(), (CustomerEvent) event);
+            }
+
+            if (customerEvents.isEmpty()) {
+                setTotalAppointments(selected);
+                return;
+            }
+
+            loadCountryChart();
+            applyCustomerEvents(customerEvents);
+        }
+
+        // Reselect the customer so its totals are shown for the row now in the table
+        if (selected != null) {
+            for (int i = 0; i < customerList.size(); i++) {
+                if (customerList.get(i).getCustomerID() == selected.getCustomerID()) {
+                    customersTable.getSelectionModel().select(i);
+                    break;
+                }
+            }
+        }
+
+        setTotalAppointments(customersTable.getSelectionModel().getSelectedItem());
+    }
+
+    /**
+     * Checks if the report is being shown.
+     *
+     * @return Returns true if the report's scene is shown in a window
+     */
+    private boolean isShowing() {
+        return customersTable.getScene() != null && customersTable.getScene().getWindow() != null;
+    }
+
+    /**
+     * Applies customer changes to the customer table.
+     *
+     * <p> This method replaces or removes the rows of the changed Customers and adds new Customers, walking the table
+     * once. </p>
+     * @param customerEvents The customer events by Customer ID. Events are removed from it as they are applied.
+     */
+    private void applyCustomerEvents(IntObjectMap<CustomerEvent> customerEvents) {
+        IntObjectMap<CustomerEvent> deleted = new IntObjectMap<>();
+        for (int i = 0; i < customerList.size(); i++) {
+            CustomerEvent event = customerEvents.remove(customerList.get(i).getCustomerID());
+            if (event == null)
+                continue;
+
+            if (event.getCustomer() == null)
+                deleted.put(event.getEntityID(), event);
+            else
+                customerList.set(i, event.getCustomer());
+        }
+
+        if (!deleted.isEmpty())
+            customerList.removeIf(customer -> deleted.containsKey(customer.getCustomerID()));
+
+        // Updated Customers that are not in the table were left out by a search, so only new Customers are added
+        customerEvents.forEach((customerID, event) -> {
+            if (event instanceof CustomerCreated)
+                customerList.add(event.getCustomer());
+        });
     }
 
     /**
@@ -96,27 +252,28 @@ public class ReportsScreen implements Initializable {
         ObservableList<Customer> allList = DAOHelper.getAllCustomers();
         customerList.clear();
 
-        // Add all contacts whose name's contain userSearch. Will be all contacts if userSearch is ""
+        int searchID = -1;
+        boolean isIDSearch = false;
+        try {
+            searchID = Integer.parseInt(userSearch);
+            isIDSearch = true;
+        } catch (NumberFormatException e) {
+            // userSearch is not a valid integer
+        }
+
+        // Add all customers whose name's contain userSearch. Will be all customers if userSearch is ""
+        // The ID match is found in the same pass so the list is only scanned once
+        Customer idMatch = null;
         for (Customer customer : allList) {
             if (customer.getName().toLowerCase(Locale.ROOT).contains(userSearch))
                 customerList.add(customer);
+            else if (isIDSearch && idMatch == null && customer.getCustomerID() == searchID)
+                idMatch = customer;
         }
 
-        // If no matches for name found, check ID
-        if (customerList.size() == 0) {
-            try {
-                int userID = Integer.parseInt(userSearch);
-
-                for (Customer customer: allList) {
-                    if (customer.getCustomerID() == userID) {
-                        customerList.add(customer);
-                        break;
-                    }
-                }
-            } catch (NumberFormatException e) {
-                // userSearch is not a valid integer
-            }
-        }
+        // If no matches for name found, use the ID match
+        if (customerList.size() == 0 && idMatch != null)
+            customerList.add(idMatch);
 
         if (customerList.size() == 0) {
             ErrorAlert.searchNotFoundError("customer");
@@ -131,6 +288,38 @@ public class ReportsScreen implements Initializable {
         }
     }
 
+    /**
+     * Opens the contact workload report.
+     *
+     * <p> This method opens the WorkloadReport heatmap of how booked each contact is. </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onViewWorkload(ActionEvent actionEvent) {
+        NavigationHelper.viewWorkloadReport(actionEvent);
+    }
+
+    /**
+     * Opens the location load report.
+     *
+     * <p> This method opens the LoadProfileReport of how many appointments each location holds at the same
+     * time. </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onViewLoadProfile(ActionEvent actionEvent) {
+        NavigationHelper.viewLoadProfileReport(actionEvent);
+    }
+
+    /**
+     * Opens the diagnostics screen.
+     *
+     * <p> This method opens the DiagnosticsScreen with the database, cache, memory, and FX thread statistics of the
+     * app. </p>
+     * @param actionEvent The event that called the method
+     */
+    public void onViewDiagnostics(ActionEvent actionEvent) {
+        NavigationHelper.viewDiagnosticsScreen(actionEvent);
+    }
+
     /**
      * Loads the contacts information screen.
      *
@@ -176,7 +365,8 @@ public class ReportsScreen implements Initializable {
      *
      * <p> This method is displays information about the selected customer's appointments. It shows the total amount of
      * appointments per current month and per type of appointment. It is called by the listener on the customer table
-     * from the initialize() method. </p>
+     * from the initialize() method. Each occurrence of a recurring appointment in the month is counted, while the
+     * totals per type count a series once. </p>
      * @param customer The user selected customer
      */
     private void setTotalAppointments(Customer customer) {
@@ -196,17 +386,40 @@ public class ReportsScreen implements Initializable {
         }
         typeLabel.setText(typeString.toString());
 
+        monthLabel.setText(Integer.toString(countMonthAppointments(DAOHelper.getAllAppointments(),
+                customer.getCustomerID(), LocalDateTime.now())));
+    }
+
+    /**
+     * Counts a customer's appointments in a month.
+     *
+     * <p> This method counts the appointments of the given customer that start or end in the month of the given time.
+     * Each occurrence of a recurring appointment in the month is counted. It is called by setTotalAppointments(), and
+     * is public so the benchmarks can time it. </p>
+     * @param appointments The appointments to count
+     * @param customerID The ID of the Customer whose appointments are counted
+     * @param now A time in the month to count the appointments of
+     * @return Returns the number of the customer's appointments in the month
+     */
+    public static int countMonthAppointments(List<Appointment> appointments, int customerID, LocalDateTime now) {
         int count = 0;
-        ObservableList<Appointment> allList = DAOHelper.getAllAppointments();
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfMonth = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+
+        for (Appointment appointment : appointments) {
+            if (appointment.getCustomerID() != customerID)
+                continue;
+
+            // A recurring appointment counts once for each of its occurrences in the month
+            List<Appointment> occurrences = appointment.isRecurring() ?
+                    appointment.occurrencesBetween(startOfMonth, startOfMonth.plusMonths(1)) :
+                    Collections.singletonList(appointment);
 
-        for (Appointment current : allList) {
-            if (current.getStartTime().getMonth().equals(now.getMonth()) ||
-                    current.getEndTime().getMonth().equals(now.getMonth())) {
-                if (current.getCustomerID() == customer.getCustomerID())
+            for (Appointment current : occurrences) {
+                if (current.getStartTime().getMonth().equals(now.getMonth()) ||
+                        current.getEndTime().getMonth().equals(now.getMonth()))
                     count++;
             }
         }
-        monthLabel.setText(Integer.toString(count));
+        return count;
     }
 }
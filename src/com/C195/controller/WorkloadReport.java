@@ -0,0 +1,190 @@
+package com.C195.controller;
+
+import com.C195.helper.NameCache;
+import com.C195.helper.WorkloadAnalyzer;
+import com.C195.model.ContactWorkload;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.Border;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.BorderStroke;
+import javafx.scene.layout.BorderStrokeStyle;
+import javafx.scene.layout.BorderWidths;
+import javafx.scene.layout.CornerRadii;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Controller for the report of how booked each contact is.
+ *
+ * <p> This class builds a heatmap with a row for each contact and a column for each week of a year. Each cell is
+ * colored by the share of the contact's business hours that were booked that week, from green for an empty week to
+ * red for a full one, and shows the week's booked hours, peak concurrency, and idle time between appointments when
+ * hovered. Weeks in which the contact was double-booked are outlined. The busiest contacts are listed first, with
+ * their totals for the year at the end of their row. The report has no FXML file, so its controls are built
+ * here. </p>
+ */
+public class WorkloadReport {
+    // Width and height of a week's cell, in pixels
+    private static final double CELL_SIZE = 14;
+
+    private final BorderPane root = new BorderPane();
+    private final GridPane heatmap = new GridPane();
+    private final Label yearLabel = new Label();
+    private final Label summaryLabel = new Label();
+    private int year = LocalDate.now().getYear();
+
+    /**
+     * Constructor for WorkloadReport.
+     *
+     * <p> This is the constructor for the WorkloadReport class. It builds the report for the current year. </p>
+     */
+    public WorkloadReport() {
+        Button previousButton = new Button("<");
+        Button nextButton = new Button(">");
+        Button refreshButton = new Button("Refresh");
+        previousButton.setOnAction(actionEvent -> showYear(year - 1));
+        nextButton.setOnAction(actionEvent -> showYear(year + 1));
+        refreshButton.setOnAction(actionEvent -> showYear(year));
+
+        HBox toolbar = new HBox(10, previousButton, yearLabel, nextButton, refreshButton, summaryLabel);
+        toolbar.setAlignment(Pos.CENTER_LEFT);
+        toolbar.setPadding(new Insets(10));
+
+        heatmap.setHgap(1);
+        heatmap.setVgap(1);
+        heatmap.setPadding(new Insets(10));
+
+        root.setTop(toolbar);
+        root.setCenter(new ScrollPane(heatmap));
+        showYear(year);
+    }
+
+    /**
+     * Getter for root.
+     *
+     * @return Returns the node holding the report, to be shown in a Scene
+     */
+    public Parent getRoot() {
+        return root;
+    }
+
+    /**
+     * Shows the report for a year.
+     *
+     * <p> This method works out the workload of every contact for the weeks that start in the given year and redraws
+     * the heatmap. </p>
+     * @param year The year to show
+     */
+    private void showYear(int year) {
+        this.year = year;
+        yearLabel.setText(Integer.toString(year));
+
+        LocalDate firstDate = LocalDate.of(year, 1, 1).with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        LocalDate lastDate = LocalDate.of(year, 12, 31).with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        int weeks = (int) ((lastDate.toEpochDay() - firstDate.toEpochDay() + 1) / 7);
+
+        long startNanos = System.nanoTime();
+        List<ContactWorkload> workloads = new ArrayList<>(WorkloadAnalyzer.analyze(firstDate, lastDate));
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+
+        workloads.sort(Comparator.comparingDouble(
+                (ContactWorkload workload) -> -workload.getUtilization(firstDate, lastDate)));
+        heatmap.getChildren().clear();
+
+        // Label the first week of each month
+        for (int week = 0; week < weeks; week++) {
+            LocalDate weekStart = firstDate.plusWeeks(week);
+            if (week == 0 || weekStart.getMonth() != weekStart.minusWeeks(1).getMonth())
+                heatmap.add(new Label(weekStart.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault())),
+                        week + 1, 0, 4, 1);
+        }
+        heatmap.add(new Label("Booked"), weeks + 1, 0);
+        heatmap.add(new Label("Share"), weeks + 2, 0);
+        heatmap.add(new Label("Peak"), weeks + 3, 0);
+        heatmap.add(new Label("Idle"), weeks + 4, 0);
+
+        int row = 1;
+        for (ContactWorkload workload : workloads) {
+            String name = NameCache.getContactName(workload.getContactID());
+            heatmap.add(new Label(name), 0, row);
+
+            for (int week = 0; week < weeks; week++) {
+                LocalDate weekStart = firstDate.plusWeeks(week);
+                heatmap.add(weekCell(workload, name, weekStart, weekStart.plusDays(6)), week + 1, row);
+            }
+
+            heatmap.add(new Label(hours(workload.getBookedMinutes(firstDate, lastDate))), weeks + 1, row);
+            heatmap.add(new Label(Math.round(workload.getUtilization(firstDate, lastDate) * 100) + "%"),
+                    weeks + 2, row);
+            heatmap.add(new Label(Integer.toString(workload.getPeakConcurrency(firstDate, lastDate))), weeks + 3,
+                    row);
+            heatmap.add(new Label(hours(workload.getIdleMinutes(firstDate, lastDate))), weeks + 4, row);
+            row++;
+        }
+
+        summaryLabel.setText(workloads.size() + " contacts, worked out in " + elapsedMillis + " ms");
+    }
+
+    /**
+     * Builds the cell of one contact's week.
+     *
+     * @param workload The contact's ContactWorkload
+     * @param name The contact's name
+     * @param from The first date of the week
+     * @param to The last date of the week
+     * @return Returns the cell, with a tooltip of the week's numbers
+     */
+    private static Region weekCell(ContactWorkload workload, String name, LocalDate from, LocalDate to) {
+        double utilization = workload.getUtilization(from, to);
+        int peak = workload.getPeakConcurrency(from, to);
+
+        Region cell = new Region();
+        cell.setPrefSize(CELL_SIZE, CELL_SIZE);
+        cell.setMinSize(CELL_SIZE, CELL_SIZE);
+
+        // Green for an empty week through yellow to red for a full one
+        Color color = workload.getBookedMinutes(from, to) == 0 ? Color.gray(0.92) :
+                Color.hsb(120 * (1 - Math.min(utilization, 1)), 0.75, 0.9);
+        cell.setBackground(new Background(new BackgroundFill(color, CornerRadii.EMPTY, Insets.EMPTY)));
+        if (peak > 1)
+            cell.setBorder(new Border(new BorderStroke(Color.BLACK, BorderStrokeStyle.SOLID, CornerRadii.EMPTY,
+                    new BorderWidths(2))));
+
+        Tooltip.install(cell, new Tooltip(name + ", week of " + from + "\n" +
+                "Booked: " + hours(workload.getBookedMinutes(from, to)) + " of " +
+                hours(workload.getOpenMinutes(from, to)) + " (" + Math.round(utilization * 100) + "%)\n" +
+                "Peak concurrency: " + peak + "\n" +
+                "Idle between appointments: " + hours(workload.getIdleMinutes(from, to)) + ", longest " +
+                hours(workload.getLongestIdleMinutes(from, to))));
+        return cell;
+    }
+
+    /**
+     * Formats minutes as hours.
+     *
+     * @param minutes The minutes
+     * @return Returns the minutes as hours with one decimal, such as "7.5h"
+     */
+    private static String hours(int minutes) {
+        return String.format("%.1fh", minutes / 60.0);
+    }
+}
@@ -0,0 +1,31 @@
+package com.C195.event;
+
+import com.C195.model.Appointment;
+
+/**
+ * Event for an appointment that was created.
+ *
+ * <p> This event is published by DAOHelper after an Appointment has been created in the database. </p>
+ */
+public class AppointmentCreated extends AppointmentEvent {
+
+    /**
+     * Constructor for AppointmentCreated.
+     *
+     * <p> This is the constructor for the AppointmentCreated class. </p>
+     * @param appointment The Appointment that was created
+     */
+    public AppointmentCreated(Appointment appointment) {
+        super(appointment.getAppointmentID(), appointment);
+    }
+
+    @Override
+    DomainEvent coalesce(DomainEvent later) {
+        // A subscriber that never saw the appointment does not need to hear about its changes, only that it now exists
+        if (later instanceof AppointmentUpdated)
+            return new AppointmentCreated(((AppointmentUpdated) later).getAppointment());
+        if (later instanceof AppointmentDeleted)
+            return null;
+        return later;
+    }
+}
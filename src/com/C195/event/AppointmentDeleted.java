@@ -0,0 +1,19 @@
+package com.C195.event;
+
+/**
+ * Event for an appointment that was deleted.
+ *
+ * <p> This event is published by DAOHelper after an Appointment has been deleted from the database. </p>
+ */
+public class AppointmentDeleted extends AppointmentEvent {
+
+    /**
+     * Constructor for AppointmentDeleted.
+     *
+     * <p> This is the constructor for the AppointmentDeleted class. </p>
+     * @param appointmentID The ID of the Appointment that was deleted
+     */
+    public AppointmentDeleted(int appointmentID) {
+        super(appointmentID, null);
+    }
+}
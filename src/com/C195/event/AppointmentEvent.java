@@ -0,0 +1,39 @@
+package com.C195.event;
+
+import com.C195.model.Appointment;
+
+/**
+ * Class for a change made to an appointment.
+ *
+ * <p> This class is the base class of the events published when an Appointment is created, updated, or deleted. </p>
+ */
+public abstract class AppointmentEvent extends DomainEvent {
+    private final Appointment appointment;
+
+    /**
+     * Constructor for AppointmentEvent.
+     *
+     * <p> This is the constructor for the AppointmentEvent class. </p>
+     * @param appointmentID The ID of the Appointment that was changed
+     * @param appointment The Appointment as it is now in the database, or null if it was deleted
+     */
+    protected AppointmentEvent(int appointmentID, Appointment appointment) {
+        super(appointmentID);
+        this.appointment = appointment;
+    }
+
+    /**
+     * Getter for appointment.
+     *
+     * <p> This is the getter for the Appointment as it is now in the database. </p>
+     * @return Returns the Appointment, or null if it was deleted
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    @Override
+    long getCoalescingKey() {
+        return (1L << 32) | (getEntityID() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,21 @@
+package com.C195.event;
+
+import com.C195.model.Appointment;
+
+/**
+ * Event for an appointment that was updated.
+ *
+ * <p> This event is published by DAOHelper after an Appointment has been updated in the database. </p>
+ */
+public class AppointmentUpdated extends AppointmentEvent {
+
+    /**
+     * Constructor for AppointmentUpdated.
+     *
+     * <p> This is the constructor for the AppointmentUpdated class. </p>
+     * @param appointment The Appointment that was updated
+     */
+    public AppointmentUpdated(Appointment appointment) {
+        super(appointment.getAppointmentID(), appointment);
+    }
+}
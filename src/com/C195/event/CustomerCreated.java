@@ -0,0 +1,31 @@
+package com.C195.event;
+
+import com.C195.model.Customer;
+
+/**
+ * Event for a customer that was created.
+ *
+ * <p> This event is published by DAOHelper after a Customer has been created in the database. </p>
+ */
+public class CustomerCreated extends CustomerEvent {
+
+    /**
+     * Constructor for CustomerCreated.
+     *
+     * <p> This is the constructor for the CustomerCreated class. </p>
+     * @param customer The Customer that was created
+     */
+    public CustomerCreated(Customer customer) {
+        super(customer.getCustomerID(), customer);
+    }
+
+    @Override
+    DomainEvent coalesce(DomainEvent later) {
+        // A subscriber that never saw the customer does not need to hear about its changes, only that it now exists
+        if (later instanceof CustomerUpdated)
+            return new CustomerCreated(((CustomerUpdated) later).getCustomer());
+        if (later instanceof CustomerDeleted)
+            return null;
+        return later;
+    }
+}
@@ -0,0 +1,20 @@
+package com.C195.event;
+
+/**
+ * Event for a customer that was deleted.
+ *
+ * <p> This event is published by DAOHelper after a Customer has been deleted from the database. The Customer's
+ * Appointments were deleted along with it and are not announced with their own events. </p>
+ */
+public class CustomerDeleted extends CustomerEvent {
+
+    /**
+     * Constructor for CustomerDeleted.
+     *
+     * <p> This is the constructor for the CustomerDeleted class. </p>
+     * @param customerID The ID of the Customer that was deleted
+     */
+    public CustomerDeleted(int customerID) {
+        super(customerID, null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.C195.event;
+
+import com.C195.model.Customer;
+
+/**
+ * Class for a change made to a customer.
+ *
+ * <p> This class is the base class of the events published when a Customer is created, updated, or deleted. </p>
+ */
+public abstract class CustomerEvent extends DomainEvent {
+    private final Customer customer;
+
+    /**
+     * Constructor for CustomerEvent.
+     *
+     * <p> This is the constructor for the CustomerEvent class. </p>
+     * @param customerID The ID of the Customer that was changed
+     * @param customer The Customer as it is now in the database, or null if it was deleted
+     */
+    protected CustomerEvent(int customerID, Customer customer) {
+        super(customerID);
+        this.customer = customer;
+    }
+
+    /**
+     * Getter for customer.
+     *
+     * <p> This is the getter for the Customer as it is now in the database. </p>
+     * @return Returns the Customer, or null if it was deleted
+     */
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    @Override
+    long getCoalescingKey() {
+        return (2L << 32) | (getEntityID() & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,21 @@
+package com.C195.event;
+
+import com.C195.model.Customer;
+
+/**
+ * Event for a customer that was updated.
+ *
+ * <p> This event is published by DAOHelper after a Customer has been updated in the database. </p>
+ */
+public class CustomerUpdated extends CustomerEvent {
+
+    /**
+     * Constructor for CustomerUpdated.
+     *
+     * <p> This is the constructor for the CustomerUpdated class. </p>
+     * @param customer The Customer that was updated
+     */
+    public CustomerUpdated(Customer customer) {
+        super(customer.getCustomerID(), customer);
+    }
+}
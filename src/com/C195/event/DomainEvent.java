@@ -0,0 +1,52 @@
+package com.C195.event;
+
+/**
+ * Class for a change made to the database.
+ *
+ * <p> This class is the base class of the events published on the EventBus when DAOHelper adds, updates, or deletes
+ * a row. Every event has the ID of the row that was changed. </p>
+ */
+public abstract class DomainEvent {
+    private final int entityID;
+
+    /**
+     * Constructor for DomainEvent.
+     *
+     * <p> This is the constructor for the DomainEvent class. </p>
+     * @param entityID The ID of the row that was changed
+     */
+    protected DomainEvent(int entityID) {
+        this.entityID = entityID;
+    }
+
+    /**
+     * Getter for entity ID.
+     *
+     * <p> This is the getter for the ID of the row that was changed. </p>
+     * @return Returns the ID of the row that was changed
+     */
+    public int getEntityID() {
+        return entityID;
+    }
+
+    /**
+     * Gets the key used to coalesce events.
+     *
+     * <p> This method returns a key that is the same for all events about the same row. When several events with the
+     * same key are waiting for an asynchronous subscriber, only the latest one is delivered. </p>
+     * @return Returns the coalescing key of the event
+     */
+    abstract long getCoalescingKey();
+
+    /**
+     * Combines this event with a later event about the same row.
+     *
+     * <p> This method returns the event an asynchronous subscriber should receive in place of this event and the
+     * given later one. By default only the later event is kept. </p>
+     * @param later The later event with the same coalescing key
+     * @return Returns the combined event, or null if the two events cancel each other out
+     */
+    DomainEvent coalesce(DomainEvent later) {
+        return later;
+    }
+}
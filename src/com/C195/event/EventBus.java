@@ -0,0 +1,230 @@
+package com.C195.event;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Class that delivers DomainEvents to the parts of the program interested in them.
+ *
+ * <p> This class is an in-process event bus. DAOHelper publishes an event every time it changes an Appointment or a
+ * Customer, and caches, reports, and screens subscribe to the events so they can update themselves instead of
+ * reloading from the database. </p>
+ * <p> Synchronous subscribers are called on the publishing thread before publish() returns. Asynchronous subscribers
+ * have a bounded queue. Their events are delivered in batches on the Executor they choose, such as Platform::runLater
+ * for the JavaFX thread. Events about the same row that arrive before a batch is delivered are coalesced: only the
+ * latest one is kept, except that a row created and then updated is still delivered as created, and a row created
+ * and then deleted is not delivered at all. If the queue fills up, later events are dropped and the next batch is
+ * marked as overflowed, so the subscriber knows to reload. </p>
+ * <p> The bus only holds weak references to Subscriptions. A subscriber must keep its Subscription in a field for as
+ * long as it wants to receive events. </p>
+ */
+public abstract class EventBus {
+    private static final List<WeakReference<Subscription>> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Delays the delivery of asynchronous batches so bursts of events can be coalesced
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "EventBus");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Functional interface for asynchronous subscribers.
+     *
+     * @param <E> The type of the events
+     */
+    public interface BatchSubscriber<E> {
+        /**
+         * Receives a batch of events.
+         *
+         * @param events The events, in the order they were published, with the events for each row coalesced into one
+         * @param isOverflowed True if events were dropped because the queue was full. The subscriber should reload.
+         */
+        void onEvents(List<E> events, boolean isOverflowed);
+    }
+
+    /**
+     * Subscribes to events on the publishing thread.
+     *
+     * <p> This method subscribes the given Consumer to every published event of the given type. The Consumer is
+     * called on the thread that publishes the event, before publish() returns. </p>
+     * @param type The type of events to receive, such as AppointmentEvent.class for all appointment events
+     * @param subscriber The Consumer that receives the events
+     * @param <E> The type of the events
+     * @return Returns the Subscription. The caller must keep a reference to it.
+     */
+    public static <E extends DomainEvent> Subscription subscribe(Class<E> type, Consumer<? super E> subscriber) {
+        Subscription subscription = new Subscription(type, subscriber);
+        subscriptions.add(new WeakReference<>(subscription));
+        return subscription;
+    }
+
+    /**
+     * Subscribes to events in coalesced batches.
+     *
+     * <p> This method subscribes the given BatchSubscriber to every published event of the given type. Events are
+     * queued and delivered in batches on the given Executor. Events published within coalesceMillis of the first
+     * event of a batch are delivered in the same batch. </p>
+     * @param type The type of events to receive, such as AppointmentEvent.class for all appointment events
+     * @param subscriber The BatchSubscriber that receives the events
+     * @param executor The Executor the batches are delivered on
+     * @param capacity The most events that can wait to be delivered before events are dropped
+     * @param coalesceMillis How long to wait for more events before delivering a batch
+     * @param <E> The type of the events
+     * @return Returns the Subscription. The caller must keep a reference to it.
+     */
+    public static <E extends DomainEvent> Subscription subscribeAsync(Class<E> type,
+                                                                      BatchSubscriber<? super E> subscriber,
+                                                                      Executor executor, int capacity,
+                                                                      long coalesceMillis) {
+        AsyncDelivery<E> delivery = new AsyncDelivery<>(subscriber, executor, capacity, coalesceMillis);
+        Subscription subscription = new Subscription(type, delivery);
+        delivery.subscription = subscription;
+        subscriptions.add(new WeakReference<>(subscription));
+        return subscription;
+    }
+
+    /**
+     * Publishes an event.
+     *
+     * <p> This method delivers the given event to every Subscription whose type matches it. An exception thrown by
+     * one subscriber does not stop the others from receiving the event. </p>
+     * @param event The event to publish
+     */
+    public static void publish(DomainEvent event) {
+        for (WeakReference<Subscription> reference : subscriptions) {
+            Subscription subscription = reference.get();
+
+            if (subscription == null || subscription.isCancelled()) {
+                subscriptions.remove(reference);
+                continue;
+            }
+
+            if (subscription.type.isInstance(event)) {
+                try {
+                    subscription.receiver.accept(event);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Class for a subscription to the EventBus.
+     *
+     * <p> This class is returned when subscribing to the EventBus. It must be kept for as long as events should be
+     * received, and can be cancelled to stop receiving them. </p>
+     */
+    public static class Subscription {
+        private final Class<?> type;
+        private final Consumer<Object> receiver;
+        private volatile boolean isCancelled = false;
+
+        @SuppressWarnings("unchecked")
+        private Subscription(Class<?> type, Consumer<?> receiver) {
+            this.type = type;
+            this.receiver = (Consumer<Object>) receiver;
+        }
+
+        /**
+         * Cancels the subscription.
+         *
+         * <p> This method stops the subscription from receiving events. Batches that are already waiting are not
+         * delivered. </p>
+         */
+        public void cancel() {
+            isCancelled = true;
+        }
+
+        /**
+         * Checks if the subscription has been cancelled.
+         *
+         * @return Returns true if the subscription has been cancelled
+         */
+        public boolean isCancelled() {
+            return isCancelled;
+        }
+    }
+
+    /**
+     * Class that queues and coalesces events for an asynchronous subscriber.
+     *
+     * @param <E> The type of the events
+     */
+    private static class AsyncDelivery<E extends DomainEvent> implements Consumer<E> {
+        private final BatchSubscriber<? super E> subscriber;
+        private final Executor executor;
+        private final ArrayBlockingQueue<E> queue;
+        private final long coalesceMillis;
+        private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+        private volatile boolean isOverflowed = false;
+        private Subscription subscription;
+
+        AsyncDelivery(BatchSubscriber<? super E> subscriber, Executor executor, int capacity, long coalesceMillis) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+            this.coalesceMillis = Math.max(coalesceMillis, 0);
+        }
+
+        @Override
+        public void accept(E event) {
+            if (!queue.offer(event))
+                isOverflowed = true;
+
+            // Only one delivery is scheduled at a time, and it takes everything queued when it runs
+            if (isScheduled.compareAndSet(false, true)) {
+                if (coalesceMillis == 0)
+                    executor.execute(this::deliver);
+                else
+                    scheduler.schedule(() -> executor.execute(this::deliver), coalesceMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void deliver() {
+            // Cleared before draining so events published during delivery schedule another batch
+            isScheduled.set(false);
+            boolean wasOverflowed = isOverflowed;
+            isOverflowed = false;
+
+            List<E> drained = new ArrayList<>(queue.size());
+            queue.drainTo(drained);
+
+            // Combine the events for each row, in the order the latest events were published
+            LinkedHashMap<Long, E> latest = new LinkedHashMap<>();
+            for (E event : drained) {
+                E earlier = latest.remove(event.getCoalescingKey());
+                E combined = earlier == null ? event : coalesce(earlier, event);
+
+                if (combined != null)
+                    latest.put(event.getCoalescingKey(), combined);
+            }
+
+            if (subscription.isCancelled() || (latest.isEmpty() && !wasOverflowed))
+                return;
+
+            try {
+                subscriber.onEvents(new ArrayList<>(latest.values()), wasOverflowed);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // The combined event is always of the same kind as the events it came from
+        @SuppressWarnings("unchecked")
+        private E coalesce(E earlier, E later) {
+            return (E) earlier.coalesce(later);
+        }
+    }
+}
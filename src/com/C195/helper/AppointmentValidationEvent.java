@@ -0,0 +1,36 @@
+package com.C195.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one check of the appointment form.
+ *
+ * <p> This event is committed by ErrorAlert.appointmentFormValidation(), lasting for the whole check, including the
+ * queries for the customer and user IDs and the lookups of overlapping appointments. </p>
+ */
+@Name("com.C195.AppointmentValidation")
+@Label("Appointment Validation")
+@Category({"Scheduler", "Forms"})
+@Description("A check of the appointment form before it is saved")
+class AppointmentValidationEvent extends jdk.jfr.Event {
+    @Label("Appointment ID")
+    @Description("The ID of the appointment being updated, or -1 for a new one")
+    int appointmentID;
+
+    @Label("Recurring")
+    boolean recurring;
+
+    @Label("Free In Bitmaps")
+    @Description("True if AvailabilityStore showed the time was free, so overlaps were not looked up")
+    boolean freeInBitmaps;
+
+    @Label("Passed")
+    boolean passed;
+
+    @Label("Message")
+    @Description("The messages of the checks that failed")
+    String message;
+}
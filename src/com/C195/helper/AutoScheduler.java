@@ -0,0 +1,567 @@
+package com.C195.helper;
+
+import com.C195.model.Appointment;
+import com.C195.model.AppointmentDemand;
+import com.C195.model.Contact;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Class that places many appointments at once.
+ *
+ * <p> This class chooses a contact and time for each AppointmentDemand so that no customer, contact, or user is
+ * booked twice, every appointment falls within its window and the business hours of its contact and location, and as
+ * many appointments as possible go to their most preferred contact. It works on the same 5 minute slot bitmaps as
+ * SlotFinder, starting from the appointments already in AvailabilityStore. </p>
+ * <p> The demands with the fewest choices are placed first, each at the earliest open time of the most preferred
+ * contact that has one. A local search then runs in rounds. In each round, moves are looked for in parallel on a
+ * ForkJoinPool: an unplaced demand takes a time held by one placed appointment, which is moved somewhere else, and a
+ * placed appointment moves to a more preferred contact. The moves are found against the schedule as it was at the
+ * start of the round and applied one at a time, skipping any that an earlier move got in the way of. </p>
+ */
+public abstract class AutoScheduler {
+    // Most rounds of local search run after the first placement
+    private static final int MAX_ROUNDS = 5;
+
+    // Most start times per day an unplaced demand tries when looking for an appointment to move out of its way
+    private static final int MAX_REPAIR_STARTS = 6;
+
+    // Most appointments an unplaced demand tries to move out of its way in one round
+    private static final int MAX_REPAIR_ATTEMPTS = 16;
+
+    // Most demands a fork/join task handles before it splits in two
+    private static final int TASK_SIZE = 64;
+
+    private static final ScheduleIndex.Resource[] RESOURCES = ScheduleIndex.Resource.values();
+    private static final long[] ALL_SLOTS = AvailabilityStore.slotMask(0, AvailabilityStore.SLOTS_PER_DAY);
+    private static final long[] NO_SLOTS = new long[AvailabilityStore.WORDS_PER_DAY];
+
+    /**
+     * Plans appointments for many demands.
+     *
+     * <p> This method places the demands using the common ForkJoinPool. See plan(List, ForkJoinPool). </p>
+     * @param demands The AppointmentDemands to place
+     * @return Returns the SchedulePlan
+     */
+    public static SchedulePlan plan(List<AppointmentDemand> demands) {
+        return plan(demands, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plans appointments for many demands.
+     *
+     * <p> This method returns a SchedulePlan with an Appointment for every demand that could be placed. The
+     * appointments do not overlap each other or the appointments in ScheduleIndex when the plan was made, and are not
+     * saved; pass them to DAOHelper.addAppointments() to book them. Times before now are never chosen. A demand whose
+     * preferred contacts do not exist, or whose window is too short for it, is left unplaced. </p>
+     * @param demands The AppointmentDemands to place
+     * @param pool The ForkJoinPool the local search runs on
+     * @return Returns the SchedulePlan
+     */
+    public static SchedulePlan plan(List<AppointmentDemand> demands, ForkJoinPool pool) {
+        int[] allContactIDs = new int[0];
+
+        // Plans are made off the FX thread, so the contacts are read on a connection of their own
+        try (Connection connection = JDBC.createReadConnection()) {
+            allContactIDs = DAOHelper.getAllContacts(connection).stream().mapToInt(Contact::getContactID).toArray();
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Request[] requests = new Request[demands.size()];
+
+        for (int i = 0; i < requests.length; i++)
+            requests[i] = new Request(i, demands.get(i), allContactIDs, now);
+
+        Schedule schedule = new Schedule(requests);
+
+        // The demands with the fewest contacts and days to choose from are placed first, the longest of them first
+        int[] order = IntStream.range(0, requests.length).boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> requests[i].choices())
+                        .thenComparing(i -> -requests[i].slotsNeeded))
+                .mapToInt(Integer::intValue).toArray();
+
+        for (int index : order) {
+            Request request = requests[index];
+            Placement placement = schedule.find(request, request.contactIDs.length, null, null);
+            if (placement != null)
+                schedule.place(placement);
+        }
+
+        Move[] moves = new Move[requests.length];
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            // Each task only writes its own elements, and invoke() returns after all of them are done
+            pool.invoke(new RangeTask(0, requests.length, schedule::updateMovable));
+            pool.invoke(new RangeTask(0, requests.length, i -> moves[i] = schedule.findMove(requests[i])));
+            int applied = 0;
+
+            // The moves are applied in the order of the demands, so a plan does not depend on how the tasks were run
+            for (Move move : moves) {
+                if (move != null && schedule.apply(move))
+                    applied++;
+            }
+
+            if (applied == 0)
+                break;
+        }
+
+        return schedule.toPlan(demands);
+    }
+
+    // A demand with what the search needs to know about it
+    private static class Request {
+        final int index;
+        final AppointmentDemand demand;
+        final int customerID;
+        final int userID;
+        final int slotsNeeded;
+        final int[] contactIDs;
+        final long firstDay;
+        final long lastDay;
+        final long[] firstDayWindow;
+        final long[] lastDayWindow;
+
+        Request(int index, AppointmentDemand demand, int[] allContactIDs, LocalDateTime now) {
+            this.index = index;
+            this.demand = demand;
+            customerID = demand.getCustomerID();
+            userID = demand.getUserID();
+
+            long slotSeconds = AvailabilityStore.SLOT_MINUTES * 60L;
+            slotsNeeded = (int) ((demand.getLength().getSeconds() + slotSeconds - 1) / slotSeconds);
+
+            // Contacts that do not exist are dropped, so they are not planned only to fail when saved
+            int[] preferred = demand.getPreferredContactIDs();
+            contactIDs = preferred.length == 0 ? allContactIDs : Arrays.stream(preferred).distinct()
+                    .filter(contactID -> Arrays.stream(allContactIDs).anyMatch(id -> id == contactID)).toArray();
+
+            LocalDateTime start = demand.getEarliestStart().isAfter(now) ? demand.getEarliestStart() : now;
+            LocalDateTime end = demand.getLatestEnd();
+
+            if (slotsNeeded <= 0 || slotsNeeded > AvailabilityStore.SLOTS_PER_DAY || !start.isBefore(end)) {
+                firstDay = 0;
+                lastDay = -1;
+                firstDayWindow = NO_SLOTS;
+                lastDayWindow = NO_SLOTS;
+                return;
+            }
+
+            // Only the first and last business days of the window can be cut short
+            LocalDate firstDate = AvailabilityStore.businessDate(start);
+            LocalDate lastDate = AvailabilityStore.businessDate(end.minusSeconds(1));
+            firstDay = firstDate.toEpochDay();
+            lastDay = lastDate.toEpochDay();
+            firstDayWindow = AvailabilityStore.slotMask(AvailabilityStore.firstSlotFrom(firstDate, start),
+                    AvailabilityStore.slotsEndedBy(firstDate, end));
+            lastDayWindow = AvailabilityStore.slotMask(AvailabilityStore.firstSlotFrom(lastDate, start),
+                    AvailabilityStore.slotsEndedBy(lastDate, end));
+        }
+
+        long choices() {
+            return contactIDs.length * Math.max(0, lastDay - firstDay + 1);
+        }
+
+        long[] window(long day) {
+            return day == firstDay ? firstDayWindow : day == lastDay ? lastDayWindow : ALL_SLOTS;
+        }
+    }
+
+    // A contact and time chosen for a demand. The rank is the contact's place in the demand's list of contacts.
+    private static final class Placement {
+        final Request request;
+        final int rank;
+        final int contactID;
+        final long day;
+        final int slot;
+        final long[] mask;
+
+        Placement(Request request, int rank, int contactID, long day, int slot) {
+            this.request = request;
+            this.rank = rank;
+            this.contactID = contactID;
+            this.day = day;
+            this.slot = slot;
+            mask = AvailabilityStore.slotMask(slot, slot + request.slotsNeeded);
+        }
+
+        int idOf(ScheduleIndex.Resource resource) {
+            switch (resource) {
+                case CUSTOMER:
+                    return request.customerID;
+                case CONTACT:
+                    return contactID;
+                default:
+                    return request.userID;
+            }
+        }
+
+        boolean intersects(long[] words) {
+            for (int word = 0; word < mask.length; word++) {
+                if ((mask[word] & words[word]) != 0)
+                    return true;
+            }
+            return false;
+        }
+
+        Appointment toAppointment() {
+            AppointmentDemand demand = request.demand;
+            LocalDateTime start = AvailabilityStore.slotStart(LocalDate.ofEpochDay(day), slot);
+
+            return new Appointment(-1, demand.getTitle(), demand.getDescription(), demand.getLocation(),
+                    demand.getType(), start, start.plus(demand.getLength()), request.customerID, request.userID,
+                    contactID);
+        }
+    }
+
+    // A change to the schedule: removed is taken out, then placed and moved are put in. An unplaced demand that takes
+    // the time of another has that one as removed and its new time as moved. A demand moving to a better contact is
+    // both removed and placed.
+    private static final class Move {
+        final Placement removed;
+        final Placement placed;
+        final Placement moved;
+
+        Move(Placement removed, Placement placed, Placement moved) {
+            this.removed = removed;
+            this.placed = placed;
+            this.moved = moved;
+        }
+    }
+
+    // The slots a resource's placements book on one day, and the placements
+    private static final class DaySlots {
+        final long[] words = new long[AvailabilityStore.WORDS_PER_DAY];
+        final List<Placement> placements = new ArrayList<>(2);
+    }
+
+    // The placements of the demands, and the slots booked by them and by the appointments already saved. It is only
+    // changed by one thread at a time, and only read while a RangeTask runs.
+    private static class Schedule {
+        private final Request[] requests;
+        private final Placement[] placements;
+
+        // Whether each placed demand has an open time apart from its own, so it is worth moving out of the way
+        private final boolean[] movable;
+
+        // Slots booked by the appointments already saved, by kind of resource, resource ID, and day
+        private final IntObjectMap<IntObjectMap<long[]>>[] fixed = newResourceMaps();
+
+        // The placements, by kind of resource, resource ID, and day
+        private final IntObjectMap<IntObjectMap<DaySlots>>[] planned = newResourceMaps();
+
+        Schedule(Request[] requests) {
+            this.requests = requests;
+            placements = new Placement[requests.length];
+            movable = new boolean[requests.length];
+
+            // Every day a demand could use is read from AvailabilityStore now, so the search never waits on its lock
+            for (Request request : requests) {
+                for (long day = request.firstDay; day <= request.lastDay; day++) {
+                    loadFixed(ScheduleIndex.Resource.CUSTOMER, request.customerID, day);
+                    loadFixed(ScheduleIndex.Resource.USER, request.userID, day);
+                    for (int contactID : request.contactIDs)
+                        loadFixed(ScheduleIndex.Resource.CONTACT, contactID, day);
+                }
+            }
+        }
+
+        private void loadFixed(ScheduleIndex.Resource resource, int resourceID, long day) {
+            IntObjectMap<long[]> days = fixed[resource.ordinal()].get(resourceID);
+            if (days == null)
+                fixed[resource.ordinal()].put(resourceID, days = new IntObjectMap<>());
+
+            if (!days.containsKey((int) day)) {
+                long[] words = AvailabilityStore.bookedSlots(resource, resourceID, day);
+                days.put((int) day, Arrays.equals(words, NO_SLOTS) ? NO_SLOTS : words);
+            }
+        }
+
+        private long[] fixedWords(ScheduleIndex.Resource resource, int resourceID, long day) {
+            IntObjectMap<long[]> days = fixed[resource.ordinal()].get(resourceID);
+            long[] words = days == null ? null : days.get((int) day);
+            return words == null ? NO_SLOTS : words;
+        }
+
+        private DaySlots plannedSlots(ScheduleIndex.Resource resource, int resourceID, long day) {
+            IntObjectMap<DaySlots> days = planned[resource.ordinal()].get(resourceID);
+            return days == null ? null : days.get((int) day);
+        }
+
+        // Returns the slots of a day that are within the demand's window and the contact's hours, or null if none are
+        private long[] candidates(Request request, int contactID, long day) {
+            long[] open = BusinessCalendar.openSlots(contactID, request.demand.getLocation(), day);
+            long[] window = request.window(day);
+            long[] candidates = new long[AvailabilityStore.WORDS_PER_DAY];
+            boolean isEmpty = true;
+
+            for (int word = 0; word < candidates.length; word++) {
+                candidates[word] = open[word] & window[word];
+                isEmpty &= candidates[word] == 0;
+            }
+            return isEmpty ? null : candidates;
+        }
+
+        // Returns the slots of a day the demand's customer and user, and the contact, have booked. Placements are
+        // counted if withPlanned is set, as if removed were taken out and added were put in.
+        private long[] busy(Request request, int contactID, long day, boolean withPlanned, Placement removed,
+                            Placement added) {
+            long[] busy = new long[AvailabilityStore.WORDS_PER_DAY];
+
+            for (ScheduleIndex.Resource resource : RESOURCES) {
+                int resourceID = resource == ScheduleIndex.Resource.CUSTOMER ? request.customerID :
+                        resource == ScheduleIndex.Resource.CONTACT ? contactID : request.userID;
+                long[] fixedWords = fixedWords(resource, resourceID, day);
+                DaySlots slots = withPlanned ? plannedSlots(resource, resourceID, day) : null;
+                boolean isRemoved = removed != null && removed.day == day && removed.idOf(resource) == resourceID;
+                boolean isAdded = added != null && added.day == day && added.idOf(resource) == resourceID;
+
+                for (int word = 0; word < busy.length; word++) {
+                    // A resource's placements never overlap, so clearing the removed one's slots leaves the others
+                    long plannedWord = slots == null ? 0 : slots.words[word];
+                    if (isRemoved)
+                        plannedWord &= ~removed.mask[word];
+                    if (isAdded)
+                        plannedWord |= added.mask[word];
+
+                    busy[word] |= fixedWords[word] | plannedWord;
+                }
+            }
+
+            return busy;
+        }
+
+        // Finds the earliest open time for a demand with one of its first ranks contacts, as if removed were taken out
+        // and added were put in. Returns null if there is none.
+        Placement find(Request request, int ranks, Placement removed, Placement added) {
+            for (int rank = 0; rank < ranks; rank++) {
+                int contactID = request.contactIDs[rank];
+
+                for (long day = request.firstDay; day <= request.lastDay; day++) {
+                    long[] candidates = candidates(request, contactID, day);
+                    if (candidates == null)
+                        continue;
+
+                    long[] free = AvailabilityStore.openSlots(busy(request, contactID, day, true, removed, added),
+                            candidates);
+                    int slot = SlotFinder.nextSetBit(SlotFinder.runStarts(free, request.slotsNeeded), 0);
+                    if (slot >= 0)
+                        return new Placement(request, rank, contactID, day, slot);
+                }
+            }
+
+            return null;
+        }
+
+        // Finds a move that places an unplaced demand, either at an open time or at a time held by only one placement
+        // that can be moved elsewhere
+        private Move findRepair(Request request) {
+            int attempts = 0;
+
+            for (int rank = 0; rank < request.contactIDs.length; rank++) {
+                int contactID = request.contactIDs[rank];
+
+                for (long day = request.firstDay; day <= request.lastDay; day++) {
+                    long[] candidates = candidates(request, contactID, day);
+                    if (candidates == null)
+                        continue;
+
+                    // Only the appointments already saved rule a start out; placements might be moved
+                    long[] starts = SlotFinder.runStarts(AvailabilityStore.openSlots(busy(request, contactID, day,
+                            false, null, null), candidates), request.slotsNeeded);
+                    int tried = 0;
+
+                    for (int slot = SlotFinder.nextSetBit(starts, 0); slot >= 0 && tried < MAX_REPAIR_STARTS;
+                         slot = SlotFinder.nextSetBit(starts, slot + request.slotsNeeded), tried++) {
+                        Placement placement = new Placement(request, rank, contactID, day, slot);
+                        List<Placement> blockers = blockers(placement);
+
+                        if (blockers.isEmpty())
+                            return new Move(null, placement, null);
+                        if (blockers.size() > 1 || !movable[blockers.get(0).request.index])
+                            continue;
+
+                        Placement blocker = blockers.get(0);
+                        Placement moved = find(blocker.request, blocker.request.contactIDs.length, blocker,
+                                placement);
+                        if (moved != null)
+                            return new Move(blocker, placement, moved);
+                        if (++attempts == MAX_REPAIR_ATTEMPTS)
+                            return null;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        // Returns the placements that overlap a placement and share its customer, contact, or user, stopping at two
+        private List<Placement> blockers(Placement placement) {
+            List<Placement> blockers = new ArrayList<>(2);
+
+            for (ScheduleIndex.Resource resource : RESOURCES) {
+                DaySlots slots = plannedSlots(resource, placement.idOf(resource), placement.day);
+                if (slots == null || !placement.intersects(slots.words))
+                    continue;
+
+                for (Placement other : slots.placements) {
+                    if (other.intersects(placement.mask) && !blockers.contains(other)) {
+                        blockers.add(other);
+                        if (blockers.size() > 1)
+                            return blockers;
+                    }
+                }
+            }
+
+            return blockers;
+        }
+
+        // Works out whether a placed demand has an open time apart from its own. Its own time stays booked while
+        // looking, so any time found is clear of it.
+        void updateMovable(int index) {
+            Placement placement = placements[index];
+            movable[index] = placement != null &&
+                    find(placement.request, placement.request.contactIDs.length, null, null) != null;
+        }
+
+        // Finds a move for a demand: placing it if it is unplaced, or giving it a more preferred contact
+        Move findMove(Request request) {
+            Placement current = placements[request.index];
+            if (current == null)
+                return request.choices() == 0 ? null : findRepair(request);
+            if (current.rank == 0)
+                return null;
+
+            Placement better = find(request, current.rank, current, null);
+            return better == null ? null : new Move(current, better, null);
+        }
+
+        // Applies a move if the schedule still allows it. Returns false if an earlier move got in its way.
+        boolean apply(Move move) {
+            if (move.removed != null && placements[move.removed.request.index] != move.removed)
+                return false;
+            if ((move.removed == null || move.removed.request != move.placed.request) &&
+                    placements[move.placed.request.index] != null)
+                return false;
+
+            if (move.removed != null)
+                unplace(move.removed);
+
+            if (!isFree(move.placed)) {
+                if (move.removed != null)
+                    place(move.removed);
+                return false;
+            }
+            place(move.placed);
+
+            if (move.moved != null && !isFree(move.moved)) {
+                unplace(move.placed);
+                place(move.removed);
+                return false;
+            }
+            if (move.moved != null)
+                place(move.moved);
+
+            return true;
+        }
+
+        private boolean isFree(Placement placement) {
+            return !placement.intersects(busy(placement.request, placement.contactID, placement.day, true, null,
+                    null));
+        }
+
+        void place(Placement placement) {
+            placements[placement.request.index] = placement;
+
+            for (ScheduleIndex.Resource resource : RESOURCES) {
+                IntObjectMap<DaySlots> days = planned[resource.ordinal()].get(placement.idOf(resource));
+                if (days == null)
+                    planned[resource.ordinal()].put(placement.idOf(resource), days = new IntObjectMap<>());
+
+                DaySlots slots = days.get((int) placement.day);
+                if (slots == null)
+                    days.put((int) placement.day, slots = new DaySlots());
+
+                for (int word = 0; word < slots.words.length; word++)
+                    slots.words[word] |= placement.mask[word];
+                slots.placements.add(placement);
+            }
+        }
+
+        private void unplace(Placement placement) {
+            placements[placement.request.index] = null;
+
+            for (ScheduleIndex.Resource resource : RESOURCES) {
+                DaySlots slots = plannedSlots(resource, placement.idOf(resource), placement.day);
+
+                for (int word = 0; word < slots.words.length; word++)
+                    slots.words[word] &= ~placement.mask[word];
+                slots.placements.remove(placement);
+            }
+        }
+
+        SchedulePlan toPlan(List<AppointmentDemand> demands) {
+            List<Appointment> appointments = new ArrayList<>();
+            List<AppointmentDemand> unplaced = new ArrayList<>();
+            int preferredCount = 0;
+
+            for (int i = 0; i < placements.length; i++) {
+                if (placements[i] == null) {
+                    unplaced.add(demands.get(i));
+                    continue;
+                }
+
+                appointments.add(placements[i].toAppointment());
+                if (placements[i].rank == 0)
+                    preferredCount++;
+            }
+
+            return new SchedulePlan(appointments, unplaced, preferredCount);
+        }
+    }
+
+    // Runs an action for a range of demand indexes, splitting the range between fork/join tasks
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                for (int i = from; i < to; i++)
+                    action.accept(i);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, action), new RangeTask(middle, to, action));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> IntObjectMap<V>[] newResourceMaps() {
+        IntObjectMap<V>[] maps = (IntObjectMap<V>[]) new IntObjectMap<?>[RESOURCES.length];
+        for (int i = 0; i < maps.length; i++)
+            maps[i] = new IntObjectMap<>();
+        return maps;
+    }
+}
@@ -0,0 +1,557 @@
+package com.C195.helper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Class that keeps which parts of each business day customers, contacts, and users are booked.
+ *
+ * <p> This class splits each day in the business's time zone into 5 minute slots, the same steps the appointment form
+ * uses for minutes. A day is 288 slots and fits in five longs. For every customer, contact, and user there is one
+ * such bitmap for each business day on which they have an appointment, with a bit set for every slot an appointment
+ * touches. Days without appointments are not stored, so a year of calendars for thousands of contacts takes a few
+ * megabytes. The bitmaps cover the whole day, and BusinessCalendar gives the slots that are within the hours of a
+ * contact or location. </p>
+ * <p> With the bitmaps, checking whether three people are free at a time is an OR and an AND of a few longs per day,
+ * finding open times is a search for a run of clear bits, and how booked someone is comes from counting set bits. A
+ * slot counts as booked if any part of it is, so the bitmaps never show a booked time as free. </p>
+ * <p> The bitmaps are derived from ScheduleIndex and are updated by it whenever an appointment is added or removed,
+ * while it holds its lock. The methods of this class take the same lock, so the two always agree. Recurring
+ * appointments are not stored in the bitmaps, since a series without an end would need a bitmap for every day
+ * forever. Their occurrences on the days asked about are ORed in when the days are read. </p>
+ */
+public abstract class AvailabilityStore {
+    /** Length of one slot, in minutes */
+    public static final int SLOT_MINUTES = 5;
+
+    private static final int SLOT_SECONDS = SLOT_MINUTES * 60;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /** Amount of slots in one business day */
+    public static final int SLOTS_PER_DAY = SECONDS_PER_DAY / SLOT_SECONDS;
+
+    // Amount of longs in the bitmap of one day
+    static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+
+    // How far a change to daylight saving time can move a business day in the user's time zone, in seconds
+    private static final int MAX_OFFSET_CHANGE = 3 * 60 * 60;
+
+    private static final IntObjectMap<DayBitmaps>[] bitmapsByResource = newResourceMaps();
+
+    /**
+     * Checks if a customer, contact, and user are all free at a time.
+     *
+     * <p> This method ORs the bitmaps of the three people for each business day the time covers and ANDs them with the
+     * slots of the time. It does not check business hours, which BusinessCalendar.isOpen() does. </p>
+     * @param customerID The ID of the Customer
+     * @param contactID The ID of the Contact
+     * @param userID The ID of the User, or -1 to ignore the user
+     * @param start The start of the time, in the user's time zone
+     * @param end The end of the time, in the user's time zone
+     * @return Returns true if none of them has an appointment at that time
+     */
+    public static boolean isFree(int customerID, int contactID, int userID, LocalDateTime start, LocalDateTime end) {
+        boolean[] isFree = {true};
+
+        synchronized (ScheduleIndex.class) {
+            ScheduleIndex.load();
+            forEachDay(ScheduleIndex.toKey(start), ScheduleIndex.toKey(end), (day, fromSlot, toSlot) -> {
+                long[] busy = busyWords(customerID, contactID, userID, day);
+                long[] wanted = slotMask(fromSlot, toSlot);
+
+                for (int word = 0; word < WORDS_PER_DAY; word++) {
+                    if ((busy[word] & wanted[word]) != 0)
+                        isFree[0] = false;
+                }
+            });
+        }
+
+        return isFree[0];
+    }
+
+    /**
+     * Gets the booked slots of a customer, contact, and user on a business day.
+     *
+     * <p> This method returns the OR of the bitmaps of the three people on the given business day. Bit i of the
+     * returned longs, counting on from the first long into the next, is set if slot i is booked. If an appointment is
+     * excluded, such as one that is being moved, the day is built again from ScheduleIndex without it. </p>
+     * @param customerID The ID of the Customer
+     * @param contactID The ID of the Contact
+     * @param userID The ID of the User, or -1 to ignore the user
+     * @param businessDate The date in the business's time zone
+     * @param excludeAppointmentID The ID of an appointment to leave out, or -1
+     * @return Returns the longs with the booked slots
+     */
+    public static long[] getBookedSlots(int customerID, int contactID, int userID, LocalDate businessDate,
+                                        int excludeAppointmentID) {
+        synchronized (ScheduleIndex.class) {
+            ScheduleIndex.load();
+            long day = businessDate.toEpochDay();
+
+            if (excludeAppointmentID == -1)
+                return busyWords(customerID, contactID, userID, day);
+
+            long[] busy = buildDay(ScheduleIndex.Resource.CUSTOMER, customerID, day, excludeAppointmentID);
+            long[] contactBusy = buildDay(ScheduleIndex.Resource.CONTACT, contactID, day, excludeAppointmentID);
+            long[] userBusy = userID == -1 ? new long[WORDS_PER_DAY] :
+                    buildDay(ScheduleIndex.Resource.USER, userID, day, excludeAppointmentID);
+
+            for (int word = 0; word < WORDS_PER_DAY; word++)
+                busy[word] |= contactBusy[word] | userBusy[word];
+
+            orSeries(busy, ScheduleIndex.Resource.CUSTOMER, customerID, day, excludeAppointmentID);
+            orSeries(busy, ScheduleIndex.Resource.CONTACT, contactID, day, excludeAppointmentID);
+            if (userID != -1)
+                orSeries(busy, ScheduleIndex.Resource.USER, userID, day, excludeAppointmentID);
+            return busy;
+        }
+    }
+
+    /**
+     * Counts the booked slots of a resource.
+     *
+     * <p> This method counts the set bits in the bitmaps of the given customer, contact, or user on the given business
+     * dates. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param firstDate The first business date to count
+     * @param lastDate The last business date to count
+     * @return Returns the amount of booked slots
+     */
+    public static int countBookedSlots(ScheduleIndex.Resource resource, int resourceID, LocalDate firstDate,
+                                       LocalDate lastDate) {
+        synchronized (ScheduleIndex.class) {
+            ScheduleIndex.load();
+            return countBooked(resource, resourceID, firstDate.toEpochDay(), lastDate.toEpochDay(), null);
+        }
+    }
+
+    /**
+     * Gets how booked a resource is.
+     *
+     * <p> This method returns the share of business hours on the given dates during which the customer, contact, or
+     * user has appointments. A contact's own hours are used, and the business's hours for customers and users. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param firstDate The first business date
+     * @param lastDate The last business date
+     * @return Returns the booked share, from 0 to 1
+     */
+    public static double getUtilization(ScheduleIndex.Resource resource, int resourceID, LocalDate firstDate,
+                                        LocalDate lastDate) {
+        int contactID = resource == ScheduleIndex.Resource.CONTACT ? resourceID : -1;
+        long openSlots = 0;
+
+        for (long day = firstDate.toEpochDay(); day <= lastDate.toEpochDay(); day++) {
+            for (long word : BusinessCalendar.openSlots(contactID, null, day))
+                openSlots += Long.bitCount(word);
+        }
+
+        if (openSlots == 0)
+            return 0;
+
+        synchronized (ScheduleIndex.class) {
+            ScheduleIndex.load();
+            int booked = countBooked(resource, resourceID, firstDate.toEpochDay(), lastDate.toEpochDay(),
+                    day -> BusinessCalendar.openSlots(contactID, null, day));
+            return booked / (double) openSlots;
+        }
+    }
+
+    /**
+     * Gets the time a slot starts.
+     *
+     * @param businessDate The date in the business's time zone
+     * @param slot The index of the slot
+     * @return Returns the start of the slot, in the user's time zone
+     */
+    public static LocalDateTime slotStart(LocalDate businessDate, int slot) {
+        return ScheduleIndex.fromKey(slotStartKey(businessDate.toEpochDay(), slot));
+    }
+
+    /**
+     * Gets the first slot that starts at or after a time.
+     *
+     * @param businessDate The date in the business's time zone
+     * @param dateTime The time, in the user's time zone
+     * @return Returns the index of the slot, from 0 to SLOTS_PER_DAY
+     */
+    public static int firstSlotFrom(LocalDate businessDate, LocalDateTime dateTime) {
+        long seconds = secondsIntoDay(businessDate.toEpochDay(), dateTime);
+        return (int) Math.max(0, Math.min(SLOTS_PER_DAY, -Math.floorDiv(-seconds, SLOT_SECONDS)));
+    }
+
+    /**
+     * Counts the slots that have ended by a time.
+     *
+     * @param businessDate The date in the business's time zone
+     * @param dateTime The time, in the user's time zone
+     * @return Returns the index after the last slot that ends at or before the time, from 0 to SLOTS_PER_DAY
+     */
+    public static int slotsEndedBy(LocalDate businessDate, LocalDateTime dateTime) {
+        long seconds = secondsIntoDay(businessDate.toEpochDay(), dateTime);
+        return (int) Math.max(0, Math.min(SLOTS_PER_DAY, Math.floorDiv(seconds, SLOT_SECONDS)));
+    }
+
+    /**
+     * Gets the business date of a time.
+     *
+     * @param dateTime The time, in the user's time zone
+     * @return Returns the date in the business's time zone
+     */
+    public static LocalDate businessDate(LocalDateTime dateTime) {
+        return LocalDate.ofEpochDay(Math.floorDiv(BusinessCalendar.instantToBusiness(
+                BusinessCalendar.localToInstant(ScheduleIndex.toKey(dateTime))), SECONDS_PER_DAY));
+    }
+
+    /**
+     * Marks the time of an appointment as booked.
+     *
+     * <p> This method is called by ScheduleIndex when an appointment is added, while it holds its lock. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param startKey The ScheduleIndex key of the start of the appointment
+     * @param endKey The ScheduleIndex key of the end of the appointment
+     */
+    static void added(ScheduleIndex.Resource resource, int resourceID, long startKey, long endKey) {
+        IntObjectMap<DayBitmaps> bitmaps = bitmapsByResource[resource.ordinal()];
+        DayBitmaps days = bitmaps.get(resourceID);
+
+        if (days == null) {
+            days = new DayBitmaps();
+            bitmaps.put(resourceID, days);
+        }
+
+        DayBitmaps target = days;
+        forEachDay(startKey, endKey, (day, fromSlot, toSlot) -> target.or(day, slotMask(fromSlot, toSlot)));
+    }
+
+    /**
+     * Rebuilds the days an appointment covered after it was removed.
+     *
+     * <p> This method is called by ScheduleIndex when an appointment is removed, while it holds its lock. Other
+     * appointments can share slots with the removed one, so the days it covered are rebuilt from the appointments
+     * that are left instead of clearing its bits. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param startKey The ScheduleIndex key of the start of the appointment
+     * @param endKey The ScheduleIndex key of the end of the appointment
+     */
+    static void removed(ScheduleIndex.Resource resource, int resourceID, long startKey, long endKey) {
+        IntObjectMap<DayBitmaps> bitmaps = bitmapsByResource[resource.ordinal()];
+        DayBitmaps days = bitmaps.get(resourceID);
+
+        if (days == null)
+            return;
+
+        forEachDay(startKey, endKey, (day, fromSlot, toSlot) ->
+                days.set(day, buildDay(resource, resourceID, day, -1)));
+
+        if (days.size == 0)
+            bitmaps.remove(resourceID);
+    }
+
+    // Builds the bitmap of a resource's day from the appointments in ScheduleIndex
+    private static long[] buildDay(ScheduleIndex.Resource resource, int resourceID, long day,
+                                   int excludeAppointmentID) {
+        long[] words = new long[WORDS_PER_DAY];
+
+        // The window is widened so appointments near midnight are found whatever the offset is that day
+        long dayStart = slotStartKey(day, 0) - MAX_OFFSET_CHANGE;
+        long dayEnd = slotStartKey(day + 1, 0) + MAX_OFFSET_CHANGE;
+        long[] busy = ScheduleIndex.busyIntervals(resource, resourceID, dayStart, dayEnd, excludeAppointmentID);
+
+        for (int i = 0; i < busy.length; i += 2) {
+            forEachDay(busy[i], busy[i + 1], (busyDay, fromSlot, toSlot) -> {
+                if (busyDay != day)
+                    return;
+
+                long[] mask = slotMask(fromSlot, toSlot);
+                for (int word = 0; word < WORDS_PER_DAY; word++)
+                    words[word] |= mask[word];
+            });
+        }
+
+        return words;
+    }
+
+    /**
+     * Discards all bitmaps.
+     *
+     * <p> This method is called by ScheduleIndex when it discards its appointments. </p>
+     */
+    static void cleared() {
+        for (IntObjectMap<DayBitmaps> bitmaps : bitmapsByResource)
+            bitmaps.clear();
+    }
+
+    /**
+     * Gets the booked slots of one resource on a business day.
+     *
+     * <p> Unlike getBookedSlots(), this method does not OR the customer, contact, and user together, so AutoScheduler
+     * can keep the slots of each resource apart while it tries contacts for a demand. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param day The business day, as an epoch day
+     * @return Returns new longs with the booked slots, including those of recurring appointments
+     */
+    static long[] bookedSlots(ScheduleIndex.Resource resource, int resourceID, long day) {
+        synchronized (ScheduleIndex.class) {
+            ScheduleIndex.load();
+            long[] busy = new long[WORDS_PER_DAY];
+            orInto(busy, resource, resourceID, day);
+            return busy;
+        }
+    }
+
+    /**
+     * Gets a mask of the slots from one index up to, but not including, another.
+     *
+     * @param fromSlot The first slot
+     * @param toSlot The slot after the last slot
+     * @return Returns the longs of a day with the bits of the slots set
+     */
+    static long[] slotMask(int fromSlot, int toSlot) {
+        long[] mask = new long[WORDS_PER_DAY];
+        for (int word = 0; word < WORDS_PER_DAY; word++) {
+            int from = Math.max(fromSlot - word * 64, 0);
+            int to = Math.min(toSlot - word * 64, 64);
+
+            if (from < to)
+                mask[word] = (to == 64 ? -1L : (1L << to) - 1) & (-1L << from);
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the slots of a business day that are open, given the booked ones.
+     *
+     * @param booked The booked slots
+     * @param open The slots within business hours, from BusinessCalendar
+     * @return Returns the longs of a day with the bits of the slots within business hours that are not booked set
+     */
+    static long[] openSlots(long[] booked, long[] open) {
+        long[] free = new long[WORDS_PER_DAY];
+        for (int word = 0; word < WORDS_PER_DAY; word++)
+            free[word] = ~booked[word] & open[word];
+        return free;
+    }
+
+    private static long[] busyWords(int customerID, int contactID, int userID, long day) {
+        long[] busy = new long[WORDS_PER_DAY];
+        orInto(busy, ScheduleIndex.Resource.CUSTOMER, customerID, day);
+        orInto(busy, ScheduleIndex.Resource.CONTACT, contactID, day);
+        if (userID != -1)
+            orInto(busy, ScheduleIndex.Resource.USER, userID, day);
+        return busy;
+    }
+
+    private static void orInto(long[] busy, ScheduleIndex.Resource resource, int resourceID, long day) {
+        orSeries(busy, resource, resourceID, day, -1);
+        DayBitmaps bitmaps = bitmapsByResource[resource.ordinal()].get(resourceID);
+        if (bitmaps == null)
+            return;
+
+        int index = bitmaps.indexOf(day);
+        if (index >= 0) {
+            for (int word = 0; word < WORDS_PER_DAY; word++)
+                busy[word] |= bitmaps.words[index * WORDS_PER_DAY + word];
+        }
+    }
+
+    // ORs the slots the resource's recurring appointments book on a day into busy
+    private static void orSeries(long[] busy, ScheduleIndex.Resource resource, int resourceID, long day,
+                                 int excludeAppointmentID) {
+        long[] words = seriesDays(resource, resourceID, day, day, excludeAppointmentID).get((int) day);
+        if (words == null)
+            return;
+
+        for (int word = 0; word < WORDS_PER_DAY; word++)
+            busy[word] |= words[word];
+    }
+
+    // Builds the bitmaps of the slots the resource's recurring appointments book on the given days. Only days with
+    // an occurrence are in the map.
+    private static IntObjectMap<long[]> seriesDays(ScheduleIndex.Resource resource, int resourceID, long firstDay,
+                                                   long lastDay, int excludeAppointmentID) {
+        IntObjectMap<long[]> days = new IntObjectMap<>();
+        if (!ScheduleIndex.hasSeries(resource, resourceID))
+            return days;
+
+        long[] busy = ScheduleIndex.seriesIntervals(resource, resourceID, slotStartKey(firstDay, 0) - MAX_OFFSET_CHANGE,
+                slotStartKey(lastDay + 1, 0) + MAX_OFFSET_CHANGE, excludeAppointmentID);
+
+        for (int i = 0; i < busy.length; i += 2) {
+            forEachDay(busy[i], busy[i + 1], (day, fromSlot, toSlot) -> {
+                if (day < firstDay || day > lastDay)
+                    return;
+
+                long[] words = days.get((int) day);
+                if (words == null) {
+                    words = new long[WORDS_PER_DAY];
+                    days.put((int) day, words);
+                }
+
+                long[] mask = slotMask(fromSlot, toSlot);
+                for (int word = 0; word < WORDS_PER_DAY; word++)
+                    words[word] |= mask[word];
+            });
+        }
+
+        return days;
+    }
+
+    // Counts the booked slots of a resource on the given days, from its bitmaps and its recurring appointments, only
+    // counting the slots in dayMask if it is given
+    private static int countBooked(ScheduleIndex.Resource resource, int resourceID, long firstDay, long lastDay,
+                                   DayMask dayMask) {
+        DayBitmaps bitmaps = bitmapsByResource[resource.ordinal()].get(resourceID);
+        int[] total = {bitmaps == null ? 0 : bitmaps.count(firstDay, lastDay, dayMask)};
+
+        // Only the slots of occurrences that the bitmaps do not already have are added
+        seriesDays(resource, resourceID, firstDay, lastDay, -1).forEach((day, words) -> {
+            int index = bitmaps == null ? -1 : bitmaps.indexOf(day);
+            long[] mask = dayMask == null ? null : dayMask.slots(day);
+
+            for (int word = 0; word < WORDS_PER_DAY; word++) {
+                long booked = index < 0 ? 0 : bitmaps.words[index * WORDS_PER_DAY + word];
+                total[0] += Long.bitCount(words[word] & ~booked & (mask == null ? -1L : mask[word]));
+            }
+        });
+
+        return total[0];
+    }
+
+    /**
+     * Functional interface used to visit the slots a time covers on each business day.
+     */
+    private interface DayVisitor {
+        void visit(long day, int fromSlot, int toSlot);
+    }
+
+    // Calls the visitor for every business day the time between two keys covers. When the business's clocks change
+    // during the time, its clock can go back to before the start or past the end, so the range is widened to the
+    // start and end moved by the length of the time. The slots visited can only be more than the time covers.
+    private static void forEachDay(long startKey, long endKey, DayVisitor visitor) {
+        long startInstant = BusinessCalendar.localToInstant(startKey);
+        long endInstant = BusinessCalendar.localToInstant(endKey);
+
+        if (endInstant <= startInstant)
+            return;
+
+        long businessStart = BusinessCalendar.instantToBusiness(startInstant);
+        long businessEnd = BusinessCalendar.instantToBusiness(endInstant);
+        long start = Math.min(businessStart, businessEnd - (endInstant - startInstant));
+        long end = Math.max(businessEnd, businessStart + (endInstant - startInstant));
+        long lastDay = Math.floorDiv(end - 1, SECONDS_PER_DAY);
+
+        for (long day = Math.floorDiv(start, SECONDS_PER_DAY); day <= lastDay; day++) {
+            long dayStart = day * SECONDS_PER_DAY;
+            int fromSlot = (int) Math.max(0, Math.floorDiv(start - dayStart, SLOT_SECONDS));
+            int toSlot = (int) Math.min(SLOTS_PER_DAY, -Math.floorDiv(dayStart - end, SLOT_SECONDS));
+
+            if (fromSlot < toSlot)
+                visitor.visit(day, fromSlot, toSlot);
+        }
+    }
+
+    private static long slotStartKey(long day, int slot) {
+        return BusinessCalendar.instantToLocal(BusinessCalendar.businessToInstant(
+                day * SECONDS_PER_DAY + (long) slot * SLOT_SECONDS));
+    }
+
+    private static long secondsIntoDay(long day, LocalDateTime dateTime) {
+        return BusinessCalendar.instantToBusiness(BusinessCalendar.localToInstant(ScheduleIndex.toKey(dateTime))) -
+                day * SECONDS_PER_DAY;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IntObjectMap<DayBitmaps>[] newResourceMaps() {
+        IntObjectMap<DayBitmaps>[] maps =
+                (IntObjectMap<DayBitmaps>[]) new IntObjectMap<?>[ScheduleIndex.Resource.values().length];
+        for (int i = 0; i < maps.length; i++)
+            maps[i] = new IntObjectMap<>();
+        return maps;
+    }
+
+    /**
+     * Functional interface used to limit counting to some slots of each day.
+     */
+    private interface DayMask {
+        long[] slots(long day);
+    }
+
+    /**
+     * Class for the bitmaps of one resource, one for each day that has appointments.
+     *
+     * <p> The days are kept sorted so a day is found with a binary search. The words of day i start at
+     * i * WORDS_PER_DAY. A day whose bits are all cleared is removed. </p>
+     */
+    private static class DayBitmaps {
+        private int[] days = new int[4];
+        private long[] words = new long[4 * WORDS_PER_DAY];
+        private int size;
+
+        int indexOf(long day) {
+            return Arrays.binarySearch(days, 0, size, (int) day);
+        }
+
+        void or(long day, long[] mask) {
+            int index = indexOf(day);
+            if (index < 0)
+                index = insert(-index - 1, day);
+
+            for (int word = 0; word < WORDS_PER_DAY; word++)
+                words[index * WORDS_PER_DAY + word] |= mask[word];
+        }
+
+        void set(long day, long[] mask) {
+            int index = indexOf(day);
+
+            if (Arrays.stream(mask).allMatch(word -> word == 0)) {
+                if (index >= 0) {
+                    System.arraycopy(days, index + 1, days, index, size - index - 1);
+                    System.arraycopy(words, (index + 1) * WORDS_PER_DAY, words, index * WORDS_PER_DAY,
+                            (size - index - 1) * WORDS_PER_DAY);
+                    size--;
+                }
+                return;
+            }
+
+            if (index < 0)
+                index = insert(-index - 1, day);
+
+            System.arraycopy(mask, 0, words, index * WORDS_PER_DAY, WORDS_PER_DAY);
+        }
+
+        int count(long firstDay, long lastDay, DayMask dayMask) {
+            int from = indexOf(firstDay);
+            from = from < 0 ? -from - 1 : from;
+            int total = 0;
+
+            for (int i = from; i < size && days[i] <= lastDay; i++) {
+                long[] mask = dayMask == null ? null : dayMask.slots(days[i]);
+                for (int word = 0; word < WORDS_PER_DAY; word++)
+                    total += Long.bitCount(words[i * WORDS_PER_DAY + word] & (mask == null ? -1L : mask[word]));
+            }
+
+            return total;
+        }
+
+        private int insert(int index, long day) {
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                words = Arrays.copyOf(words, size * 2 * WORDS_PER_DAY);
+            }
+
+            System.arraycopy(days, index, days, index + 1, size - index);
+            System.arraycopy(words, index * WORDS_PER_DAY, words, (index + 1) * WORDS_PER_DAY,
+                    (size - index) * WORDS_PER_DAY);
+            days[index] = (int) day;
+            Arrays.fill(words, index * WORDS_PER_DAY, (index + 1) * WORDS_PER_DAY, 0);
+            size++;
+            return index;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.C195.helper;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Class for the outcome of booking an appointment.
+ *
+ * <p> This class is returned by DAOHelper.bookAppointment(). It tells whether the Appointment was saved, and if it
+ * was not because it overlapped other appointments of the same customer, contact, or user, the IDs of those
+ * appointments for each of them. </p>
+ */
+public class BookingResult {
+    private final Status status;
+    private final int appointmentID;
+    private final int[][] conflictsByResource;
+
+    private static final int[][] NO_CONFLICTS = new int[ScheduleIndex.Resource.values().length][0];
+
+    /**
+     * The possible outcomes of a booking.
+     */
+    public enum Status {
+        /** The appointment was saved */
+        BOOKED,
+        /** The appointment overlaps other appointments of the customer, contact, or user and was not saved */
+        CONFLICT,
+        /** The appointment was not saved because of a database error or a missing customer, contact, or user */
+        FAILED
+    }
+
+    /**
+     * Constructor for BookingResult.
+     *
+     * <p> This is the constructor for the BookingResult class. </p>
+     * @param status The outcome of the booking
+     * @param appointmentID The ID of the saved Appointment, or -1 if it was not saved
+     * @param conflictsByResource The IDs of the overlapping appointments, indexed by the ordinal of the Resource they
+     *                            share with the booked appointment. It may be null if there were no conflicts.
+     */
+    BookingResult(Status status, int appointmentID, int[][] conflictsByResource) {
+        this.status = status;
+        this.appointmentID = appointmentID;
+        this.conflictsByResource = conflictsByResource == null ? NO_CONFLICTS : conflictsByResource;
+    }
+
+    /**
+     * Getter for status.
+     *
+     * <p> This is the getter for the outcome of the booking. </p>
+     * @return Returns the outcome of the booking
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks if the appointment was saved.
+     *
+     * @return Returns true if the appointment was saved
+     */
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    /**
+     * Getter for appointment ID.
+     *
+     * <p> This is the getter for the ID of the saved Appointment. </p>
+     * @return Returns the ID of the saved Appointment, or -1 if it was not saved
+     */
+    public int getAppointmentID() {
+        return appointmentID;
+    }
+
+    /**
+     * Getter for conflict IDs.
+     *
+     * <p> This is the getter for the IDs of all the appointments the booking overlapped. An appointment that shares
+     * more than one resource with the booking is only listed once. </p>
+     * @return Returns the IDs of the overlapping appointments. It is empty unless the status is CONFLICT.
+     */
+    public int[] getConflictIDs() {
+        return Arrays.stream(conflictsByResource).flatMapToInt(IntStream::of).distinct().toArray();
+    }
+
+    /**
+     * Getter for the conflict IDs of one resource.
+     *
+     * <p> This is the getter for the IDs of the appointments that overlap the booking and book the same customer,
+     * contact, or user, in order of their start times. </p>
+     * @param resource The resource shared with the booking
+     * @return Returns the IDs of the overlapping appointments for the resource
+     */
+    public int[] getConflictIDs(ScheduleIndex.Resource resource) {
+        return conflictsByResource[resource.ordinal()].clone();
+    }
+
+    @Override
+    public String toString() {
+        return status + (status == Status.CONFLICT ? " " + Arrays.deepToString(conflictsByResource) :
+                " " + appointmentID);
+    }
+}
@@ -0,0 +1,143 @@
+package com.C195.helper;
+
+import com.C195.model.Appointment;
+import com.C195.model.AppointmentFilter;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class for a preview of moving many appointments at once.
+ *
+ * <p> This class is returned by BulkEditor. It holds each appointment that matched the filter as it is now and as it
+ * would be after the change, and the appointments each changed one would overlap. Nothing is saved until it is
+ * passed to DAOHelper.applyBulkChange(), which only saves it if none of the appointments changed since the preview
+ * and no conflicts are found in the database. </p>
+ */
+public class BulkChange {
+    private final AppointmentFilter filter;
+    private final Duration shift;
+    private final int contactID;
+    private final List<Appointment> originals;
+    private final List<Appointment> appointments;
+    private final int[][] conflictIDs;
+    private final ScheduleIndex.Resource[] checkedResources;
+
+    /**
+     * Constructor for BulkChange.
+     *
+     * <p> This is the constructor for the BulkChange class. </p>
+     * @param filter The AppointmentFilter the appointments matched
+     * @param shift How far the appointments move, or Duration.ZERO
+     * @param contactID The ID of the Contact the appointments are given to, or -1 to keep their contacts
+     * @param originals The matched Appointments as they are now
+     * @param appointments The matched Appointments as they would be after the change, in the same order
+     * @param conflictIDs The IDs of the appointments each changed Appointment would overlap, in the same order
+     * @param checkedResources The resources whose times the change affects, which were checked for conflicts
+     */
+    BulkChange(AppointmentFilter filter, Duration shift, int contactID, List<Appointment> originals,
+               List<Appointment> appointments, int[][] conflictIDs, ScheduleIndex.Resource[] checkedResources) {
+        this.filter = filter;
+        this.shift = shift;
+        this.contactID = contactID;
+        this.originals = Collections.unmodifiableList(originals);
+        this.appointments = Collections.unmodifiableList(appointments);
+        this.conflictIDs = conflictIDs;
+        this.checkedResources = checkedResources;
+    }
+
+    /**
+     * Getter for filter.
+     *
+     * @return Returns the AppointmentFilter the appointments matched
+     */
+    public AppointmentFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Getter for shift.
+     *
+     * @return Returns how far the appointments move, or Duration.ZERO if they keep their times
+     */
+    public Duration getShift() {
+        return shift;
+    }
+
+    /**
+     * Getter for contact ID.
+     *
+     * @return Returns the ID of the Contact the appointments are given to, or -1 if they keep their contacts
+     */
+    public int getContactID() {
+        return contactID;
+    }
+
+    /**
+     * Getter for originals.
+     *
+     * @return Returns the matched Appointments as they are now
+     */
+    public List<Appointment> getOriginals() {
+        return originals;
+    }
+
+    /**
+     * Getter for appointments.
+     *
+     * <p> This is the getter for the matched appointments as they would be after the change. They are copies with the
+     * same IDs as the originals, in the same order. </p>
+     * @return Returns the changed Appointments
+     */
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    /**
+     * Gets the conflicts of a changed appointment.
+     *
+     * @param index The index of the Appointment in getAppointments()
+     * @return Returns the IDs of the appointments it would overlap that share its customer, contact, or user
+     */
+    public int[] getConflictIDs(int index) {
+        return conflictIDs[index];
+    }
+
+    /**
+     * Counts the changed appointments that would overlap another appointment.
+     *
+     * @return Returns the amount of conflicting Appointments
+     */
+    public int getConflictCount() {
+        int count = 0;
+        for (int[] ids : conflictIDs) {
+            if (ids.length > 0)
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the change can be saved as it is.
+     *
+     * @return Returns true if at least one appointment changes and none of them would overlap another appointment
+     */
+    public boolean isClear() {
+        return !appointments.isEmpty() && getConflictCount() == 0;
+    }
+
+    /**
+     * Getter for checked resources.
+     *
+     * @return Returns the resources whose times the change affects, which DAOHelper checks again when saving
+     */
+    ScheduleIndex.Resource[] getCheckedResources() {
+        return checkedResources;
+    }
+
+    @Override
+    public String toString() {
+        return appointments.size() + " to change (" + filter + "), " + getConflictCount() + " conflicting";
+    }
+}
@@ -0,0 +1,167 @@
+package com.C195.helper;
+
+import com.C195.model.Appointment;
+import com.C195.model.AppointmentFilter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Class that previews moving many appointments at once.
+ *
+ * <p> This class builds a BulkChange that shifts every appointment matching an AppointmentFilter by the same
+ * duration, or gives them all to another contact, such as when a contact is out sick. The changed appointments are
+ * checked against ScheduleIndex and against each other, leaving out the times the matched appointments are moving
+ * away from, so the preview shows every conflict before anything is saved. The check is a binary search in the sorted
+ * times of each customer, contact, and user per appointment, and one sweep over the changed appointments of each, so
+ * hundreds of appointments are previewed as fast as one form is filled in. </p>
+ */
+public abstract class BulkEditor {
+    private static final ScheduleIndex.Resource[] ALL_RESOURCES = ScheduleIndex.Resource.values();
+    private static final ScheduleIndex.Resource[] CONTACT_ONLY = {ScheduleIndex.Resource.CONTACT};
+
+    /**
+     * Previews moving appointments to other times.
+     *
+     * <p> This method shifts the start and end of every appointment matching the filter by the given duration.
+     * The duration is elapsed time, as the database adds it to the stored times, so a shift across a change to or
+     * from daylight saving time moves the time of day by an hour. Recurring appointments are left out, since the
+     * dates of their cancelled occurrences and their end date would not move with them. </p>
+     * @param filter The AppointmentFilter of the appointments to move
+     * @param shift How far to move them, later if positive and earlier if negative
+     * @return Returns the BulkChange
+     */
+    public static BulkChange previewShift(AppointmentFilter filter, Duration shift) {
+        List<Appointment> originals = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+
+        for (Appointment original : DAOHelper.getAppointments(filter)) {
+            if (original.isRecurring())
+                continue;
+
+            Appointment appointment = copy(original);
+            appointment.setStartTime(shifted(original.getStartTime(), shift));
+            appointment.setEndTime(shifted(original.getEndTime(), shift));
+            originals.add(original);
+            appointments.add(appointment);
+        }
+
+        return new BulkChange(filter, shift, -1, originals, appointments,
+                findConflicts(appointments, ALL_RESOURCES), ALL_RESOURCES);
+    }
+
+    /**
+     * Previews giving appointments to another contact.
+     *
+     * <p> This method gives every appointment matching the filter to the given contact, keeping its times. A
+     * recurring appointment is given away as a whole, including its occurrences after the filter's range. Only the new
+     * contact is checked for conflicts, since the customers and users keep the times they had. </p>
+     * @param filter The AppointmentFilter of the appointments to give away, usually for the contact who is away
+     * @param contactID The ID of the Contact to give them to
+     * @return Returns the BulkChange
+     */
+    public static BulkChange previewReassign(AppointmentFilter filter, int contactID) {
+        List<Appointment> originals = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+
+        for (Appointment original : DAOHelper.getAppointments(filter)) {
+            if (original.getContactID() == contactID)
+                continue;
+
+            Appointment appointment = copy(original);
+            appointment.setContactID(contactID);
+            originals.add(original);
+            appointments.add(appointment);
+        }
+
+        return new BulkChange(filter, Duration.ZERO, contactID, originals, appointments,
+                findConflicts(appointments, CONTACT_ONLY), CONTACT_ONLY);
+    }
+
+    // Finds the appointments each changed appointment would overlap, by their indexes, for the given resources. The
+    // changed appointments are left out of ScheduleIndex's results, since they no longer hold their old times, and
+    // are checked against each other instead.
+    private static int[][] findConflicts(List<Appointment> appointments, ScheduleIndex.Resource[] resources) {
+        IntIntMap changedIDs = new IntIntMap(appointments.size());
+        IntStream.Builder[] found = new IntStream.Builder[appointments.size()];
+        for (int i = 0; i < appointments.size(); i++) {
+            changedIDs.put(appointments.get(i).getAppointmentID(), i);
+            found[i] = IntStream.builder();
+        }
+
+        for (ScheduleIndex.Resource resource : resources) {
+            IntObjectMap<List<Appointment>> groups = new IntObjectMap<>();
+
+            for (int i = 0; i < appointments.size(); i++) {
+                Appointment appointment = appointments.get(i);
+                for (int id : ScheduleIndex.findOverlaps(resource, appointment)) {
+                    if (!changedIDs.containsKey(id))
+                        found[i].add(id);
+                }
+
+                List<Appointment> group = groups.get(resource.idOf(appointment));
+                if (group == null)
+                    groups.put(resource.idOf(appointment), group = new ArrayList<>());
+                group.add(appointment);
+            }
+
+            groups.forEach((id, group) -> findOverlapsWithin(group, changedIDs, found));
+        }
+
+        int[][] conflictIDs = new int[appointments.size()][];
+        for (int i = 0; i < appointments.size(); i++)
+            conflictIDs[i] = found[i].build().distinct().toArray();
+
+        return conflictIDs;
+    }
+
+    // Finds the changed appointments of one customer, contact, or user that would overlap each other. The ones that do
+    // not repeat are swept in order of start, keeping those that have not ended yet.
+    private static void findOverlapsWithin(List<Appointment> group, IntIntMap changedIDs, IntStream.Builder[] found) {
+        List<Appointment> single = new ArrayList<>();
+        List<Appointment> recurring = new ArrayList<>();
+        for (Appointment appointment : group)
+            (appointment.isRecurring() ? recurring : single).add(appointment);
+
+        single.sort(Comparator.comparing(Appointment::getStartTime));
+        List<Appointment> running = new ArrayList<>();
+        for (Appointment appointment : single) {
+            running.removeIf(other -> !other.getEndTime().isAfter(appointment.getStartTime()));
+            for (Appointment other : running)
+                addConflict(appointment, other, changedIDs, found);
+            running.add(appointment);
+        }
+
+        for (int i = 0; i < recurring.size(); i++) {
+            for (Appointment other : group) {
+                if (other != recurring.get(i) && (!other.isRecurring() || recurring.indexOf(other) < i) &&
+                        recurring.get(i).overlaps(other))
+                    addConflict(recurring.get(i), other, changedIDs, found);
+            }
+        }
+    }
+
+    private static void addConflict(Appointment first, Appointment second, IntIntMap changedIDs,
+                                    IntStream.Builder[] found) {
+        found[changedIDs.get(first.getAppointmentID())].add(second.getAppointmentID());
+        found[changedIDs.get(second.getAppointmentID())].add(first.getAppointmentID());
+    }
+
+    private static LocalDateTime shifted(LocalDateTime time, Duration shift) {
+        return time.atZone(ZoneId.systemDefault()).plus(shift).toLocalDateTime();
+    }
+
+    // Copies an appointment, keeping its ID so the copy replaces it when saved
+    private static Appointment copy(Appointment original) {
+        Appointment appointment = new Appointment(original.getAppointmentID(), original.getTitle(),
+                original.getDescription(), original.getLocation(), original.getType(), original.getStartTime(),
+                original.getEndTime(), original.getCustomerID(), original.getUserID(), original.getContactID());
+        appointment.setRecurrence(original.getRecurrence());
+        return appointment;
+    }
+}
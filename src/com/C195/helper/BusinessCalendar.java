@@ -0,0 +1,474 @@
+package com.C195.helper;
+
+import com.C195.model.Appointment;
+import com.C195.model.BusinessClosure;
+import com.C195.model.BusinessHours;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class that knows when the business is open.
+ *
+ * <p> This class keeps the business hours and closures of the business, its locations, and its contacts, and
+ * converts times between the user's time zone and the business's. The hours come from the business_hours and
+ * business_closures tables when they exist, and otherwise from the hours in the Appointment class. A contact's hours
+ * are used before the hours of the appointment's location, and a location's hours before the business's. Closures of
+ * the business, the location, and the contact all apply. </p>
+ * <p> The hours are read from the database once. For each contact and location the open slots of a day are worked
+ * out the first time they are asked for and kept, so checking many appointments against the calendar only looks them
+ * up. Times are converted with tables of the offset transitions of both time zones, which are built once and
+ * searched with a binary search, instead of building a ZonedDateTime for every conversion. </p>
+ */
+public abstract class BusinessCalendar {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int SLOT_SECONDS = AvailabilityStore.SLOT_MINUTES * 60;
+
+    // Most days of open slots kept for one contact and location before they are worked out again
+    private static final int MAX_CACHED_DAYS = 4096;
+
+    private static final OffsetTable businessOffsets = new OffsetTable(Appointment.BUSINESS_ZONE);
+    private static volatile OffsetTable localOffsets = new OffsetTable(ZoneId.systemDefault());
+    private static volatile Rules rules = null;
+
+    /**
+     * Checks if a time is within business hours.
+     *
+     * <p> This method checks that the time starts and ends on the same business day, that the day is not a closure
+     * of the business, the location, or the contact, and that the time is within the hours of the contact or
+     * location on that day. </p>
+     * @param contactID The ID of the Contact
+     * @param location The location of the appointment, or null
+     * @param start The start of the time, in the user's time zone
+     * @param end The end of the time, in the user's time zone
+     * @return Returns true if the business is open for the whole time
+     */
+    public static boolean isOpen(int contactID, String location, LocalDateTime start, LocalDateTime end) {
+        long startInstant = localToInstant(ScheduleIndex.toKey(start));
+        long endInstant = localToInstant(ScheduleIndex.toKey(end));
+
+        if (endInstant <= startInstant)
+            return false;
+
+        long startKey = instantToBusiness(startInstant);
+        long endKey = instantToBusiness(endInstant);
+        long day = Math.floorDiv(startKey, SECONDS_PER_DAY);
+
+        // An appointment that ends at midnight still belongs to the day it started
+        if (Math.floorDiv(endKey - 1, SECONDS_PER_DAY) != day)
+            return false;
+
+        return rules().openDays(contactID, location).isOpen(day, (int) (startKey - day * SECONDS_PER_DAY),
+                (int) (endKey - day * SECONDS_PER_DAY));
+    }
+
+    /**
+     * Gets the open hours of a day.
+     *
+     * <p> This method returns the times the business opens and closes on the given day for the given contact and
+     * location, in the business's time zone. A day can have more than one opening. </p>
+     * @param contactID The ID of the Contact, or -1 for the business's hours
+     * @param location The location, or null
+     * @param businessDate The date in the business's time zone
+     * @return Returns the opening and closing times in pairs, in order. It is empty if the day is closed.
+     */
+    public static List<LocalTime> getOpenHours(int contactID, String location, LocalDate businessDate) {
+        List<LocalTime> hours = new ArrayList<>();
+        int[] intervals = rules().openDays(contactID, location).intervals(businessDate.toEpochDay());
+
+        for (int second : intervals)
+            hours.add(second == SECONDS_PER_DAY ? LocalTime.MAX : LocalTime.ofSecondOfDay(second));
+
+        return hours;
+    }
+
+    /**
+     * Gets the earliest opening time.
+     *
+     * @return Returns the earliest time any contact or location opens, in the business's time zone
+     */
+    public static LocalTime getEarliestOpen() {
+        return LocalTime.ofSecondOfDay(rules().earliestOpen);
+    }
+
+    /**
+     * Gets the latest closing time.
+     *
+     * @return Returns the latest time any contact or location closes, in the business's time zone
+     */
+    public static LocalTime getLatestClose() {
+        int latestClose = rules().latestClose;
+        return latestClose == SECONDS_PER_DAY ? LocalTime.MAX : LocalTime.ofSecondOfDay(latestClose);
+    }
+
+    /**
+     * Converts a time to the business's time zone.
+     *
+     * @param localTime The time in the user's time zone
+     * @return Returns the same moment in the business's time zone
+     */
+    public static LocalDateTime toBusinessTime(LocalDateTime localTime) {
+        return ScheduleIndex.fromKey(instantToBusiness(localToInstant(ScheduleIndex.toKey(localTime))));
+    }
+
+    /**
+     * Converts a time from the business's time zone.
+     *
+     * @param businessTime The time in the business's time zone
+     * @return Returns the same moment in the user's time zone
+     */
+    public static LocalDateTime toLocalTime(LocalDateTime businessTime) {
+        return ScheduleIndex.fromKey(instantToLocal(businessToInstant(ScheduleIndex.toKey(businessTime))));
+    }
+
+    /**
+     * Discards the calendar.
+     *
+     * <p> This method makes the calendar read the hours and closures from the database again the next time they are
+     * needed, and picks up a change of the user's time zone. </p>
+     */
+    public static synchronized void reload() {
+        rules = null;
+        localOffsets = new OffsetTable(ZoneId.systemDefault());
+    }
+
+    /**
+     * Gets the open slots of a day.
+     *
+     * <p> This method returns a bitmap of the AvailabilityStore slots of the given business day that lie entirely
+     * within the hours of the contact or location. </p>
+     * @param contactID The ID of the Contact, or -1 for the business's hours
+     * @param location The location, or null
+     * @param day The business day, as an epoch day
+     * @return Returns the bitmap, which must not be changed
+     */
+    static long[] openSlots(int contactID, String location, long day) {
+        return rules().openDays(contactID, location).slots(day);
+    }
+
+    /**
+     * Converts a ScheduleIndex key in the user's time zone to seconds since the epoch.
+     *
+     * <p> A time skipped by a change to daylight saving time is moved later by the length of the change, and a time
+     * that happens twice uses the earlier one, the same as LocalDateTime.atZone(). </p>
+     * @param localKey The key
+     * @return Returns the seconds since the epoch
+     */
+    static long localToInstant(long localKey) {
+        return localKey - localOffsets.offsetAtLocal(localKey);
+    }
+
+    /**
+     * Converts seconds since the epoch to a ScheduleIndex key in the user's time zone.
+     *
+     * @param instant The seconds since the epoch
+     * @return Returns the key
+     */
+    static long instantToLocal(long instant) {
+        return instant + localOffsets.offsetAt(instant);
+    }
+
+    /**
+     * Converts a time in the business's time zone, encoded like a ScheduleIndex key, to seconds since the epoch.
+     *
+     * @param businessKey The time in the business's time zone
+     * @return Returns the seconds since the epoch
+     */
+    static long businessToInstant(long businessKey) {
+        return businessKey - businessOffsets.offsetAtLocal(businessKey);
+    }
+
+    /**
+     * Converts seconds since the epoch to a time in the business's time zone, encoded like a ScheduleIndex key.
+     *
+     * @param instant The seconds since the epoch
+     * @return Returns the time in the business's time zone
+     */
+    static long instantToBusiness(long instant) {
+        return instant + businessOffsets.offsetAt(instant);
+    }
+
+    private static Rules rules() {
+        Rules loaded = rules;
+        if (loaded != null)
+            return loaded;
+
+        synchronized (BusinessCalendar.class) {
+            if (rules == null)
+                rules = new Rules(DAOHelper.getAllBusinessHours(), DAOHelper.getAllBusinessClosures());
+            return rules;
+        }
+    }
+
+    private static String normalize(String location) {
+        return location == null || location.isBlank() ? null : location.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Class for the hours and closures read from the database.
+     *
+     * <p> The hours of each day of the week are kept as pairs of opening and closing seconds of the day. Closures are
+     * kept as sorted epoch days. Once built it is only read, except for the OpenDays it hands out. </p>
+     */
+    private static class Rules {
+        private final int[][] businessWeek;
+        private final IntObjectMap<int[][]> contactWeeks = new IntObjectMap<>();
+        private final HashMap<String, int[][]> locationWeeks = new HashMap<>();
+        private final int[] businessClosures;
+        private final IntObjectMap<int[]> contactClosures = new IntObjectMap<>();
+        private final HashMap<String, int[]> locationClosures = new HashMap<>();
+        private final ConcurrentHashMap<String, OpenDays> openDays = new ConcurrentHashMap<>();
+        private final int earliestOpen;
+        private final int latestClose;
+
+        Rules(List<BusinessHours> hoursList, List<BusinessClosure> closureList) {
+            HashMap<Object, List<BusinessHours>> hoursByOwner = new HashMap<>();
+            for (BusinessHours hours : hoursList)
+                hoursByOwner.computeIfAbsent(owner(hours.getContactID(), hours.getLocation()),
+                        key -> new ArrayList<>()).add(hours);
+
+            HashMap<Object, List<LocalDate>> closuresByOwner = new HashMap<>();
+            for (BusinessClosure closure : closureList)
+                closuresByOwner.computeIfAbsent(owner(closure.getContactID(), closure.getLocation()),
+                        key -> new ArrayList<>()).add(closure.getDate());
+
+            int[][] defaultWeek = new int[7][];
+            Arrays.fill(defaultWeek, new int[] {Appointment.BUSINESS_HOURS_START.toLocalTime().toSecondOfDay(),
+                    Appointment.BUSINESS_HOURS_END.toLocalTime().toSecondOfDay()});
+
+            List<BusinessHours> businessHours = hoursByOwner.remove("");
+            businessWeek = businessHours == null ? defaultWeek : week(businessHours);
+
+            List<LocalDate> closures = closuresByOwner.remove("");
+            businessClosures = closures == null ? new int[0] : days(closures);
+
+            int earliest = SECONDS_PER_DAY;
+            int latest = 0;
+            for (int[] intervals : businessWeek) {
+                if (intervals.length > 0) {
+                    earliest = Math.min(earliest, intervals[0]);
+                    latest = Math.max(latest, intervals[intervals.length - 1]);
+                }
+            }
+
+            for (Map.Entry<Object, List<BusinessHours>> entry : hoursByOwner.entrySet()) {
+                int[][] week = week(entry.getValue());
+                if (entry.getKey() instanceof Integer)
+                    contactWeeks.put((Integer) entry.getKey(), week);
+                else
+                    locationWeeks.put((String) entry.getKey(), week);
+
+                for (int[] intervals : week) {
+                    if (intervals.length > 0) {
+                        earliest = Math.min(earliest, intervals[0]);
+                        latest = Math.max(latest, intervals[intervals.length - 1]);
+                    }
+                }
+            }
+
+            for (Map.Entry<Object, List<LocalDate>> entry : closuresByOwner.entrySet()) {
+                if (entry.getKey() instanceof Integer)
+                    contactClosures.put((Integer) entry.getKey(), days(entry.getValue()));
+                else
+                    locationClosures.put((String) entry.getKey(), days(entry.getValue()));
+            }
+
+            earliestOpen = earliest < latest ? earliest : 0;
+            latestClose = earliest < latest ? latest : 0;
+        }
+
+        // Contacts are keyed by their ID, locations by their name, and the business by an empty string
+        private static Object owner(int contactID, String location) {
+            if (contactID != -1)
+                return contactID;
+            String normalized = normalize(location);
+            return normalized == null ? "" : normalized;
+        }
+
+        OpenDays openDays(int contactID, String location) {
+            String normalized = normalize(location);
+            return openDays.computeIfAbsent(contactID + "\n" + (normalized == null ? "" : normalized), key -> {
+                int[][] week = contactWeeks.get(contactID);
+                if (week == null && normalized != null)
+                    week = locationWeeks.get(normalized);
+
+                int[] closures = merge(businessClosures, merge(contactClosures.get(contactID),
+                        normalized == null ? null : locationClosures.get(normalized)));
+                return new OpenDays(week == null ? businessWeek : week, closures);
+            });
+        }
+
+        // Sorts and merges the hours of each day of the week into pairs of opening and closing seconds
+        private static int[][] week(List<BusinessHours> hoursList) {
+            int[][] week = new int[7][];
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                List<int[]> intervals = new ArrayList<>();
+                for (BusinessHours hours : hoursList) {
+                    int open = hours.getOpenTime().toSecondOfDay();
+                    int close = hours.getCloseTime().equals(LocalTime.MIDNIGHT) ? SECONDS_PER_DAY :
+                            hours.getCloseTime().toSecondOfDay();
+
+                    if (hours.getDayOfWeek().ordinal() == dayOfWeek && open < close)
+                        intervals.add(new int[] {open, close});
+                }
+
+                intervals.sort((a, b) -> Integer.compare(a[0], b[0]));
+                int[] merged = new int[intervals.size() * 2];
+                int size = 0;
+                for (int[] interval : intervals) {
+                    if (size > 0 && interval[0] <= merged[size - 1]) {
+                        merged[size - 1] = Math.max(merged[size - 1], interval[1]);
+                    } else {
+                        merged[size++] = interval[0];
+                        merged[size++] = interval[1];
+                    }
+                }
+                week[dayOfWeek] = Arrays.copyOf(merged, size);
+            }
+            return week;
+        }
+
+        private static int[] days(List<LocalDate> dates) {
+            return dates.stream().mapToInt(date -> (int) date.toEpochDay()).sorted().distinct().toArray();
+        }
+
+        private static int[] merge(int[] first, int[] second) {
+            if (first == null || first.length == 0)
+                return second == null ? new int[0] : second;
+            if (second == null || second.length == 0)
+                return first;
+
+            int[] merged = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, merged, first.length, second.length);
+            Arrays.sort(merged);
+            return Arrays.stream(merged).distinct().toArray();
+        }
+    }
+
+    /**
+     * Class for the open hours of one contact and location.
+     *
+     * <p> The open slots of each day are worked out when first asked for and kept, up to MAX_CACHED_DAYS days. </p>
+     */
+    private static class OpenDays {
+        private static final int[] CLOSED = new int[0];
+
+        private final int[][] week;
+        private final int[] closures;
+        private final IntObjectMap<long[]> slotsByDay = new IntObjectMap<>();
+
+        OpenDays(int[][] week, int[] closures) {
+            this.week = week;
+            this.closures = closures;
+        }
+
+        int[] intervals(long day) {
+            if (Arrays.binarySearch(closures, (int) day) >= 0)
+                return CLOSED;
+            return week[LocalDate.ofEpochDay(day).getDayOfWeek().ordinal()];
+        }
+
+        boolean isOpen(long day, int startSecond, int endSecond) {
+            int[] intervals = intervals(day);
+            for (int i = 0; i < intervals.length; i += 2) {
+                if (intervals[i] <= startSecond && endSecond <= intervals[i + 1])
+                    return true;
+            }
+            return false;
+        }
+
+        synchronized long[] slots(long day) {
+            long[] slots = slotsByDay.get((int) day);
+            if (slots != null)
+                return slots;
+
+            if (slotsByDay.size() >= MAX_CACHED_DAYS)
+                slotsByDay.clear();
+
+            int[] intervals = intervals(day);
+            slots = new long[AvailabilityStore.WORDS_PER_DAY];
+            for (int i = 0; i < intervals.length; i += 2) {
+                long[] mask = AvailabilityStore.slotMask(-Math.floorDiv(-intervals[i], SLOT_SECONDS),
+                        intervals[i + 1] / SLOT_SECONDS);
+                for (int word = 0; word < slots.length; word++)
+                    slots[word] |= mask[word];
+            }
+
+            slotsByDay.put((int) day, slots);
+            return slots;
+        }
+    }
+
+    /**
+     * Class for the offset transitions of a time zone.
+     *
+     * <p> The transitions from 1900 to 2200 are listed once, with the offset in effect after each. Finding the offset
+     * at a moment is then a binary search. Times outside those years are left to the zone's rules. </p>
+     */
+    private static class OffsetTable {
+        private static final long FIRST_SECOND = LocalDate.of(1900, 1, 1).toEpochDay() * SECONDS_PER_DAY;
+        private static final long LAST_SECOND = LocalDate.of(2200, 1, 1).toEpochDay() * SECONDS_PER_DAY;
+
+        private final ZoneId zone;
+        private final long[] transitions;
+        private final long[] localTransitions;
+        private final int[] offsets;
+
+        OffsetTable(ZoneId zone) {
+            ZoneRules zoneRules = zone.getRules();
+            List<ZoneOffsetTransition> transitionList = new ArrayList<>();
+
+            ZoneOffsetTransition transition = zoneRules.nextTransition(Instant.ofEpochSecond(FIRST_SECOND));
+            while (transition != null && transition.toEpochSecond() < LAST_SECOND) {
+                transitionList.add(transition);
+                transition = zoneRules.nextTransition(transition.getInstant());
+            }
+
+            this.zone = zone;
+            transitions = new long[transitionList.size()];
+            localTransitions = new long[transitionList.size()];
+            offsets = new int[transitionList.size() + 1];
+            offsets[0] = zoneRules.getOffset(Instant.ofEpochSecond(FIRST_SECOND)).getTotalSeconds();
+
+            for (int i = 0; i < transitions.length; i++) {
+                int before = transitionList.get(i).getOffsetBefore().getTotalSeconds();
+                int after = transitionList.get(i).getOffsetAfter().getTotalSeconds();
+
+                transitions[i] = transitionList.get(i).toEpochSecond();
+                // Local times before this are in a gap or an overlap and use the offset before, like atZone()
+                localTransitions[i] = transitions[i] + Math.max(before, after);
+                offsets[i + 1] = after;
+            }
+        }
+
+        int offsetAt(long instant) {
+            if (instant < FIRST_SECOND || instant >= LAST_SECOND)
+                return zone.getRules().getOffset(Instant.ofEpochSecond(instant)).getTotalSeconds();
+
+            int index = Arrays.binarySearch(transitions, instant);
+            return offsets[index >= 0 ? index + 1 : -index - 1];
+        }
+
+        int offsetAtLocal(long localSecond) {
+            if (localSecond < FIRST_SECOND || localSecond >= LAST_SECOND)
+                return LocalDateTime.ofEpochSecond(localSecond, 0, ZoneOffset.UTC).atZone(zone).getOffset()
+                        .getTotalSeconds();
+
+            int index = Arrays.binarySearch(localTransitions, localSecond);
+            return offsets[index >= 0 ? index + 1 : -index - 1];
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.C195.helper;
+
+/**
+ * Management interface for one cache kept in memory.
+ *
+ * <p> This interface is published over JMX as com.C195:type=Cache,name=... by SchedulerMetrics, for the appointments
+ * in ScheduleIndex, the names in NameCache, and the scenes kept by NavigationHelper. </p>
+ */
+public interface CacheMXBean {
+    /**
+     * Getter for hits.
+     *
+     * @return Returns how many lookups were answered from memory
+     */
+    long getHits();
+
+    /**
+     * Getter for misses.
+     *
+     * @return Returns how many lookups had to load from the database
+     */
+    long getMisses();
+
+    /**
+     * Getter for hit ratio.
+     *
+     * @return Returns the share of lookups answered from memory, from 0 to 1
+     */
+    double getHitRatio();
+
+    /**
+     * Getter for size.
+     *
+     * @return Returns how many entries are in memory now, such as appointments or customers
+     */
+    int getSize();
+}
@@ -0,0 +1,58 @@
+package com.C195.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class for the hits and misses of one cache.
+ *
+ * <p> This class counts how often a cache such as NameCache or ScheduleIndex answered from memory, and how often it
+ * had to load from the database first. It is kept up to date by the cache it belongs to, without locking, and is
+ * published over JMX by SchedulerMetrics. </p>
+ */
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Counts a lookup that was answered from memory.
+     */
+    void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Counts a lookup that had to load from the database.
+     */
+    void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Getter for hits.
+     *
+     * @return Returns how many lookups were answered from memory
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter for misses.
+     *
+     * @return Returns how many lookups had to load from the database
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the hit ratio.
+     *
+     * @return Returns the share of lookups answered from memory, from 0 to 1, or 0 if there were none
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -1,53 +1,299 @@
 package com.C195.helper;
 
+import com.C195.event.*;
 import com.C195.model.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
 
 /**
  *Class that contains methods to access the database.
  *
  * <p> This class contains methods that let the controllers access the database for information on Appointments,
  * Customers, Users, Contacts, Divisions, and Countries. </p>
+ * <p> Changes, and the reads inside their transactions, run on the primary database, each in a transaction on a
+ * Connection of its own. Lists, lookups, reports, and validations read from JDBC.readConnection(), which is a read
+ * replica when one is configured and fresh enough. That Connection is shared, so reads on other threads than the FX
+ * thread are given a Connection of their own from JDBC.createReadConnection() instead. </p>
  */
 public abstract class DAOHelper {
     // Stores the user's name, for purposes of marking who changed the Database
     private static String userName = "";
 
+    // Amount of rows inserted at once by a batch, and of IDs per IN list
+    private static final int BATCH_SIZE = 500;
+
+    // Amount of rows a streamed query reads from the database at once
+    private static final int FETCH_SIZE = 5000;
+
+    // The transaction open on each thread, which transactions started inside it join
+    private static final ThreadLocal<Transaction> openTransaction = new ThreadLocal<>();
+
+    // Bookings that share a customer, contact, or user stripe wait on the same lock, so each is booked one at a time.
+    // Bookings on other stripes run side by side, each in a transaction on a connection of its own.
+    private static final Lock[] bookingLocks = new Lock[64];
+
+    static {
+        for (int i = 0; i < bookingLocks.length; i++)
+            bookingLocks[i] = new ReentrantLock();
+    }
+
+    // Whether the database deletes a customer's appointments through an ON DELETE CASCADE foreign key
+    private static Boolean cascadeDeletes = null;
+
+    // Whether the database has the appointment_recurrences table from resources/sql/recurrence.sql
+    private static Boolean recurrenceTable = null;
+
+    private static final String INSERT_APPOINTMENT_SQL = "INSERT INTO appointments(Title, Description, Location, " +
+            "Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, " +
+            "Contact_ID) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)";
+
+    private static final String APPOINTMENT_COLUMNS = "a.Appointment_ID, a.Title, a.Description, a.Location, " +
+            "a.Type, a.Start, a.End, a.Contact_ID, a.Customer_ID, a.User_ID";
+
+    // The tables holding the customers, contacts, and users, in the order of ScheduleIndex.Resource
+    private static final String[] RESOURCE_TABLES = {"customers", "contacts", "users"};
+
+    /**
+     * Functional interface for work done inside a database transaction.
+     */
+    public interface TransactionWork {
+        /**
+         * Does the work of the transaction.
+         *
+         * @param connection The Connection the transaction is open on
+         * @throws SQLException Any exception thrown causes the transaction to be rolled back
+         */
+        void execute(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Functional interface that receives the times of appointments read one at a time.
+     */
+    public interface AppointmentTimeVisitor {
+        /**
+         * Receives the time of an appointment, or of one occurrence of a recurring appointment.
+         *
+         * @param location The location of the appointment
+         * @param start The start of the appointment, in the user's time zone
+         * @param end The end of the appointment, in the user's time zone
+         */
+        void visit(String location, LocalDateTime start, LocalDateTime end);
+    }
+
+    /**
+     * Runs work inside a database transaction.
+     *
+     * <p> This method takes a Connection of its own with JDBC.takeConnection(), turns off its auto-commit, runs the
+     * given work on it, and commits it. If the work throws an exception, everything it did is rolled back. The
+     * Connection is given back with JDBC.releaseConnection() when the transaction ends, to be used by a later
+     * transaction, so the shared connection always stays in auto-commit mode and transactions on different threads do
+     * not share one at the same time. Transactions started inside the work, on the same thread, join the outer
+     * transaction, and a failure in them rolls back the outer transaction as well. </p>
+     * @param work The work to run inside the transaction
+     * @return Returns true if the work was committed, false if it was rolled back
+     */
+    public static boolean inTransaction(TransactionWork work) {
+        Transaction transaction = openTransaction.get();
+
+        // Join the transaction that is already open
+        if (transaction != null) {
+            try {
+                work.execute(transaction.connection);
+                return true;
+            } catch (SQLException throwables) {
+                throwables.printStackTrace();
+                transaction.isRollbackOnly = true;
+                return false;
+            }
+        }
+
+        Connection connection;
+
+        try {
+            connection = JDBC.takeConnection();
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+            return false;
+        }
+
+        return inTransaction(connection, work);
+    }
+
+    /**
+     * Runs work inside a database transaction on a given connection.
+     *
+     * <p> This method runs the work like inTransaction(TransactionWork), on a Connection the caller took with
+     * JDBC.takeConnection(), and gives the Connection back when the transaction ends. It is for callers that must take
+     * the Connection before something else, such as the booking locks. </p>
+     * @param connection The Connection to run the transaction on, which must not be in a transaction already
+     * @param work The work to run inside the transaction
+     * @return Returns true if the work was committed, false if it was rolled back
+     */
+    private static boolean inTransaction(Connection connection, TransactionWork work) {
+        boolean isCommitted = false;
+        Transaction transaction = new Transaction(connection);
+        openTransaction.set(transaction);
+
+        try {
+            connection.setAutoCommit(false);
+            work.execute(connection);
+
+            if (!transaction.isRollbackOnly) {
+                connection.commit();
+                isCommitted = true;
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        } finally {
+            openTransaction.remove();
+            // A connection that could not be rolled back might still hold the work, so it is not used again
+            if (isCommitted || rollback(connection))
+                JDBC.releaseConnection(connection);
+            else
+                JDBC.discardConnection(connection);
+        }
+
+        return isCommitted;
+    }
+
+    // A transaction open on a thread, and whether a transaction that joined it failed
+    private static class Transaction {
+        private final Connection connection;
+        private boolean isRollbackOnly = false;
+
+        Transaction(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Runs a statement that ends in an IN list for a set of IDs.
+     *
+     * <p> This method runs the given SQL with "(?,?,...)" appended to it, binding a few hundred of the IDs at a time,
+     * so that thousands of rows can be changed with only a handful of statements. The statement's own parameters are
+     * bound before the IDs. </p>
+     * @param connection The Connection to run the statements on
+     * @param sqlPrefix The SQL up to and including "IN", for example "DELETE FROM customers WHERE Customer_ID IN"
+     * @param ids The IDs to put in the IN list
+     * @param parameters The values of the statement's parameters before the IN list
+     * @return Returns the total amount of rows changed by the statements
+     * @throws SQLException Exceptions from running the statements
+     */
+    private static int updateForIDs(Connection connection, String sqlPrefix, int[] ids, Object... parameters)
+            throws SQLException {
+        int total = 0;
+
+        for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, ids.length);
+            String placeholders = "?" + ",?".repeat(to - from - 1);
+
+            try (PreparedStatement preparedStatement =
+                         connection.prepareStatement(sqlPrefix + " (" + placeholders + ")")) {
+                for (int i = 0; i < parameters.length; i++)
+                    preparedStatement.setObject(i + 1, parameters[i]);
+                for (int i = from; i < to; i++) {
+                    preparedStatement.setInt(parameters.length + i - from + 1, ids[i]);
+                }
+                total += preparedStatement.executeUpdate();
+            }
+        }
+
+        return total;
+    }
+
+    // Returns false if the connection could not be rolled back
+    private static boolean rollback(Connection connection) {
+        try {
+            connection.rollback();
+            return true;
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+            return false;
+        }
+    }
+
     /**
      * Queries the database for all appointments.
      *
-     * <p> This method queries the database to obtain a list of all Appointments stored in the database. </p>
+     * <p> This method queries the database to obtain a list of all Appointments stored in the database. A recurring
+     * appointment is one Appointment with its RecurrenceRule set, not one for each occurrence. </p>
      * @return Returns an ObservableList of all Appointments in the database
      */
     public static ObservableList<Appointment> getAllAppointments() {
+        return getAllAppointments(JDBC.readConnection());
+    }
+
+    /**
+     * Queries the database for all appointments on a given connection.
+     *
+     * <p> This method reads the appointments like getAllAppointments(), for threads other than the FX thread, which
+     * read on a Connection of their own from JDBC.createReadConnection(). </p>
+     * @param connection The Connection to read from
+     * @return Returns an ObservableList of all Appointments in the database
+     */
+    public static ObservableList<Appointment> getAllAppointments(Connection connection) {
         ObservableList<Appointment> appointmentList= FXCollections.observableArrayList();
-        String sql = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Contact_ID, " +
-                "Customer_ID, User_ID FROM appointments";
 
-        try (PreparedStatement preparedStatement = (PreparedStatement) JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                appointmentQuery(connection, APPOINTMENT_COLUMNS, ""));
               ResultSet resultSet = preparedStatement.executeQuery()) {
 
             // Iterate through resultSet and make a new Appointment for every row
-            while (resultSet.next()) {
-                Appointment appointment = new Appointment();
+            while (resultSet.next())
+                appointmentList.add(readAppointment(connection, resultSet));
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
 
-                appointment.setAppointmentID(resultSet.getInt("Appointment_ID"));
-                appointment.setTitle(resultSet.getString("Title"));
-                appointment.setDescription(resultSet.getString("Description"));
-                appointment.setLocation(resultSet.getString("Location"));
-                appointment.setType(resultSet.getString("Type"));
-                appointment.setStartTime(resultSet.getTimestamp("Start").toLocalDateTime());
-                appointment.setEndTime(resultSet.getTimestamp("End").toLocalDateTime());
-                appointment.setContactID(resultSet.getInt("Contact_ID"));
-                appointment.setCustomerID(resultSet.getInt("Customer_ID"));
-                appointment.setUserID(resultSet.getInt("User_ID"));
+        return appointmentList;
+    }
 
-                appointmentList.add(appointment);
+    /**
+     * Queries the database for the appointments matching a filter.
+     *
+     * <p> This method returns the Appointments that start within the filter's range and belong to its customer,
+     * contact, and user, in order of start. A recurring appointment is matched by its first occurrence. </p>
+     * @param filter The AppointmentFilter to match
+     * @return Returns an ObservableList of the matching Appointments
+     */
+    public static ObservableList<Appointment> getAppointments(AppointmentFilter filter) {
+        Connection connection = JDBC.readConnection();
+        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
+        StringBuilder condition = new StringBuilder(" WHERE a.Start >= ? AND a.Start < ?");
+        List<Integer> ids = new ArrayList<>();
+
+        for (ScheduleIndex.Resource resource : ScheduleIndex.Resource.values()) {
+            int id = filterID(filter, resource);
+            if (id != -1) {
+                condition.append(" AND a.").append(resource.getColumn()).append(" = ?");
+                ids.add(id);
+            }
+        }
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(appointmentQuery(connection,
+                APPOINTMENT_COLUMNS, condition + " ORDER BY a.Start"))) {
+            preparedStatement.setTimestamp(1, Timestamp.valueOf(filter.getFrom()));
+            preparedStatement.setTimestamp(2, Timestamp.valueOf(filter.getTo()));
+            for (int i = 0; i < ids.size(); i++)
+                preparedStatement.setInt(i + 3, ids.get(i));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next())
+                    appointmentList.add(readAppointment(connection, resultSet));
             }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
@@ -56,6 +302,36 @@ public abstract class DAOHelper {
         return appointmentList;
     }
 
+    private static int filterID(AppointmentFilter filter, ScheduleIndex.Resource resource) {
+        switch (resource) {
+            case CUSTOMER:
+                return filter.getCustomerID();
+            case CONTACT:
+                return filter.getContactID();
+            default:
+                return filter.getUserID();
+        }
+    }
+
+    // Makes an Appointment from a row of a query from appointmentQuery() with APPOINTMENT_COLUMNS
+    private static Appointment readAppointment(Connection connection, ResultSet resultSet) throws SQLException {
+        Appointment appointment = new Appointment();
+
+        appointment.setAppointmentID(resultSet.getInt("Appointment_ID"));
+        appointment.setTitle(resultSet.getString("Title"));
+        appointment.setDescription(resultSet.getString("Description"));
+        appointment.setLocation(resultSet.getString("Location"));
+        appointment.setType(resultSet.getString("Type"));
+        appointment.setStartTime(resultSet.getTimestamp("Start").toLocalDateTime());
+        appointment.setEndTime(resultSet.getTimestamp("End").toLocalDateTime());
+        appointment.setContactID(resultSet.getInt("Contact_ID"));
+        appointment.setCustomerID(resultSet.getInt("Customer_ID"));
+        appointment.setUserID(resultSet.getInt("User_ID"));
+        readRecurrence(connection, resultSet, appointment);
+
+        return appointment;
+    }
+
     /**
      * Queries the database for all customers.
      *
@@ -63,11 +339,12 @@ public abstract class DAOHelper {
      * @return Returns an ObservableList of all Customers in the database
      */
     public static ObservableList<Customer> getAllCustomers() {
+        Connection connection = JDBC.readConnection();
         ObservableList<Customer> customerList = FXCollections.observableArrayList();
         String sql = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
                 "Last_Update, Last_Updated_By, Division_ID FROM customers";
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
              ResultSet resultSet = preparedStatement.executeQuery()) {
 
             // Iterate through resultSet and make a new Customer for every row
@@ -94,64 +371,88 @@ public abstract class DAOHelper {
         return customerList;
     }
 
-    /**
-     *Adds an appointment to the database.
-     *
-     * <p> This method adds a given Appointment to the database. </p>
-     * @param appointment The Appointment to be added to the database
-     */
-    public static void addAppointment(Appointment appointment) {
-        String sql = "INSERT INTO appointments(Title, Description, Location, Type, Start, End, " +
-                "Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
-                "VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)";
-
-        try (PreparedStatement preparedStatement = (PreparedStatement) JDBC.connection.prepareStatement(sql)) {
-
-            preparedStatement.setString(1, appointment.getTitle());
-            preparedStatement.setString(2, appointment.getDescription());
-            preparedStatement.setString(3, appointment.getLocation());
-            preparedStatement.setString(4, appointment.getType());
-            preparedStatement.setTimestamp(5, Timestamp.valueOf(appointment.getStartTime()));
-            preparedStatement.setTimestamp(6, Timestamp.valueOf(appointment.getEndTime()));
-            preparedStatement.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
-            preparedStatement.setString(8, userName);
-            preparedStatement.setTimestamp(9, Timestamp.valueOf(LocalDateTime.now()));
-            preparedStatement.setString(10, userName);
-            preparedStatement.setInt(11, appointment.getCustomerID());
-            preparedStatement.setInt(12, appointment.getUserID());
-            preparedStatement.setInt(13, appointment.getContactID());
+    // Inserts an appointment and its repeat rule on the given connection and returns the ID generated for it
+    private static int insertAppointment(Connection connection, Appointment appointment) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_APPOINTMENT_SQL,
+                Statement.RETURN_GENERATED_KEYS)) {
 
+            bindAppointment(preparedStatement, appointment, Timestamp.valueOf(LocalDateTime.now()));
             preparedStatement.execute();
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
+            int appointmentID = generatedKey(preparedStatement);
+            saveRecurrence(connection, appointmentID, appointment.getRecurrence(), true);
+            return appointmentID;
         }
     }
 
+    // Sets the parameters of INSERT_APPOINTMENT_SQL for an appointment created at the given time
+    private static void bindAppointment(PreparedStatement preparedStatement, Appointment appointment, Timestamp now)
+            throws SQLException {
+        preparedStatement.setString(1, appointment.getTitle());
+        preparedStatement.setString(2, appointment.getDescription());
+        preparedStatement.setString(3, appointment.getLocation());
+        preparedStatement.setString(4, appointment.getType());
+        preparedStatement.setTimestamp(5, Timestamp.valueOf(appointment.getStartTime()));
+        preparedStatement.setTimestamp(6, Timestamp.valueOf(appointment.getEndTime()));
+        preparedStatement.setTimestamp(7, now);
+        preparedStatement.setString(8, userName);
+        preparedStatement.setTimestamp(9, now);
+        preparedStatement.setString(10, userName);
+        preparedStatement.setInt(11, appointment.getCustomerID());
+        preparedStatement.setInt(12, appointment.getUserID());
+        preparedStatement.setInt(13, appointment.getContactID());
+    }
+
     /**
      * Adds a customer to the database.
      *
-     * <p> This method adds a given Customer to the database. </p>
+     * <p> This method adds a given Customer to the database. The ID generated by the database is set on the Customer
+     * and returned, along with the creation and update dates and names that were written, so the caller does not
+     * need to reload the customers to display it. </p>
      * @param customer The Customer to be added to the database
+     * @return Returns the ID generated for the Customer, or -1 if it could not be added
      */
-    public static void addCustomer(Customer customer) {
+    public static int addCustomer(Customer customer) {
         String sql = "INSERT INTO customers(Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
                 "Last_Update, Last_Updated_By, Division_ID) VALUES(?,?,?,?,?,?,?,?,?)";
+        LocalDateTime now = LocalDateTime.now();
+        int[] insertedID = {-1};
+
+        boolean isAdded = inTransaction(connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql,
+                    Statement.RETURN_GENERATED_KEYS)) {
+
+                preparedStatement.setString(1, customer.getName());
+                preparedStatement.setString(2, customer.getAddress());
+                preparedStatement.setString(3, customer.getPostalCode());
+                preparedStatement.setString(4, customer.getPhone());
+                preparedStatement.setTimestamp(5, Timestamp.valueOf(now));
+                preparedStatement.setString(6, userName);
+                preparedStatement.setTimestamp(7, Timestamp.valueOf(now));
+                preparedStatement.setString(8, userName);
+                preparedStatement.setInt(9, customer.getDivisionID());
+
+                preparedStatement.execute();
+                insertedID[0] = generatedKey(preparedStatement);
+            }
+        });
+        int customerID = isAdded ? insertedID[0] : -1;
+
+        if (customerID != -1) {
+            customer.setCustomerID(customerID);
+            customer.setCreationDate(now);
+            customer.setCreatedBy(userName);
+            customer.setLastUpdate(now);
+            customer.setLastUpdatedBy(userName);
+            EventBus.publish(new CustomerCreated(customer));
+        }
 
-        try (PreparedStatement preparedStatement = (PreparedStatement) JDBC.connection.prepareStatement(sql)) {
-
-            preparedStatement.setString(1, customer.getName());
-            preparedStatement.setString(2, customer.getAddress());
-            preparedStatement.setString(3, customer.getPostalCode());
-            preparedStatement.setString(4, customer.getPhone());
-            preparedStatement.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-            preparedStatement.setString(6, userName);
-            preparedStatement.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
-            preparedStatement.setString(8, userName);
-            preparedStatement.setInt(9, customer.getDivisionID());
+        return customerID;
+    }
 
-            preparedStatement.execute();
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
+    // Reads the key generated by the database for a row that was just inserted
+    private static int generatedKey(PreparedStatement preparedStatement) throws SQLException {
+        try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : -1;
         }
     }
 
@@ -160,58 +461,106 @@ public abstract class DAOHelper {
      *
      * <p> This method deletes a given Appointment from the database. </p>
      * @param appointmentID The ID of the Appointment that will be deleted
+     * @return Returns true if the Appointment was deleted
      */
-    public static void deleteAppointment(int appointmentID) {
+    public static boolean deleteAppointment(int appointmentID) {
         String sql = "DELETE FROM appointments WHERE Appointment_ID = ?";
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql)) {
+        boolean isDeleted = inTransaction(connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
 
-            preparedStatement.setInt(1, appointmentID);
-            preparedStatement.execute();
+                preparedStatement.setInt(1, appointmentID);
+                preparedStatement.execute();
+            }
+        });
 
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
+        if (isDeleted)
+            EventBus.publish(new AppointmentDeleted(appointmentID));
+
+        return isDeleted;
     }
 
     /**
      * Deletes a customer from the database.
      *
-     * <p> This method deletes a given Customer from the database. A Customer's associated Appointments must be
-     * deleted before the Customer can be deleted. </p>
+     * <p> This method deletes a given Customer and the Customer's associated Appointments from the database in one
+     * transaction. Either both are deleted or neither is. </p>
      * @param customerID The ID of the Customer that will be deleted
+     * @return Returns true if the Customer was deleted
      */
-    public static void deleteCustomer(int customerID) {
-        // Must delete all customer's appointments before deleting customer
-        String sqlAppointment = "DELETE FROM appointments WHERE Customer_ID = " + customerID;
+    public static boolean deleteCustomer(int customerID) {
+        return deleteCustomers(customerID);
+    }
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sqlAppointment)) {
-            preparedStatement.execute();
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
+    /**
+     * Deletes a set of customers from the database.
+     *
+     * <p> This method deletes the given Customers and all of their Appointments in one transaction. If the database's
+     * foreign key from appointments to customers has ON DELETE CASCADE, only the customers are deleted and the
+     * database removes the appointments. Otherwise the appointments are deleted first. The IDs are sent in IN lists
+     * of a few hundred, so thousands of customers can be removed with only a handful of statements. </p>
+     * @param customerIDs The IDs of the Customers that will be deleted
+     * @return Returns true if the Customers were deleted
+     */
+    public static boolean deleteCustomers(int... customerIDs) {
+        if (customerIDs.length == 0)
+            return true;
 
-        String sql = "DELETE FROM customers WHERE Customer_ID = " + customerID;
+        int[] ids = Arrays.stream(customerIDs).distinct().toArray();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql)) {
-            preparedStatement.execute();
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
+        boolean isDeleted = inTransaction(connection -> {
+            // Must delete all customers' appointments before deleting the customers, unless the database cascades
+            if (!isCascadeDelete(connection))
+                updateForIDs(connection, "DELETE FROM appointments WHERE Customer_ID IN", ids);
+
+            updateForIDs(connection, "DELETE FROM customers WHERE Customer_ID IN", ids);
+        });
+
+        if (isDeleted) {
+            for (int id : ids) {
+                EventBus.publish(new CustomerDeleted(id));
+            }
         }
+
+        return isDeleted;
     }
 
     /**
-     * Updates an appointment in the database.
+     * Checks whether the database deletes a customer's appointments along with the customer.
      *
-     * <p> This method updates the information of an appointment in the database. </p>
-     * @param appointment The updated Appointment. This appointment's ID will be used to match it in the database.
+     * <p> This method reads the foreign keys of the appointments table once and remembers whether the key that
+     * references customers has ON DELETE CASCADE. The script in resources/sql/customer_cascade.sql adds it. </p>
+     * @param connection The Connection used to read the database's metadata
+     * @return Returns true if deleting a customer also deletes its appointments
+     * @throws SQLException Exceptions from reading the metadata
      */
-    public static void updateAppointment(Appointment appointment) {
+    private static boolean isCascadeDelete(Connection connection) throws SQLException {
+        if (cascadeDeletes != null)
+            return cascadeDeletes;
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        String table = metaData.storesUpperCaseIdentifiers() ? "APPOINTMENTS" : "appointments";
+        boolean isCascade = false;
+
+        try (ResultSet resultSet = metaData.getImportedKeys(connection.getCatalog(), null, table)) {
+            while (resultSet.next()) {
+                if ("customers".equalsIgnoreCase(resultSet.getString("PKTABLE_NAME")) &&
+                        resultSet.getShort("DELETE_RULE") == DatabaseMetaData.importedKeyCascade)
+                    isCascade = true;
+            }
+        }
+
+        cascadeDeletes = isCascade;
+        return isCascade;
+    }
+
+    // Writes an appointment's information and repeat rule over its rows on the given connection
+    private static void updateAppointmentRow(Connection connection, Appointment appointment) throws SQLException {
         String sql = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, " +
                 "Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? " +
                 "WHERE Appointment_ID = ?";
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
 
             preparedStatement.setString(1, appointment.getTitle());
             preparedStatement.setString(2, appointment.getDescription());
@@ -227,38 +576,602 @@ public abstract class DAOHelper {
             preparedStatement.setInt(12, appointment.getAppointmentID());
 
             preparedStatement.execute();
+        }
 
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
+        saveRecurrence(connection, appointment.getAppointmentID(), appointment.getRecurrence(), false);
+    }
+
+    // Stores an appointment's repeat rule, replacing the one it had. An appointment that does not repeat has no row.
+    private static void saveRecurrence(Connection connection, int appointmentID, RecurrenceRule recurrence,
+                                       boolean isNew) throws SQLException {
+        if (!hasRecurrences(connection)) {
+            if (recurrence != null)
+                throw new SQLException("Recurring appointments need the table in resources/sql/recurrence.sql");
+            return;
+        }
+
+        if (!isNew)
+            updateForIDs(connection, "DELETE FROM appointment_recurrences WHERE Appointment_ID IN",
+                    new int[] {appointmentID});
+
+        if (recurrence == null)
+            return;
+
+        String sql = "INSERT INTO appointment_recurrences(Appointment_ID, Rule, Exceptions) VALUES (?,?,?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, appointmentID);
+            preparedStatement.setString(2, recurrence.getRuleText());
+            preparedStatement.setString(3, recurrence.getExceptionText());
+            preparedStatement.execute();
         }
     }
 
+    /**
+     * Cancels one occurrence of a recurring appointment.
+     *
+     * <p> This method adds the date of the occurrence to the exceptions of its series. The rest of the series is
+     * left as it is, and the cancelled occurrence still counts toward the number of occurrences. The new
+     * RecurrenceRule is set on the series. </p>
+     * @param appointment The occurrence, or its series
+     * @param date The date of the occurrence to cancel
+     * @return Returns true if the occurrence was cancelled
+     */
+    public static boolean addRecurrenceException(Appointment appointment, LocalDate date) {
+        Appointment series = appointment.getSeries();
+        if (!series.isRecurring())
+            return false;
+
+        RecurrenceRule recurrence = series.getRecurrence().withException(date);
+        String sql = "UPDATE appointment_recurrences SET Exceptions = ? WHERE Appointment_ID = ?";
+        boolean[] isChanged = {false};
+
+        boolean isUpdated = inTransaction(connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+
+                preparedStatement.setString(1, recurrence.getExceptionText());
+                preparedStatement.setInt(2, series.getAppointmentID());
+                isChanged[0] = preparedStatement.executeUpdate() == 1;
+            }
+        });
+
+        if (isUpdated && isChanged[0]) {
+            series.setRecurrence(recurrence);
+            EventBus.publish(new AppointmentUpdated(series));
+        }
+
+        return isUpdated;
+    }
+
+    /**
+     * Books an appointment, making sure it does not double-book its customer, contact, or user.
+     *
+     * <p> This method checks the Appointment against the other appointments of its customer, contact, and user and
+     * saves it in one transaction, so two users booking the same person at the same moment cannot both succeed. The
+     * rows of the customer, contact, and user are locked with one SELECT ... FOR UPDATE before the check, which makes
+     * other bookings for any of them wait until this transaction ends, even from other computers. The overlaps for all
+     * three are then found with one query. Bookings made by this program for the same people also wait on in-process
+     * locks first, so they queue up locally instead of at the database. The Connection is taken before those locks,
+     * so a booking that has to open one does not keep the others waiting while it does. </p>
+     * <p> The Appointment is added if its ID is -1 and updated otherwise. An update is not checked against the
+     * appointment it replaces. </p>
+     * @param appointment The Appointment to book
+     * @return Returns the BookingResult, with the IDs of the overlapping appointments if there was a conflict
+     */
+    public static BookingResult bookAppointment(Appointment appointment) {
+        boolean isUpdate = appointment.getAppointmentID() != -1;
+        BookingResult[] result = new BookingResult[1];
+
+        TransactionWork work = connection -> {
+            if (!lockResources(connection, appointment)) {
+                result[0] = new BookingResult(BookingResult.Status.FAILED, -1, null);
+                return;
+            }
+
+            int[][] conflicts = findConflicts(connection, appointment);
+            for (int[] conflictIDs : conflicts) {
+                if (conflictIDs.length > 0) {
+                    result[0] = new BookingResult(BookingResult.Status.CONFLICT, -1, conflicts);
+                    return;
+                }
+            }
+
+            int appointmentID = appointment.getAppointmentID();
+            if (isUpdate)
+                updateAppointmentRow(connection, appointment);
+            else
+                appointmentID = insertAppointment(connection, appointment);
+
+            result[0] = new BookingResult(BookingResult.Status.BOOKED, appointmentID, null);
+        };
+
+        boolean isCommitted;
+
+        // A caller already inside a transaction may hold row locks in the database, so it joins that transaction
+        // without the booking locks, which must be taken before any row locks.
+        if (openTransaction.get() != null)
+            isCommitted = inTransaction(work);
+        else {
+            Connection connection;
+            try {
+                connection = JDBC.takeConnection();
+            } catch (SQLException throwables) {
+                throwables.printStackTrace();
+                return new BookingResult(BookingResult.Status.FAILED, -1, null);
+            }
+
+            Lock[] locks = bookingLocksFor(appointment);
+            for (Lock lock : locks)
+                lock.lock();
+
+            try {
+                isCommitted = inTransaction(connection, work);
+            } finally {
+                for (int i = locks.length - 1; i >= 0; i--)
+                    locks[i].unlock();
+            }
+        }
+
+        if (!isCommitted || result[0] == null)
+            return new BookingResult(BookingResult.Status.FAILED, -1, null);
+
+        if (result[0].isBooked()) {
+            if (isUpdate)
+                EventBus.publish(new AppointmentUpdated(appointment));
+            else {
+                appointment.setAppointmentID(result[0].getAppointmentID());
+                EventBus.publish(new AppointmentCreated(appointment));
+            }
+        }
+
+        return result[0];
+    }
+
+    // Returns the booking locks of the appointment's customer, contact, and user, in the order they must be taken
+    private static Lock[] bookingLocksFor(Appointment appointment) {
+        ScheduleIndex.Resource[] resources = ScheduleIndex.Resource.values();
+        int[] stripes = new int[resources.length];
+
+        for (int i = 0; i < resources.length; i++) {
+            // The resource is mixed in so customer 1, contact 1, and user 1 do not always share a stripe
+            int key = resources[i].idOf(appointment) * resources.length + i;
+            stripes[i] = IntObjectMap.hash(key) & (bookingLocks.length - 1);
+        }
+
+        // Taking the stripes in ascending order keeps two bookings from waiting on each other
+        int[] ordered = Arrays.stream(stripes).sorted().distinct().toArray();
+        Lock[] locks = new Lock[ordered.length];
+        for (int i = 0; i < ordered.length; i++)
+            locks[i] = bookingLocks[ordered[i]];
+
+        return locks;
+    }
+
+    // Locks the rows of the appointment's customer, contact, and user until the end of the transaction. Returns false
+    // if any of them does not exist.
+    private static boolean lockResources(Connection connection, Appointment appointment) throws SQLException {
+        String sql = "SELECT c.Customer_ID FROM customers AS c, contacts AS t, users AS u " +
+                "WHERE c.Customer_ID = ? AND t.Contact_ID = ? AND u.User_ID = ? FOR UPDATE";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setInt(1, appointment.getCustomerID());
+            preparedStatement.setInt(2, appointment.getContactID());
+            preparedStatement.setInt(3, appointment.getUserID());
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    // Finds the appointments that overlap the given appointment and share its customer, contact, or user, other than
+    // the appointment itself. The IDs are grouped by the ordinal of the shared Resource. When either appointment
+    // repeats, they conflict if any of their occurrences overlap.
+    private static int[][] findConflicts(Connection connection, Appointment appointment) throws SQLException {
+        // Two appointments overlap when each starts before the other ends. Each side of the OR has its own
+        // (ID, Start, End) index, so the database can merge three index range scans. A series is stored with its
+        // first occurrence, so any series that starts in time is read and its occurrences are compared here.
+        String columns = "a.Appointment_ID, a.Customer_ID, a.Contact_ID, a.User_ID, a.Start, a.End";
+        String condition = hasRecurrences(connection) ?
+                " WHERE (a.Customer_ID = ? OR a.Contact_ID = ? OR a.User_ID = ?) AND a.Start < ? " +
+                        "AND (a.End > ? OR r.Appointment_ID IS NOT NULL) AND a.Appointment_ID <> ? ORDER BY a.Start" :
+                " WHERE (a.Customer_ID = ? OR a.Contact_ID = ? OR a.User_ID = ?) AND a.Start < ? AND a.End > ? " +
+                        "AND a.Appointment_ID <> ? ORDER BY a.Start";
+        LocalDateTime lastEnd = appointment.getLastEndTime();
+        ScheduleIndex.Resource[] resources = ScheduleIndex.Resource.values();
+        IntStream.Builder[] conflictIDs = new IntStream.Builder[resources.length];
+
+        for (int i = 0; i < resources.length; i++)
+            conflictIDs[i] = IntStream.builder();
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                appointmentQuery(connection, columns, condition))) {
+            preparedStatement.setInt(1, appointment.getCustomerID());
+            preparedStatement.setInt(2, appointment.getContactID());
+            preparedStatement.setInt(3, appointment.getUserID());
+            preparedStatement.setTimestamp(4, Timestamp.valueOf(lastEnd != null ? lastEnd :
+                    appointment.getStartTime().plus(RecurrenceRule.ENDLESS_HORIZON)));
+            preparedStatement.setTimestamp(5, Timestamp.valueOf(appointment.getStartTime()));
+            preparedStatement.setInt(6, appointment.getAppointmentID());
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Appointment other = new Appointment(resultSet.getInt("Appointment_ID"), null, null, null, null,
+                            resultSet.getTimestamp("Start").toLocalDateTime(),
+                            resultSet.getTimestamp("End").toLocalDateTime(), resultSet.getInt("Customer_ID"),
+                            resultSet.getInt("User_ID"), resultSet.getInt("Contact_ID"));
+                    readRecurrence(connection, resultSet, other);
+
+                    if ((other.isRecurring() || appointment.isRecurring()) && !appointment.overlaps(other))
+                        continue;
+
+                    for (int i = 0; i < resources.length; i++) {
+                        if (resources[i].idOf(other) == resources[i].idOf(appointment))
+                            conflictIDs[i].add(other.getAppointmentID());
+                    }
+                }
+            }
+        }
+
+        int[][] conflicts = new int[resources.length][];
+        for (int i = 0; i < resources.length; i++)
+            conflicts[i] = conflictIDs[i].build().toArray();
+
+        return conflicts;
+    }
+
+    /**
+     * Books many new appointments at once.
+     *
+     * <p> This method saves the given Appointments in one transaction, and only if none of them overlaps another of
+     * them or an appointment in the database that shares its customer, contact, or user. It is meant for the
+     * appointments of a SchedulePlan, which were checked against ScheduleIndex but may have been beaten to a time by
+     * another user. Like bookAppointment(), the rows of every customer, contact, and user involved are locked first,
+     * but with IN lists, and the appointments that could overlap are read with one query per few hundred IDs rather
+     * than one per appointment. The appointments are then inserted in batches, and the IDs generated for them are set
+     * on the Appointments. </p>
+     * @param appointments The new Appointments
+     * @return Returns true if all the Appointments were added, false if any of them conflicted or could not be added
+     */
+    public static boolean addAppointments(List<Appointment> appointments) {
+        if (appointments.isEmpty())
+            return true;
+
+        boolean[] isClear = {false};
+        boolean isCommitted = inTransaction(connection -> {
+            if (!lockResources(connection, appointments) ||
+                    hasConflicts(connection, appointments, ScheduleIndex.Resource.values()))
+                return;
+
+            insertAppointments(connection, appointments);
+            isClear[0] = true;
+        });
+
+        if (!isCommitted || !isClear[0]) {
+            // IDs may have been set before the transaction was rolled back
+            for (Appointment appointment : appointments)
+                appointment.setAppointmentID(-1);
+            return false;
+        }
+
+        for (Appointment appointment : appointments)
+            EventBus.publish(new AppointmentCreated(appointment));
+
+        return true;
+    }
+
+    // Locks the rows of every customer, contact, and user of the appointments until the end of the transaction.
+    // Returns false if any of them does not exist.
+    private static boolean lockResources(Connection connection, List<Appointment> appointments) throws SQLException {
+        for (ScheduleIndex.Resource resource : ScheduleIndex.Resource.values()) {
+            int[] ids = appointments.stream().mapToInt(resource::idOf).distinct().toArray();
+            int[] found = {0};
+
+            queryForIDs(connection, "SELECT " + resource.getColumn() + " FROM " +
+                    RESOURCE_TABLES[resource.ordinal()] + " WHERE " + resource.getColumn() + " IN", " FOR UPDATE",
+                    ids, resultSet -> found[0]++);
+            if (found[0] != ids.length)
+                return false;
+        }
+
+        return true;
+    }
+
+    // Returns true if any of the appointments overlaps another of them, or another appointment in the database, that
+    // shares one of the given resources with it. Appointments that are already saved are only compared with the
+    // others at their new times.
+    private static boolean hasConflicts(Connection connection, List<Appointment> appointments,
+                                        ScheduleIndex.Resource[] resources) throws SQLException {
+        int[] savedIDs = appointments.stream().mapToInt(Appointment::getAppointmentID).filter(id -> id != -1)
+                .sorted().toArray();
+        LocalDateTime first = null;
+        LocalDateTime last = null;
+
+        for (Appointment appointment : appointments) {
+            LocalDateTime lastEnd = appointment.getLastEndTime();
+            if (lastEnd == null)
+                lastEnd = appointment.getStartTime().plus(RecurrenceRule.ENDLESS_HORIZON);
+
+            if (first == null || appointment.getStartTime().isBefore(first))
+                first = appointment.getStartTime();
+            if (last == null || lastEnd.isAfter(last))
+                last = lastEnd;
+        }
+
+        String columns = "a.Appointment_ID, a.Customer_ID, a.Contact_ID, a.User_ID, a.Start, a.End";
+        String timeCondition = hasRecurrences(connection) ? " WHERE a.Start < ? AND (a.End > ? OR " +
+                "r.Appointment_ID IS NOT NULL)" : " WHERE a.Start < ? AND a.End > ?";
+
+        for (ScheduleIndex.Resource resource : resources) {
+            IntObjectMap<AppointmentGroup> groups = new IntObjectMap<>();
+            for (Appointment appointment : appointments) {
+                AppointmentGroup group = groups.get(resource.idOf(appointment));
+                if (group == null)
+                    groups.put(resource.idOf(appointment), group = new AppointmentGroup());
+                group.add(appointment);
+            }
+
+            boolean[] isConflict = {false};
+            groups.forEach((id, group) -> isConflict[0] |= group.sortAndCheck());
+            if (isConflict[0])
+                return true;
+
+            int[] ids = appointments.stream().mapToInt(resource::idOf).distinct().toArray();
+            queryForIDs(connection, appointmentQuery(connection, columns, timeCondition + " AND a." +
+                    resource.getColumn() + " IN"), "", ids, resultSet -> {
+                Appointment other = new Appointment(resultSet.getInt("Appointment_ID"), null, null, null, null,
+                        resultSet.getTimestamp("Start").toLocalDateTime(),
+                        resultSet.getTimestamp("End").toLocalDateTime(), resultSet.getInt("Customer_ID"),
+                        resultSet.getInt("User_ID"), resultSet.getInt("Contact_ID"));
+                readRecurrence(connection, resultSet, other);
+
+                if (Arrays.binarySearch(savedIDs, other.getAppointmentID()) < 0 &&
+                        groups.get(resource.idOf(other)).overlaps(other))
+                    isConflict[0] = true;
+            }, Timestamp.valueOf(last), Timestamp.valueOf(first));
+
+            if (isConflict[0])
+                return true;
+        }
+
+        return false;
+    }
+
+    // Inserts new appointments in batches and sets the IDs generated for them. Their repeat rules are saved one by one.
+    private static void insertAppointments(Connection connection, List<Appointment> appointments)
+            throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_APPOINTMENT_SQL,
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int from = 0; from < appointments.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, appointments.size());
+
+                for (int i = from; i < to; i++) {
+                    bindAppointment(preparedStatement, appointments.get(i), now);
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+
+                // The keys come back in the order the rows were added to the batch
+                try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                    for (int i = from; i < to; i++) {
+                        if (!keys.next())
+                            throw new SQLException("No key was generated for appointment " + (i + 1) + " of " +
+                                    appointments.size());
+                        appointments.get(i).setAppointmentID(keys.getInt(1));
+                    }
+                }
+            }
+        }
+
+        for (Appointment appointment : appointments) {
+            if (appointment.isRecurring())
+                saveRecurrence(connection, appointment.getAppointmentID(), appointment.getRecurrence(), true);
+        }
+    }
+
+    // Runs a query whose condition ends in an IN list for a set of IDs, a few hundred IDs at a time, and passes each
+    // row to the reader. The parameters are bound before the IDs, and the suffix is added after the IN list.
+    private static void queryForIDs(Connection connection, String sqlPrefix, String sqlSuffix, int[] ids,
+                                    RowReader reader, Object... parameters) throws SQLException {
+        for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, ids.length);
+            String placeholders = "?" + ",?".repeat(to - from - 1);
+
+            try (PreparedStatement preparedStatement =
+                         connection.prepareStatement(sqlPrefix + " (" + placeholders + ")" + sqlSuffix)) {
+                for (int i = 0; i < parameters.length; i++)
+                    preparedStatement.setObject(i + 1, parameters[i]);
+                for (int i = from; i < to; i++)
+                    preparedStatement.setInt(parameters.length + i - from + 1, ids[i]);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next())
+                        reader.read(resultSet);
+                }
+            }
+        }
+    }
+
+    // Reads one row of a query run by queryForIDs()
+    private interface RowReader {
+        void read(ResultSet resultSet) throws SQLException;
+    }
+
+    // The new appointments that share one customer, contact, or user, for hasConflicts(). The appointments that do
+    // not repeat are kept sorted by start, and since they must not overlap, their ends are sorted as well.
+    private static class AppointmentGroup {
+        private final List<Appointment> single = new ArrayList<>();
+        private final List<Appointment> recurring = new ArrayList<>();
+
+        void add(Appointment appointment) {
+            (appointment.isRecurring() ? recurring : single).add(appointment);
+        }
+
+        // Sorts the appointments and returns true if any two of them overlap
+        boolean sortAndCheck() {
+            single.sort(Comparator.comparing(Appointment::getStartTime));
+            for (int i = 1; i < single.size(); i++) {
+                if (single.get(i).getStartTime().isBefore(single.get(i - 1).getEndTime()))
+                    return true;
+            }
+
+            for (int i = 0; i < recurring.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    if (recurring.get(i).overlaps(recurring.get(j)))
+                        return true;
+                }
+                for (Appointment appointment : single) {
+                    if (recurring.get(i).overlaps(appointment))
+                        return true;
+                }
+            }
+
+            return false;
+        }
+
+        // Returns true if an appointment from the database overlaps any of the group's appointments
+        boolean overlaps(Appointment other) {
+            for (Appointment appointment : recurring) {
+                if (appointment.overlaps(other))
+                    return true;
+            }
+
+            if (other.isRecurring()) {
+                for (Appointment appointment : single) {
+                    if (appointment.overlaps(other))
+                        return true;
+                }
+                return false;
+            }
+
+            // Find the first appointment that ends after the other starts; it overlaps if it starts before the other
+            // ends
+            int low = 0;
+            int high = single.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (single.get(middle).getEndTime().isAfter(other.getStartTime()))
+                    high = middle;
+                else
+                    low = middle + 1;
+            }
+
+            return low < single.size() && single.get(low).getStartTime().isBefore(other.getEndTime());
+        }
+    }
+
+    /**
+     * Saves a bulk change to many appointments.
+     *
+     * <p> This method moves the appointments of a BulkChange from BulkEditor in one transaction. Like
+     * addAppointments(), the rows of the customers, contacts, and users involved are locked and the changed
+     * appointments are checked for conflicts in the database with one query per few hundred IDs. The appointments'
+     * rows are locked as well and compared with the preview, so a change made by someone else since then is not
+     * overwritten. The appointments are then changed with set-based UPDATE statements, one per few hundred IDs, that
+     * shift their times with TIMESTAMPADD or set their contact, rather than one statement per appointment. </p>
+     * @param change The BulkChange to save
+     * @return Returns true if the change was saved, false if an appointment changed since the preview, a conflict was
+     * found, or the change could not be saved
+     */
+    public static boolean applyBulkChange(BulkChange change) {
+        List<Appointment> appointments = change.getAppointments();
+        if (appointments.isEmpty())
+            return true;
+
+        int[] appointmentIDs = appointments.stream().mapToInt(Appointment::getAppointmentID).toArray();
+        boolean[] isSaved = {false};
+
+        boolean isCommitted = inTransaction(connection -> {
+            if (!lockResources(connection, appointments) || !isUnchanged(connection, change.getOriginals()) ||
+                    hasConflicts(connection, appointments, change.getCheckedResources()))
+                return;
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int updated;
+            if (change.getContactID() != -1)
+                updated = updateForIDs(connection, "UPDATE appointments SET Contact_ID = ?, Last_Update = ?, " +
+                        "Last_Updated_By = ? WHERE Appointment_ID IN", appointmentIDs, change.getContactID(), now,
+                        userName);
+            else
+                updated = updateForIDs(connection, "UPDATE appointments SET Start = TIMESTAMPADD(SECOND, ?, Start), " +
+                        "End = TIMESTAMPADD(SECOND, ?, End), Last_Update = ?, Last_Updated_By = ? " +
+                        "WHERE Appointment_ID IN", appointmentIDs, change.getShift().getSeconds(),
+                        change.getShift().getSeconds(), now, userName);
+
+            if (updated != appointmentIDs.length)
+                throw new SQLException("Only " + updated + " of " + appointmentIDs.length +
+                        " appointments were changed");
+            isSaved[0] = true;
+        });
+
+        if (!isCommitted || !isSaved[0])
+            return false;
+
+        for (Appointment appointment : appointments)
+            EventBus.publish(new AppointmentUpdated(appointment));
+
+        return true;
+    }
+
+    // Locks the rows of the appointments until the end of the transaction. Returns false if any of them was deleted
+    // or has different times, customer, contact, or user than the given copies.
+    private static boolean isUnchanged(Connection connection, List<Appointment> originals) throws SQLException {
+        IntObjectMap<Appointment> byID = IntObjectMap.index(originals, Appointment::getAppointmentID);
+        int[] unchanged = {0};
+
+        queryForIDs(connection, "SELECT Appointment_ID, Start, End, Customer_ID, User_ID, Contact_ID " +
+                        "FROM appointments WHERE Appointment_ID IN", " FOR UPDATE",
+                originals.stream().mapToInt(Appointment::getAppointmentID).toArray(), resultSet -> {
+            Appointment original = byID.get(resultSet.getInt("Appointment_ID"));
+
+            if (resultSet.getTimestamp("Start").toLocalDateTime().equals(original.getStartTime()) &&
+                    resultSet.getTimestamp("End").toLocalDateTime().equals(original.getEndTime()) &&
+                    resultSet.getInt("Customer_ID") == original.getCustomerID() &&
+                    resultSet.getInt("User_ID") == original.getUserID() &&
+                    resultSet.getInt("Contact_ID") == original.getContactID())
+                unchanged[0]++;
+        });
+
+        return unchanged[0] == originals.size();
+    }
+
     /**
      * Updates a customer in the database.
      *
-     * <p> This method the information of a Customer in the database. </p>
+     * <p> This method the information of a Customer in the database. The update date and name that were written
+     * are set on the Customer. </p>
      * @param customer The updated Customer. This customer's ID will be used to match it in the database.
+     * @return Returns true if the Customer was updated
      */
-    public static void updateCustomer(Customer customer) {
+    public static boolean updateCustomer(Customer customer) {
         String sql = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, " +
                 "Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
+        LocalDateTime now = LocalDateTime.now();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql)) {
+        boolean isUpdated = inTransaction(connection -> {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
 
-            preparedStatement.setString(1, customer.getName());
-            preparedStatement.setString(2, customer.getAddress());
-            preparedStatement.setString(3, customer.getPostalCode());
-            preparedStatement.setString(4, customer.getPhone());
-            preparedStatement.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
-            preparedStatement.setString(6, userName);
-            preparedStatement.setInt(7, customer.getDivisionID());
-            preparedStatement.setInt(8, customer.getCustomerID());
+                preparedStatement.setString(1, customer.getName());
+                preparedStatement.setString(2, customer.getAddress());
+                preparedStatement.setString(3, customer.getPostalCode());
+                preparedStatement.setString(4, customer.getPhone());
+                preparedStatement.setTimestamp(5, Timestamp.valueOf(now));
+                preparedStatement.setString(6, userName);
+                preparedStatement.setInt(7, customer.getDivisionID());
+                preparedStatement.setInt(8, customer.getCustomerID());
 
-            preparedStatement.execute();
+                preparedStatement.execute();
+            }
+        });
 
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
+        if (isUpdated) {
+            customer.setLastUpdate(now);
+            customer.setLastUpdatedBy(userName);
+            EventBus.publish(new CustomerUpdated(customer));
         }
+
+        return isUpdated;
     }
 
     /**
@@ -268,10 +1181,11 @@ public abstract class DAOHelper {
      * @return Returns an ObservableList of all Countries in the database
      */
     public static ObservableList<Country> getAllCountries() {
+        Connection connection = JDBC.readConnection();
         ObservableList<Country> countryList = FXCollections.observableArrayList();
         String sql = "SELECT Country_ID, Country FROM countries";
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -297,10 +1211,11 @@ public abstract class DAOHelper {
      * @return Returns an ObservableList of all Divisions in the database for a particular country
      */
     public static ObservableList<Division> getAllDivisions(Country country) {
+        Connection connection = JDBC.readConnection();
         ObservableList<Division> divisionList = FXCollections.observableArrayList();
         String sql = "SELECT Division_ID, Division FROM first_level_divisions WHERE Country_ID = " + country.getCountryID();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -325,12 +1240,13 @@ public abstract class DAOHelper {
      * @return Returns a Division object containing its ID, name, country ID, and country name
      */
     public static Division getDivisionFromID(int divisionID) {
+        Connection connection = JDBC.readConnection();
         String sql = "SELECT c.Country_ID, c.Country, f.Division FROM first_level_divisions AS f " +
                 "INNER JOIN countries AS c ON f.Country_ID = c.Country_ID " +
                 "WHERE f.Division_ID = " + divisionID;
         Division division = new Division();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -353,10 +1269,21 @@ public abstract class DAOHelper {
      * @return Returns an ObservableList of all Contacts in the database
      */
     public static ObservableList<Contact> getAllContacts() {
+        return getAllContacts(JDBC.readConnection());
+    }
+
+    /**
+     * Queries the database for all contacts on a given connection.
+     *
+     * <p> This method reads the contacts like getAllContacts(), for threads other than the FX thread. </p>
+     * @param connection The Connection to read from
+     * @return Returns an ObservableList of all Contacts in the database
+     */
+    public static ObservableList<Contact> getAllContacts(Connection connection) {
         ObservableList<Contact> contactList = FXCollections.observableArrayList();
         String sql = "SELECT Contact_ID, Contact_Name, Email FROM contacts";
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -382,10 +1309,11 @@ public abstract class DAOHelper {
      * @return Returns a Contact object containing its ID, name, and email
      */
     public static Contact getContactFromID (int contactID) {
+        Connection connection = JDBC.readConnection();
         String sql = "SELECT Contact_ID, Contact_Name, Email FROM contacts WHERE Contact_ID = " + contactID;
         Contact contact = new Contact();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
              ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -400,6 +1328,182 @@ public abstract class DAOHelper {
         return contact;
     }
 
+    /**
+     * Queries the database for the names of all customers.
+     *
+     * <p> This method obtains the ID and name of every Customer in a single query. It is used by NameCache. </p>
+     * @return Returns an IntObjectMap with the Customer IDs as keys and the Customer names as values
+     */
+    public static IntObjectMap<String> getCustomerNames() {
+        return getNames("SELECT Customer_ID, Customer_Name FROM customers", "Customer_ID", "Customer_Name");
+    }
+
+    /**
+     * Queries the database for the names of all contacts.
+     *
+     * <p> This method obtains the ID and name of every Contact in a single query. It is used by NameCache. </p>
+     * @return Returns an IntObjectMap with the Contact IDs as keys and the Contact names as values
+     */
+    public static IntObjectMap<String> getContactNames() {
+        return getNames("SELECT Contact_ID, Contact_Name FROM contacts", "Contact_ID", "Contact_Name");
+    }
+
+    /**
+     * Queries the database for the names of all users.
+     *
+     * <p> This method obtains the ID and name of every User in a single query. It is used by NameCache. </p>
+     * @return Returns an IntObjectMap with the User IDs as keys and the User names as values
+     */
+    public static IntObjectMap<String> getUserNames() {
+        return getNames("SELECT User_ID, User_Name FROM users", "User_ID", "User_Name");
+    }
+
+    /**
+     * Queries the database for the names of all countries.
+     *
+     * <p> This method obtains the ID and name of every Country in a single query. It is used by NameCache. </p>
+     * @return Returns an IntObjectMap with the Country IDs as keys and the Country names as values
+     */
+    public static IntObjectMap<String> getCountryNames() {
+        return getNames("SELECT Country_ID, Country FROM countries", "Country_ID", "Country");
+    }
+
+    // Runs a query that returns an ID column and a name column and collects the rows into a map
+    private static IntObjectMap<String> getNames(String sql, String idColumn, String nameColumn) {
+        Connection connection = JDBC.readConnection();
+        IntObjectMap<String> names = new IntObjectMap<>();
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+
+            while (resultSet.next()) {
+                String name = resultSet.getString(nameColumn);
+                names.put(resultSet.getInt(idColumn), name == null ? "" : name);
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return names;
+    }
+
+    /**
+     * Queries the database for all business hours.
+     *
+     * <p> This method obtains the opening hours of the business, its locations, and its contacts. They are kept in the
+     * business_hours table created by resources/sql/business_calendar.sql. If the table does not exist, the list is
+     * empty and BusinessCalendar uses the hours in the Appointment class. </p>
+     * @return Returns an ObservableList of all BusinessHours in the database
+     */
+    public static ObservableList<BusinessHours> getAllBusinessHours() {
+        Connection connection = JDBC.readConnection();
+        ObservableList<BusinessHours> hoursList = FXCollections.observableArrayList();
+        String sql = "SELECT Contact_ID, Location, Day_Of_Week, Open_Time, Close_Time FROM business_hours";
+
+        try {
+            if (!hasTable(connection, "business_hours"))
+                return hoursList;
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                 ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                while (resultSet.next()) {
+                    int contactID = resultSet.getInt("Contact_ID");
+                    if (resultSet.wasNull())
+                        contactID = -1;
+
+                    hoursList.add(new BusinessHours(contactID, resultSet.getString("Location"),
+                            DayOfWeek.of(resultSet.getInt("Day_Of_Week")),
+                            resultSet.getTime("Open_Time").toLocalTime(),
+                            resultSet.getTime("Close_Time").toLocalTime()));
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return hoursList;
+    }
+
+    /**
+     * Queries the database for all closures.
+     *
+     * <p> This method obtains the dates on which the business, a location, or a contact is closed. They are kept in the
+     * business_closures table created by resources/sql/business_calendar.sql. If the table does not exist, the list is
+     * empty. </p>
+     * @return Returns an ObservableList of all BusinessClosures in the database
+     */
+    public static ObservableList<BusinessClosure> getAllBusinessClosures() {
+        Connection connection = JDBC.readConnection();
+        ObservableList<BusinessClosure> closureList = FXCollections.observableArrayList();
+        String sql = "SELECT Contact_ID, Location, Closure_Date, Description FROM business_closures";
+
+        try {
+            if (!hasTable(connection, "business_closures"))
+                return closureList;
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
+                 ResultSet resultSet = preparedStatement.executeQuery()) {
+
+                while (resultSet.next()) {
+                    int contactID = resultSet.getInt("Contact_ID");
+                    if (resultSet.wasNull())
+                        contactID = -1;
+
+                    closureList.add(new BusinessClosure(contactID, resultSet.getString("Location"),
+                            resultSet.getDate("Closure_Date").toLocalDate(), resultSet.getString("Description")));
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return closureList;
+    }
+
+    // Checks once whether the database can store repeat rules
+    private static boolean hasRecurrences(Connection connection) throws SQLException {
+        if (recurrenceTable == null)
+            recurrenceTable = hasTable(connection, "appointment_recurrences");
+        return recurrenceTable;
+    }
+
+    // Builds a query of appointments AS a with the given columns and condition. If the database can store repeat
+    // rules, each appointment's Rule and Exceptions are read along with it for readRecurrence().
+    private static String appointmentQuery(Connection connection, String columns, String condition)
+            throws SQLException {
+        if (!hasRecurrences(connection))
+            return "SELECT " + columns + " FROM appointments AS a" + condition;
+
+        return "SELECT " + columns + ", r.Rule, r.Exceptions FROM appointments AS a " +
+                "LEFT JOIN appointment_recurrences AS r ON r.Appointment_ID = a.Appointment_ID" + condition;
+    }
+
+    // Sets the repeat rule read by a query from appointmentQuery() on an appointment. A rule that cannot be read is
+    // reported and the appointment is treated as not repeating.
+    private static void readRecurrence(Connection connection, ResultSet resultSet, Appointment appointment)
+            throws SQLException {
+        if (!hasRecurrences(connection) || resultSet.getString("Rule") == null)
+            return;
+
+        try {
+            appointment.setRecurrence(RecurrenceRule.parse(resultSet.getString("Rule"),
+                    resultSet.getString("Exceptions")));
+        } catch (IllegalArgumentException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    // Checks the database's metadata for a table, so optional tables can be left out of older databases
+    static boolean hasTable(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+
+        try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), null, name, new String[] {"TABLE"})) {
+            return resultSet.next();
+        }
+    }
+
     /**
      * Obtains a list of appointments from a given contact ID.
      *
@@ -408,11 +1512,12 @@ public abstract class DAOHelper {
      * @return Returns an ObservableList of all Appointments associated with the given Contact ID
      */
     public static ObservableList<Appointment> getAppointmentsFromContact (int contactID) {
-        String sql = "SELECT Appointment_ID, Title, Type, Description, Start, End, Customer_ID FROM appointments " +
-                "WHERE Contact_ID = " + contactID;
+        Connection connection = JDBC.readConnection();
+        String columns = "a.Appointment_ID, a.Title, a.Type, a.Description, a.Start, a.End, a.Customer_ID";
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                appointmentQuery(connection, columns, " WHERE a.Contact_ID = " + contactID));
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -424,6 +1529,8 @@ public abstract class DAOHelper {
                 appointment.setStartTime(resultSet.getTimestamp("Start").toLocalDateTime());
                 appointment.setEndTime((resultSet.getTimestamp("End").toLocalDateTime()));
                 appointment.setCustomerID(resultSet.getInt("Customer_ID"));
+                appointment.setContactID(contactID);
+                readRecurrence(connection, resultSet, appointment);
 
                 appointmentList.add(appointment);
             }
@@ -442,11 +1549,12 @@ public abstract class DAOHelper {
      * @return Returns an ObservableList of all Appointments associated with the given Customer ID
      */
     public static ObservableList<Appointment> getAppointmentsFromCustomer (int customerID) {
-        String sql = "SELECT Appointment_ID, Title, Type, Description, Start, End, Contact_ID FROM appointments " +
-                "WHERE Customer_ID = " + customerID;
+        Connection connection = JDBC.readConnection();
+        String columns = "a.Appointment_ID, a.Title, a.Type, a.Description, a.Start, a.End, a.Contact_ID";
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                appointmentQuery(connection, columns, " WHERE a.Customer_ID = " + customerID));
              ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -459,6 +1567,7 @@ public abstract class DAOHelper {
                 appointment.setEndTime((resultSet.getTimestamp("End").toLocalDateTime()));
                 appointment.setCustomerID(customerID);
                 appointment.setContactID(resultSet.getInt("Contact_ID"));
+                readRecurrence(connection, resultSet, appointment);
 
                 appointmentList.add(appointment);
             }
@@ -477,10 +1586,11 @@ public abstract class DAOHelper {
      * @return Returns true if the name is a valid User name in the database
      */
     public static boolean validateUserName(String name) {
+        Connection connection = JDBC.readConnection();
         String sql = "SELECT User_Name FROM users WHERE User_Name = '" + name + "'";
         boolean isValid = false;
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {  // If resultSet has any row in it, name is valid
@@ -503,10 +1613,11 @@ public abstract class DAOHelper {
      * @return Returns true if the given password matches the password listed for the user
      */
     public static boolean validateLogin(String name, String password) {
+        Connection connection = JDBC.readConnection();
         String sql = "SELECT Password FROM users WHERE User_Name = '" + name + "'";
         boolean isValid = false;
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -530,10 +1641,11 @@ public abstract class DAOHelper {
      * @return Returns true if the given Customer ID exists in the database
      */
     public static boolean validateCustomer (int customerID) {
+        Connection connection = JDBC.readConnection();
         String sql = "SELECT Customer_ID FROM customers WHERE Customer_ID = " + customerID;
         boolean isValid = false;
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -554,10 +1666,11 @@ public abstract class DAOHelper {
      * @return Returns true if the given User ID exists in the database
      */
     public static boolean validateUser (int userID) {
+        Connection connection = JDBC.readConnection();
         String sql = "SELECT User_ID FROM users WHERE User_ID = " + userID;
         boolean isValid = false;
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
         ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -573,20 +1686,21 @@ public abstract class DAOHelper {
     /**
      * Obtains the amount of customers in the database per country.
      *
-     * <p> This method counts up the amount of customers in the database, grouping them by country. </p>
-     * @return Returns a HashMap with the countries as keys and the total amount of customers as values
+     * <p> This method counts up the amount of customers in the database, grouping them by country. The country names
+     * can be obtained from NameCache. </p>
+     * @return Returns an IntIntMap with the country IDs as keys and the total amount of customers as values
      */
-    public static HashMap<String, Integer> customersPerCountry() {
-        String sql = "SELECT x.Country, COUNT(c.Customer_ID) AS Total FROM customers AS c INNER JOIN first_level_divisions AS d " +
-                "ON c.Division_ID = d.Division_ID INNER JOIN countries AS x ON d.Country_ID = x.Country_ID " +
-                "GROUP BY x.Country_ID";
-        HashMap<String, Integer> map = new HashMap<>();
+    public static IntIntMap customersPerCountry() {
+        Connection connection = JDBC.readConnection();
+        String sql = "SELECT d.Country_ID, COUNT(c.Customer_ID) AS Total FROM customers AS c " +
+                "INNER JOIN first_level_divisions AS d ON c.Division_ID = d.Division_ID GROUP BY d.Country_ID";
+        IntIntMap map = new IntIntMap();
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
              ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
-                map.put(resultSet.getString("Country"), resultSet.getInt("Total"));
+                map.put(resultSet.getInt("Country_ID"), resultSet.getInt("Total"));
             }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
@@ -604,11 +1718,12 @@ public abstract class DAOHelper {
      * @return Returns a HashMap containing appointments for the given customer, with types as keys and the total amount of appointments as values.
      */
     public static HashMap<String, Integer> appointmentTypeTotal(int customerID) {
+        Connection connection = JDBC.readConnection();
         HashMap<String, Integer> map = new HashMap<>();
         String sql = "SELECT a.Type, COUNT(a.Appointment_ID) AS Total FROM customers AS c INNER JOIN appointments AS a " +
                 "ON c.Customer_ID = a.Customer_ID WHERE a.Customer_ID = " + customerID + " GROUP BY a.Type";
 
-        try (PreparedStatement preparedStatement = JDBC.connection.prepareStatement(sql);
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
             ResultSet resultSet = preparedStatement.executeQuery()) {
 
             while (resultSet.next()) {
@@ -620,4 +1735,98 @@ public abstract class DAOHelper {
 
         return map;
     }
+
+    /**
+     * Finds the length of the longest appointment.
+     *
+     * <p> This method lets a query for the appointments that overlap a time only read those that start at most this
+     * long before it, which an index on Start can find with one range scan. </p>
+     * @param connection The Connection to query on
+     * @return Returns the length of the longest appointment, or zero if there are none
+     * @throws SQLException Exceptions from the query
+     */
+    public static Duration getLongestAppointment(Connection connection) throws SQLException {
+        String sql = "SELECT MAX(TIMESTAMPDIFF(SECOND, Start, End)) AS Longest FROM appointments";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            return Duration.ofSeconds(resultSet.next() ? Math.max(0, resultSet.getLong("Longest")) : 0);
+        }
+    }
+
+    /**
+     * Reads the times of the appointments that overlap a time range, in order of start.
+     *
+     * <p> This method passes the location, start, and end of each appointment that overlaps the range to the visitor,
+     * without keeping the appointments in memory. Rows are fetched a few thousand at a time; on MySQL this needs
+     * useCursorFetch, which JDBC sets. A recurring appointment is passed once for each occurrence in the range, merged
+     * in order with the others. Appointments must be no longer than longest, from getLongestAppointment(), so that
+     * only those starting at most that long before the range are read. It takes a Connection so that several ranges
+     * can be read at the same time on connections from JDBC.createConnection(). </p>
+     * @param connection The Connection to query on
+     * @param from The start of the range, in the user's time zone
+     * @param to The end of the range, in the user's time zone
+     * @param longest The length of the longest appointment
+     * @param visitor The AppointmentTimeVisitor that receives the times
+     * @throws SQLException Exceptions from the queries
+     */
+    public static void readAppointmentTimes(Connection connection, LocalDateTime from, LocalDateTime to,
+                                            Duration longest, AppointmentTimeVisitor visitor) throws SQLException {
+        boolean hasRecurrences = hasRecurrences(connection);
+        List<Appointment> occurrences = new ArrayList<>();
+
+        // Series are few, so their occurrences in the range are worked out first and merged into the stream below
+        if (hasRecurrences) {
+            String sql = appointmentQuery(connection, "a.Appointment_ID, a.Location, a.Start, a.End",
+                    " WHERE r.Appointment_ID IS NOT NULL AND a.Start < ?");
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setTimestamp(1, Timestamp.valueOf(to));
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        Appointment series = new Appointment(resultSet.getInt("Appointment_ID"), null, null,
+                                resultSet.getString("Location"), null,
+                                resultSet.getTimestamp("Start").toLocalDateTime(),
+                                resultSet.getTimestamp("End").toLocalDateTime(), -1, -1, -1);
+                        readRecurrence(connection, resultSet, series);
+                        occurrences.addAll(series.occurrencesBetween(from, to));
+                    }
+                }
+            }
+            occurrences.sort(Comparator.comparing(Appointment::getStartTime));
+        }
+
+        String condition = (hasRecurrences ? " WHERE r.Appointment_ID IS NULL AND" : " WHERE") +
+                " a.Start >= ? AND a.Start < ? AND a.End > ? ORDER BY a.Start";
+        int next = 0;
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                appointmentQuery(connection, "a.Location, a.Start, a.End", condition), ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(FETCH_SIZE);
+            preparedStatement.setTimestamp(1, Timestamp.valueOf(from.minus(longest)));
+            preparedStatement.setTimestamp(2, Timestamp.valueOf(to));
+            preparedStatement.setTimestamp(3, Timestamp.valueOf(from));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    LocalDateTime start = resultSet.getTimestamp("Start").toLocalDateTime();
+
+                    for (; next < occurrences.size() && occurrences.get(next).getStartTime().isBefore(start); next++) {
+                        Appointment occurrence = occurrences.get(next);
+                        visitor.visit(occurrence.getLocation(), occurrence.getStartTime(), occurrence.getEndTime());
+                    }
+
+                    visitor.visit(resultSet.getString("Location"), start,
+                            resultSet.getTimestamp("End").toLocalDateTime());
+                }
+            }
+        }
+
+        for (; next < occurrences.size(); next++) {
+            Appointment occurrence = occurrences.get(next);
+            visitor.visit(occurrence.getLocation(), occurrence.getStartTime(), occurrence.getEndTime());
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.C195.helper;
+
+/**
+ * Management interface for the statements run by one DAOHelper method.
+ *
+ * <p> This interface is published over JMX as com.C195:type=DaoOperation,name=DAOHelper.method by SchedulerMetrics,
+ * once the method has run its first statement. It adds up the OperationStats of every statement the method ran, so
+ * the percentiles are of single statements rather than of whole calls to the method. </p>
+ */
+public interface DaoOperationMXBean {
+    /**
+     * Getter for statements.
+     *
+     * @return Returns how many statements the method has run
+     */
+    long getStatements();
+
+    /**
+     * Getter for errors.
+     *
+     * @return Returns how many of its statements threw an exception
+     */
+    long getErrors();
+
+    /**
+     * Getter for rows.
+     *
+     * @return Returns the total rows its statements read or changed
+     */
+    long getRows();
+
+    /**
+     * Getter for bytes.
+     *
+     * @return Returns about how many bytes of values its statements read
+     */
+    long getBytes();
+
+    /**
+     * Getter for total millis.
+     *
+     * @return Returns how many milliseconds its statements took in total
+     */
+    double getTotalMillis();
+
+    /**
+     * Getter for mean millis.
+     *
+     * @return Returns the mean milliseconds one of its statements took
+     */
+    double getMeanMillis();
+
+    /**
+     * Getter for p50 millis.
+     *
+     * @return Returns the milliseconds half of its statements were within
+     */
+    double getP50Millis();
+
+    /**
+     * Getter for p95 millis.
+     *
+     * @return Returns the milliseconds 95% of its statements were within
+     */
+    double getP95Millis();
+
+    /**
+     * Getter for p99 millis.
+     *
+     * @return Returns the milliseconds 99% of its statements were within
+     */
+    double getP99Millis();
+
+    /**
+     * Getter for max millis.
+     *
+     * @return Returns the milliseconds the longest of its statements took
+     */
+    double getMaxMillis();
+}
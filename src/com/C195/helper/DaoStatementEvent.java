@@ -0,0 +1,40 @@
+package com.C195.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one statement run on the database.
+ *
+ * <p> This event is committed by QueryStats for every statement DAOHelper runs, lasting from when it is executed until
+ * its rows have been read, so a recording shows the statements inside a slow screen load or form check. It has the
+ * same DAOHelper method and SQL shape as the statement's OperationStats. </p>
+ */
+@Name("com.C195.DaoStatement")
+@Label("DAO Statement")
+@Category({"Scheduler", "Database"})
+@Description("A statement run by a DAOHelper method, until its rows were read")
+class DaoStatementEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    @Description("The DAOHelper method that ran the statement")
+    String operation;
+
+    @Label("SQL")
+    @Description("The shape of the statement, with its values replaced by question marks")
+    String sql;
+
+    @Label("Rows")
+    @Description("Rows read or changed")
+    long rows;
+
+    @Label("Bytes")
+    @Description("About how many bytes of values were read")
+    @DataAmount
+    long bytes;
+
+    @Label("Failed")
+    boolean failed;
+}
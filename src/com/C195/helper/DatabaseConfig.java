@@ -0,0 +1,126 @@
+package com.C195.helper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Class for the settings of the database.
+ *
+ * <p> This class reads which database the app uses from database.properties in the working directory, or from the
+ * file named by the com.C195.database.config system property, and makes the DataSource that JDBC opens its connections
+ * from. Each setting can also be given as a system property, such as -Dcom.C195.database.backend=embedded, which is
+ * used over the file. </p>
+ * <p> The settings are backend, which is mysql or embedded, url, user, password, and driver, the class of the JDBC
+ * driver. Settings that are not given are the backend's defaults. The mysql backend connects to client_schedule on
+ * localhost as sqlUser. The embedded backend opens an H2 database in MySQL mode in client_schedule.mv.db in the
+ * working directory, which needs only the H2 jar, and makes its tables and some rows to try the app with the first
+ * time it is opened. An embedded url, such as jdbc:h2:mem:client_schedule;DB_CLOSE_DELAY=-1 for a database that is
+ * made new on each run, must keep the MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=END,VALUE settings. </p>
+ * <p> Reads can be sent to read replicas by giving their URLs as replica.1.url, replica.2.url, and so on. The replicas
+ * are connected to with replica.user and replica.password, or the primary's user and password if those are not given.
+ * replica.maxLagSeconds is the staleness bound, the most a replica can be behind and still be read from, 5 if not
+ * given, which must be more than a second longer than replica.checkMillis, how often the lag is checked, 1000 if not
+ * given. replica.lagQuery returns how many seconds a replica is behind, SHOW REPLICA STATUS if not given. Replicas
+ * of an embedded database, such as a second local database to test with, need a lagQuery such as SELECT 0, and have
+ * their tables made like the primary's. </p>
+ */
+public abstract class DatabaseConfig {
+    public static final String MYSQL = "mysql";
+    public static final String EMBEDDED = "embedded";
+
+    private static final String PREFIX = "com.C195.database.";
+    private static final String FILE = "database.properties";
+
+    private static final String MYSQL_URL = "jdbc:mysql://localhost/client_schedule" +
+            "?connectionTimeZone = SERVER" + // LOCAL
+            "&rewriteBatchedStatements=true" + // Send batched statements to the server together
+            "&useCursorFetch=true"; // Let statements with a fetch size read their rows a few at a time
+    private static final String MYSQL_DRIVER = "com.mysql.cj.jdbc.Driver";
+    private static final String EMBEDDED_URL = "jdbc:h2:./client_schedule;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+            "NON_KEYWORDS=END,VALUE";
+    private static final String EMBEDDED_DRIVER = "org.h2.Driver";
+    private static final String LAG_QUERY = "SHOW REPLICA STATUS";
+    private static final String[] EMBEDDED_SCRIPTS = {"/com/C195/resources/sql/embedded_schema.sql",
+            "/com/C195/resources/sql/embedded_data.sql"};
+
+    /**
+     * Reads the settings.
+     *
+     * <p> This method reads the settings file, if there is one, and then the system properties over it. </p>
+     * @return Returns the settings that were given, without the backend's defaults
+     */
+    public static Properties load() {
+        Properties properties = new Properties();
+        Path file = Paths.get(System.getProperty(PREFIX + "config", FILE));
+
+        if (Files.isReadable(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX))
+                properties.setProperty(name.substring(PREFIX.length()), System.getProperty(name));
+        }
+
+        return properties;
+    }
+
+    /**
+     * Makes the DataSource for the settings.
+     *
+     * <p> This method reads the settings and makes a DriverDataSource for them, or a RoutingDataSource over one for
+     * the primary and one for each replica if replicas are given. Nothing is opened until a connection is asked
+     * for. </p>
+     * @return Returns the DataSource
+     * @throws IllegalArgumentException If the backend is not mysql or embedded
+     */
+    public static DataSource createDataSource() {
+        Properties properties = load();
+        String backend = properties.getProperty("backend", MYSQL).trim().toLowerCase(Locale.ROOT);
+        boolean isEmbedded;
+
+        switch (backend) {
+            case MYSQL:
+                isEmbedded = false;
+                break;
+            case EMBEDDED:
+                isEmbedded = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown database backend: " + backend);
+        }
+
+        String user = properties.getProperty("user", isEmbedded ? "sa" : "sqlUser");
+        String password = properties.getProperty("password", isEmbedded ? "" : "Passw0rd!");
+        String driver = properties.getProperty("driver", isEmbedded ? EMBEDDED_DRIVER : MYSQL_DRIVER);
+        String[] scripts = isEmbedded ? EMBEDDED_SCRIPTS : new String[0];
+        DataSource primary = new DriverDataSource(properties.getProperty("url", isEmbedded ? EMBEDDED_URL : MYSQL_URL),
+                user, password, driver, scripts);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 1; properties.getProperty("replica." + i + ".url") != null; i++)
+            replicas.add(new DriverDataSource(properties.getProperty("replica." + i + ".url").trim(),
+                    properties.getProperty("replica.user", user), properties.getProperty("replica.password", password),
+                    driver, scripts));
+        if (replicas.isEmpty())
+            return primary;
+
+        return new RoutingDataSource(primary, replicas,
+                Double.parseDouble(properties.getProperty("replica.maxLagSeconds", "5")),
+                Long.parseLong(properties.getProperty("replica.checkMillis", "1000")),
+                properties.getProperty("replica.lagQuery", LAG_QUERY));
+    }
+}
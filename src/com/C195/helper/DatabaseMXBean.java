@@ -0,0 +1,79 @@
+package com.C195.helper;
+
+/**
+ * Management interface for the connection to the database.
+ *
+ * <p> This interface is published over JMX as com.C195:type=Database by SchedulerMetrics. It shows whether the shared
+ * connection from JDBC is open and answering, how many connections have been opened, and the statement counts kept by
+ * QueryStats. The slow query threshold can be changed while the app runs. </p>
+ */
+public interface DatabaseMXBean {
+    /**
+     * Gets whether the shared connection is open.
+     *
+     * @return Returns true if JDBC opened its connection and it has not been closed
+     */
+    boolean isConnected();
+
+    /**
+     * Gets whether the shared connection answers.
+     *
+     * <p> This method asks the driver to check the connection, waiting at most a few seconds. </p>
+     * @return Returns true if the database answered
+     */
+    boolean isValid();
+
+    /**
+     * Getter for connections opened.
+     *
+     * @return Returns how many connections have been opened, including the shared one
+     */
+    long getConnectionsOpened();
+
+    /**
+     * Getter for open connections.
+     *
+     * @return Returns how many connections are open now
+     */
+    long getOpenConnections();
+
+    /**
+     * Getter for statements.
+     *
+     * @return Returns how many statements have been run
+     */
+    long getStatements();
+
+    /**
+     * Getter for statement errors.
+     *
+     * @return Returns how many statements threw an exception
+     */
+    long getStatementErrors();
+
+    /**
+     * Getter for slow statements.
+     *
+     * @return Returns how many statements took at least the slow query threshold
+     */
+    long getSlowStatements();
+
+    /**
+     * Getter for slow query threshold millis.
+     *
+     * @return Returns how many milliseconds a statement must take to be written to the slow query log
+     */
+    long getSlowQueryThresholdMillis();
+
+    /**
+     * Setter for slow query threshold millis.
+     *
+     * @param millis How many milliseconds a statement must take to be written to the slow query log
+     */
+    void setSlowQueryThresholdMillis(long millis);
+
+    /**
+     * Clears the timings of every statement.
+     */
+    void resetStatistics();
+}
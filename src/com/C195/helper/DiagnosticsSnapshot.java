@@ -0,0 +1,372 @@
+package com.C195.helper;
+
+import com.C195.model.CacheUsage;
+import com.C195.model.OperationLatency;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for the health of the app at one moment.
+ *
+ * <p> This class reads the connection state and statement timings from QueryStats, the read replicas from
+ * RoutingDataSource, the caches from SchedulerMetrics, the heap and garbage collections of the JVM, and the stalls
+ * found by StallWatchdog, all at once, for the diagnostics screen. Taking a snapshot reads counters that are already
+ * kept and asks the database if the connection is valid, so it takes a few milliseconds and is meant to be taken off
+ * the FX thread. </p>
+ */
+public class DiagnosticsSnapshot {
+    private final LocalDateTime takenAt = LocalDateTime.now();
+    private final boolean isConnected;
+    private final boolean isValid;
+    private final long connectionsOpened;
+    private final long openConnections;
+    private final long statements;
+    private final long statementErrors;
+    private final long slowStatements;
+    private final int replicas;
+    private final int freshReplicas;
+    private final long replicaReads;
+    private final long primaryReads;
+    private final List<String> recentReplicaChanges;
+    private final MemoryUsage heap;
+    private final long collections;
+    private final long collectionMillis;
+    private final double collectionP99Millis;
+    private final double collectionMaxMillis;
+    private final double heartbeatP99Millis;
+    private final double heartbeatMaxMillis;
+    private final List<OperationLatency> operations;
+    private final List<CacheUsage> caches = new ArrayList<>();
+    private final List<StallSite> stallSites;
+    private final List<String> recentSlowQueries;
+    private final List<String> recentStalls;
+    private final List<String> recentCollections;
+
+    private DiagnosticsSnapshot() {
+        DatabaseMXBean database = SchedulerMetrics.getDatabase();
+        isConnected = database.isConnected();
+        isValid = isConnected && database.isValid();
+        connectionsOpened = database.getConnectionsOpened();
+        openConnections = database.getOpenConnections();
+        statements = database.getStatements();
+        statementErrors = database.getStatementErrors();
+        slowStatements = database.getSlowStatements();
+        operations = readOperations();
+
+        if (JDBC.getDataSource() instanceof RoutingDataSource) {
+            RoutingDataSource router = (RoutingDataSource) JDBC.getDataSource();
+            replicas = router.getReplicaCount();
+            freshReplicas = router.getFreshReplicaCount();
+            replicaReads = router.getReplicaReads();
+            primaryReads = router.getPrimaryReads();
+            recentReplicaChanges = router.getRecentChanges();
+        } else {
+            replicas = 0;
+            freshReplicas = 0;
+            replicaReads = 0;
+            primaryReads = 0;
+            recentReplicaChanges = List.of();
+        }
+
+        SchedulerMetrics.getCaches().forEach((name, cache) -> caches.add(new CacheUsage(name, cache.getSize(),
+                cache.getHits(), cache.getMisses(), cache.getHitRatio())));
+
+        heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        collections = count;
+        collectionMillis = millis;
+        collectionP99Millis = toMillis(GcMonitor.getDurations().getPercentileNanos(99));
+        collectionMaxMillis = toMillis(GcMonitor.getDurations().getMaxNanos());
+        heartbeatP99Millis = toMillis(StallWatchdog.getHeartbeatLatency().getPercentileNanos(99));
+        heartbeatMaxMillis = toMillis(StallWatchdog.getHeartbeatLatency().getMaxNanos());
+        stallSites = StallWatchdog.getStallSites();
+
+        recentSlowQueries = QueryStats.getRecentSlowQueries();
+        recentStalls = StallWatchdog.getRecentStalls();
+        recentCollections = GcMonitor.getRecentCollections();
+    }
+
+    /**
+     * Takes a snapshot.
+     *
+     * @return Returns the DiagnosticsSnapshot of the app as it is now
+     */
+    public static DiagnosticsSnapshot take() {
+        return new DiagnosticsSnapshot();
+    }
+
+    // Adds up the statements of each DAOHelper method, the longest in total first
+    private static List<OperationLatency> readOperations() {
+        Map<String, List<OperationStats>> byOperation = new LinkedHashMap<>();
+        for (OperationStats stats : QueryStats.getOperations())
+            byOperation.computeIfAbsent(stats.getOperation(), operation -> new ArrayList<>()).add(stats);
+
+        List<OperationLatency> list = new ArrayList<>(byOperation.size());
+        byOperation.forEach((operation, statsList) -> {
+            LatencyHistogram latency = new LatencyHistogram();
+            long errors = 0;
+            for (OperationStats stats : statsList) {
+                latency.add(stats.getLatency());
+                errors += stats.getErrors();
+            }
+            list.add(new OperationLatency(operation, latency.getCount(), errors,
+                    toMillis(latency.getPercentileNanos(50)), toMillis(latency.getPercentileNanos(95)),
+                    toMillis(latency.getPercentileNanos(99)), toMillis(latency.getMaxNanos()),
+                    toMillis(latency.getTotalNanos())));
+        });
+
+        list.sort(Comparator.comparingDouble(OperationLatency::getTotalMillis).reversed());
+        return list;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Getter for taken at.
+     *
+     * @return Returns when the snapshot was taken
+     */
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    /**
+     * Getter for is connected.
+     *
+     * @return Returns true if the shared connection from JDBC was open
+     */
+    public boolean isConnected() {
+        return isConnected;
+    }
+
+    /**
+     * Getter for is valid.
+     *
+     * @return Returns true if the database answered on the shared connection
+     */
+    public boolean isValid() {
+        return isValid;
+    }
+
+    /**
+     * Getter for connections opened.
+     *
+     * @return Returns how many connections have been opened since the app started
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened;
+    }
+
+    /**
+     * Getter for open connections.
+     *
+     * @return Returns how many connections were open
+     */
+    public long getOpenConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Getter for statements.
+     *
+     * @return Returns how many statements had been run
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Getter for statement errors.
+     *
+     * @return Returns how many statements had thrown an exception
+     */
+    public long getStatementErrors() {
+        return statementErrors;
+    }
+
+    /**
+     * Getter for slow statements.
+     *
+     * @return Returns how many statements had taken at least the slow query threshold
+     */
+    public long getSlowStatements() {
+        return slowStatements;
+    }
+
+    /**
+     * Getter for replicas.
+     *
+     * @return Returns how many read replicas the settings list, or 0 if there are none
+     */
+    public int getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Getter for fresh replicas.
+     *
+     * @return Returns how many read replicas were fresh enough to read from
+     */
+    public int getFreshReplicas() {
+        return freshReplicas;
+    }
+
+    /**
+     * Getter for replica reads.
+     *
+     * @return Returns how many reads had been sent to a replica
+     */
+    public long getReplicaReads() {
+        return replicaReads;
+    }
+
+    /**
+     * Getter for primary reads.
+     *
+     * @return Returns how many reads had been sent to the primary because no replica was fresh enough
+     */
+    public long getPrimaryReads() {
+        return primaryReads;
+    }
+
+    /**
+     * Getter for heap.
+     *
+     * @return Returns the MemoryUsage of the heap, with the bytes used, committed, and the most it can grow to
+     */
+    public MemoryUsage getHeap() {
+        return heap;
+    }
+
+    /**
+     * Getter for collections.
+     *
+     * @return Returns how many garbage collections there have been since the app started
+     */
+    public long getCollections() {
+        return collections;
+    }
+
+    /**
+     * Getter for collection millis.
+     *
+     * @return Returns how many milliseconds the garbage collections have taken in total
+     */
+    public long getCollectionMillis() {
+        return collectionMillis;
+    }
+
+    /**
+     * Getter for collection p99 millis.
+     *
+     * @return Returns the milliseconds 99% of the garbage collections were within
+     */
+    public double getCollectionP99Millis() {
+        return collectionP99Millis;
+    }
+
+    /**
+     * Getter for collection max millis.
+     *
+     * @return Returns the milliseconds the longest garbage collection took
+     */
+    public double getCollectionMaxMillis() {
+        return collectionMaxMillis;
+    }
+
+    /**
+     * Getter for heartbeat p99 millis.
+     *
+     * @return Returns the milliseconds 99% of StallWatchdog's heartbeats waited for the FX thread within
+     */
+    public double getHeartbeatP99Millis() {
+        return heartbeatP99Millis;
+    }
+
+    /**
+     * Getter for heartbeat max millis.
+     *
+     * @return Returns the milliseconds the longest heartbeat waited for the FX thread
+     */
+    public double getHeartbeatMaxMillis() {
+        return heartbeatMaxMillis;
+    }
+
+    /**
+     * Getter for operations.
+     *
+     * @return Returns an OperationLatency for each DAOHelper method, the longest in total first
+     */
+    public List<OperationLatency> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Getter for caches.
+     *
+     * @return Returns a CacheUsage for each cache
+     */
+    public List<CacheUsage> getCaches() {
+        return caches;
+    }
+
+    /**
+     * Getter for stall sites.
+     *
+     * @return Returns a StallSite for each line the FX thread stalled at, the longest in total first
+     */
+    public List<StallSite> getStallSites() {
+        return stallSites;
+    }
+
+    /**
+     * Getter for recent slow queries.
+     *
+     * @return Returns the lines of the last slow or failed statements, the newest first
+     */
+    public List<String> getRecentSlowQueries() {
+        return recentSlowQueries;
+    }
+
+    /**
+     * Getter for recent replica changes.
+     *
+     * @return Returns the lines of the last times reads started or stopped going to a replica, the newest first
+     */
+    public List<String> getRecentReplicaChanges() {
+        return recentReplicaChanges;
+    }
+
+    /**
+     * Getter for recent stalls.
+     *
+     * @return Returns the lines of the last stalls of the FX thread, the newest first
+     */
+    public List<String> getRecentStalls() {
+        return recentStalls;
+    }
+
+    /**
+     * Getter for recent collections.
+     *
+     * @return Returns the lines of the last garbage collections, the newest first
+     */
+    public List<String> getRecentCollections() {
+        return recentCollections;
+    }
+}
@@ -0,0 +1,192 @@
+package com.C195.helper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Class for a DataSource that opens connections through a JDBC driver.
+ *
+ * <p> This class opens a new Connection from DriverManager each time one is asked for, with the URL and credentials
+ * it was made with. It can be given SQL scripts from the classpath that make the database's tables, which are run on
+ * the first connection if the database has no appointments table yet, so a new embedded database is ready as soon as
+ * it is opened. Scripts are run in one transaction, a statement at a time, with statements ending in a semicolon at
+ * the end of a line and lines starting with -- left out. </p>
+ */
+public class DriverDataSource implements DataSource {
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String driver;
+    private final String[] scripts;
+    private volatile boolean isReady;
+    private PrintWriter logWriter;
+
+    /**
+     * Constructor for DriverDataSource.
+     *
+     * @param url The JDBC URL of the database
+     * @param user The user to connect as
+     * @param password The user's password
+     * @param driver The class of the JDBC driver, which is loaded on the first connection
+     * @param scripts The classpath resources of the scripts that make a new database's tables, if any
+     */
+    public DriverDataSource(String url, String user, String password, String driver, String... scripts) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.driver = driver;
+        this.scripts = scripts;
+    }
+
+    /**
+     * Getter for url.
+     *
+     * @return Returns the JDBC URL of the database
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Opens a connection.
+     *
+     * <p> This method opens a new Connection as the user the DataSource was made with, making the database's tables
+     * first if this is the first connection and the database has none. </p>
+     * @return Returns the new Connection, which the caller must close
+     * @throws SQLException Exceptions from loading the driver, opening the connection, or running the scripts
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(user, password);
+    }
+
+    /**
+     * Opens a connection as a given user.
+     *
+     * @param user The user to connect as
+     * @param password The user's password
+     * @return Returns the new Connection, which the caller must close
+     * @throws SQLException Exceptions from loading the driver, opening the connection, or running the scripts
+     */
+    @Override
+    public Connection getConnection(String user, String password) throws SQLException {
+        if (isReady)
+            return DriverManager.getConnection(url, user, password);
+        return prepare(user, password);
+    }
+
+    // Loads the driver and runs the scripts if the database is new, once. The connection that checked for tables is
+    // handed back, as closing the last connection to an embedded database closes it, and it would be opened again.
+    private synchronized Connection prepare(String user, String password) throws SQLException {
+        if (isReady)
+            return DriverManager.getConnection(url, user, password);
+
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC driver not found: " + driver, e);
+        }
+
+        Connection connection = DriverManager.getConnection(url, user, password);
+        try {
+            if (scripts.length > 0 && !DAOHelper.hasTable(connection, "appointments"))
+                runScripts(connection);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        isReady = true;
+        return connection;
+    }
+
+    private void runScripts(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+
+        try (Statement statement = connection.createStatement()) {
+            for (String script : scripts) {
+                for (String sql : readStatements(script)) {
+                    if (!sql.isBlank())
+                        statement.execute(sql);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static String[] readStatements(String script) throws SQLException {
+        try (InputStream in = DriverDataSource.class.getResourceAsStream(script)) {
+            if (in == null)
+                throw new SQLException("Script not found: " + script);
+
+            StringBuilder sql = new StringBuilder();
+            for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\\R")) {
+                if (!line.trim().startsWith("--"))
+                    sql.append(line).append('\n');
+            }
+            return sql.toString().split(";\\s*\\n");
+        } catch (IOException e) {
+            throw new SQLException("Could not read " + script, e);
+        }
+    }
+
+    /**
+     * Describes the DataSource.
+     *
+     * @return Returns the JDBC URL of the database
+     */
+    @Override
+    public String toString() {
+        return url;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
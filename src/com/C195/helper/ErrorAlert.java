@@ -2,14 +2,19 @@ package com.C195.helper;
 
 import com.C195.model.Appointment;
 import com.C195.model.Division;
+import com.C195.model.RecurrenceRule;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.layout.Region;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -19,6 +24,11 @@ import java.util.ResourceBundle;
  * <p> This class is used by the program controllers to display Alert windows and perform validation checking for the forms.</p>
  */
 public abstract class ErrorAlert {
+    /** Button that deletes only the chosen occurrence of a recurring appointment */
+    public static final ButtonType DELETE_OCCURRENCE = new ButtonType("This Occurrence");
+
+    /** Button that deletes every occurrence of a recurring appointment */
+    public static final ButtonType DELETE_SERIES = new ButtonType("Whole Series");
 
     /**
      * Informs the user of a selection error.
@@ -64,6 +74,24 @@ public abstract class ErrorAlert {
         return result.isPresent() && (result.get() == ButtonType.OK);
     }
 
+    /**
+     * Asks the user what to delete of a recurring appointment.
+     *
+     * <p> This method asks the user whether to delete only the chosen occurrence of a recurring appointment or the
+     * whole series. </p>
+     * @return Returns DELETE_OCCURRENCE, DELETE_SERIES, or ButtonType.CANCEL
+     */
+    public static ButtonType deleteRecurringConfirmation() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "", DELETE_OCCURRENCE, DELETE_SERIES, ButtonType.CANCEL);
+        alert.setHeaderText("Delete");
+        alert.setContentText("This appointment repeats. Do you want to delete only this occurrence or every " +
+                "occurrence of it?");
+        alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE);
+        Optional<ButtonType> result = alert.showAndWait();
+
+        return result.orElse(ButtonType.CANCEL);
+    }
+
     /**
      * Asks for confirmation from the user before deleting a customer.
      *
@@ -110,6 +138,20 @@ public abstract class ErrorAlert {
         alert.showAndWait();
     }
 
+    /**
+     * Alerts the user that the database could not be changed.
+     *
+     * <p> This method pops up an alert informing the user that an action failed because the database could not be
+     * changed. Nothing was changed in the database. </p>
+     * @param action Contains the string describing the action that failed, depending on which controller is calling it
+     */
+    public static void databaseError(String action) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setHeaderText("Database Error");
+        alert.setContentText("Could not " + action + ". No changes were made.");
+        alert.showAndWait();
+    }
+
     /**
      * Alerts the user that the information given is invalid.
      *
@@ -165,7 +207,13 @@ public abstract class ErrorAlert {
      * <p> This method validates the information entered by the user when adding or modifying an Appointment.
      * The title, description, location, and type must contain data. Customer and User IDs must contain integers.
      * Customer and User IDs must be valid IDs in the database. An appointment cannot overlap with another appointment
-     * for the same customer. The end date and time must be after the start date and time.
+     * for the same customer, contact, or user. The end date and time must be after the start date and time, and the
+     * appointment must be within the business hours BusinessCalendar has for its contact and location. A recurring
+     * appointment is checked for every occurrence, or for those within RecurrenceRule.ENDLESS_HORIZON if it has no
+     * end. </p>
+     * <p> The overlaps are found in ScheduleIndex, without querying the database. DAOHelper.bookAppointment() checks
+     * them again when the appointment is saved, since another user could book the same people in between. </p>
+     * <p> Each check is committed as an AppointmentValidationEvent when Flight Recorder is recording. </p>
      * @param updateAppointmentID The appointment's ID. This information is not given by the user but is needed for validation. It will be -1 if the appointment is being added, not updated.
      * @param title Title of the appointment
      * @param description Description of the appointment
@@ -173,13 +221,17 @@ public abstract class ErrorAlert {
      * @param type The type of appointment
      * @param customerID The appointment's customer's ID
      * @param userID The appointment's user's ID
+     * @param contactID The appointment's contact's ID
      * @param start LocalDateTime for the start of the appointment
      * @param end LocalDateTime for the end of the appointment
+     * @param recurrence How the appointment repeats, or null if it does not
      * @return Returns a String containing messages from any failed checks
      */
     public static String appointmentFormValidation(int updateAppointmentID, String title, String description, String location, String type,
-                                                 String customerID, String userID, LocalDateTime start,
-                                                 LocalDateTime end) {
+                                                 String customerID, String userID, int contactID,
+                                                 LocalDateTime start, LocalDateTime end, RecurrenceRule recurrence) {
+        AppointmentValidationEvent event = new AppointmentValidationEvent();
+        event.begin();
 
         StringBuilder errorMessage = new StringBuilder();
         int customerIdInteger = -1;
@@ -221,47 +273,158 @@ public abstract class ErrorAlert {
         if (end.isBefore(start))
             errorMessage.append("Appointment start must be before appointment end. ");
 
-        // Appointments for a customer cannot overlap
-        // If appointment is being updated, exclude the appointment currently being updated
-        if (isValidCustomerID) {
-            ObservableList<Appointment> appointmentList = DAOHelper.getAppointmentsFromCustomer(customerIdInteger);
-
-            for (Appointment current : appointmentList) {
-                // If appointment is the one being updated, skip
-                if (current.getAppointmentID() == updateAppointmentID)
-                    continue;
-
-                LocalDateTime currentStart = current.getStartTime();
-                LocalDateTime currentEnd = current.getEndTime();
-
-                if ( ((start.isAfter(currentStart) || start.isEqual(currentStart)) && start.isBefore(currentEnd)) ||
-                        (end.isAfter(currentStart) && (end.isBefore(currentEnd) || end.isEqual(currentEnd))) ||
-                        (start.isBefore(currentStart) && end.isAfter(currentEnd)) ) {
-                    errorMessage.append("Appointments for a customer cannot overlap. Overlapping appointment ID: " +
-                            current.getAppointmentID() + ". ");
+        // Appointment must be within the hours of its contact or location, and not on a day they are closed
+        else if (recurrence == null && !BusinessCalendar.isOpen(contactID, location, start, end))
+            errorMessage.append("Appointment must be within business hours for the contact and location. ");
+
+        // A recurring appointment cannot stop repeating before it starts
+        else if (recurrence != null && recurrence.getUntil() != null &&
+                recurrence.getUntil().isBefore(start.toLocalDate()))
+            errorMessage.append("Appointment cannot repeat until a date before it starts. ");
+
+        // Every occurrence of a recurring appointment must be as well
+        else if (recurrence != null) {
+            Appointment series = new Appointment(updateAppointmentID, title, description, location, type, start, end,
+                    customerIdInteger, userIdInteger, contactID);
+            series.setRecurrence(recurrence);
+            LocalDateTime lastEnd = series.getLastEndTime();
+
+            for (Appointment occurrence : series.occurrencesBetween(start,
+                    lastEnd == null ? start.plus(RecurrenceRule.ENDLESS_HORIZON) : lastEnd)) {
+                if (!BusinessCalendar.isOpen(contactID, location, occurrence.getStartTime(), occurrence.getEndTime())) {
+                    errorMessage.append("Appointment on ").append(occurrence.getStartTime().toLocalDate())
+                            .append(" must be within business hours for the contact and location. ");
                     break;
                 }
             }
         }
-        else
-            errorMessage.append("Customer ID is not a valid customer.");
 
         // Must be a valid user ID
         if (isValidUserID)
             isValidUserID = DAOHelper.validateUser(userIdInteger);
 
+        // A new appointment whose slots are clear in all three bitmaps cannot overlap anything, so the overlapping
+        // appointments only need to be looked up when it might
+        boolean isFree = updateAppointmentID == -1 && recurrence == null && isValidCustomerID && isValidUserID &&
+                AvailabilityStore.isFree(customerIdInteger, contactID, userIdInteger, start, end);
+
+        // Every occurrence of a recurring appointment is checked against every occurrence of the others
+        Appointment appointment = new Appointment(updateAppointmentID, title, description, location, type, start, end,
+                customerIdInteger, userIdInteger, contactID);
+        appointment.setRecurrence(recurrence);
+
+        // Appointments for a customer cannot overlap
+        // If appointment is being updated, exclude the appointment currently being updated
+        if (!isValidCustomerID)
+            errorMessage.append("Customer ID is not a valid customer.");
+        else if (!isFree)
+            errorMessage.append(overlapMessage(ScheduleIndex.Resource.CUSTOMER, ScheduleIndex.findOverlaps(
+                    ScheduleIndex.Resource.CUSTOMER, appointment)));
+
+        // Appointments for a user cannot overlap
         if (!isValidUserID)
             errorMessage.append("User ID is not a valid user.");
+        else if (!isFree)
+            errorMessage.append(overlapMessage(ScheduleIndex.Resource.USER, ScheduleIndex.findOverlaps(
+                    ScheduleIndex.Resource.USER, appointment)));
+
+        // Appointments for a contact cannot overlap
+        if (!isFree)
+            errorMessage.append(overlapMessage(ScheduleIndex.Resource.CONTACT, ScheduleIndex.findOverlaps(
+                    ScheduleIndex.Resource.CONTACT, appointment)));
+
+        if (event.shouldCommit()) {
+            event.appointmentID = updateAppointmentID;
+            event.recurring = recurrence != null;
+            event.freeInBitmaps = isFree;
+            event.passed = errorMessage.length() == 0;
+            event.message = errorMessage.toString();
+            event.commit();
+        }
 
         return errorMessage.toString();
     }
 
 
+    /**
+     * Informs the user that an appointment could not be booked because it overlaps other appointments.
+     *
+     * <p> This method displays a window listing the appointments of the customer, contact, and user that overlap the
+     * appointment the user tried to save. </p>
+     * @param result The BookingResult of the failed booking
+     */
+    public static void bookingConflict(BookingResult result) {
+        StringBuilder errorMessage = new StringBuilder();
+
+        for (ScheduleIndex.Resource resource : ScheduleIndex.Resource.values())
+            errorMessage.append(overlapMessage(resource, result.getConflictIDs(resource)));
+
+        invalidForm(errorMessage.toString());
+    }
+
+    /**
+     * Describes the appointments of a customer, contact, or user that overlap an appointment.
+     *
+     * @param resource The customer, contact, or user shared with the overlapping appointments
+     * @param conflictIDs The IDs of the overlapping appointments
+     * @return Returns the message, or an empty String if there are no overlapping appointments
+     */
+    private static String overlapMessage(ScheduleIndex.Resource resource, int[] conflictIDs) {
+        if (conflictIDs.length == 0)
+            return "";
+
+        StringBuilder ids = new StringBuilder();
+        for (int id : conflictIDs) {
+            if (ids.length() > 0)
+                ids.append(", ");
+            ids.append(id);
+        }
+
+        return "Appointments for a " + resource.getLabel() + " cannot overlap. Overlapping appointment ID: " + ids +
+                ". ";
+    }
+
+    /**
+     * Lets the user pick one of the suggested times for an appointment.
+     *
+     * <p> This method displays a window listing the suggested start and end times and returns the one the user picks.
+     * If there are no suggested times, it informs the user instead. </p>
+     * @param slots The suggested start times, earliest first
+     * @param length The length of the appointment
+     * @return Returns the picked start time, or null if the user cancelled or there were no suggested times
+     */
+    public static LocalDateTime chooseSuggestedTime(List<LocalDateTime> slots, Duration length) {
+        if (slots.isEmpty()) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setHeaderText("No Open Times");
+            alert.setContentText("The customer, contact, and user have no open time together for an appointment of " +
+                    length.toMinutes() + " minutes in the searched days.");
+            alert.getDialogPane().setMinHeight(Region.USE_PREF_SIZE);
+            alert.showAndWait();
+            return null;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT);
+        List<String> choices = new ArrayList<>();
+        for (LocalDateTime slot : slots)
+            choices.add(slot.format(formatter) + " - " + slot.plus(length).format(timeFormatter));
+
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.get(0), choices);
+        dialog.setTitle("Suggest Times");
+        dialog.setHeaderText("Open times for the customer, contact, and user");
+        dialog.setContentText("Time:");
+
+        Optional<String> result = dialog.showAndWait();
+        return result.map(choice -> slots.get(choices.indexOf(choice))).orElse(null);
+    }
+
     /**
      * Alerts the user whether an appointment is happening soon.
      *
      * <p> This method pops up an alert after log in informing the user that an appointment is currently happening or
-     * will start in the next 15 minutes. Or it informs the user there is no appointment happening soon. </p>
+     * will start in the next 15 minutes. Or it informs the user there is no appointment happening soon. Recurring
+     * appointments are checked by their occurrences in that time. </p>
      */
     public static void appointmentSoon() {
         ObservableList<Appointment> appointmentList = DAOHelper.getAllAppointments();
@@ -270,7 +433,11 @@ public abstract class ErrorAlert {
         DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
 
         // Check if appointment is currently happening or if an appointment starts within 15 minutes
-        for (Appointment current : appointmentList) {
+        List<Appointment> occurrences = new ArrayList<>();
+        for (Appointment appointment : appointmentList)
+            occurrences.addAll(appointment.occurrencesBetween(now, now.plusMinutes(15).plusSeconds(1)));
+
+        for (Appointment current : occurrences) {
             LocalDateTime start = current.getStartTime();
             LocalDateTime end = current.getEndTime();
 
@@ -0,0 +1,66 @@
+package com.C195.helper;
+
+/**
+ * Management interface for the responsiveness of the FX thread.
+ *
+ * <p> This interface is published over JMX as com.C195:type=FxThread by SchedulerMetrics. It shows how long the
+ * heartbeats of StallWatchdog waited for the FX thread, and the stalls it found. The stall threshold can be changed
+ * while the app runs. </p>
+ */
+public interface FxThreadMXBean {
+    /**
+     * Getter for heartbeat p50 millis.
+     *
+     * @return Returns the milliseconds half of the heartbeats waited for the FX thread within
+     */
+    double getHeartbeatP50Millis();
+
+    /**
+     * Getter for heartbeat p99 millis.
+     *
+     * @return Returns the milliseconds 99% of the heartbeats waited for the FX thread within
+     */
+    double getHeartbeatP99Millis();
+
+    /**
+     * Getter for heartbeat max millis.
+     *
+     * @return Returns the milliseconds the longest heartbeat waited for the FX thread
+     */
+    double getHeartbeatMaxMillis();
+
+    /**
+     * Getter for stalls.
+     *
+     * @return Returns how many times the FX thread was blocked longer than the stall threshold
+     */
+    long getStalls();
+
+    /**
+     * Getter for stall millis.
+     *
+     * @return Returns how many milliseconds the FX thread was blocked by those stalls in total
+     */
+    double getStallMillis();
+
+    /**
+     * Getter for worst stall site.
+     *
+     * @return Returns the line of code the FX thread was blocked at the longest in total, or an empty String
+     */
+    String getWorstStallSite();
+
+    /**
+     * Getter for stall threshold millis.
+     *
+     * @return Returns how many milliseconds a heartbeat must wait for the FX thread to be a stall
+     */
+    long getStallThresholdMillis();
+
+    /**
+     * Setter for stall threshold millis.
+     *
+     * @param millis How many milliseconds a heartbeat must wait for the FX thread to be a stall
+     */
+    void setStallThresholdMillis(long millis);
+}
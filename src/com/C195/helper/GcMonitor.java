@@ -0,0 +1,76 @@
+package com.C195.helper;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Class that records the garbage collections of the JVM.
+ *
+ * <p> This class listens for the notification each garbage collector sends when it finishes a collection, and keeps a
+ * LatencyHistogram of how long they took and a line for each of the last few, so the diagnostics screen can show
+ * whether a freeze was a long collection. The JVM's own counters only give the total count and time of each
+ * collector. </p>
+ */
+public abstract class GcMonitor {
+    // Most collections kept in memory for the diagnostics screen
+    private static final int MAX_RECENT_COLLECTIONS = 50;
+
+    private static final LatencyHistogram durations = new LatencyHistogram();
+    private static final RecentLines recentCollections = new RecentLines(MAX_RECENT_COLLECTIONS);
+    private static boolean isStarted;
+
+    /**
+     * Starts listening for garbage collections.
+     *
+     * <p> This method is called once when the app starts. Calling it again does nothing. </p>
+     */
+    public static synchronized void start() {
+        if (isStarted)
+            return;
+        isStarted = true;
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter)
+                ((NotificationEmitter) collector).addNotificationListener(
+                        (notification, handback) -> onNotification(notification), null, null);
+        }
+    }
+
+    /**
+     * Getter for durations.
+     *
+     * @return Returns the LatencyHistogram of how long each garbage collection took since the app started
+     */
+    public static LatencyHistogram getDurations() {
+        return durations;
+    }
+
+    /**
+     * Gets the garbage collections that happened lately.
+     *
+     * @return Returns a line for each of the last 50 collections, with its collector, cause, and length, the newest
+     * first
+     */
+    public static List<String> getRecentCollections() {
+        return recentCollections.getNewestFirst();
+    }
+
+    private static void onNotification(Notification notification) {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION))
+            return;
+
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        long millis = info.getGcInfo().getDuration();
+        durations.record(millis * 1_000_000);
+        recentCollections.add(LocalDateTime.now() + " | " + millis + " ms | " + info.getGcName() + " | " +
+                info.getGcAction() + " | " + info.getGcCause());
+    }
+}
@@ -0,0 +1,184 @@
+package com.C195.helper;
+
+/**
+ * Map from primitive int keys to primitive int values.
+ *
+ * <p> This class is an open-addressing hash map with linear probing that stores both its keys and values as
+ * primitive ints. It is mainly used to count things by ID, such as the amount of customers per country, without
+ * boxing the counts. </p>
+ */
+public class IntIntMap {
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    /**
+     * Functional interface used to visit the entries of the map.
+     */
+    public interface Visitor {
+        /**
+         * Visits an entry of the map.
+         *
+         * @param key The key of the entry
+         * @param value The value of the entry
+         */
+        void visit(int key, int value);
+    }
+
+    /**
+     * Constructor for IntIntMap.
+     *
+     * <p> This is the default constructor for the IntIntMap class. </p>
+     */
+    public IntIntMap() {
+        this(8);
+    }
+
+    /**
+     * Constructor for IntIntMap.
+     *
+     * <p> This is the constructor for the IntIntMap class. The table is sized so the expected amount of entries fit
+     * without resizing. </p>
+     * @param expectedSize The amount of entries the map is expected to hold
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = IntObjectMap.tableSizeFor(Math.max(expectedSize, 4) * 2);
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Gets the value for a key.
+     *
+     * @param key The key to look up
+     * @return Returns the value for the key, or 0 if the key is not in the map
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Gets the value for a key, or a default value if the key is not in the map.
+     *
+     * @param key The key to look up
+     * @param defaultValue The value returned if the key is not in the map
+     * @return Returns the value for the key, or defaultValue if the key is not in the map
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        int index = find(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Checks if a key is in the map.
+     *
+     * @param key The key to look for
+     * @return Returns true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Adds or replaces the value for a key.
+     *
+     * @param key The key of the entry
+     * @param value The value of the entry
+     */
+    public void put(int key, int value) {
+        values[insertionIndex(key)] = value;
+    }
+
+    /**
+     * Gets the amount of entries in the map.
+     *
+     * @return Returns the amount of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return Returns true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visits every entry in the map.
+     *
+     * <p> This method calls the given Visitor once for every entry. The order of the entries is not defined. </p>
+     * @param visitor The Visitor that is given each entry
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < used.length; i++) {
+            if (used[i])
+                visitor.visit(keys[i], values[i]);
+        }
+    }
+
+    private int find(int key) {
+        int index = IntObjectMap.hash(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    // Returns the slot holding the key, adding the key with a value of 0 if it is not in the map
+    private int insertionIndex(int key) {
+        int index = IntObjectMap.hash(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key)
+                return index;
+            index = (index + 1) & mask;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+            return insertionIndex(key);
+        }
+
+        used[index] = true;
+        keys[index] = key;
+        values[index] = 0;
+        size++;
+        return index;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i])
+                continue;
+
+            int index = IntObjectMap.hash(oldKeys[i]) & mask;
+            while (used[index])
+                index = (index + 1) & mask;
+
+            used[index] = true;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+}
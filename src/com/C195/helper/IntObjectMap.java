@@ -0,0 +1,258 @@
+package com.C195.helper;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.ToIntFunction;
+
+/**
+ * Map from primitive int keys to objects.
+ *
+ * <p> This class is an open-addressing hash map with linear probing that stores its keys as primitive ints. It is
+ * used for ID lookups so that finding a Customer, Contact, or User by its ID does not box the ID or scan a list.
+ * Null values are not allowed; a null from get() means the key is not in the map. </p>
+ * @param <V> The type of the values stored in the map
+ */
+public class IntObjectMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Functional interface used to visit the entries of the map.
+     *
+     * @param <V> The type of the values stored in the map
+     */
+    public interface Visitor<V> {
+        /**
+         * Visits an entry of the map.
+         *
+         * @param key The key of the entry
+         * @param value The value of the entry
+         */
+        void visit(int key, V value);
+    }
+
+    /**
+     * Constructor for IntObjectMap.
+     *
+     * <p> This is the default constructor for the IntObjectMap class. </p>
+     */
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for IntObjectMap.
+     *
+     * <p> This is the constructor for the IntObjectMap class. The table is sized so the expected amount of entries
+     * fit without resizing. </p>
+     * @param expectedSize The amount of entries the map is expected to hold
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(expectedSize, 4) * 2);
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Creates a map that indexes a collection by ID.
+     *
+     * <p> This method creates an IntObjectMap containing every item of the given collection, using the given
+     * function to obtain each item's ID. </p>
+     * @param items The items to index
+     * @param keyFunction The function that returns the ID of an item
+     * @param <V> The type of the items
+     * @return Returns an IntObjectMap with the IDs as keys and the items as values
+     */
+    public static <V> IntObjectMap<V> index(Collection<? extends V> items, ToIntFunction<? super V> keyFunction) {
+        IntObjectMap<V> map = new IntObjectMap<>(items.size());
+
+        for (V item : items) {
+            map.put(keyFunction.applyAsInt(item), item);
+        }
+
+        return map;
+    }
+
+    /**
+     * Gets the value for a key.
+     *
+     * @param key The key to look up
+     * @return Returns the value for the key, or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = hash(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key)
+                return (V) values[index];
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if a key is in the map.
+     *
+     * @param key The key to look for
+     * @return Returns true if the key is in the map
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Adds or replaces the value for a key.
+     *
+     * @param key The key of the entry
+     * @param value The value of the entry. Must not be null.
+     * @return Returns the previous value for the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null)
+            throw new NullPointerException("IntObjectMap does not allow null values");
+
+        int index = hash(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                values[index] = value;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        // Keep the load factor at or below one half so probe sequences stay short
+        if (++size * 2 > keys.length)
+            resize(keys.length * 2);
+
+        return null;
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key The key to remove
+     * @return Returns the value that was removed, or null if the key was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = hash(key) & mask;
+
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V old = (V) values[index];
+                shiftBack(index);
+                size--;
+                return old;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the amount of entries in the map.
+     *
+     * @return Returns the amount of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     *
+     * @return Returns true if the map has no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries from the map.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Visits every entry in the map.
+     *
+     * <p> This method calls the given Visitor once for every entry. The order of the entries is not defined. </p>
+     * @param visitor The Visitor that is given each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<? super V> visitor) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null)
+                visitor.visit(keys[i], (V) values[i]);
+        }
+    }
+
+    // Closes the gap left by a removed entry so later entries in the same probe sequence can still be found
+    private void shiftBack(int gap) {
+        int index = gap;
+
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == null)
+                break;
+
+            int home = hash(keys[index]) & mask;
+            // Move the entry if its home slot is not between the gap and its current slot
+            if (((index - home) & mask) >= ((index - gap) & mask)) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null)
+                continue;
+
+            int index = hash(oldKeys[i]) & mask;
+            while (values[index] != null)
+                index = (index + 1) & mask;
+
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    // Spreads sequential IDs across the table
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        return Math.max(size, DEFAULT_CAPACITY);
+    }
+}
@@ -1,35 +1,47 @@
 package com.C195.helper;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles the Connection to the database
  *
- * <p> This class handles the Connection to the database. The following code was given by C195 instructors at WGU. </p>
+ * <p> This class handles the Connection to the database. The following code was given by C195 instructors at WGU.
+ * Connections are opened from a DataSource made by DatabaseConfig, so the app can use the MySQL database or an
+ * embedded one without a server, as its settings say. When the settings list read replicas, the DataSource is a
+ * RoutingDataSource, and reads that do not need the latest rows use readConnection() to be sent to a replica.
+ * Transactions take their connections with takeConnection() and give them back with releaseConnection(), so a few
+ * connections are kept open and used again instead of one being opened for each transaction. </p>
  */
 public abstract class JDBC {
+    // Most connections kept open for transactions while none of them is using it
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    // A kept connection idle for longer than this is checked before it is used, in case the server closed it
+    private static final long IDLE_CHECK_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int VALID_TIMEOUT_SECONDS = 2;
 
-    private static final String protocol = "jdbc";
-    private static final String vendor = ":mysql:";
-    private static final String location = "//localhost/";
-    private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
-    private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
-    private static final String userName = "sqlUser"; // Username
-    private static String password = "Passw0rd!"; // Password
+    // The most recently released connection is taken first, so the ones left over after a busy moment go idle
+    private static final LinkedBlockingDeque<IdleConnection> idleConnections =
+            new LinkedBlockingDeque<>(MAX_IDLE_CONNECTIONS);
+
+    private static DataSource dataSource; // Made from DatabaseConfig on first use
     public static Connection connection;  // Connection Interface
 
     /**
      * Opens the connection.
      *
-     * <p> This method opens the Connection to the database. </p>
+     * <p> This method opens the Connection to the database. Its statements are timed by QueryStats. </p>
      */
     public static void openConnection()
     {
         try {
-            Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
+            // Reference Connection object, with its statements timed
+            connection = QueryStats.instrument(getDataSource().getConnection());
+            if (getDataSource() instanceof RoutingDataSource)
+                ((RoutingDataSource) getDataSource()).start();
 //            System.out.println("Connection successful!");
         }
         catch(Exception e)
@@ -38,13 +50,176 @@ public abstract class JDBC {
         }
     }
 
+    /**
+     * Opens a new connection.
+     *
+     * <p> This method opens a Connection of its own to the same database, for work that runs on other threads while
+     * the shared connection is in use, such as LoadProfiler reading months in parallel. Like the shared connection, its
+     * statements are timed by QueryStats. The caller must close it. </p>
+     * @return Returns the new Connection
+     * @throws SQLException Exceptions from opening the connection
+     */
+    public static Connection createConnection() throws SQLException {
+        return QueryStats.instrument(getDataSource().getConnection());
+    }
+
+    /**
+     * Takes a connection for a transaction.
+     *
+     * <p> This method returns a Connection that an earlier transaction gave back with releaseConnection(), or opens a
+     * new one with createConnection() if none is idle. A Connection that has been idle for a while is checked first and
+     * closed if it no longer works. The caller must give it back with releaseConnection() instead of closing it. </p>
+     * @return Returns the Connection, in auto-commit mode
+     * @throws SQLException Exceptions from opening the connection
+     */
+    public static Connection takeConnection() throws SQLException {
+        IdleConnection idle;
+
+        while ((idle = idleConnections.pollFirst()) != null) {
+            if (System.nanoTime() - idle.since < IDLE_CHECK_NANOS || isValid(idle.connection))
+                return idle.connection;
+            close(idle.connection);
+        }
+
+        return createConnection();
+    }
+
+    /**
+     * Gives back a connection from takeConnection().
+     *
+     * <p> This method puts the Connection back in auto-commit mode and keeps it for the next transaction. It is closed
+     * instead if that fails or if enough connections are already kept. Its transaction must have been committed or
+     * rolled back. </p>
+     * @param connection The Connection to give back
+     */
+    public static void releaseConnection(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+            if (idleConnections.offerFirst(new IdleConnection(connection)))
+                return;
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        close(connection);
+    }
+
+    /**
+     * Closes a connection from takeConnection() instead of giving it back.
+     *
+     * <p> This method is for a Connection that may be broken or still in a transaction, such as one that could not be
+     * rolled back, so no later transaction is given it. </p>
+     * @param connection The Connection to close
+     */
+    public static void discardConnection(Connection connection) {
+        close(connection);
+    }
+
+    // Closes the connections kept for transactions
+    private static void closeIdleConnections() {
+        IdleConnection idle;
+        while ((idle = idleConnections.pollFirst()) != null)
+            close(idle.connection);
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALID_TIMEOUT_SECONDS);
+        } catch (SQLException throwables) {
+            return false;
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+    }
+
+    // A connection kept for transactions, and when it was given back
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long since = System.nanoTime();
+
+        IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Gets a connection for reading.
+     *
+     * <p> This method returns the shared Connection of a read replica that is fresh enough, as RoutingDataSource
+     * decides, or the shared connection to the primary if there is none. It is for reads that do not have to see
+     * changes made by other computers in the last few seconds, such as reports and lists. The changes this program
+     * made are always seen. It is for the FX thread, as it is shared; other threads read on a Connection of their own
+     * from createReadConnection(). The caller must not close it or start a transaction on it. </p>
+     * @return Returns the Connection to read from
+     */
+    public static Connection readConnection() {
+        DataSource source = getDataSource();
+        if (source instanceof RoutingDataSource) {
+            Connection replica = ((RoutingDataSource) source).getSharedReadConnection();
+            if (replica != null)
+                return replica;
+        }
+        return connection;
+    }
+
+    /**
+     * Opens a new connection for reading.
+     *
+     * <p> This method opens a Connection of its own to a read replica that is fresh enough, or to the primary if
+     * there is none, for reads on other threads such as LoadProfiler's and AutoScheduler's. Its statements are timed
+     * by QueryStats. The caller must close it. </p>
+     * @return Returns the new Connection
+     * @throws SQLException Exceptions from opening the connection
+     */
+    public static Connection createReadConnection() throws SQLException {
+        DataSource source = getDataSource();
+        if (source instanceof RoutingDataSource)
+            return QueryStats.instrument(((RoutingDataSource) source).getReadConnection());
+        return createConnection();
+    }
+
+    /**
+     * Getter for the DataSource.
+     *
+     * <p> This method returns the DataSource connections are opened from, making it from DatabaseConfig the first
+     * time. </p>
+     * @return Returns the DataSource
+     */
+    public static synchronized DataSource getDataSource() {
+        if (dataSource == null)
+            dataSource = DatabaseConfig.createDataSource();
+        return dataSource;
+    }
+
+    /**
+     * Setter for the DataSource.
+     *
+     * <p> This method replaces the DataSource that later connections are opened from, such as with one for a test
+     * database. The shared connection is not reopened, and the connections kept for transactions are closed. </p>
+     * @param dataSource The DataSource to open connections from
+     */
+    public static synchronized void setDataSource(DataSource dataSource) {
+        JDBC.dataSource = dataSource;
+        closeIdleConnections();
+    }
+
     /**
      * Closes the connection.
      *
-     * <p> This method closes the Connection to the database. </p>
+     * <p> This method closes the Connection to the database, those kept for transactions, and those to any read
+     * replicas. </p>
      */
     public static void closeConnection() {
         try {
+            closeIdleConnections();
+            if (getDataSource() instanceof RoutingDataSource)
+                ((RoutingDataSource) getDataSource()).stop();
             connection.close();
 //            System.out.println("Connection closed!");
         }
@@ -0,0 +1,162 @@
+package com.C195.helper;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that counts how long something took, in buckets of about 3% of their value.
+ *
+ * <p> This class keeps a count for each bucket of durations, in the way of HdrHistogram. Durations under 32
+ * nanoseconds have a bucket each, and every doubling above that is split into 32 buckets, so any percentile is within
+ * about 3% of the true value while the whole range up to about 18 minutes takes under 1200 counts. Recording a
+ * duration finds its bucket with a few bit operations and adds to it without locking, so many threads can record at
+ * once. Reading while others record may miss the durations being recorded at that moment. </p>
+ */
+public class LatencyHistogram {
+    // Each doubling of duration is split into 2^SUB_BITS buckets
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    // Durations of 2^MAX_BITS nanoseconds or more are counted in the last bucket
+    private static final int MAX_BITS = 40;
+    private static final int BUCKET_COUNT = (MAX_BITS - SUB_BITS + 1) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds. A negative duration is counted as zero.
+     */
+    public void record(long nanos) {
+        nanos = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Getter for count.
+     *
+     * @return Returns the amount of durations recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Getter for total nanos.
+     *
+     * @return Returns the sum of the durations recorded, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Getter for max nanos.
+     *
+     * @return Returns the longest duration recorded, in nanoseconds, or 0 if none were recorded
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the mean duration.
+     *
+     * @return Returns the mean of the durations recorded, in nanoseconds, or 0 if none were recorded
+     */
+    public double getMeanNanos() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) totalNanos.sum() / recorded;
+    }
+
+    /**
+     * Gets a percentile of the durations.
+     *
+     * <p> This method returns the highest duration of the bucket holding the given percentile, so at least that share
+     * of the durations recorded took as long or less. It is never more than the longest duration recorded. </p>
+     * @param percentile The percentile, from 0 to 100, such as 99 for the duration 99% of calls were within
+     * @return Returns the duration in nanoseconds, or 0 if none were recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            snapshot[bucket] = counts.get(bucket);
+            total += snapshot[bucket];
+        }
+
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += snapshot[bucket];
+            if (seen >= rank)
+                return Math.min(highestOf(bucket), getMaxNanos());
+        }
+
+        return getMaxNanos();
+    }
+
+    /**
+     * Adds the durations recorded by another histogram.
+     *
+     * <p> This method is used to add up the histograms of several statements, such as every statement of one DAOHelper
+     * method. </p>
+     * @param other The LatencyHistogram whose durations are added to this one
+     */
+    void add(LatencyHistogram other) {
+        long added = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            long bucketCount = other.counts.get(bucket);
+            if (bucketCount != 0) {
+                counts.addAndGet(bucket, bucketCount);
+                added += bucketCount;
+            }
+        }
+        count.add(added);
+        totalNanos.add(other.getTotalNanos());
+        maxNanos.accumulate(other.getMaxNanos());
+    }
+
+    /**
+     * Clears the durations recorded.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++)
+            counts.set(bucket, 0);
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    // The bucket of a duration of 2^e to 2^(e+1) nanoseconds is picked by its top SUB_BITS + 1 bits
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_COUNT)
+            return (int) nanos;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent >= MAX_BITS)
+            return BUCKET_COUNT - 1;
+
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) (nanos >>> shift) - SUB_COUNT;
+    }
+
+    private static long highestOf(int bucket) {
+        if (bucket < SUB_COUNT)
+            return bucket;
+
+        int shift = bucket / SUB_COUNT - 1;
+        return ((long) (SUB_COUNT + bucket % SUB_COUNT + 1) << shift) - 1;
+    }
+}
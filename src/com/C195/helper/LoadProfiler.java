@@ -0,0 +1,262 @@
+package com.C195.helper;
+
+import com.C195.model.LocationLoad;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class that finds how many appointments each location holds at the same time.
+ *
+ * <p> This class reads the appointments of each month from the database in order of start, without keeping them in
+ * memory, and sweeps over their starts and ends for each location. Only the ends of the appointments running at the
+ * moment are kept, in a heap, so the memory used depends on how many appointments run at once rather than how many
+ * there are, and tens of millions of past appointments can be profiled. Months are read in parallel, each on its own
+ * connection, to a read replica if one is fresh enough, and their results are merged. </p>
+ */
+public abstract class LoadProfiler {
+    // Most months read from the database at the same time, each on its own connection
+    private static final int MAX_CONNECTIONS = 4;
+
+    private static final int SECONDS_PER_HOUR = 60 * 60;
+    private static final int SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+
+    /**
+     * Profiles the load of every location.
+     *
+     * <p> This method returns a LocationLoad for each location that has appointments in the given months, with the
+     * busiest locations first. Appointments without a location are grouped under an empty location. </p>
+     * @param firstMonth The first month
+     * @param lastMonth The last month
+     * @return Returns the LocationLoads, or null if the appointments could not be read
+     */
+    public static List<LocationLoad> profile(YearMonth firstMonth, YearMonth lastMonth) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1))
+            months.add(month);
+
+        if (months.isEmpty())
+            return new ArrayList<>();
+
+        Duration longest;
+        try (Connection connection = JDBC.createReadConnection()) {
+            longest = DAOHelper.getLongestAppointment(connection);
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+            return null;
+        }
+
+        List<Callable<HashMap<String, LocationSweep>>> tasks = new ArrayList<>();
+        for (YearMonth month : months)
+            tasks.add(() -> profileMonth(month, longest));
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_CONNECTIONS, months.size()), runnable -> {
+            Thread thread = new Thread(runnable, "load-profiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HashMap<String, LocationSweep> sweeps = new HashMap<>();
+        try {
+            // Merged in order of month, so the first time a peak was reached is kept
+            for (Future<HashMap<String, LocationSweep>> result : executor.invokeAll(tasks)) {
+                result.get().forEach((location, sweep) -> sweeps.merge(location, sweep, LocationSweep::merge));
+            }
+        } catch (ExecutionException exception) {
+            exception.getCause().printStackTrace();
+            return null;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int days = (int) ChronoUnit.DAYS.between(firstMonth.atDay(1), lastMonth.plusMonths(1).atDay(1));
+        List<LocationLoad> loads = new ArrayList<>();
+        sweeps.forEach((location, sweep) -> loads.add(sweep.toLocationLoad(location, days)));
+
+        loads.sort(Comparator.comparingInt(LocationLoad::getPeakConcurrency).reversed()
+                .thenComparing(LocationLoad::getLocation));
+        return loads;
+    }
+
+    // Sweeps the appointments of one month on a connection of its own
+    private static HashMap<String, LocationSweep> profileMonth(YearMonth month, Duration longest)
+            throws SQLException {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        long windowStart = ScheduleIndex.toKey(from);
+        long windowEnd = ScheduleIndex.toKey(to);
+        HashMap<String, LocationSweep> sweeps = new HashMap<>();
+
+        try (Connection connection = JDBC.createReadConnection()) {
+            DAOHelper.readAppointmentTimes(connection, from, to, longest, (location, start, end) -> {
+                long startKey = ScheduleIndex.toKey(start);
+                long endKey = Math.min(ScheduleIndex.toKey(end), windowEnd);
+
+                if (endKey > startKey)
+                    sweeps.computeIfAbsent(location == null ? "" : location, key -> new LocationSweep())
+                            .start(Math.max(startKey, windowStart), endKey, startKey >= windowStart);
+            });
+        }
+
+        sweeps.values().forEach(LocationSweep::finish);
+        return sweeps;
+    }
+
+    // The sweep over one location's appointments. Appointments must be started in order of start.
+    private static class LocationSweep {
+        private final LongHeap runningEnds = new LongHeap();
+        private long lastTime = Long.MIN_VALUE;
+        private int peak;
+        private long peakTime;
+        private final int[] hourlyPeaks = new int[24];
+        private final long[] hourlySeconds = new long[24];
+        private long count;
+
+        // Adds an appointment, first ending the running appointments that end by its start. An appointment that
+        // started in an earlier month is only counted there.
+        void start(long start, long end, boolean isCounted) {
+            endRunning(start);
+            cover(lastTime, start, runningEnds.size());
+            lastTime = start;
+
+            runningEnds.add(end);
+            int running = runningEnds.size();
+            if (running > peak) {
+                peak = running;
+                peakTime = start;
+            }
+            hourlyPeaks[hourOf(start)] = Math.max(hourlyPeaks[hourOf(start)], running);
+            addSeconds(start, end);
+
+            if (isCounted)
+                count++;
+        }
+
+        void finish() {
+            endRunning(Long.MAX_VALUE);
+        }
+
+        private void endRunning(long time) {
+            while (runningEnds.size() > 0 && runningEnds.peek() <= time) {
+                long end = runningEnds.peek();
+                cover(lastTime, end, runningEnds.size());
+                lastTime = end;
+                runningEnds.poll();
+            }
+        }
+
+        // Raises the peaks of the hours between two times, during which the amount of running appointments did not
+        // change. At most one day of hours is visited.
+        private void cover(long from, long to, int running) {
+            if (running == 0)
+                return;
+
+            for (int hours = 0; from < to && hours < 24; hours++) {
+                hourlyPeaks[hourOf(from)] = Math.max(hourlyPeaks[hourOf(from)], running);
+                from = (Math.floorDiv(from, SECONDS_PER_HOUR) + 1) * SECONDS_PER_HOUR;
+            }
+        }
+
+        private void addSeconds(long start, long end) {
+            long wholeDays = (end - start) / SECONDS_PER_DAY;
+            if (wholeDays > 0) {
+                for (int hour = 0; hour < hourlySeconds.length; hour++)
+                    hourlySeconds[hour] += wholeDays * SECONDS_PER_HOUR;
+                start += wholeDays * SECONDS_PER_DAY;
+            }
+
+            while (start < end) {
+                long hourEnd = Math.min(end, (Math.floorDiv(start, SECONDS_PER_HOUR) + 1) * SECONDS_PER_HOUR);
+                hourlySeconds[hourOf(start)] += hourEnd - start;
+                start = hourEnd;
+            }
+        }
+
+        private static int hourOf(long time) {
+            return Math.floorMod(time, SECONDS_PER_DAY) / SECONDS_PER_HOUR;
+        }
+
+        // Adds a later month's sweep to this one
+        LocationSweep merge(LocationSweep later) {
+            if (later.peak > peak) {
+                peak = later.peak;
+                peakTime = later.peakTime;
+            }
+
+            for (int hour = 0; hour < hourlyPeaks.length; hour++) {
+                hourlyPeaks[hour] = Math.max(hourlyPeaks[hour], later.hourlyPeaks[hour]);
+                hourlySeconds[hour] += later.hourlySeconds[hour];
+            }
+            count += later.count;
+            return this;
+        }
+
+        LocationLoad toLocationLoad(String location, int days) {
+            long[] hourlyMinutes = Arrays.stream(hourlySeconds).map(seconds -> seconds / 60).toArray();
+            return new LocationLoad(location, peak, peak == 0 ? null : ScheduleIndex.fromKey(peakTime),
+                    hourlyPeaks.clone(), hourlyMinutes, count, days);
+        }
+    }
+
+    // A min-heap of longs
+    private static class LongHeap {
+        private long[] values = new long[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long peek() {
+            return values[0];
+        }
+
+        void add(long value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+
+            int index = size++;
+            while (index > 0 && values[(index - 1) / 2] > value) {
+                values[index] = values[(index - 1) / 2];
+                index = (index - 1) / 2;
+            }
+            values[index] = value;
+        }
+
+        long poll() {
+            long first = values[0];
+            long last = values[--size];
+            int index = 0;
+
+            while (index * 2 + 1 < size) {
+                int child = index * 2 + 1;
+                if (child + 1 < size && values[child + 1] < values[child])
+                    child++;
+                if (values[child] >= last)
+                    break;
+
+                values[index] = values[child];
+                index = child;
+            }
+            values[index] = last;
+            return first;
+        }
+    }
+}
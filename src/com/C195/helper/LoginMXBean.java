@@ -0,0 +1,51 @@
+package com.C195.helper;
+
+/**
+ * Management interface for the log-in attempts.
+ *
+ * <p> This interface is published over JMX as com.C195:type=Login by SchedulerMetrics. The counts only go up while the
+ * app runs, so collectors can turn them into rates. </p>
+ */
+public interface LoginMXBean {
+    /**
+     * Getter for attempts.
+     *
+     * @return Returns how many times someone tried to log in
+     */
+    long getAttempts();
+
+    /**
+     * Getter for successes.
+     *
+     * @return Returns how many attempts logged in
+     */
+    long getSuccesses();
+
+    /**
+     * Getter for failures.
+     *
+     * @return Returns how many attempts failed, for any reason
+     */
+    long getFailures();
+
+    /**
+     * Getter for invalid user failures.
+     *
+     * @return Returns how many attempts failed because the user ID does not exist
+     */
+    long getInvalidUserFailures();
+
+    /**
+     * Getter for invalid password failures.
+     *
+     * @return Returns how many attempts failed because the password was wrong
+     */
+    long getInvalidPasswordFailures();
+
+    /**
+     * Getter for success ratio.
+     *
+     * @return Returns the share of attempts that logged in, from 0 to 1, or 0 if there were none
+     */
+    double getSuccessRatio();
+}
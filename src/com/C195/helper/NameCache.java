@@ -0,0 +1,232 @@
+package com.C195.helper;
+
+import com.C195.event.CustomerEvent;
+import com.C195.event.EventBus;
+
+/**
+ * Class that resolves IDs into display names.
+ *
+ * <p> This class lets the controllers show the names of Customers, Contacts, Users, and Countries instead of their
+ * IDs. Each kind of name is loaded from the database in one query the first time it is needed and kept in an
+ * IntObjectMap, so a table cell can look up a name without querying the database. Customer names are kept up to date
+ * from the CustomerEvents published on the EventBus, so adding or renaming a customer does not reload them. The
+ * names are discarded when a screen reads its rows from the database again, so rows saved on other computers are
+ * not shown with blank names. </p>
+ */
+public abstract class NameCache {
+    private static IntObjectMap<String> customerNames;
+    private static IntObjectMap<String> contactNames;
+    private static IntObjectMap<String> userNames;
+    private static IntObjectMap<String> countryNames;
+    private static final CacheStats customerStats = new CacheStats();
+    private static final CacheStats contactStats = new CacheStats();
+    private static final CacheStats userStats = new CacheStats();
+    private static final CacheStats countryStats = new CacheStats();
+
+    private static final EventBus.Subscription customerSubscription =
+            EventBus.subscribe(CustomerEvent.class, NameCache::onCustomerEvent);
+
+    /**
+     * Gets the name of a customer.
+     *
+     * <p> This method returns the name of the Customer with the given ID. </p>
+     * @param customerID The ID of the Customer
+     * @return Returns the name of the Customer, or an empty String if no Customer has the given ID
+     */
+    public static synchronized String getCustomerName(int customerID) {
+        if (customerNames == null) {
+            customerStats.miss();
+            customerNames = DAOHelper.getCustomerNames();
+        }
+        else
+            customerStats.hit();
+
+        return nameOrBlank(customerNames.get(customerID));
+    }
+
+    /**
+     * Gets the name of a contact.
+     *
+     * <p> This method returns the name of the Contact with the given ID. </p>
+     * @param contactID The ID of the Contact
+     * @return Returns the name of the Contact, or an empty String if no Contact has the given ID
+     */
+    public static synchronized String getContactName(int contactID) {
+        if (contactNames == null) {
+            contactStats.miss();
+            contactNames = DAOHelper.getContactNames();
+        }
+        else
+            contactStats.hit();
+
+        return nameOrBlank(contactNames.get(contactID));
+    }
+
+    /**
+     * Gets the name of a user.
+     *
+     * <p> This method returns the name of the User with the given ID. </p>
+     * @param userID The ID of the User
+     * @return Returns the name of the User, or an empty String if no User has the given ID
+     */
+    public static synchronized String getUserName(int userID) {
+        if (userNames == null) {
+            userStats.miss();
+            userNames = DAOHelper.getUserNames();
+        }
+        else
+            userStats.hit();
+
+        return nameOrBlank(userNames.get(userID));
+    }
+
+    /**
+     * Gets the name of a country.
+     *
+     * <p> This method returns the name of the Country with the given ID. </p>
+     * @param countryID The ID of the Country
+     * @return Returns the name of the Country, or an empty String if no Country has the given ID
+     */
+    public static synchronized String getCountryName(int countryID) {
+        if (countryNames == null) {
+            countryStats.miss();
+            countryNames = DAOHelper.getCountryNames();
+        }
+        else
+            countryStats.hit();
+
+        return nameOrBlank(countryNames.get(countryID));
+    }
+
+    private static synchronized void onCustomerEvent(CustomerEvent event) {
+        // Nothing to patch if the names have not been loaded yet
+        if (customerNames == null)
+            return;
+
+        if (event.getCustomer() == null)
+            customerNames.remove(event.getEntityID());
+        else
+            customerNames.put(event.getEntityID(), event.getCustomer().getName());
+    }
+
+    /**
+     * Discards the cached customer names.
+     *
+     * <p> This method is called when a screen reads the customers or appointments from the database again, by its
+     * Refresh button or because events were dropped, so customers added or renamed on other computers are named. The
+     * names are loaded again the next time one is needed. </p>
+     */
+    public static synchronized void invalidateCustomers() {
+        customerNames = null;
+    }
+
+    /**
+     * Discards the cached contact names.
+     *
+     * <p> This method is called when the appointments screen reads the appointments again, so the contacts of
+     * appointments saved on other computers are named. The names are loaded again the next time one is needed. </p>
+     */
+    public static synchronized void invalidateContacts() {
+        contactNames = null;
+    }
+
+    /**
+     * Discards the cached user names.
+     *
+     * <p> This method is called when the appointments screen reads the appointments again, so the users of
+     * appointments saved on other computers are named. The names are loaded again the next time one is needed. </p>
+     */
+    public static synchronized void invalidateUsers() {
+        userNames = null;
+    }
+
+    /**
+     * Discards all cached names.
+     */
+    public static synchronized void invalidateAll() {
+        customerNames = null;
+        contactNames = null;
+        userNames = null;
+        countryNames = null;
+    }
+
+    /**
+     * Getter for customer stats.
+     *
+     * @return Returns the CacheStats of the customer names
+     */
+    static CacheStats getCustomerStats() {
+        return customerStats;
+    }
+
+    /**
+     * Gets how many customer names are in memory.
+     *
+     * @return Returns the number of customers whose names are loaded, or 0 if they have not been loaded
+     */
+    static synchronized int getCustomerCount() {
+        return sizeOf(customerNames);
+    }
+
+    /**
+     * Getter for contact stats.
+     *
+     * @return Returns the CacheStats of the contact names
+     */
+    static CacheStats getContactStats() {
+        return contactStats;
+    }
+
+    /**
+     * Gets how many contact names are in memory.
+     *
+     * @return Returns the number of contacts whose names are loaded, or 0 if they have not been loaded
+     */
+    static synchronized int getContactCount() {
+        return sizeOf(contactNames);
+    }
+
+    /**
+     * Getter for user stats.
+     *
+     * @return Returns the CacheStats of the user names
+     */
+    static CacheStats getUserStats() {
+        return userStats;
+    }
+
+    /**
+     * Gets how many user names are in memory.
+     *
+     * @return Returns the number of users whose names are loaded, or 0 if they have not been loaded
+     */
+    static synchronized int getUserCount() {
+        return sizeOf(userNames);
+    }
+
+    /**
+     * Getter for country stats.
+     *
+     * @return Returns the CacheStats of the country names
+     */
+    static CacheStats getCountryStats() {
+        return countryStats;
+    }
+
+    /**
+     * Gets how many country names are in memory.
+     *
+     * @return Returns the number of countries whose names are loaded, or 0 if they have not been loaded
+     */
+    static synchronized int getCountryCount() {
+        return sizeOf(countryNames);
+    }
+
+    private static int sizeOf(IntObjectMap<String> names) {
+        return names == null ? 0 : names.size();
+    }
+
+    private static String nameOrBlank(String name) {
+        return name == null ? "" : name;
+    }
+}
@@ -1,5 +1,13 @@
 package com.C195.helper;
 
+import com.C195.controller.AutoScheduleScreen;
+import com.C195.controller.BulkChangeScreen;
+import com.C195.controller.DiagnosticsScreen;
+import com.C195.controller.LoadProfileReport;
+import com.C195.controller.WorkloadReport;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
@@ -8,6 +16,8 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Class that contains methods to navigate the app.
@@ -15,6 +25,9 @@ import java.io.IOException;
  * <p> This class is used by the fxml controllers to help navigate through the different screens.</p>
  */
 public abstract class NavigationHelper {
+    // Scenes of the list screens, kept so returning to them does not load their FXML and build them again
+    private static final ConcurrentHashMap<String, Scene> sceneCache = new ConcurrentHashMap<>();
+    private static final CacheStats cacheStats = new CacheStats();
 
     /**
      * Exits the program.
@@ -30,20 +43,15 @@ public abstract class NavigationHelper {
     /**
      * Loads the Customer Information screen.
      *
-     * <p> This method loads the customer information screen. </p>
+     * <p> This method loads the customer information screen. The screen is loaded from the database only the first
+     * time. Afterwards the same screen is shown again, kept up to date through the EventBus. Its Refresh button reads
+     * the customers again. </p>
      * @param controller The controller that called the method
      * @param actionEvent The event from the controller that called the method
      */
     public static void viewCustomerInfo(Object controller, ActionEvent actionEvent) {
-        Parent root = null;
-        try {
-            root = FXMLLoader.load(controller.getClass().getResource("/com/C195/view/CustomerInfo.fxml"));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(new Scene(root, 1200, 700));
+        stage.setScene(getCachedScene(controller, "/com/C195/view/CustomerInfo.fxml"));
         stage.setTitle("Customers");
         stage.show();
     }
@@ -51,20 +59,15 @@ public abstract class NavigationHelper {
     /**
      * Loads the Appointment Information screen.
      *
-     * <p> This method loads the appointment information screen. </p>
+     * <p> This method loads the appointment information screen. The screen is loaded from the database only the first
+     * time. Afterwards the same screen is shown again, kept up to date through the EventBus. Its Refresh button reads
+     * the appointments again. </p>
      * @param controller The controller that called the method
      * @param actionEvent The event from the controller that called the method
      */
     public static void viewAppointmentsInfo(Object controller, ActionEvent actionEvent) {
-        Parent root = null;
-        try {
-            root = FXMLLoader.load(controller.getClass().getResource("/com/C195/view/AppointmentsInfo.fxml"));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(new Scene(root, 1200, 700));
+        stage.setScene(getCachedScene(controller, "/com/C195/view/AppointmentsInfo.fxml"));
         stage.setTitle("Appointments");
         stage.show();
     }
@@ -77,12 +80,7 @@ public abstract class NavigationHelper {
      * @param actionEvent The event from the controller that called the method
      */
     public static void viewContactsInfo(Object controller, ActionEvent actionEvent) {
-        Parent root = null;
-        try {
-            root = FXMLLoader.load(controller.getClass().getResource("/com/C195/view/ContactsInfo.fxml"));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Parent root = loadScreen(controller, "/com/C195/view/ContactsInfo.fxml");
 
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
         stage.setScene(new Scene(root, 1200, 700));
@@ -98,16 +96,243 @@ public abstract class NavigationHelper {
      * @param actionEvent The event from the controller that called the method
      */
     public static void viewReportsScreen(Object controller, ActionEvent actionEvent) {
-        Parent root = null;
-        try {
-            root = FXMLLoader.load(controller.getClass().getResource("/com/C195/view/ReportsScreen.fxml"));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Parent root = loadScreen(controller, "/com/C195/view/ReportsScreen.fxml");
 
         Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
         stage.setScene(new Scene(root, 1200, 700));
         stage.setTitle("Reports");
         stage.show();
     }
+
+    /**
+     * Opens the contact workload report.
+     *
+     * <p> This method opens the WorkloadReport in a window of its own, so it can be kept open next to the screen
+     * that opened it. </p>
+     * @param actionEvent The event from the controller that called the method
+     */
+    public static void viewWorkloadReport(ActionEvent actionEvent) {
+        Parent root = buildScreen("WorkloadReport", () -> new WorkloadReport().getRoot());
+
+        Stage stage = new Stage();
+        stage.initOwner(((Node) actionEvent.getSource()).getScene().getWindow());
+        stage.setScene(new Scene(root, 1200, 500));
+        stage.setTitle("Contact Workload");
+        stage.show();
+    }
+
+    /**
+     * Opens the location load report.
+     *
+     * <p> This method opens the LoadProfileReport in a window of its own, like the contact workload report. </p>
+     * @param actionEvent The event from the controller that called the method
+     */
+    public static void viewLoadProfileReport(ActionEvent actionEvent) {
+        Parent root = buildScreen("LoadProfileReport", () -> new LoadProfileReport().getRoot());
+
+        Stage stage = new Stage();
+        stage.initOwner(((Node) actionEvent.getSource()).getScene().getWindow());
+        stage.setScene(new Scene(root, 1000, 600));
+        stage.setTitle("Location Load");
+        stage.show();
+    }
+
+    /**
+     * Opens the screen for changing many appointments at once.
+     *
+     * <p> This method opens the BulkChangeScreen in a window of its own, with the given contact's appointments
+     * picked. </p>
+     * @param actionEvent The event from the controller that called the method
+     * @param contactID The ID of the Contact whose appointments are picked at first, or -1 for none
+     */
+    public static void viewBulkChangeScreen(ActionEvent actionEvent, int contactID) {
+        Parent root = buildScreen("BulkChangeScreen", () -> new BulkChangeScreen(contactID).getRoot());
+
+        Stage stage = new Stage();
+        stage.initOwner(((Node) actionEvent.getSource()).getScene().getWindow());
+        stage.setScene(new Scene(root, 1100, 600));
+        stage.setTitle("Bulk Change");
+        stage.show();
+    }
+
+    /**
+     * Opens the screen for booking an appointment for many customers at once.
+     *
+     * <p> This method opens the AutoScheduleScreen in a window of its own, like the bulk change screen. </p>
+     * @param actionEvent The event from the controller that called the method
+     */
+    public static void viewAutoScheduleScreen(ActionEvent actionEvent) {
+        Parent root = buildScreen("AutoScheduleScreen", () -> new AutoScheduleScreen().getRoot());
+
+        Stage stage = new Stage();
+        stage.initOwner(((Node) actionEvent.getSource()).getScene().getWindow());
+        stage.setScene(new Scene(root, 1200, 650));
+        stage.setTitle("Auto Schedule");
+        stage.show();
+    }
+
+    /**
+     * Opens the diagnostics screen.
+     *
+     * <p> This method opens the DiagnosticsScreen in a window of its own, and stops its refreshes when the window is
+     * closed. </p>
+     * @param actionEvent The event from the controller that called the method
+     */
+    public static void viewDiagnosticsScreen(ActionEvent actionEvent) {
+        DiagnosticsScreen[] screen = new DiagnosticsScreen[1];
+        Parent root = buildScreen("DiagnosticsScreen", () -> (screen[0] = new DiagnosticsScreen()).getRoot());
+
+        Stage stage = new Stage();
+        stage.initOwner(((Node) actionEvent.getSource()).getScene().getWindow());
+        stage.setScene(new Scene(root, 1100, 650));
+        stage.setTitle("Diagnostics");
+        stage.setOnHidden(windowEvent -> screen[0].stop());
+        stage.show();
+    }
+
+    /**
+     * Gets the scene for a list screen.
+     *
+     * <p> This method loads the scene for the given FXML file the first time it is asked for and returns the same
+     * scene every time after that. </p>
+     * @param controller The controller that called the method
+     * @param fxml The path of the FXML file of the screen
+     * @return Returns the scene for the screen
+     */
+    private static Scene getCachedScene(Object controller, String fxml) {
+        Scene scene = sceneCache.get(fxml);
+
+        if (scene == null) {
+            cacheStats.miss();
+            scene = new Scene(loadScreen(controller, fxml), 1200, 700);
+            sceneCache.put(fxml, scene);
+        }
+        else {
+            cacheStats.hit();
+
+            ScreenLoadEvent event = new ScreenLoadEvent();
+            if (event.isEnabled()) {
+                event.begin();
+                event.screen = screenName(fxml);
+                event.cached = true;
+                new FirstRender(scene.getRoot(), event);
+            }
+        }
+
+        return scene;
+    }
+
+    /**
+     * Loads a screen from its FXML file.
+     *
+     * <p> This method loads the screen and records how long it took in SchedulerMetrics, under the name of the FXML
+     * file. The time includes the queries its controller runs to fill it. </p>
+     * @param controller The controller that called the method
+     * @param fxml The path of the FXML file of the screen
+     * @return Returns the root of the screen, or null if it could not be loaded
+     */
+    private static Parent loadScreen(Object controller, String fxml) {
+        return buildScreen(screenName(fxml), () -> {
+            try {
+                return FXMLLoader.load(controller.getClass().getResource(fxml));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Builds a screen.
+     *
+     * <p> This method builds the screen and records how long it took in SchedulerMetrics. When Flight Recorder is
+     * recording, it also commits a ScreenLoadEvent once the screen is first laid out, with the time spent building it
+     * split from the time its statements took. </p>
+     * @param screen The name of the screen, such as "WorkloadReport"
+     * @param builder Builds the screen and returns its root
+     * @return Returns the root of the screen
+     */
+    private static Parent buildScreen(String screen, Supplier<Parent> builder) {
+        ScreenLoadEvent event = new ScreenLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long statementStart = QueryStats.getThreadStatementNanos();
+
+        Parent root = builder.get();
+
+        long nanos = System.nanoTime() - start;
+        SchedulerMetrics.screenLoaded(screen, nanos);
+        if (root != null && event.isEnabled()) {
+            event.screen = screen;
+            event.dataLoad = QueryStats.getThreadStatementNanos() - statementStart;
+            event.fxmlLoad = nanos - event.dataLoad;
+            new FirstRender(root, event);
+        }
+
+        return root;
+    }
+
+    private static String screenName(String fxml) {
+        return fxml.substring(fxml.lastIndexOf('/') + 1).replace(".fxml", "");
+    }
+
+    /**
+     * Getter for cache stats.
+     *
+     * @return Returns the CacheStats of the scene cache, with a hit for each list screen shown without loading it
+     */
+    static CacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * Gets how many scenes are cached.
+     *
+     * <p> This method is called by SchedulerMetrics from a JMX thread, so the cache is a ConcurrentHashMap. </p>
+     * @return Returns the number of list screens whose scenes are kept
+     */
+    static int getCachedSceneCount() {
+        return sceneCache.size();
+    }
+
+    // Commits a ScreenLoadEvent after the first pulse that lays out its screen, once the screen is in a scene. The
+    // listener is removed on a later turn of the FX thread, since the scene is still going through its listeners.
+    private static class FirstRender implements ChangeListener<Scene>, Runnable {
+        private final Parent root;
+        private final ScreenLoadEvent event;
+        private final long start = System.nanoTime();
+        private Scene scene;
+        private boolean isCommitted;
+
+        FirstRender(Parent root, ScreenLoadEvent event) {
+            this.root = root;
+            this.event = event;
+
+            if (root.getScene() != null)
+                changed(root.sceneProperty(), null, root.getScene());
+            else
+                root.sceneProperty().addListener(this);
+        }
+
+        @Override
+        public void changed(ObservableValue<? extends Scene> observable, Scene oldScene, Scene newScene) {
+            if (newScene == null)
+                return;
+
+            root.sceneProperty().removeListener(this);
+            scene = newScene;
+            scene.addPostLayoutPulseListener(this);
+        }
+
+        @Override
+        public void run() {
+            if (isCommitted)
+                return;
+
+            isCommitted = true;
+            event.firstRender = System.nanoTime() - start;
+            event.commit();
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package com.C195.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class for the timings of one kind of database statement.
+ *
+ * <p> This class holds the latency, rows, and bytes of every time one statement was run by one DAOHelper method.
+ * Statements that differ only in their literal values or the length of their IN lists share an OperationStats. It is
+ * kept up to date by QueryStats, without locking. </p>
+ */
+public class OperationStats {
+    private final String operation;
+    private final String sql;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Constructor for OperationStats.
+     *
+     * <p> This is the constructor for the OperationStats class. </p>
+     * @param operation The method that ran the statement, such as "DAOHelper.getAllAppointments"
+     * @param sql The shape of the statement, with its values replaced by question marks
+     */
+    OperationStats(String operation, String sql) {
+        this.operation = operation;
+        this.sql = sql;
+    }
+
+    /**
+     * Records one run of the statement.
+     *
+     * @param nanos How long the statement took, including reading its rows
+     * @param rowCount How many rows it read or changed
+     * @param byteCount About how many bytes of values were read
+     * @param isFailed True if the statement threw an exception
+     */
+    void record(long nanos, long rowCount, long byteCount, boolean isFailed) {
+        latency.record(nanos);
+        rows.add(rowCount);
+        bytes.add(byteCount);
+        if (isFailed)
+            errors.increment();
+    }
+
+    /**
+     * Getter for operation.
+     *
+     * @return Returns the method that ran the statement, such as "DAOHelper.getAllAppointments"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Getter for sql.
+     *
+     * @return Returns the shape of the statement, with its values replaced by question marks
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Getter for latency.
+     *
+     * @return Returns the LatencyHistogram of how long the statement took
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Getter for calls.
+     *
+     * @return Returns how many times the statement was run
+     */
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    /**
+     * Getter for rows.
+     *
+     * @return Returns the total rows read or changed
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * Getter for bytes.
+     *
+     * <p> This is the getter for about how many bytes of values were read from the statement's rows, counting two
+     * bytes per character of text and the size in memory of other values. </p>
+     * @return Returns the total bytes read
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Getter for errors.
+     *
+     * @return Returns how many times the statement threw an exception
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    void reset() {
+        latency.reset();
+        rows.reset();
+        bytes.reset();
+        errors.reset();
+    }
+}
@@ -0,0 +1,493 @@
+package com.C195.helper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Class that times every statement run on the database.
+ *
+ * <p> This class wraps the Connections opened by JDBC so that every statement DAOHelper runs is timed, from when it
+ * is executed until its rows have been read, without changing DAOHelper itself. Each statement is counted under the
+ * DAOHelper method that ran it and the shape of its SQL, in an OperationStats with a LatencyHistogram of its
+ * latency, the rows it read or changed, and about how many bytes of values were read. Recording adds to counters
+ * without locking, and the method is found from the stack once per statement rather than once per row, so the cost
+ * is a few microseconds per statement against the hundreds a round trip to the database takes. </p>
+ * <p> Statements that take longer than the slow query threshold, or fail, are written to slow_queries.txt with their
+ * SQL and parameters, on a thread of its own. The threshold is 250 ms, or the number of milliseconds in the
+ * com.C195.slowQueryMillis system property. </p>
+ * <p> Each statement is also committed as a DaoStatementEvent when Flight Recorder is recording, so a recording shows
+ * which statements ran inside a slow screen or form. </p>
+ */
+public abstract class QueryStats {
+    private static final Path SLOW_QUERY_LOG = Paths.get("slow_queries.txt");
+
+    // Most parameters written to the slow query log for one statement, so IN lists do not fill it
+    private static final int MAX_LOGGED_PARAMETERS = 20;
+
+    // Most slow statements kept in memory for the diagnostics screen
+    private static final int MAX_RECENT_SLOW_QUERIES = 50;
+
+    // Most SQL strings whose shapes are remembered
+    private static final int MAX_CACHED_SHAPES = 1024;
+
+    // Literal numbers and strings, which are replaced by question marks in a statement's shape
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    // IN lists of parameters, which are shortened so lists of every length share a shape
+    private static final Pattern PARAMETER_LISTS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> shapes = new ConcurrentHashMap<>();
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+    private static final LongAdder connectionsOpened = new LongAdder();
+    private static final LongAdder connectionsClosed = new LongAdder();
+    private static final LongAdder slowStatements = new LongAdder();
+    private static final RecentLines recentSlowQueries = new RecentLines(MAX_RECENT_SLOW_QUERIES);
+
+    // Nanoseconds the statements run on each thread have taken, so NavigationHelper can tell data from building
+    private static final ThreadLocal<long[]> threadStatementNanos = ThreadLocal.withInitial(() -> new long[1]);
+    private static volatile long slowQueryNanos = Duration.ofMillis(
+            Long.getLong("com.C195.slowQueryMillis", 250)).toNanos();
+
+    private static final ExecutorService slowQueryWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "slow-query-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Wraps a connection so its statements are timed.
+     *
+     * @param connection The Connection opened by JDBC
+     * @return Returns a Connection that runs everything on the given one, timing its statements
+     */
+    public static Connection instrument(Connection connection) {
+        connectionsOpened.increment();
+        return proxy(Connection.class, new ConnectionHandler(connection));
+    }
+
+    /**
+     * Gets the timings of every statement run so far.
+     *
+     * @return Returns an OperationStats for each statement, the ones that took the most time in total first
+     */
+    public static List<OperationStats> getOperations() {
+        List<OperationStats> list = new ArrayList<>(operations.values());
+        list.sort(Comparator.comparingLong((OperationStats stats) -> stats.getLatency().getTotalNanos()).reversed());
+        return list;
+    }
+
+    /**
+     * Gets the timings of the statements run by one method.
+     *
+     * @param operation The method, such as "DAOHelper.getAllAppointments"
+     * @return Returns an OperationStats for each statement the method ran
+     */
+    static List<OperationStats> getOperations(String operation) {
+        return operations.values().stream().filter(stats -> stats.getOperation().equals(operation))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Clears the timings of every statement.
+     */
+    public static void reset() {
+        operations.values().forEach(OperationStats::reset);
+        slowStatements.reset();
+        recentSlowQueries.clear();
+    }
+
+    /**
+     * Gets the statements written to the slow query log lately.
+     *
+     * @return Returns the lines of the last 50 slow or failed statements, the newest first
+     */
+    public static List<String> getRecentSlowQueries() {
+        return recentSlowQueries.getNewestFirst();
+    }
+
+    /**
+     * Getter for connections opened.
+     *
+     * @return Returns how many connections have been wrapped since the app started
+     */
+    public static long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * Getter for open connections.
+     *
+     * @return Returns how many of the wrapped connections have not been closed
+     */
+    public static long getOpenConnections() {
+        return connectionsOpened.sum() - connectionsClosed.sum();
+    }
+
+    /**
+     * Getter for slow statements.
+     *
+     * @return Returns how many statements took at least the slow query threshold since the timings were cleared
+     */
+    public static long getSlowStatements() {
+        return slowStatements.sum();
+    }
+
+    /**
+     * Gets how long the statements run on this thread have taken.
+     *
+     * <p> This method is used to find how much of some work on this thread was spent running statements, by
+     * calling it before and after. </p>
+     * @return Returns the nanoseconds the statements run on this thread have taken since it started
+     */
+    static long getThreadStatementNanos() {
+        return threadStatementNanos.get()[0];
+    }
+
+    /**
+     * Getter for slow query threshold.
+     *
+     * @return Returns how long a statement must take to be written to the slow query log
+     */
+    public static Duration getSlowQueryThreshold() {
+        return Duration.ofNanos(slowQueryNanos);
+    }
+
+    /**
+     * Setter for slow query threshold.
+     *
+     * @param threshold How long a statement must take to be written to the slow query log
+     */
+    public static void setSlowQueryThreshold(Duration threshold) {
+        slowQueryNanos = threshold.toNanos();
+    }
+
+    // Counts one run of a statement, commits its DaoStatementEvent, and logs it if it was slow or failed
+    private static void record(String operation, String sql, Object[] parameters, long nanos, long rows, long bytes,
+                               Throwable failure, DaoStatementEvent event) {
+        String shape = shapeOf(sql);
+        String key = operation + '\n' + shape;
+        OperationStats stats = operations.get(key);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(key, newKey -> new OperationStats(operation, shape));
+            SchedulerMetrics.operationAdded(operation);
+        }
+        stats.record(nanos, rows, bytes, failure != null);
+        threadStatementNanos.get()[0] += nanos;
+
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.sql = shape;
+            event.rows = rows;
+            event.bytes = bytes;
+            event.failed = failure != null;
+            event.commit();
+        }
+
+        if (nanos >= slowQueryNanos)
+            slowStatements.increment();
+        if (nanos >= slowQueryNanos || failure != null) {
+            String line = LocalDateTime.now() + " | " + nanos / 1_000_000 + " ms | " + operation + " | " + rows +
+                    " rows | " + shape + " | " + describe(parameters) +
+                    (failure == null ? "" : " | FAILED: " + failure.toString().replace('\n', ' '));
+            recentSlowQueries.add(line);
+            slowQueryWriter.execute(() -> writeSlowQuery(line));
+        }
+    }
+
+    private static void writeSlowQuery(String line) {
+        try (BufferedWriter writer = Files.newBufferedWriter(SLOW_QUERY_LOG, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Replaces the literal values in a statement with question marks and shortens its IN lists
+    private static String shapeOf(String sql) {
+        if (sql == null)
+            return "";
+
+        String shape = shapes.get(sql);
+        if (shape == null) {
+            shape = PARAMETER_LISTS.matcher(LITERALS.matcher(sql).replaceAll("?")).replaceAll("(?, ...)");
+            if (shapes.size() < MAX_CACHED_SHAPES)
+                shapes.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private static String describe(Object[] parameters) {
+        if (parameters == null)
+            return "[]";
+
+        int count = parameters.length;
+        while (count > 0 && parameters[count - 1] == null)
+            count--;
+
+        String shown = Arrays.toString(Arrays.copyOf(parameters, Math.min(count, MAX_LOGGED_PARAMETERS)));
+        return count > MAX_LOGGED_PARAMETERS ? shown + " and " + (count - MAX_LOGGED_PARAMETERS) + " more" : shown;
+    }
+
+    // Finds the DAOHelper method that was called from outside DAOHelper, so the private methods it uses and the
+    // lambdas it runs in a transaction are counted under it. Statements run elsewhere are counted under their caller.
+    private static String findOperation() {
+        return stackWalker.walk(frames -> {
+            String operation = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (className.startsWith(QueryStats.class.getName()) || className.startsWith("jdk.proxy") ||
+                        className.startsWith("com.sun.proxy"))
+                    continue;
+
+                boolean isDAOHelper = className.equals(DAOHelper.class.getName());
+                if (operation != null && !isDAOHelper)
+                    break;
+
+                operation = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+                if (!isDAOHelper)
+                    break;
+            }
+            return operation == null ? "unknown" : operation;
+        });
+    }
+
+    private static long sizeOf(Object value) {
+        if (value instanceof String)
+            return 2L * ((String) value).length();
+        if (value instanceof byte[])
+            return ((byte[]) value).length;
+        if (value instanceof Integer || value instanceof Float)
+            return 4;
+        if (value == null || value instanceof Boolean)
+            return 1;
+        return 8;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(QueryStats.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    // Wraps the statements a connection prepares
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private boolean isClosed;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            Object result;
+            try {
+                result = QueryStats.invoke(connection, method, arguments);
+            } catch (Throwable failure) {
+                // Some drivers check the SQL when it is prepared
+                if (method.getName().startsWith("prepare"))
+                    record(findOperation(), (String) arguments[0], null, 0, 0, 0, failure, new DaoStatementEvent());
+                throw failure;
+            }
+
+            switch (method.getName()) {
+                case "close":
+                    if (!isClosed)
+                        connectionsClosed.increment();
+                    isClosed = true;
+                    return result;
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler((Statement) result,
+                            (String) arguments[0]));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler((Statement) result,
+                            (String) arguments[0]));
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler((Statement) result, null));
+                default:
+                    return result;
+            }
+        }
+    }
+
+    // Times the executions of a statement and remembers the parameters set on it for the slow query log
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String operation = findOperation();
+        private String sql;
+        private Object[] parameters;
+        private ResultSetHandler openResults;
+
+        StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && arguments != null && arguments.length >= 2 &&
+                    arguments[0] instanceof Integer) {
+                setParameter((Integer) arguments[0], name.equals("setNull") ? null : arguments[1]);
+                return QueryStats.invoke(statement, method, arguments);
+            }
+
+            if (!name.startsWith("execute")) {
+                if (name.equals("close") || name.equals("getMoreResults"))
+                    finishResults();
+                else if (name.equals("clearParameters"))
+                    parameters = null;
+                return QueryStats.invoke(statement, method, arguments);
+            }
+
+            if (arguments != null && arguments.length > 0 && arguments[0] instanceof String)
+                sql = (String) arguments[0];
+            finishResults();
+
+            DaoStatementEvent event = new DaoStatementEvent();
+            event.begin();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = QueryStats.invoke(statement, method, arguments);
+            } catch (Throwable failure) {
+                record(operation, sql, parameters, System.nanoTime() - start, 0, 0, failure, event);
+                throw failure;
+            }
+
+            if (result instanceof ResultSet) {
+                // Timed until its rows have been read
+                openResults = new ResultSetHandler((ResultSet) result, this, start, event);
+                return proxy(ResultSet.class, openResults);
+            }
+
+            record(operation, sql, parameters, System.nanoTime() - start, rowsChanged(result), 0, null, event);
+            return result;
+        }
+
+        private void setParameter(int index, Object value) {
+            if (parameters == null)
+                parameters = new Object[Math.max(index, 8)];
+            else if (index > parameters.length)
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            parameters[index - 1] = value;
+        }
+
+        private void finishResults() {
+            if (openResults != null)
+                openResults.finish();
+        }
+
+        private static long rowsChanged(Object result) {
+            if (result instanceof Integer || result instanceof Long)
+                return Math.max(0, ((Number) result).longValue());
+
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result)
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+            else if (result instanceof long[]) {
+                for (long count : (long[]) result)
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+            return rows;
+        }
+    }
+
+    // Counts the rows and bytes read from a result set, and records its statement when it is read to the end or
+    // closed
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final StatementHandler statement;
+        private final long start;
+        private final DaoStatementEvent event;
+        private long rows;
+        private long bytes;
+        private boolean isFinished;
+
+        ResultSetHandler(ResultSet resultSet, StatementHandler statement, long start, DaoStatementEvent event) {
+            this.resultSet = resultSet;
+            this.statement = statement;
+            this.start = start;
+            this.event = event;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+            Object result;
+            try {
+                result = QueryStats.invoke(resultSet, method, arguments);
+            } catch (Throwable failure) {
+                finish(failure);
+                throw failure;
+            }
+            String name = method.getName();
+
+            if (name.startsWith("get") && arguments != null && arguments.length == 1)
+                bytes += sizeOf(result);
+            else if (name.equals("next")) {
+                if ((Boolean) result)
+                    rows++;
+                else
+                    finish();
+            }
+            else if (name.equals("close"))
+                finish();
+
+            return result;
+        }
+
+        void finish() {
+            finish(null);
+        }
+
+        private void finish(Throwable failure) {
+            if (isFinished)
+                return;
+
+            isFinished = true;
+            if (statement.openResults == this)
+                statement.openResults = null;
+            record(statement.operation, statement.sql, statement.parameters, System.nanoTime() - start, rows, bytes,
+                    failure, event);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.C195.helper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that keeps the last few lines written to a log.
+ *
+ * <p> This class keeps the newest lines of a log such as slow_queries.txt in memory, dropping the oldest once it is
+ * full, so the diagnostics screen can show recent events without reading the file. </p>
+ */
+class RecentLines {
+    private final int capacity;
+    private final ArrayDeque<String> lines;
+
+    /**
+     * Constructor for RecentLines.
+     *
+     * @param capacity The most lines kept
+     */
+    RecentLines(int capacity) {
+        this.capacity = capacity;
+        this.lines = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Adds a line, dropping the oldest if there are too many.
+     *
+     * @param line The line
+     */
+    synchronized void add(String line) {
+        if (lines.size() == capacity)
+            lines.removeFirst();
+        lines.addLast(line);
+    }
+
+    /**
+     * Gets the lines kept.
+     *
+     * @return Returns a copy of the lines, the newest first
+     */
+    synchronized List<String> getNewestFirst() {
+        List<String> list = new ArrayList<>(lines.size());
+        lines.descendingIterator().forEachRemaining(list::add);
+        return list;
+    }
+
+    /**
+     * Removes every line.
+     */
+    synchronized void clear() {
+        lines.clear();
+    }
+}
@@ -0,0 +1,428 @@
+package com.C195.helper;
+
+import com.C195.event.DomainEvent;
+import com.C195.event.EventBus;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Class for a DataSource that sends reads to replicas of the database.
+ *
+ * <p> This class opens every connection asked for with getConnection() on the primary database, so writes and
+ * transactions always run there. Reads that do not have to see the latest rows, such as reports, lists, and lookups,
+ * ask for a read connection instead, which is on a replica when one is fresh enough and on the primary when none
+ * is. </p>
+ * <p> A replica is fresh enough when it has caught up to the last change this program made, so a screen always reads
+ * its own writes, and when it is no more than the staleness bound behind the primary. How far behind each replica is
+ * gets checked every second or so on a thread of its own, with a query that returns the number of seconds it lags,
+ * which is SHOW REPLICA STATUS on MySQL. A replica that cannot be reached, is not replicating, or falls too far behind
+ * is skipped until a later check finds it fresh again. Since the lag is measured in whole seconds, a replica is taken
+ * to be a second further behind than it says. Changes are learned of from the DomainEvents DAOHelper publishes after
+ * each one. </p>
+ * <p> The lag is checked on a connection the checking thread keeps to itself, whose statements are not timed by
+ * QueryStats. The shared connection reads are given is only ever replaced by the thread that reads from it, once the
+ * check has found that the replica was lost, so a read is never closed under it. When reads start or stop going to a
+ * replica, a line is kept for the diagnostics screen. </p>
+ */
+public class RoutingDataSource implements DataSource {
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+    private static final int MAX_RECENT_CHANGES = 50;
+
+    private final DataSource primary;
+    private final Replica[] replicas;
+    private final long maxLagNanos;
+    private final long checkMillis;
+    private final String lagQuery;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final RecentLines recentChanges = new RecentLines(MAX_RECENT_CHANGES);
+    private volatile long lastWriteNanos;
+    private ScheduledExecutorService monitor;
+
+    private EventBus.Subscription writeSubscription;
+
+    /**
+     * Constructor for RoutingDataSource.
+     *
+     * @param primary The DataSource of the primary database
+     * @param replicas The DataSources of the replicas
+     * @param maxLagSeconds The most seconds a replica can be behind the primary and still be read from
+     * @param checkMillis How often, in milliseconds, each replica's lag is checked
+     * @param lagQuery The query that returns how many seconds a replica lags, in a column named
+     *                 Seconds_Behind_Source or Seconds_Behind_Master, or in its first column
+     */
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas, double maxLagSeconds, long checkMillis,
+                             String lagQuery) {
+        this.primary = primary;
+        this.replicas = new Replica[replicas.size()];
+        for (int i = 0; i < this.replicas.length; i++)
+            this.replicas[i] = new Replica(replicas.get(i));
+        this.maxLagNanos = (long) (maxLagSeconds * 1_000_000_000);
+        this.checkMillis = checkMillis;
+        this.lagQuery = lagQuery;
+
+        // As if the last change were as long ago as the staleness bound, so it holds no replica back
+        this.lastWriteNanos = System.nanoTime() - maxLagNanos;
+    }
+
+    /**
+     * Starts checking the replicas.
+     *
+     * <p> This method starts the thread that checks the lag of each replica and listens for the changes DAOHelper
+     * makes. Reads go to the primary until the first check has found a replica fresh enough. </p>
+     */
+    public synchronized void start() {
+        if (monitor != null)
+            return;
+
+        writeSubscription = EventBus.subscribe(DomainEvent.class, event -> recordWrite());
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleWithFixedDelay(this::checkReplicas, 0, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops checking the replicas.
+     *
+     * <p> This method stops the thread that checks the replicas and closes their connections. </p>
+     */
+    public synchronized void stop() {
+        if (monitor == null)
+            return;
+
+        monitor.shutdownNow();
+        try {
+            // So a check is not left using a monitor connection that is about to be closed
+            monitor.awaitTermination(VALID_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        monitor = null;
+        writeSubscription.cancel();
+        for (Replica replica : replicas)
+            replica.close();
+    }
+
+    /**
+     * Records a change to the primary.
+     *
+     * <p> This method makes reads go to the primary until the replicas have caught up to now. It is called for every
+     * DomainEvent, and should be called after any other change that later reads must see. </p>
+     */
+    public void recordWrite() {
+        lastWriteNanos = System.nanoTime();
+    }
+
+    /**
+     * Opens a connection to the primary.
+     *
+     * @return Returns the new Connection, which the caller must close
+     * @throws SQLException Exceptions from opening the connection
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return primary.getConnection();
+    }
+
+    /**
+     * Opens a connection to the primary as a given user.
+     *
+     * @param user The user to connect as
+     * @param password The user's password
+     * @return Returns the new Connection, which the caller must close
+     * @throws SQLException Exceptions from opening the connection
+     */
+    @Override
+    public Connection getConnection(String user, String password) throws SQLException {
+        return primary.getConnection(user, password);
+    }
+
+    /**
+     * Opens a connection for reading.
+     *
+     * <p> This method opens a new Connection to a replica that is fresh enough, taking turns between them, or to the
+     * primary if none is. </p>
+     * @return Returns the new Connection, which the caller must close
+     * @throws SQLException Exceptions from opening the connection
+     */
+    public Connection getReadConnection() throws SQLException {
+        Replica replica = freshReplica();
+        if (replica != null) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                fail(replica, e);
+            }
+        }
+
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Gets a shared connection for reading.
+     *
+     * <p> This method returns the shared Connection of a replica that is fresh enough, taking turns between them,
+     * opening it if the replica has none or has been lost since it was opened. Its statements are timed by QueryStats.
+     * It is returned by JDBC.readConnection(), which only the FX thread reads from, so it is read from by one thread
+     * at a time. Other threads read on connections of their own from getReadConnection(). </p>
+     * @return Returns the replica's Connection, or null if reads should use the primary
+     */
+    public Connection getSharedReadConnection() {
+        Replica replica = freshReplica();
+        Connection connection = replica == null ? null : sharedConnection(replica);
+
+        if (connection == null)
+            primaryReads.increment();
+        else
+            replicaReads.increment();
+        return connection;
+    }
+
+    /**
+     * Getter for replica reads.
+     *
+     * @return Returns the number of reads sent to a replica
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * Getter for primary reads.
+     *
+     * @return Returns the number of reads sent to the primary because no replica was fresh enough
+     */
+    public long getPrimaryReads() {
+        return primaryReads.sum();
+    }
+
+    /**
+     * Gets how many replicas can be read from.
+     *
+     * @return Returns the number of replicas that are fresh enough to read from now
+     */
+    public int getFreshReplicaCount() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (isFresh(replica, now))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Getter for replica count.
+     *
+     * @return Returns the number of replicas, fresh or not
+     */
+    public int getReplicaCount() {
+        return replicas.length;
+    }
+
+    /**
+     * Getter for recent changes.
+     *
+     * @return Returns the lines of the last times reads started or stopped going to a replica, the newest first
+     */
+    public List<String> getRecentChanges() {
+        return recentChanges.getNewestFirst();
+    }
+
+    private Replica freshReplica() {
+        long now = System.nanoTime();
+        int start = nextReplica.getAndIncrement();
+
+        for (int i = 0; i < replicas.length; i++) {
+            Replica replica = replicas[Math.floorMod(start + i, replicas.length)];
+            if (isFresh(replica, now))
+                return replica;
+        }
+        return null;
+    }
+
+    // A replica is fresh if it has everything up to this program's last change, and is within the staleness bound
+    private boolean isFresh(Replica replica, long now) {
+        long caughtUpTo = replica.caughtUpToNanos;
+        return replica.isHealthy && caughtUpTo - lastWriteNanos >= 0 && now - caughtUpTo <= maxLagNanos;
+    }
+
+    // Opens the shared connection of a replica if it has none, or replaces it if the replica was lost since
+    private Connection sharedConnection(Replica replica) {
+        int lostCount = replica.lostCount;
+        if (replica.connection != null && replica.connectionLostCount == lostCount)
+            return replica.connection;
+
+        Replica.close(replica.connection);
+        replica.connection = null;
+        try {
+            replica.connection = QueryStats.instrument(replica.dataSource.getConnection());
+            replica.connectionLostCount = lostCount;
+            return replica.connection;
+        } catch (SQLException e) {
+            fail(replica, e);
+            return null;
+        }
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            try {
+                if (replica.monitorConnection == null || !replica.monitorConnection.isValid(VALID_TIMEOUT_SECONDS)) {
+                    if (replica.monitorConnection != null)
+                        replica.lostCount++;
+                    Replica.close(replica.monitorConnection);
+                    replica.monitorConnection = null;
+                    replica.monitorConnection = replica.dataSource.getConnection();
+                }
+
+                long sampled = System.nanoTime();
+                double lag = readLag(replica.monitorConnection);
+                if (lag < 0)
+                    throw new SQLException("Replica is not replicating");
+
+                replica.caughtUpToNanos = sampled - (long) ((lag + 1) * 1_000_000_000);
+                succeed(replica);
+            } catch (SQLException e) {
+                fail(replica, e);
+            }
+        }
+    }
+
+    // Lets reads go to a replica, keeping a line when it was not being read from
+    private void succeed(Replica replica) {
+        if (!replica.isHealthy)
+            recentChanges.add(LocalDateTime.now() + " | Reading from replica " + replica.dataSource);
+        replica.isHealthy = true;
+        replica.isChecked = true;
+    }
+
+    // Stops reads from going to a replica until a check finds it fresh again, keeping a line only when it changes
+    private void fail(Replica replica, SQLException e) {
+        if (replica.isHealthy || !replica.isChecked)
+            recentChanges.add(LocalDateTime.now() + " | Not reading from replica " + replica.dataSource + " | " +
+                    e.toString().replace('\n', ' '));
+        replica.isHealthy = false;
+        replica.isChecked = true;
+    }
+
+    // Reads how many seconds a replica is behind, or -1 if it is not replicating
+    private double readLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+
+            if (!resultSet.next())
+                return -1;
+
+            int column = 1;
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                String label = metaData.getColumnLabel(i);
+                if (label.equalsIgnoreCase("Seconds_Behind_Source") || label.equalsIgnoreCase("Seconds_Behind_Master"))
+                    column = i;
+            }
+
+            double lag = resultSet.getDouble(column);
+            return resultSet.wasNull() ? -1 : lag;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this))
+            return iface.cast(this);
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * Class for a replica and what is known of its lag.
+     *
+     * <p> The monitor connection is only used by the checking thread, and the shared connection only by the thread
+     * reading from it. lostCount is how many times the check has found the replica's connection broken, and
+     * connectionLostCount is what it was when the shared connection was opened. </p>
+     */
+    private static class Replica {
+        private final DataSource dataSource;
+        private Connection monitorConnection;
+        private Connection connection;
+        private int connectionLostCount;
+        private volatile int lostCount;
+        private volatile long caughtUpToNanos;
+        private volatile boolean isHealthy = false;
+        private volatile boolean isChecked = false;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        void close() {
+            close(monitorConnection);
+            monitorConnection = null;
+            close(connection);
+            connection = null;
+        }
+
+        static void close(Connection connection) {
+            if (connection == null)
+                return;
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
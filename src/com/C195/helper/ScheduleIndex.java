@@ -0,0 +1,603 @@
+package com.C195.helper;
+
+import com.C195.event.AppointmentEvent;
+import com.C195.event.CustomerEvent;
+import com.C195.event.EventBus;
+import com.C195.model.Appointment;
+import com.C195.model.RecurrenceRule;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Class that keeps the booked times of customers, contacts, and users in memory.
+ *
+ * <p> This class lets the program find which appointments a customer, contact, or user already has at a given time
+ * without querying the database. Every customer, contact, and user has a list of their appointments' times sorted by
+ * start, so finding the appointments that overlap a time is a binary search and a short scan. The appointments are
+ * loaded from the database the first time they are needed and are kept up to date from the AppointmentEvents and
+ * CustomerEvents published on the EventBus, and loaded again after a screen is refreshed. </p>
+ * <p> Recurring appointments are kept apart, in a list of series for each customer, contact, and user, since their
+ * occurrences are not stored. The occurrences near a time are worked out from each series when the time is checked,
+ * so a series that runs for years costs no more than one appointment until it is looked at. </p>
+ * <p> AvailabilityStore keeps a bitmap of the same appointments for each business day and is updated here, so the
+ * two always agree. </p>
+ * <p> The database is still the final word on conflicts. DAOHelper.bookAppointment() checks again inside its
+ * transaction, since another computer may have booked a time this program has not heard about. </p>
+ */
+public abstract class ScheduleIndex {
+    private static IntObjectMap<Appointment> appointmentsByID;
+    private static final CacheStats cacheStats = new CacheStats();
+    private static final IntObjectMap<IntervalList>[] intervalsByResource = newResourceMaps();
+    private static final IntObjectMap<List<Appointment>>[] seriesByResource = newResourceMaps();
+
+    private static final EventBus.Subscription appointmentSubscription =
+            EventBus.subscribe(AppointmentEvent.class, ScheduleIndex::onAppointmentEvent);
+    private static final EventBus.Subscription customerSubscription =
+            EventBus.subscribe(CustomerEvent.class, ScheduleIndex::onCustomerEvent);
+
+    /**
+     * The things an appointment books, which cannot be booked twice at the same time.
+     */
+    public enum Resource {
+        /** The customer the appointment is for */
+        CUSTOMER("Customer_ID", "customer"),
+        /** The contact who runs the appointment */
+        CONTACT("Contact_ID", "contact"),
+        /** The user who booked the appointment */
+        USER("User_ID", "user");
+
+        private final String column;
+        private final String label;
+
+        Resource(String column, String label) {
+            this.column = column;
+            this.label = label;
+        }
+
+        /**
+         * Getter for column.
+         *
+         * <p> This is the getter for the column of the appointments table that holds the resource's ID. </p>
+         * @return Returns the name of the column
+         */
+        public String getColumn() {
+            return column;
+        }
+
+        /**
+         * Getter for label.
+         *
+         * <p> This is the getter for the name of the resource shown to the user. </p>
+         * @return Returns the name of the resource, such as "customer"
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Gets the ID of this resource that an appointment books.
+         *
+         * @param appointment The Appointment
+         * @return Returns the Customer, Contact, or User ID of the Appointment
+         */
+        public int idOf(Appointment appointment) {
+            switch (this) {
+                case CUSTOMER:
+                    return appointment.getCustomerID();
+                case CONTACT:
+                    return appointment.getContactID();
+                default:
+                    return appointment.getUserID();
+            }
+        }
+    }
+
+    /**
+     * Finds the appointments of a resource that overlap a time.
+     *
+     * <p> This method returns the IDs of the given resource's appointments that start before the given end and end
+     * after the given start, in order of their start times. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param start The start of the time
+     * @param end The end of the time
+     * @param excludeAppointmentID The ID of an appointment to leave out, such as the one being updated, or -1
+     * @return Returns the IDs of the overlapping appointments
+     */
+    public static synchronized int[] findOverlaps(Resource resource, int resourceID, LocalDateTime start,
+                                                  LocalDateTime end, int excludeAppointmentID) {
+        ensureLoaded();
+        IntervalList intervals = intervalsByResource[resource.ordinal()].get(resourceID);
+        List<Appointment> series = seriesByResource[resource.ordinal()].get(resourceID);
+        int[] found = intervals == null ? new int[0] :
+                intervals.findOverlaps(toKey(start), toKey(end), excludeAppointmentID);
+
+        if (series == null)
+            return found;
+
+        // Merge in the series with an occurrence at the time, keeping everything in order of start
+        List<Appointment> overlapping = new ArrayList<>();
+        for (int appointmentID : found)
+            overlapping.add(appointmentsByID.get(appointmentID));
+        for (Appointment appointment : series) {
+            if (appointment.getAppointmentID() == excludeAppointmentID)
+                continue;
+
+            List<Appointment> occurrences = appointment.occurrencesBetween(start, end);
+            if (!occurrences.isEmpty())
+                overlapping.add(occurrences.get(0));
+        }
+
+        overlapping.sort(Comparator.comparing(Appointment::getStartTime));
+        return overlapping.stream().mapToInt(Appointment::getAppointmentID).toArray();
+    }
+
+    /**
+     * Finds the appointments of a resource that overlap any occurrence of an appointment.
+     *
+     * <p> This method is findOverlaps() for an appointment that may repeat. Every occurrence of the appointment is
+     * checked, or for a series without an end those within RecurrenceRule.ENDLESS_HORIZON of its start. The
+     * appointment itself is left out by its ID. </p>
+     * @param resource The kind of resource
+     * @param appointment The Appointment, whose ID is -1 if it is not saved yet
+     * @return Returns the IDs of the overlapping appointments, each once
+     */
+    public static synchronized int[] findOverlaps(Resource resource, Appointment appointment) {
+        if (!appointment.isRecurring())
+            return findOverlaps(resource, resource.idOf(appointment), appointment.getStartTime(),
+                    appointment.getEndTime(), appointment.getAppointmentID());
+
+        ensureLoaded();
+        int resourceID = resource.idOf(appointment);
+        int appointmentID = appointment.getAppointmentID();
+        IntervalList intervals = intervalsByResource[resource.ordinal()].get(resourceID);
+        List<Appointment> series = seriesByResource[resource.ordinal()].get(resourceID);
+        IntStream.Builder found = IntStream.builder();
+
+        if (intervals != null) {
+            LocalDateTime first = appointment.getSeries().getStartTime();
+            LocalDateTime lastEnd = appointment.getLastEndTime();
+            for (Appointment occurrence : appointment.occurrencesBetween(first,
+                    lastEnd == null ? first.plus(RecurrenceRule.ENDLESS_HORIZON) : lastEnd)) {
+                for (int id : intervals.findOverlaps(toKey(occurrence.getStartTime()),
+                        toKey(occurrence.getEndTime()), appointmentID))
+                    found.add(id);
+            }
+        }
+
+        if (series != null) {
+            for (Appointment other : series) {
+                if (other.getAppointmentID() != appointmentID && appointment.overlaps(other))
+                    found.add(other.getAppointmentID());
+            }
+        }
+
+        return found.build().distinct().toArray();
+    }
+
+    /**
+     * Gets the times a resource is booked within a window.
+     *
+     * <p> This method returns the start and end of each of the resource's appointments that overlap the window, as
+     * pairs of keys from toKey() in one array: start, end, start, end, and so on, sorted by start. It is used by
+     * SlotFinder. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param windowStart The key of the start of the window
+     * @param windowEnd The key of the end of the window
+     * @param excludeAppointmentID The ID of an appointment to leave out, such as the one being updated, or -1
+     * @return Returns the booked times as start and end pairs
+     */
+    static synchronized long[] busyIntervals(Resource resource, int resourceID, long windowStart, long windowEnd,
+                                             int excludeAppointmentID) {
+        ensureLoaded();
+        IntervalList intervals = intervalsByResource[resource.ordinal()].get(resourceID);
+
+        if (intervals == null)
+            return new long[0];
+
+        return intervals.busyIntervals(windowStart, windowEnd, excludeAppointmentID);
+    }
+
+    /**
+     * Gets the times a resource's recurring appointments book within a window.
+     *
+     * <p> This method is busyIntervals() for the occurrences of the resource's series, which are not part of the
+     * AvailabilityStore bitmaps. The pairs are not sorted. </p>
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @param windowStart The key of the start of the window
+     * @param windowEnd The key of the end of the window
+     * @param excludeAppointmentID The ID of a series to leave out, such as the one being updated, or -1
+     * @return Returns the booked times as start and end pairs
+     */
+    static synchronized long[] seriesIntervals(Resource resource, int resourceID, long windowStart, long windowEnd,
+                                               int excludeAppointmentID) {
+        ensureLoaded();
+        List<Appointment> series = seriesByResource[resource.ordinal()].get(resourceID);
+
+        if (series == null)
+            return new long[0];
+
+        LongStream.Builder busy = LongStream.builder();
+        for (Appointment appointment : series) {
+            if (appointment.getAppointmentID() == excludeAppointmentID)
+                continue;
+
+            for (Appointment occurrence : appointment.occurrencesBetween(fromKey(windowStart), fromKey(windowEnd))) {
+                busy.add(toKey(occurrence.getStartTime()));
+                busy.add(toKey(occurrence.getEndTime()));
+            }
+        }
+
+        return busy.build().toArray();
+    }
+
+    /**
+     * Checks if a resource has recurring appointments.
+     *
+     * @param resource The kind of resource
+     * @param resourceID The ID of the Customer, Contact, or User
+     * @return Returns true if the resource has at least one series
+     */
+    static synchronized boolean hasSeries(Resource resource, int resourceID) {
+        ensureLoaded();
+        return seriesByResource[resource.ordinal()].get(resourceID) != null;
+    }
+
+    /**
+     * Discards the appointments kept in memory.
+     *
+     * <p> This method is called when a screen reads its appointments or customers from the database again, by its
+     * Refresh button or because events were dropped, so appointments saved on other computers are seen by conflict
+     * checks, SlotFinder, and AutoScheduler from then on. The appointments, and the AvailabilityStore bitmaps, are
+     * loaded again the next time they are needed. </p>
+     */
+    public static synchronized void invalidate() {
+        appointmentsByID = null;
+        for (IntObjectMap<IntervalList> intervals : intervalsByResource)
+            intervals.clear();
+        for (IntObjectMap<List<Appointment>> series : seriesByResource)
+            series.clear();
+
+        AvailabilityStore.cleared();
+    }
+
+    /**
+     * Loads the appointments if they are not in memory yet.
+     *
+     * <p> This method is used by AvailabilityStore, whose bitmaps are built as the appointments are loaded. </p>
+     */
+    static synchronized void load() {
+        ensureLoaded();
+    }
+
+    /**
+     * Getter for cache stats.
+     *
+     * @return Returns the CacheStats of the appointments, with a hit for each lookup that found them in memory
+     */
+    static CacheStats getCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * Gets how many appointments are in memory.
+     *
+     * @return Returns the number of appointments loaded, or 0 if they have not been loaded
+     */
+    static synchronized int getAppointmentCount() {
+        return appointmentsByID == null ? 0 : appointmentsByID.size();
+    }
+
+    private static void ensureLoaded() {
+        if (appointmentsByID != null) {
+            cacheStats.hit();
+            return;
+        }
+
+        cacheStats.miss();
+        List<Appointment> appointments = new ArrayList<>();
+
+        // Read on a connection of its own, since AutoScheduler loads the appointments off the FX thread
+        try (Connection connection = JDBC.createReadConnection()) {
+            appointments.addAll(DAOHelper.getAllAppointments(connection));
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+        appointmentsByID = IntObjectMap.index(appointments, Appointment::getAppointmentID);
+
+        // Sorted once by start, so each appointment is appended to its lists and bitmaps rather than inserted
+        appointments.sort(Comparator.comparing(Appointment::getStartTime));
+        for (Appointment appointment : appointments) {
+            if (appointment.isRecurring()) {
+                add(appointment);
+                continue;
+            }
+
+            long start = toKey(appointment.getStartTime());
+            long end = toKey(appointment.getEndTime());
+
+            for (Resource resource : Resource.values()) {
+                IntObjectMap<IntervalList> intervals = intervalsByResource[resource.ordinal()];
+                IntervalList list = intervals.get(resource.idOf(appointment));
+
+                if (list == null) {
+                    list = new IntervalList();
+                    intervals.put(resource.idOf(appointment), list);
+                }
+
+                list.append(start, end, appointment.getAppointmentID());
+                AvailabilityStore.added(resource, resource.idOf(appointment), start, end);
+            }
+        }
+    }
+
+    private static synchronized void onAppointmentEvent(AppointmentEvent event) {
+        // Nothing to patch if the appointments have not been loaded yet
+        if (appointmentsByID == null)
+            return;
+
+        Appointment previous = appointmentsByID.remove(event.getEntityID());
+        if (previous != null)
+            remove(previous);
+
+        if (event.getAppointment() != null) {
+            appointmentsByID.put(event.getEntityID(), event.getAppointment());
+            add(event.getAppointment());
+        }
+    }
+
+    private static synchronized void onCustomerEvent(CustomerEvent event) {
+        // Deleting a customer deletes its appointments, which are not announced with their own events
+        if (appointmentsByID == null || event.getCustomer() != null)
+            return;
+
+        IntervalList intervals = intervalsByResource[Resource.CUSTOMER.ordinal()].get(event.getEntityID());
+        List<Appointment> series = seriesByResource[Resource.CUSTOMER.ordinal()].get(event.getEntityID());
+        IntStream.Builder appointmentIDs = IntStream.builder();
+
+        if (intervals != null)
+            IntStream.of(intervals.appointmentIDs()).forEach(appointmentIDs);
+        if (series != null)
+            series.forEach(appointment -> appointmentIDs.add(appointment.getAppointmentID()));
+
+        for (int appointmentID : appointmentIDs.build().toArray()) {
+            Appointment appointment = appointmentsByID.remove(appointmentID);
+            if (appointment != null)
+                remove(appointment);
+        }
+    }
+
+    private static void add(Appointment appointment) {
+        if (appointment.isRecurring()) {
+            for (Resource resource : Resource.values()) {
+                IntObjectMap<List<Appointment>> series = seriesByResource[resource.ordinal()];
+                List<Appointment> list = series.get(resource.idOf(appointment));
+
+                if (list == null) {
+                    list = new ArrayList<>();
+                    series.put(resource.idOf(appointment), list);
+                }
+
+                list.add(appointment);
+            }
+            return;
+        }
+
+        long start = toKey(appointment.getStartTime());
+        long end = toKey(appointment.getEndTime());
+
+        for (Resource resource : Resource.values()) {
+            IntObjectMap<IntervalList> intervals = intervalsByResource[resource.ordinal()];
+            IntervalList list = intervals.get(resource.idOf(appointment));
+
+            if (list == null) {
+                list = new IntervalList();
+                intervals.put(resource.idOf(appointment), list);
+            }
+
+            list.add(start, end, appointment.getAppointmentID());
+            AvailabilityStore.added(resource, resource.idOf(appointment), start, end);
+        }
+    }
+
+    private static void remove(Appointment appointment) {
+        if (appointment.isRecurring()) {
+            for (Resource resource : Resource.values()) {
+                IntObjectMap<List<Appointment>> series = seriesByResource[resource.ordinal()];
+                List<Appointment> list = series.get(resource.idOf(appointment));
+
+                if (list != null && list.removeIf(other -> other.getAppointmentID() == appointment.getAppointmentID())
+                        && list.isEmpty())
+                    series.remove(resource.idOf(appointment));
+            }
+            return;
+        }
+
+        for (Resource resource : Resource.values()) {
+            IntObjectMap<IntervalList> intervals = intervalsByResource[resource.ordinal()];
+            IntervalList list = intervals.get(resource.idOf(appointment));
+
+            if (list == null || !list.remove(appointment.getAppointmentID()))
+                continue;
+
+            if (list.size == 0)
+                intervals.remove(resource.idOf(appointment));
+
+            AvailabilityStore.removed(resource, resource.idOf(appointment), toKey(appointment.getStartTime()),
+                    toKey(appointment.getEndTime()));
+        }
+    }
+
+    // Times are compared as seconds. The offset does not matter as long as it is the same for every time.
+    static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    static LocalDateTime fromKey(long key) {
+        return LocalDateTime.ofEpochSecond(key, 0, ZoneOffset.UTC);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> IntObjectMap<T>[] newResourceMaps() {
+        IntObjectMap<T>[] maps = (IntObjectMap<T>[]) new IntObjectMap<?>[Resource.values().length];
+        for (int i = 0; i < maps.length; i++)
+            maps[i] = new IntObjectMap<>();
+        return maps;
+    }
+
+    /**
+     * Class for the appointment times of one resource, sorted by start.
+     *
+     * <p> maxEnds[i] is the latest end of the first i + 1 intervals. Scanning back from the last interval that starts
+     * before a time can stop as soon as maxEnds shows that no earlier interval reaches the time. </p>
+     */
+    private static class IntervalList {
+        private long[] starts = new long[4];
+        private long[] ends = new long[4];
+        private long[] maxEnds = new long[4];
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(long start, long end, int appointmentID) {
+            grow();
+
+            // Insert after every interval that starts at or before this one
+            int index = upperBound(start);
+            int moved = size - index;
+            System.arraycopy(starts, index, starts, index + 1, moved);
+            System.arraycopy(ends, index, ends, index + 1, moved);
+            System.arraycopy(ids, index, ids, index + 1, moved);
+
+            starts[index] = start;
+            ends[index] = end;
+            ids[index] = appointmentID;
+            size++;
+            updateMaxEnds(index);
+        }
+
+        // Adds an interval that starts at or after every interval in the list, when the list is first built
+        void append(long start, long end, int appointmentID) {
+            grow();
+
+            starts[size] = start;
+            ends[size] = end;
+            ids[size] = appointmentID;
+            maxEnds[size] = size == 0 ? end : Math.max(maxEnds[size - 1], end);
+            size++;
+        }
+
+        boolean remove(int appointmentID) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] != appointmentID)
+                    continue;
+
+                int moved = size - i - 1;
+                System.arraycopy(starts, i + 1, starts, i, moved);
+                System.arraycopy(ends, i + 1, ends, i, moved);
+                System.arraycopy(ids, i + 1, ids, i, moved);
+                size--;
+                updateMaxEnds(i);
+                return true;
+            }
+
+            return false;
+        }
+
+        int[] findOverlaps(long start, long end, int excludeAppointmentID) {
+            int[] found = new int[0];
+            int count = 0;
+
+            // Intervals from index on start at or after end, so they cannot overlap
+            for (int i = upperBound(end - 1) - 1; i >= 0 && maxEnds[i] > start; i--) {
+                if (ends[i] > start && ids[i] != excludeAppointmentID) {
+                    if (count == found.length)
+                        found = Arrays.copyOf(found, Math.max(4, count * 2));
+                    found[count++] = ids[i];
+                }
+            }
+
+            // Found from the latest start back, so reverse to give them in order of start
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++)
+                result[i] = found[count - 1 - i];
+            return result;
+        }
+
+        long[] busyIntervals(long windowStart, long windowEnd, int excludeAppointmentID) {
+            // maxEnds only grows, so the intervals before the first one whose maxEnd passes windowStart all end
+            // before the window
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (maxEnds[middle] <= windowStart)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            int last = upperBound(windowEnd - 1);
+            long[] busy = new long[Math.max(0, last - low) * 2];
+            int count = 0;
+
+            for (int i = low; i < last; i++) {
+                if (ends[i] > windowStart && ids[i] != excludeAppointmentID) {
+                    busy[count++] = starts[i];
+                    busy[count++] = ends[i];
+                }
+            }
+
+            return count == busy.length ? busy : Arrays.copyOf(busy, count);
+        }
+
+        int[] appointmentIDs() {
+            return Arrays.copyOf(ids, size);
+        }
+
+        // Returns the index of the first interval that starts after the given time
+        private int upperBound(long time) {
+            int low = 0;
+            int high = size;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] <= time)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            return low;
+        }
+
+        private void grow() {
+            if (size < starts.length)
+                return;
+
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            maxEnds = Arrays.copyOf(maxEnds, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+
+        private void updateMaxEnds(int from) {
+            long max = from == 0 ? Long.MIN_VALUE : maxEnds[from - 1];
+            for (int i = from; i < size; i++) {
+                max = Math.max(max, ends[i]);
+                maxEnds[i] = max;
+            }
+        }
+    }
+}
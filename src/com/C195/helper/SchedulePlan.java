@@ -0,0 +1,69 @@
+package com.C195.helper;
+
+import com.C195.model.Appointment;
+import com.C195.model.AppointmentDemand;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class for the outcome of scheduling many appointments at once.
+ *
+ * <p> This class is returned by AutoScheduler.plan(). It holds an Appointment for each AppointmentDemand that could
+ * be placed, none of which overlap each other or the appointments already booked, and the demands that could not be
+ * placed. Nothing is saved until the appointments are passed to DAOHelper.addAppointments(). </p>
+ */
+public class SchedulePlan {
+    private final List<Appointment> appointments;
+    private final List<AppointmentDemand> unplaced;
+    private final int preferredCount;
+
+    /**
+     * Constructor for SchedulePlan.
+     *
+     * <p> This is the constructor for the SchedulePlan class. </p>
+     * @param appointments The appointments that were placed, in the order of their demands
+     * @param unplaced The demands that could not be placed, in their original order
+     * @param preferredCount How many of the appointments were given to the most preferred contact of their demand
+     */
+    SchedulePlan(List<Appointment> appointments, List<AppointmentDemand> unplaced, int preferredCount) {
+        this.appointments = Collections.unmodifiableList(appointments);
+        this.unplaced = Collections.unmodifiableList(unplaced);
+        this.preferredCount = preferredCount;
+    }
+
+    /**
+     * Getter for appointments.
+     *
+     * <p> This is the getter for the appointments that were placed. Their IDs are -1 until they are saved. </p>
+     * @return Returns the placed Appointments
+     */
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    /**
+     * Getter for unplaced demands.
+     *
+     * <p> This is the getter for the demands that had no time in their window when their customer, a contact they
+     * allow, and their user were all free within business hours. </p>
+     * @return Returns the AppointmentDemands that could not be placed
+     */
+    public List<AppointmentDemand> getUnplaced() {
+        return unplaced;
+    }
+
+    /**
+     * Getter for preferred count.
+     *
+     * @return Returns how many appointments were given to the most preferred contact of their demand
+     */
+    public int getPreferredCount() {
+        return preferredCount;
+    }
+
+    @Override
+    public String toString() {
+        return appointments.size() + " placed, " + unplaced.size() + " unplaced, " + preferredCount + " preferred";
+    }
+}
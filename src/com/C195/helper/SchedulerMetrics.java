@@ -0,0 +1,453 @@
+package com.C195.helper;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Class that publishes the app's runtime metrics over JMX.
+ *
+ * <p> This class registers MXBeans in the platform MBean server under the com.C195 domain, so the same JMX collectors
+ * used for other JVMs can read them without changes. They are the connection and statement counts in DatabaseMXBean,
+ * the timings of each DAOHelper method in a DaoOperationMXBean, the hits and sizes of the caches in a CacheMXBean,
+ * the load times of each screen in a ScreenMXBean, the log-in attempts in LoginMXBean, and the stalls found by
+ * StallWatchdog in FxThreadMXBean. Every attribute is a number, a boolean, or a String. The MXBeans read the counters
+ * kept by QueryStats and the caches when they are asked, so nothing is computed while nobody is watching. DAOHelper
+ * methods and screens get their MXBean the first time they are used. </p>
+ */
+public abstract class SchedulerMetrics {
+    private static final String DOMAIN = "com.C195";
+
+    // Longest the Database MXBean waits for the database to answer when asked if the connection is valid
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+
+    private static final Set<String> registeredOperations = ConcurrentHashMap.newKeySet();
+    private static final ConcurrentHashMap<String, Screen> screens = new ConcurrentHashMap<>();
+    private static final Database database = new Database();
+    private static final Login login = new Login();
+    private static final FxThread fxThread = new FxThread();
+    private static Map<String, CacheMXBean> caches;
+    private static volatile boolean isRegistered;
+
+    /**
+     * Registers the MXBeans.
+     *
+     * <p> This method is called once when the app starts. The DAOHelper methods and screens used before it was called
+     * get their MXBeans now, and the ones used later get theirs when they are first used. </p>
+     */
+    public static synchronized void register() {
+        if (isRegistered)
+            return;
+        isRegistered = true;
+
+        register("type=Database", database);
+        register("type=Login", login);
+        register("type=FxThread", fxThread);
+        getCaches().forEach((name, cache) -> register("type=Cache,name=" + name, cache));
+
+        QueryStats.getOperations().forEach(stats -> operationAdded(stats.getOperation()));
+        screens.forEach(SchedulerMetrics::registerScreen);
+    }
+
+    /**
+     * Getter for database.
+     *
+     * @return Returns the DatabaseMXBean, for reading it without JMX
+     */
+    static DatabaseMXBean getDatabase() {
+        return database;
+    }
+
+    /**
+     * Getter for fx thread.
+     *
+     * @return Returns the FxThreadMXBean, for reading it without JMX
+     */
+    static FxThreadMXBean getFxThread() {
+        return fxThread;
+    }
+
+    /**
+     * Gets the caches.
+     *
+     * <p> This method builds the list of caches the first time it is called, rather than when this class is loaded,
+     * since the classes owning them may be in the middle of loading. </p>
+     * @return Returns the CacheMXBean of each cache by its name, such as "Appointments", in a fixed order
+     */
+    static synchronized Map<String, CacheMXBean> getCaches() {
+        if (caches == null) {
+            caches = new LinkedHashMap<>();
+            caches.put("Appointments", new Cache(ScheduleIndex.getCacheStats(), ScheduleIndex::getAppointmentCount));
+            caches.put("Customers", new Cache(NameCache.getCustomerStats(), NameCache::getCustomerCount));
+            caches.put("Contacts", new Cache(NameCache.getContactStats(), NameCache::getContactCount));
+            caches.put("Users", new Cache(NameCache.getUserStats(), NameCache::getUserCount));
+            caches.put("Countries", new Cache(NameCache.getCountryStats(), NameCache::getCountryCount));
+            caches.put("Screens", new Cache(NavigationHelper.getCacheStats(), NavigationHelper::getCachedSceneCount));
+        }
+
+        return caches;
+    }
+
+    /**
+     * Records how long a screen took to load.
+     *
+     * @param screen The name of the screen, such as "CustomerInfo"
+     * @param nanos How long the screen took to build, in nanoseconds
+     */
+    public static void screenLoaded(String screen, long nanos) {
+        Screen stats = screens.get(screen);
+        if (stats == null) {
+            Screen created = new Screen();
+            stats = screens.putIfAbsent(screen, created);
+            if (stats == null) {
+                stats = created;
+                if (isRegistered)
+                    registerScreen(screen, created);
+            }
+        }
+
+        stats.record(nanos);
+    }
+
+    /**
+     * Records a log-in attempt that logged in.
+     */
+    public static void loginSucceeded() {
+        login.successes.increment();
+    }
+
+    /**
+     * Records a log-in attempt that failed.
+     *
+     * @param isUserNameValid True if the user ID exists and the password was wrong, false if the user ID does not exist
+     */
+    public static void loginFailed(boolean isUserNameValid) {
+        (isUserNameValid ? login.invalidPasswords : login.invalidUsers).increment();
+    }
+
+    /**
+     * Registers the MXBean of a DAOHelper method.
+     *
+     * <p> This method is called by QueryStats whenever it first sees a statement of a method. The method gets an MXBean
+     * the first time only, and only once register() has been called. </p>
+     * @param operation The method, such as "DAOHelper.getAllAppointments"
+     */
+    static void operationAdded(String operation) {
+        if (isRegistered && registeredOperations.add(operation))
+            register("type=DaoOperation,name=" + operation, new DaoOperation(operation));
+    }
+
+    private static void registerScreen(String screen, Screen stats) {
+        register("type=Screen,name=" + screen, stats);
+    }
+
+    private static void register(String properties, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (!server.isRegistered(name))
+                server.registerMBean(bean, name);
+        } catch (JMException | SecurityException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1_000_000;
+    }
+
+    // The shared connection from JDBC and the statement counts from QueryStats
+    private static class Database implements DatabaseMXBean {
+        @Override
+        public boolean isConnected() {
+            try {
+                return JDBC.connection != null && !JDBC.connection.isClosed();
+            } catch (SQLException throwables) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean isValid() {
+            try {
+                return JDBC.connection != null && JDBC.connection.isValid(VALID_TIMEOUT_SECONDS);
+            } catch (SQLException throwables) {
+                return false;
+            }
+        }
+
+        @Override
+        public long getConnectionsOpened() {
+            return QueryStats.getConnectionsOpened();
+        }
+
+        @Override
+        public long getOpenConnections() {
+            return QueryStats.getOpenConnections();
+        }
+
+        @Override
+        public long getStatements() {
+            return sum(OperationStats::getCalls);
+        }
+
+        @Override
+        public long getStatementErrors() {
+            return sum(OperationStats::getErrors);
+        }
+
+        @Override
+        public long getSlowStatements() {
+            return QueryStats.getSlowStatements();
+        }
+
+        @Override
+        public long getSlowQueryThresholdMillis() {
+            return QueryStats.getSlowQueryThreshold().toMillis();
+        }
+
+        @Override
+        public void setSlowQueryThresholdMillis(long millis) {
+            QueryStats.setSlowQueryThreshold(Duration.ofMillis(millis));
+        }
+
+        @Override
+        public void resetStatistics() {
+            QueryStats.reset();
+        }
+
+        private static long sum(ToLongFunction<OperationStats> counter) {
+            return QueryStats.getOperations().stream().mapToLong(counter).sum();
+        }
+    }
+
+    // The statements of one DAOHelper method, added up from its OperationStats each time an attribute is read
+    private static class DaoOperation implements DaoOperationMXBean {
+        private final String operation;
+
+        DaoOperation(String operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public long getStatements() {
+            return sum(OperationStats::getCalls);
+        }
+
+        @Override
+        public long getErrors() {
+            return sum(OperationStats::getErrors);
+        }
+
+        @Override
+        public long getRows() {
+            return sum(OperationStats::getRows);
+        }
+
+        @Override
+        public long getBytes() {
+            return sum(OperationStats::getBytes);
+        }
+
+        @Override
+        public double getTotalMillis() {
+            return toMillis(sum(stats -> stats.getLatency().getTotalNanos()));
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return toMillis(latency().getMeanNanos());
+        }
+
+        @Override
+        public double getP50Millis() {
+            return toMillis(latency().getPercentileNanos(50));
+        }
+
+        @Override
+        public double getP95Millis() {
+            return toMillis(latency().getPercentileNanos(95));
+        }
+
+        @Override
+        public double getP99Millis() {
+            return toMillis(latency().getPercentileNanos(99));
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return toMillis(latency().getMaxNanos());
+        }
+
+        private long sum(ToLongFunction<OperationStats> counter) {
+            return QueryStats.getOperations(operation).stream().mapToLong(counter).sum();
+        }
+
+        private LatencyHistogram latency() {
+            LatencyHistogram latency = new LatencyHistogram();
+            for (OperationStats stats : QueryStats.getOperations(operation))
+                latency.add(stats.getLatency());
+            return latency;
+        }
+    }
+
+    // One cache, with its size read from the class that owns it
+    private static class Cache implements CacheMXBean {
+        private final CacheStats stats;
+        private final IntSupplier size;
+
+        Cache(CacheStats stats, IntSupplier size) {
+            this.stats = stats;
+            this.size = size;
+        }
+
+        @Override
+        public long getHits() {
+            return stats.getHits();
+        }
+
+        @Override
+        public long getMisses() {
+            return stats.getMisses();
+        }
+
+        @Override
+        public double getHitRatio() {
+            return stats.getHitRatio();
+        }
+
+        @Override
+        public int getSize() {
+            return size.getAsInt();
+        }
+    }
+
+    // The load times of one screen
+    private static class Screen implements ScreenMXBean {
+        private final LatencyHistogram loads = new LatencyHistogram();
+        private volatile long lastNanos;
+
+        void record(long nanos) {
+            loads.record(nanos);
+            lastNanos = nanos;
+        }
+
+        @Override
+        public long getLoads() {
+            return loads.getCount();
+        }
+
+        @Override
+        public double getLastLoadMillis() {
+            return toMillis(lastNanos);
+        }
+
+        @Override
+        public double getMeanLoadMillis() {
+            return toMillis(loads.getMeanNanos());
+        }
+
+        @Override
+        public double getP95LoadMillis() {
+            return toMillis(loads.getPercentileNanos(95));
+        }
+
+        @Override
+        public double getMaxLoadMillis() {
+            return toMillis(loads.getMaxNanos());
+        }
+    }
+
+    // The heartbeats and stalls recorded by StallWatchdog
+    private static class FxThread implements FxThreadMXBean {
+        @Override
+        public double getHeartbeatP50Millis() {
+            return toMillis(StallWatchdog.getHeartbeatLatency().getPercentileNanos(50));
+        }
+
+        @Override
+        public double getHeartbeatP99Millis() {
+            return toMillis(StallWatchdog.getHeartbeatLatency().getPercentileNanos(99));
+        }
+
+        @Override
+        public double getHeartbeatMaxMillis() {
+            return toMillis(StallWatchdog.getHeartbeatLatency().getMaxNanos());
+        }
+
+        @Override
+        public long getStalls() {
+            return StallWatchdog.getStallSites().stream().mapToLong(StallSite::getStalls).sum();
+        }
+
+        @Override
+        public double getStallMillis() {
+            return toMillis(StallWatchdog.getStallSites().stream().mapToLong(StallSite::getTotalNanos).sum());
+        }
+
+        @Override
+        public String getWorstStallSite() {
+            List<StallSite> sites = StallWatchdog.getStallSites();
+            return sites.isEmpty() ? "" : sites.get(0).getSite();
+        }
+
+        @Override
+        public long getStallThresholdMillis() {
+            return StallWatchdog.getStallThreshold().toMillis();
+        }
+
+        @Override
+        public void setStallThresholdMillis(long millis) {
+            StallWatchdog.setStallThreshold(Duration.ofMillis(millis));
+        }
+    }
+
+    // The log-in attempts recorded by LoginScreen
+    private static class Login implements LoginMXBean {
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder invalidUsers = new LongAdder();
+        private final LongAdder invalidPasswords = new LongAdder();
+
+        @Override
+        public long getAttempts() {
+            return successes.sum() + getFailures();
+        }
+
+        @Override
+        public long getSuccesses() {
+            return successes.sum();
+        }
+
+        @Override
+        public long getFailures() {
+            return invalidUsers.sum() + invalidPasswords.sum();
+        }
+
+        @Override
+        public long getInvalidUserFailures() {
+            return invalidUsers.sum();
+        }
+
+        @Override
+        public long getInvalidPasswordFailures() {
+            return invalidPasswords.sum();
+        }
+
+        @Override
+        public double getSuccessRatio() {
+            long attempts = getAttempts();
+            return attempts == 0 ? 0 : (double) successes.sum() / attempts;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.C195.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one screen being shown by NavigationHelper.
+ *
+ * <p> This event lasts from when NavigationHelper starts building a screen until the screen is first laid out, and
+ * splits that time into building the screen, the statements its controller ran while it was built, and waiting for the
+ * first layout. A slow FXML file and a slow query then show up in different fields. </p>
+ */
+@Name("com.C195.ScreenLoad")
+@Label("Screen Load")
+@Category({"Scheduler", "Screens"})
+@Description("A screen being built and shown, until it was first laid out")
+class ScreenLoadEvent extends jdk.jfr.Event {
+    @Label("Screen")
+    String screen;
+
+    @Label("Cached")
+    @Description("True if the scene was kept from before and shown without building it")
+    boolean cached;
+
+    @Label("FXML Load")
+    @Description("Time to load the FXML file, or build the controls of a screen without one, and run its " +
+            "controller, not counting its statements")
+    @Timespan
+    long fxmlLoad;
+
+    @Label("Data Load")
+    @Description("Time the statements run while the screen was built took")
+    @Timespan
+    long dataLoad;
+
+    @Label("First Render")
+    @Description("Time from the screen being built until the first pulse laid it out to be drawn")
+    @Timespan
+    long firstRender;
+}
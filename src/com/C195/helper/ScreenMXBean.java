@@ -0,0 +1,45 @@
+package com.C195.helper;
+
+/**
+ * Management interface for the load times of one screen.
+ *
+ * <p> This interface is published over JMX as com.C195:type=Screen,name=... by SchedulerMetrics, once the screen has
+ * been loaded by NavigationHelper. A load is the time to build the screen, including the queries its controller runs
+ * to fill it. Showing a screen kept in the scene cache is not a load. </p>
+ */
+public interface ScreenMXBean {
+    /**
+     * Getter for loads.
+     *
+     * @return Returns how many times the screen was loaded
+     */
+    long getLoads();
+
+    /**
+     * Getter for last load millis.
+     *
+     * @return Returns how many milliseconds the last load took
+     */
+    double getLastLoadMillis();
+
+    /**
+     * Getter for mean load millis.
+     *
+     * @return Returns the mean milliseconds a load took
+     */
+    double getMeanLoadMillis();
+
+    /**
+     * Getter for p95 load millis.
+     *
+     * @return Returns the milliseconds 95% of loads were within
+     */
+    double getP95LoadMillis();
+
+    /**
+     * Getter for max load millis.
+     *
+     * @return Returns the milliseconds the longest load took
+     */
+    double getMaxLoadMillis();
+}
@@ -0,0 +1,120 @@
+package com.C195.helper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that finds open times for new appointments.
+ *
+ * <p> This class finds the earliest times within business hours when a customer, a contact, and optionally a user
+ * are all free for an appointment of a given length. For each business day it ORs their AvailabilityStore bitmaps,
+ * keeps the slots BusinessCalendar has open for the contact and location, and looks for runs of open 5 minute slots
+ * long enough for the appointment. The search is a handful of bitwise operations per day, no matter how many
+ * appointments the contact has. </p>
+ */
+public abstract class SlotFinder {
+
+    /**
+     * Finds the earliest open times for an appointment.
+     *
+     * <p> This method returns the start times of up to count appointments of the given length that fall within
+     * the business hours of the contact and location on the given dates and do not overlap any appointment of the customer, contact, or user. Times
+     * before now are skipped. Times start on the 5 minute steps the appointment form uses. Within one stretch of open
+     * time the suggestions are placed back to back, so they are separate choices rather than the same time shifted by
+     * a few minutes. </p>
+     * @param customerID The ID of the Customer
+     * @param contactID The ID of the Contact
+     * @param location The location of the appointment, or null
+     * @param userID The ID of the User, or -1 to ignore the user's appointments
+     * @param length The length of the appointment
+     * @param firstDate The first date to search, in the user's time zone
+     * @param lastDate The last date to search, in the user's time zone
+     * @param count The most start times to return
+     * @param excludeAppointmentID The ID of the appointment being moved, whose own time does not count as busy, or -1
+     * @return Returns the start times in the user's time zone, earliest first
+     */
+    public static List<LocalDateTime> findFreeSlots(int customerID, int contactID, String location, int userID,
+                                                    Duration length, LocalDate firstDate, LocalDate lastDate, int count,
+                                                    int excludeAppointmentID) {
+        List<LocalDateTime> slots = new ArrayList<>();
+        long slotSeconds = AvailabilityStore.SLOT_MINUTES * 60L;
+        int slotsNeeded = (int) ((length.getSeconds() + slotSeconds - 1) / slotSeconds);
+
+        if (count <= 0 || slotsNeeded <= 0 || slotsNeeded > AvailabilityStore.SLOTS_PER_DAY ||
+                lastDate.isBefore(firstDate))
+            return slots;
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = firstDate.atStartOfDay().isAfter(now) ? firstDate.atStartOfDay() : now;
+        LocalDateTime windowEnd = lastDate.plusDays(1).atStartOfDay();
+
+        // Business hours are in the business's time zone, so the business day can fall on either side of a local date
+        LocalDate lastBusinessDate = AvailabilityStore.businessDate(windowEnd.minusSeconds(1));
+        for (LocalDate date = AvailabilityStore.businessDate(windowStart); !date.isAfter(lastBusinessDate);
+             date = date.plusDays(1)) {
+
+            long[] open = AvailabilityStore.openSlots(AvailabilityStore.getBookedSlots(customerID, contactID, userID,
+                    date, excludeAppointmentID), BusinessCalendar.openSlots(contactID, location, date.toEpochDay()));
+            long[] window = AvailabilityStore.slotMask(AvailabilityStore.firstSlotFrom(date, windowStart),
+                    AvailabilityStore.slotsEndedBy(date, windowEnd));
+
+            for (int word = 0; word < open.length; word++)
+                open[word] &= window[word];
+            long[] starts = runStarts(open, slotsNeeded);
+
+            // Take the earliest start, then the next one that begins after it ends
+            int slot = nextSetBit(starts, 0);
+            while (slot >= 0) {
+                slots.add(AvailabilityStore.slotStart(date, slot));
+                if (slots.size() == count)
+                    return slots;
+
+                slot = nextSetBit(starts, slot + slotsNeeded);
+            }
+        }
+
+        return slots;
+    }
+
+    // Returns the bits that begin a run of at least length set bits, treating the words as one number with the first
+    // word lowest. Each step ANDs the bits with themselves shifted down, doubling the run length checked, so it takes
+    // about log2(length) steps.
+    static long[] runStarts(long[] bits, int length) {
+        int checked = 1;
+
+        while (checked < length) {
+            int shift = Math.min(checked, length - checked);
+            int wordShift = shift / 64;
+            int bitShift = shift % 64;
+
+            for (int word = 0; word < bits.length; word++) {
+                long low = word + wordShift < bits.length ? bits[word + wordShift] : 0;
+                long high = word + wordShift + 1 < bits.length ? bits[word + wordShift + 1] : 0;
+                long shifted = bitShift == 0 ? low : (low >>> bitShift) | (high << (64 - bitShift));
+
+                // Words are shifted down, so each one only reads words that have not been changed yet
+                bits[word] &= shifted;
+            }
+            checked += shift;
+        }
+
+        return bits;
+    }
+
+    // Returns the index of the first set bit at or after from in the words, or -1 if there is none
+    static int nextSetBit(long[] words, int from) {
+        for (int word = from / 64; word < words.length; word++) {
+            long bits = words[word];
+            if (word == from / 64)
+                bits &= -1L << (from % 64);
+
+            if (bits != 0)
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+        }
+
+        return -1;
+    }
+}
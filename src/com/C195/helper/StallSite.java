@@ -0,0 +1,91 @@
+package com.C195.helper;
+
+/**
+ * Class for the stalls of the FX thread at one place in the code.
+ *
+ * <p> This class holds how many times StallWatchdog found the FX thread blocked at one line of the app's code, and
+ * for how long, so the places that freeze the screen most can be ranked. It is kept up to date by StallWatchdog. </p>
+ */
+public class StallSite {
+    private final String site;
+    private final LatencyHistogram durations = new LatencyHistogram();
+    private volatile String operation;
+    private volatile String stack;
+
+    /**
+     * Constructor for StallSite.
+     *
+     * <p> This is the constructor for the StallSite class. </p>
+     * @param site The line of code the FX thread was blocked at, such as "DAOHelper.getAllAppointments:210"
+     */
+    StallSite(String site) {
+        this.site = site;
+    }
+
+    /**
+     * Records one stall.
+     *
+     * @param nanos How long the FX thread was blocked
+     * @param operation The DAOHelper method the FX thread was running, or an empty String
+     * @param stack The stack of the FX thread when it was found blocked
+     */
+    void record(long nanos, String operation, String stack) {
+        durations.record(nanos);
+        this.operation = operation;
+        this.stack = stack;
+    }
+
+    /**
+     * Getter for site.
+     *
+     * @return Returns the line of code the FX thread was blocked at
+     */
+    public String getSite() {
+        return site;
+    }
+
+    /**
+     * Getter for operation.
+     *
+     * @return Returns the DAOHelper method the FX thread was running the last time, or an empty String
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Getter for stack.
+     *
+     * @return Returns the stack of the FX thread the last time, one frame per line
+     */
+    public String getStack() {
+        return stack;
+    }
+
+    /**
+     * Getter for durations.
+     *
+     * @return Returns the LatencyHistogram of how long the stalls lasted
+     */
+    public LatencyHistogram getDurations() {
+        return durations;
+    }
+
+    /**
+     * Getter for stalls.
+     *
+     * @return Returns how many times the FX thread was blocked here
+     */
+    public long getStalls() {
+        return durations.getCount();
+    }
+
+    /**
+     * Getter for total nanos.
+     *
+     * @return Returns how long the FX thread was blocked here in total, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return durations.getTotalNanos();
+    }
+}
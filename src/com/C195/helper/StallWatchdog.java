@@ -0,0 +1,262 @@
+package com.C195.helper;
+
+import javafx.application.Platform;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class that watches the FX thread for stalls.
+ *
+ * <p> This class posts a heartbeat to the FX thread every 100 ms with Platform.runLater() and times how long it waits
+ * to run, which is how long the screen could not respond. When a heartbeat has waited longer than the stall threshold,
+ * the stack of the FX thread is captured once, along with the DAOHelper method it is running, and written to
+ * fx_stalls.txt. When the heartbeat finally runs, the stall's length is added to the StallSite of the line the FX
+ * thread was blocked at, so the places that freeze the screen most can be ranked, and the ranking is written to the
+ * file when the app closes. A dialog waiting in showAndWait() is not a stall, since the FX thread keeps running
+ * heartbeats while it waits. </p>
+ * <p> The cost is ten heartbeats a second and a stack only when the screen is already frozen, so it is left on. The
+ * threshold is 500 ms, or the number of milliseconds in the com.C195.stallMillis system property. </p>
+ */
+public abstract class StallWatchdog {
+    private static final Path STALL_LOG = Paths.get("fx_stalls.txt");
+    private static final long HEARTBEAT_MILLIS = 100;
+
+    // Most frames of the FX thread's stack written for one stall
+    private static final int MAX_LOGGED_FRAMES = 40;
+
+    // Most stalls kept in memory for the diagnostics screen
+    private static final int MAX_RECENT_STALLS = 50;
+
+    // Most stall sites written in the ranking when the app closes
+    private static final int MAX_RANKED_SITES = 20;
+
+    private static final LatencyHistogram heartbeatLatency = new LatencyHistogram();
+    private static final ConcurrentHashMap<String, StallSite> sites = new ConcurrentHashMap<>();
+    private static final RecentLines recentStalls = new RecentLines(MAX_RECENT_STALLS);
+    private static volatile long stallNanos = Duration.ofMillis(
+            Long.getLong("com.C195.stallMillis", 500)).toNanos();
+
+    private static final ExecutorService stallWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fx-stall-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The rest are guarded by the class's lock
+    private static ScheduledExecutorService timer;
+    private static Thread fxThread;
+    private static long postedAt;
+    private static Stall stall;
+
+    /**
+     * Starts the watchdog.
+     *
+     * <p> This method is called once the FX toolkit has started, such as from Main.start(). Calling it again does
+     * nothing. </p>
+     */
+    public static synchronized void start() {
+        if (timer != null)
+            return;
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(StallWatchdog::tick, HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the watchdog.
+     *
+     * <p> This method is called when the app closes. It writes the worst stall sites to fx_stalls.txt, if there were
+     * any stalls. </p>
+     */
+    public static synchronized void stop() {
+        if (timer == null)
+            return;
+
+        timer.shutdownNow();
+        timer = null;
+
+        List<StallSite> ranked = getStallSites();
+        if (ranked.isEmpty())
+            return;
+
+        StringBuilder summary = new StringBuilder(LocalDateTime.now() + " | Worst stall sites");
+        for (StallSite site : ranked.subList(0, Math.min(ranked.size(), MAX_RANKED_SITES)))
+            summary.append(System.lineSeparator()).append("    ").append(site.getTotalNanos() / 1_000_000)
+                    .append(" ms in ").append(site.getStalls()).append(" stalls, longest ")
+                    .append(site.getDurations().getMaxNanos() / 1_000_000).append(" ms | ").append(site.getSite())
+                    .append(" | ").append(site.getOperation());
+        String text = summary.toString();
+        stallWriter.execute(() -> writeStall(text));
+
+        // Waits for the log to be written, since its thread ends with the app
+        stallWriter.shutdown();
+        try {
+            stallWriter.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the places the FX thread stalled at.
+     *
+     * @return Returns a StallSite for each line of code the FX thread was blocked at, the longest in total first
+     */
+    public static List<StallSite> getStallSites() {
+        List<StallSite> list = new ArrayList<>(sites.values());
+        list.sort(Comparator.comparingLong(StallSite::getTotalNanos).reversed());
+        return list;
+    }
+
+    /**
+     * Gets the stalls that ended lately.
+     *
+     * @return Returns a line for each of the last 50 stalls, with its length and site, the newest first
+     */
+    public static List<String> getRecentStalls() {
+        return recentStalls.getNewestFirst();
+    }
+
+    /**
+     * Getter for heartbeat latency.
+     *
+     * @return Returns the LatencyHistogram of how long each heartbeat waited for the FX thread
+     */
+    public static LatencyHistogram getHeartbeatLatency() {
+        return heartbeatLatency;
+    }
+
+    /**
+     * Getter for stall threshold.
+     *
+     * @return Returns how long a heartbeat must wait for the FX thread to be a stall
+     */
+    public static Duration getStallThreshold() {
+        return Duration.ofNanos(stallNanos);
+    }
+
+    /**
+     * Setter for stall threshold.
+     *
+     * @param threshold How long a heartbeat must wait for the FX thread to be a stall
+     */
+    public static void setStallThreshold(Duration threshold) {
+        stallNanos = threshold.toNanos();
+    }
+
+    /**
+     * Clears the heartbeats and stalls recorded.
+     */
+    public static void reset() {
+        heartbeatLatency.reset();
+        sites.clear();
+        recentStalls.clear();
+    }
+
+    // Runs on the timer's thread. Posts a heartbeat if none is waiting, or captures the FX thread if the waiting one
+    // has waited too long.
+    private static synchronized void tick() {
+        long now = System.nanoTime();
+
+        if (postedAt == 0) {
+            postedAt = now;
+            Platform.runLater(StallWatchdog::beat);
+        }
+        else if (stall == null && fxThread != null && fxThread.isAlive() && now - postedAt >= stallNanos) {
+            stall = new Stall(fxThread.getStackTrace());
+            String line = LocalDateTime.now() + " | FX thread blocked " + (now - postedAt) / 1_000_000 + " ms | " +
+                    stall.site + " | " + stall.operation + System.lineSeparator() + stall.stack;
+            stallWriter.execute(() -> writeStall(line));
+        }
+    }
+
+    // Runs on the FX thread. Times the heartbeat, and ends the stall if there was one.
+    private static synchronized void beat() {
+        long latency = System.nanoTime() - postedAt;
+        fxThread = Thread.currentThread();
+        postedAt = 0;
+        heartbeatLatency.record(latency);
+
+        if (stall != null) {
+            sites.computeIfAbsent(stall.site, StallSite::new).record(latency, stall.operation, stall.stack);
+            String line = LocalDateTime.now() + " | FX thread stall ended after " + latency / 1_000_000 + " ms | " +
+                    stall.site;
+            recentStalls.add(line + " | " + stall.operation);
+            stallWriter.execute(() -> writeStall(line));
+            stall = null;
+        }
+    }
+
+    private static void writeStall(String text) {
+        try (BufferedWriter writer = Files.newBufferedWriter(STALL_LOG, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            writer.write(text);
+            writer.newLine();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // The FX thread's stack when it was found blocked, with the line of the app's code it was blocked at and the
+    // DAOHelper method it was running
+    private static class Stall {
+        private final String site;
+        private final String operation;
+        private final String stack;
+
+        Stall(StackTraceElement[] frames) {
+            String appFrame = null;
+            String daoMethod = "";
+            StringBuilder text = new StringBuilder();
+
+            for (int i = 0; i < frames.length; i++) {
+                StackTraceElement frame = frames[i];
+                String className = frame.getClassName();
+
+                // The first of the app's own frames, skipping the timing wrapped around every statement
+                if (appFrame == null && className.startsWith("com.C195.") &&
+                        !className.startsWith(QueryStats.class.getName()))
+                    appFrame = nameOf(frame);
+
+                // The outermost DAOHelper frame, as QueryStats counts statements under it
+                if (className.equals(DAOHelper.class.getName()))
+                    daoMethod = "DAOHelper." + frame.getMethodName();
+
+                if (i < MAX_LOGGED_FRAMES)
+                    text.append("    at ").append(frame).append(System.lineSeparator());
+            }
+            if (frames.length > MAX_LOGGED_FRAMES)
+                text.append("    ... ").append(frames.length - MAX_LOGGED_FRAMES).append(" more");
+
+            site = appFrame != null ? appFrame : frames.length > 0 ? nameOf(frames[0]) : "unknown";
+            operation = daoMethod;
+            stack = text.toString().stripTrailing();
+        }
+
+        private static String nameOf(StackTraceElement frame) {
+            String className = frame.getClassName();
+            return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName() + ":" +
+                    frame.getLineNumber();
+        }
+    }
+}
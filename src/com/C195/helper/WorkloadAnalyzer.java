@@ -0,0 +1,158 @@
+package com.C195.helper;
+
+import com.C195.model.Contact;
+import com.C195.model.ContactWorkload;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Class that works out how booked each contact is.
+ *
+ * <p> This class builds a ContactWorkload for each contact from the appointments in ScheduleIndex, with the booked
+ * minutes, peak concurrency, and idle gaps of every day. Each contact is worked out with one sweep over the starts and
+ * ends of their appointments, which are kept sorted by ScheduleIndex, so a year of appointments takes about as long
+ * as sorting them. Contacts are worked out in parallel. </p>
+ */
+public abstract class WorkloadAnalyzer {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /**
+     * Works out the workload of every contact.
+     *
+     * @param firstDate The first date, in the user's time zone
+     * @param lastDate The last date, in the user's time zone
+     * @return Returns a ContactWorkload for each Contact, in the order of their IDs
+     */
+    public static List<ContactWorkload> analyze(LocalDate firstDate, LocalDate lastDate) {
+        int[] contactIDs = DAOHelper.getAllContacts().stream().mapToInt(Contact::getContactID).sorted().toArray();
+        return analyze(contactIDs, firstDate, lastDate);
+    }
+
+    /**
+     * Works out the workload of some contacts.
+     *
+     * <p> This method works out each contact on the common ForkJoinPool. Appointments that start before the first
+     * date or end after the last date only count for the part within the dates. </p>
+     * @param contactIDs The IDs of the Contacts
+     * @param firstDate The first date, in the user's time zone
+     * @param lastDate The last date, in the user's time zone
+     * @return Returns a ContactWorkload for each Contact, in the order of the IDs
+     */
+    public static List<ContactWorkload> analyze(int[] contactIDs, LocalDate firstDate, LocalDate lastDate) {
+        // Loaded up front so the parallel sweeps do not all wait for the first one to load it
+        ScheduleIndex.load();
+
+        return IntStream.of(contactIDs).parallel()
+                .mapToObj(contactID -> analyzeContact(contactID, firstDate, lastDate))
+                .collect(Collectors.toList());
+    }
+
+    // Sweeps one contact's appointment starts and ends in time order. While at least one appointment is running the
+    // contact is booked; the times between such stretches on the same day are idle.
+    private static ContactWorkload analyzeContact(int contactID, LocalDate firstDate, LocalDate lastDate) {
+        long firstDay = firstDate.toEpochDay();
+        int days = (int) Math.max(0, lastDate.toEpochDay() - firstDay + 1);
+        long windowStart = firstDay * SECONDS_PER_DAY;
+        long windowEnd = windowStart + (long) days * SECONDS_PER_DAY;
+
+        long[] single = ScheduleIndex.busyIntervals(ScheduleIndex.Resource.CONTACT, contactID, windowStart, windowEnd,
+                -1);
+        long[] series = ScheduleIndex.seriesIntervals(ScheduleIndex.Resource.CONTACT, contactID, windowStart,
+                windowEnd, -1);
+
+        // Only the order of the starts and the order of the ends matter, so they are sorted apart
+        long[] starts = new long[(single.length + series.length) / 2];
+        long[] ends = new long[starts.length];
+        int count = 0;
+        for (long[] pairs : new long[][] {single, series}) {
+            for (int pair = 0; pair < pairs.length; pair += 2) {
+                long start = Math.max(pairs[pair], windowStart);
+                long end = Math.min(pairs[pair + 1], windowEnd);
+
+                // An appointment with no length would end before it starts in the sweep
+                if (start < end) {
+                    starts[count] = start;
+                    ends[count++] = end;
+                }
+            }
+        }
+        Arrays.sort(starts, 0, count);
+        Arrays.sort(ends, 0, count);
+
+        int[] bookedSeconds = new int[days];
+        int[] peak = new int[days];
+        int[] idleSeconds = new int[days];
+        int[] longestIdleSeconds = new int[days];
+        int active = 0;
+        long blockStart = 0;
+        long lastBlockEnd = Long.MIN_VALUE;
+        int nextStart = 0;
+        int nextEnd = 0;
+        int currentDay = -1;
+
+        while (nextEnd < count) {
+            // An appointment that ends when another starts does not overlap it, so ends go first
+            boolean isStart = nextStart < count && starts[nextStart] < ends[nextEnd];
+            long time = isStart ? starts[nextStart++] : ends[nextEnd++];
+            int day = dayIndex(time, firstDay);
+
+            // The appointments running since the last event also ran through any midnight before this one
+            for (int d = currentDay + 1; d <= Math.min(dayIndex(time - 1, firstDay), days - 1); d++)
+                peak[d] = Math.max(peak[d], active);
+
+            if (isStart) {
+                if (active++ == 0) {
+                    blockStart = time;
+                    if (lastBlockEnd != Long.MIN_VALUE && dayIndex(lastBlockEnd - 1, firstDay) == day) {
+                        int gap = (int) (time - lastBlockEnd);
+                        idleSeconds[day] += gap;
+                        longestIdleSeconds[day] = Math.max(longestIdleSeconds[day], gap);
+                    }
+                }
+            }
+            else if (--active == 0) {
+                addBooked(bookedSeconds, blockStart, time, firstDay);
+                lastBlockEnd = time;
+            }
+
+            if (day < days) {
+                peak[day] = Math.max(peak[day], active);
+                currentDay = day;
+            }
+        }
+
+        int[] openMinutes = new int[days];
+        for (int day = 0; day < days; day++) {
+            for (long word : BusinessCalendar.openSlots(contactID, null, firstDay + day))
+                openMinutes[day] += Long.bitCount(word) * AvailabilityStore.SLOT_MINUTES;
+        }
+
+        return new ContactWorkload(contactID, firstDate, openMinutes, toMinutes(bookedSeconds), peak,
+                toMinutes(idleSeconds), toMinutes(longestIdleSeconds));
+    }
+
+    // Adds a stretch of booked time to each day it covers
+    private static void addBooked(int[] bookedSeconds, long start, long end, long firstDay) {
+        while (start < end) {
+            int day = dayIndex(start, firstDay);
+            long dayEnd = (firstDay + day + 1) * SECONDS_PER_DAY;
+            bookedSeconds[day] += (int) (Math.min(end, dayEnd) - start);
+            start = dayEnd;
+        }
+    }
+
+    private static int dayIndex(long time, long firstDay) {
+        return (int) (Math.floorDiv(time, SECONDS_PER_DAY) - firstDay);
+    }
+
+    private static int[] toMinutes(int[] seconds) {
+        int[] minutes = new int[seconds.length];
+        for (int i = 0; i < seconds.length; i++)
+            minutes[i] = seconds[i] / 60;
+        return minutes;
+    }
+}
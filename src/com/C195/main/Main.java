@@ -1,6 +1,9 @@
 package com.C195.main;
 
+import com.C195.helper.GcMonitor;
 import com.C195.helper.JDBC;
+import com.C195.helper.SchedulerMetrics;
+import com.C195.helper.StallWatchdog;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -21,19 +24,23 @@ public class Main extends Application {
     /**
      * Main method for the Main class.
      *
-     * <p> This is the main method for the Main class and lauches the program. </p>
+     * <p> This is the main method for the Main class and lauches the program. Its runtime metrics are published over
+     * JMX by SchedulerMetrics. </p>
      * @param args Arguments for launching the program
      */
     public static void main(String[] args) {
         JDBC.openConnection();
+        SchedulerMetrics.register();
         launch(args);
+        StallWatchdog.stop();
         JDBC.closeConnection();
     }
 
     /**
      * Launches the GUI.
      *
-     * <p> This method starts the program and launches the GUI. </p>
+     * <p> This method starts the program and launches the GUI. StallWatchdog starts watching the FX thread once the
+     * first screen is shown, and GcMonitor starts recording garbage collections. </p>
      * @param stage The primary stage for the GUI
      * @throws Exception Exceptions that may occur in the program
      */
@@ -43,6 +50,9 @@ public class Main extends Application {
         stage.setTitle("Scheduler");
         stage.setScene(new Scene(root, 1200, 700));
         stage.show();
+
+        StallWatchdog.start();
+        GcMonitor.start();
     }
 
 //    // Used to test the program
@@ -1,16 +1,20 @@
 package com.C195.model;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Class for an appointment.
  *
  * <p> This class defines an Appointment. It has an associated Customer, Contact, and user. It contains information on
- * the ID, title, description, type, location, and start and end times. </p>
+ * the ID, title, description, type, location, and start and end times. A recurring appointment also has a
+ * RecurrenceRule, and its start and end times are those of its first occurrence. </p>
  */
 public class Appointment {
     /**
@@ -19,13 +23,13 @@ public class Appointment {
     public static final ZoneId BUSINESS_ZONE = ZoneId.of("America/New_York");
 
     /**
-     * Start of business hours
+     * Start of business hours, used by BusinessCalendar when the database does not set any
      */
     public static final ZonedDateTime BUSINESS_HOURS_START = ZonedDateTime.of(2000,1, 1, 8,
             0, 0, 0, BUSINESS_ZONE);
 
     /**
-     * End of business hours
+     * End of business hours, used by BusinessCalendar when the database does not set any
      */
     public static final ZonedDateTime BUSINESS_HOURS_END = ZonedDateTime.of(2000, 1, 1, 17,
             0, 0, 0, BUSINESS_ZONE);  // end of business hours
@@ -40,6 +44,8 @@ public class Appointment {
     private int customerID;
     private int userID;
     private int contactID;
+    private RecurrenceRule recurrence;
+    private Appointment series;
 
     /**
      * Constructor for Appointment.
@@ -302,4 +308,147 @@ public class Appointment {
     public String getStringStartTime() {
         return DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT).format(startTime);
     }
+
+    /**
+     * Getter for recurrence.
+     *
+     * <p> This is the getter for the repeat rule of the appointment. </p>
+     * @return The repeat rule of the appointment, or null if it does not repeat
+     */
+    public RecurrenceRule getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Setter for recurrence.
+     *
+     * <p> This is the setter for the repeat rule of the appointment. </p>
+     * @param recurrence the repeat rule the appointment will have, or null if it does not repeat
+     */
+    public void setRecurrence(RecurrenceRule recurrence) {
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * Checks if the appointment repeats.
+     *
+     * @return Returns true if the appointment has a repeat rule
+     */
+    public boolean isRecurring() {
+        return recurrence != null;
+    }
+
+    /**
+     * Checks if the appointment is one occurrence of a series.
+     *
+     * @return Returns true if the appointment was made by occurrencesBetween()
+     */
+    public boolean isOccurrence() {
+        return series != null;
+    }
+
+    /**
+     * Gets the series.
+     *
+     * <p> This method returns the stored appointment an occurrence was made from. Updates and deletes apply to the
+     * series, since occurrences are not stored. </p>
+     * @return Returns the series of an occurrence, or this appointment if it is not an occurrence
+     */
+    public Appointment getSeries() {
+        return series == null ? this : series;
+    }
+
+    /**
+     * Gets the occurrences in a window.
+     *
+     * <p> This method returns the occurrences of the appointment that overlap the window. Each one is a copy of the
+     * appointment with the same ID, moved to the time of the occurrence. An appointment that does not repeat is its
+     * own only occurrence. </p>
+     * @param from The start of the window
+     * @param to The end of the window
+     * @return Returns the occurrences, earliest first
+     */
+    public List<Appointment> occurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        if (series != null)
+            return series.occurrencesBetween(from, to);
+
+        List<Appointment> occurrences = new ArrayList<>();
+        if (recurrence == null) {
+            if (startTime.isBefore(to) && endTime.isAfter(from))
+                occurrences.add(this);
+            return occurrences;
+        }
+
+        Duration length = Duration.between(startTime, endTime);
+        for (LocalDateTime start : recurrence.occurrences(startTime, length, from, to)) {
+            Appointment occurrence = new Appointment(appointmentID, title, description, location, type, start,
+                    start.plus(length), customerID, userID, contactID);
+            occurrence.recurrence = recurrence;
+            occurrence.series = this;
+            occurrences.add(occurrence);
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Gets the end of the last occurrence.
+     *
+     * <p> This method returns the end time for an appointment that does not repeat. For a series it returns the end
+     * of its last occurrence. </p>
+     * @return Returns the end of the last occurrence, or null if the appointment repeats without end
+     */
+    public LocalDateTime getLastEndTime() {
+        Appointment first = getSeries();
+        return recurrence == null ? endTime :
+                recurrence.getLastEnd(first.startTime, Duration.between(first.startTime, first.endTime));
+    }
+
+    /**
+     * Checks if two appointments are ever at the same time.
+     *
+     * <p> This method checks if any occurrence of this appointment overlaps any occurrence of the other. The
+     * occurrences are only compared from the later of the two starts to the earlier of the two ends. When neither
+     * appointment ends they are compared for RecurrenceRule.ENDLESS_HORIZON. </p>
+     * @param other The other Appointment
+     * @return Returns true if the appointments overlap
+     */
+    public boolean overlaps(Appointment other) {
+        Appointment first = getSeries();
+        Appointment second = other.getSeries();
+
+        if (first.recurrence == null && second.recurrence == null)
+            return first.startTime.isBefore(second.endTime) && second.startTime.isBefore(first.endTime);
+
+        LocalDateTime from = first.startTime.isAfter(second.startTime) ? first.startTime : second.startTime;
+        LocalDateTime firstEnd = first.getLastEndTime();
+        LocalDateTime secondEnd = second.getLastEndTime();
+        LocalDateTime to = firstEnd == null ? (secondEnd == null ? from.plus(RecurrenceRule.ENDLESS_HORIZON) :
+                secondEnd) : (secondEnd == null || firstEnd.isBefore(secondEnd) ? firstEnd : secondEnd);
+
+        if (!from.isBefore(to))
+            return false;
+
+        // Both lists are sorted by start, and by end since each series has one length, so the one that ends first
+        // cannot overlap anything after what it is compared with
+        List<Appointment> firstOccurrences = first.occurrencesBetween(from, to);
+        List<Appointment> secondOccurrences = second.occurrencesBetween(from, to);
+        int i = 0;
+        int j = 0;
+
+        while (i < firstOccurrences.size() && j < secondOccurrences.size()) {
+            Appointment a = firstOccurrences.get(i);
+            Appointment b = secondOccurrences.get(j);
+
+            if (a.startTime.isBefore(b.endTime) && b.startTime.isBefore(a.endTime))
+                return true;
+
+            if (a.endTime.isAfter(b.endTime))
+                j++;
+            else
+                i++;
+        }
+
+        return false;
+    }
 }
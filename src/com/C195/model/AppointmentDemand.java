@@ -0,0 +1,155 @@
+package com.C195.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Class for an appointment that needs to be scheduled.
+ *
+ * <p> This class defines a request for an Appointment whose contact and time have not been chosen yet. It has the
+ * customer and user of the appointment, its information, how long it is, the window it must fall within, and the
+ * contacts who may run it, most preferred first. AutoScheduler chooses a contact and time for each demand. </p>
+ */
+public class AppointmentDemand {
+    private final int customerID;
+    private final int userID;
+    private final String title;
+    private final String description;
+    private final String location;
+    private final String type;
+    private final Duration length;
+    private final LocalDateTime earliestStart;
+    private final LocalDateTime latestEnd;
+    private final int[] preferredContactIDs;
+
+    /**
+     * Constructor for AppointmentDemand.
+     *
+     * <p> This is the constructor for the AppointmentDemand class. </p>
+     * @param customerID The ID of the Customer the appointment is for
+     * @param userID The ID of the user booking the appointment
+     * @param title The title of the appointment
+     * @param description A description of the appointment
+     * @param location The location of the appointment
+     * @param type The type of appointment
+     * @param length How long the appointment is
+     * @param earliestStart The earliest the appointment may start, in the user's time zone
+     * @param latestEnd The latest the appointment may end, in the user's time zone
+     * @param preferredContactIDs The IDs of the Contacts who may run the appointment, most preferred first. If empty,
+     *                            any contact may run it.
+     */
+    public AppointmentDemand(int customerID, int userID, String title, String description, String location,
+                             String type, Duration length, LocalDateTime earliestStart, LocalDateTime latestEnd,
+                             int... preferredContactIDs) {
+        this.customerID = customerID;
+        this.userID = userID;
+        this.title = title;
+        this.description = description;
+        this.location = location;
+        this.type = type;
+        this.length = length;
+        this.earliestStart = earliestStart;
+        this.latestEnd = latestEnd;
+        this.preferredContactIDs = preferredContactIDs.clone();
+    }
+
+    /**
+     * Getter for customer ID.
+     *
+     * <p> This is the getter for the ID of the Customer the appointment is for. </p>
+     * @return Returns the Customer's ID
+     */
+    public int getCustomerID() {
+        return customerID;
+    }
+
+    /**
+     * Getter for user ID.
+     *
+     * <p> This is the getter for the ID of the user booking the appointment. </p>
+     * @return Returns the user's ID
+     */
+    public int getUserID() {
+        return userID;
+    }
+
+    /**
+     * Getter for title.
+     *
+     * <p> This is the getter for the title of the appointment. </p>
+     * @return Returns the title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Getter for description.
+     *
+     * <p> This is the getter for the description of the appointment. </p>
+     * @return Returns the description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Getter for location.
+     *
+     * <p> This is the getter for the location of the appointment. </p>
+     * @return Returns the location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Getter for type.
+     *
+     * <p> This is the getter for the type of appointment. </p>
+     * @return Returns the type
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Getter for length.
+     *
+     * <p> This is the getter for how long the appointment is. </p>
+     * @return Returns the length of the appointment
+     */
+    public Duration getLength() {
+        return length;
+    }
+
+    /**
+     * Getter for earliest start.
+     *
+     * <p> This is the getter for the earliest the appointment may start. </p>
+     * @return Returns the earliest start, in the user's time zone
+     */
+    public LocalDateTime getEarliestStart() {
+        return earliestStart;
+    }
+
+    /**
+     * Getter for latest end.
+     *
+     * <p> This is the getter for the latest the appointment may end. </p>
+     * @return Returns the latest end, in the user's time zone
+     */
+    public LocalDateTime getLatestEnd() {
+        return latestEnd;
+    }
+
+    /**
+     * Getter for preferred contact IDs.
+     *
+     * <p> This is the getter for the IDs of the Contacts who may run the appointment. </p>
+     * @return Returns the Contacts' IDs, most preferred first, or an empty array if any contact may run it
+     */
+    public int[] getPreferredContactIDs() {
+        return preferredContactIDs.clone();
+    }
+}
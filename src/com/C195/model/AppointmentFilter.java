@@ -0,0 +1,100 @@
+package com.C195.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Class for choosing the appointments a bulk change applies to.
+ *
+ * <p> This class matches the appointments that start within a range of times and belong to a customer, contact, or
+ * user, or to any of them when an ID is -1. A recurring appointment matches by the start of its first occurrence.
+ * Times are in the user's time zone. </p>
+ */
+public class AppointmentFilter {
+    private final int customerID;
+    private final int contactID;
+    private final int userID;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    /**
+     * Constructor for AppointmentFilter.
+     *
+     * <p> This is the constructor for the AppointmentFilter class. </p>
+     * @param customerID The ID of the Customer, or -1 for any
+     * @param contactID The ID of the Contact, or -1 for any
+     * @param userID The ID of the User, or -1 for any
+     * @param from The earliest start, inclusive
+     * @param to The latest start, exclusive
+     */
+    public AppointmentFilter(int customerID, int contactID, int userID, LocalDateTime from, LocalDateTime to) {
+        this.customerID = customerID;
+        this.contactID = contactID;
+        this.userID = userID;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Makes a filter for a contact's appointments.
+     *
+     * @param contactID The ID of the Contact
+     * @param from The earliest start, inclusive
+     * @param to The latest start, exclusive
+     * @return Returns the AppointmentFilter
+     */
+    public static AppointmentFilter forContact(int contactID, LocalDateTime from, LocalDateTime to) {
+        return new AppointmentFilter(-1, contactID, -1, from, to);
+    }
+
+    /**
+     * Getter for customer ID.
+     *
+     * @return Returns the ID of the Customer, or -1 for any
+     */
+    public int getCustomerID() {
+        return customerID;
+    }
+
+    /**
+     * Getter for contact ID.
+     *
+     * @return Returns the ID of the Contact, or -1 for any
+     */
+    public int getContactID() {
+        return contactID;
+    }
+
+    /**
+     * Getter for user ID.
+     *
+     * @return Returns the ID of the User, or -1 for any
+     */
+    public int getUserID() {
+        return userID;
+    }
+
+    /**
+     * Getter for from.
+     *
+     * @return Returns the earliest start, inclusive
+     */
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    /**
+     * Getter for to.
+     *
+     * @return Returns the latest start, exclusive
+     */
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return (customerID == -1 ? "" : "customer " + customerID + ", ") +
+                (contactID == -1 ? "" : "contact " + contactID + ", ") +
+                (userID == -1 ? "" : "user " + userID + ", ") + "starting " + from + " to " + to;
+    }
+}
@@ -0,0 +1,72 @@
+package com.C195.model;
+
+import java.time.LocalDate;
+
+/**
+ * Class for a day the business is closed.
+ *
+ * <p> This class defines a date, such as a holiday, on which no appointments can be made. A closure can apply to the
+ * whole business, to a location, or to a contact. </p>
+ */
+public class BusinessClosure {
+    private final int contactID;
+    private final String location;
+    private final LocalDate date;
+    private final String description;
+
+    /**
+     * Constructor for BusinessClosure.
+     *
+     * <p> This is the constructor for the BusinessClosure class. </p>
+     * @param contactID The ID of the contact who is away, or -1 if the closure is not for a contact
+     * @param location The location that is closed, or null if the closure is not for a location
+     * @param date The date of the closure, in the business's time zone
+     * @param description The reason for the closure, such as the name of a holiday
+     */
+    public BusinessClosure(int contactID, String location, LocalDate date, String description) {
+        this.contactID = contactID;
+        this.location = location;
+        this.date = date;
+        this.description = description;
+    }
+
+    /**
+     * Getter for contact ID.
+     *
+     * <p> This is the getter for the ID of the contact the closure is for. </p>
+     * @return Returns the ID of the contact, or -1 if the closure is not for a contact
+     */
+    public int getContactID() {
+        return contactID;
+    }
+
+    /**
+     * Getter for location.
+     *
+     * <p> This is the getter for the location the closure is for. </p>
+     * @return Returns the location, or null if the closure is not for a location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Getter for date.
+     *
+     * <p> This is the getter for the date of the closure. </p>
+     * @return Returns the date, in the business's time zone
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Getter for description.
+     *
+     * <p> This is the getter for the reason for the closure. </p>
+     * @return Returns the description
+     */
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,88 @@
+package com.C195.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Class for the business hours of one day of the week.
+ *
+ * <p> This class defines the hours the business is open on a day of the week, in the business's time zone. Hours can
+ * be set for the whole business, for a location, or for a contact. A contact's hours are used before the hours of a
+ * location, and a location's hours before the business's. </p>
+ */
+public class BusinessHours {
+    private final int contactID;
+    private final String location;
+    private final DayOfWeek dayOfWeek;
+    private final LocalTime openTime;
+    private final LocalTime closeTime;
+
+    /**
+     * Constructor for BusinessHours.
+     *
+     * <p> This is the constructor for the BusinessHours class. </p>
+     * @param contactID The ID of the contact the hours are for, or -1 if they are not for a contact
+     * @param location The location the hours are for, or null if they are not for a location
+     * @param dayOfWeek The day of the week
+     * @param openTime The time the business opens, in the business's time zone
+     * @param closeTime The time the business closes, in the business's time zone
+     */
+    public BusinessHours(int contactID, String location, DayOfWeek dayOfWeek, LocalTime openTime,
+                         LocalTime closeTime) {
+        this.contactID = contactID;
+        this.location = location;
+        this.dayOfWeek = dayOfWeek;
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+    }
+
+    /**
+     * Getter for contact ID.
+     *
+     * <p> This is the getter for the ID of the contact the hours are for. </p>
+     * @return Returns the ID of the contact, or -1 if the hours are not for a contact
+     */
+    public int getContactID() {
+        return contactID;
+    }
+
+    /**
+     * Getter for location.
+     *
+     * <p> This is the getter for the location the hours are for. </p>
+     * @return Returns the location, or null if the hours are not for a location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Getter for day of the week.
+     *
+     * <p> This is the getter for the day of the week the hours are for. </p>
+     * @return Returns the day of the week
+     */
+    public DayOfWeek getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    /**
+     * Getter for open time.
+     *
+     * <p> This is the getter for the time the business opens, in the business's time zone. </p>
+     * @return Returns the opening time
+     */
+    public LocalTime getOpenTime() {
+        return openTime;
+    }
+
+    /**
+     * Getter for close time.
+     *
+     * <p> This is the getter for the time the business closes, in the business's time zone. </p>
+     * @return Returns the closing time
+     */
+    public LocalTime getCloseTime() {
+        return closeTime;
+    }
+}
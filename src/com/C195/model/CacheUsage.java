@@ -0,0 +1,78 @@
+package com.C195.model;
+
+/**
+ * Class for how well one cache kept in memory is working.
+ *
+ * <p> This class holds the size, hits, and misses of one cache, such as the appointments in ScheduleIndex, at the time
+ * it was taken by DiagnosticsSnapshot. </p>
+ */
+public class CacheUsage {
+    private final String name;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final double hitRatio;
+
+    /**
+     * Constructor for CacheUsage.
+     *
+     * <p> This is the constructor for the CacheUsage class. </p>
+     * @param name The name of the cache, such as "Appointments"
+     * @param size How many entries are in memory
+     * @param hits How many lookups were answered from memory
+     * @param misses How many lookups had to load from the database
+     * @param hitRatio The share of lookups answered from memory, from 0 to 1
+     */
+    public CacheUsage(String name, int size, long hits, long misses, double hitRatio) {
+        this.name = name;
+        this.size = size;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRatio = hitRatio;
+    }
+
+    /**
+     * Getter for name.
+     *
+     * @return Returns the name of the cache, such as "Appointments"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for size.
+     *
+     * @return Returns how many entries are in memory
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Getter for hits.
+     *
+     * @return Returns how many lookups were answered from memory
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Getter for misses.
+     *
+     * @return Returns how many lookups had to load from the database
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Getter for hit ratio.
+     *
+     * @return Returns the share of lookups answered from memory, from 0 to 1
+     */
+    public double getHitRatio() {
+        return hitRatio;
+    }
+}
@@ -0,0 +1,164 @@
+package com.C195.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Class for how booked a contact is over a range of days.
+ *
+ * <p> This class holds, for each day of the range, the minutes of the contact's business hours, the minutes during
+ * which the contact has at least one appointment, the most appointments the contact has at the same time, and the
+ * idle minutes between the contact's appointments. Minutes booked by overlapping appointments are only counted once,
+ * and a peak concurrency above 1 means the contact is double-booked. Days are in the user's time zone. It is built by
+ * WorkloadAnalyzer. </p>
+ */
+public class ContactWorkload {
+    private final int contactID;
+    private final LocalDate firstDate;
+    private final int[] openMinutes;
+    private final int[] bookedMinutes;
+    private final int[] peakConcurrency;
+    private final int[] idleMinutes;
+    private final int[] longestIdleMinutes;
+
+    /**
+     * Constructor for ContactWorkload.
+     *
+     * <p> This is the constructor for the ContactWorkload class. Each array has one element for each day from the
+     * first date on, and all of them must be the same length. </p>
+     * @param contactID The ID of the Contact
+     * @param firstDate The first date of the range
+     * @param openMinutes The minutes of business hours on each day
+     * @param bookedMinutes The minutes the contact has appointments on each day
+     * @param peakConcurrency The most appointments the contact has at the same time on each day
+     * @param idleMinutes The minutes between the contact's appointments on each day
+     * @param longestIdleMinutes The longest time between two of the contact's appointments on each day, in minutes
+     */
+    public ContactWorkload(int contactID, LocalDate firstDate, int[] openMinutes, int[] bookedMinutes,
+                           int[] peakConcurrency, int[] idleMinutes, int[] longestIdleMinutes) {
+        this.contactID = contactID;
+        this.firstDate = firstDate;
+        this.openMinutes = openMinutes;
+        this.bookedMinutes = bookedMinutes;
+        this.peakConcurrency = peakConcurrency;
+        this.idleMinutes = idleMinutes;
+        this.longestIdleMinutes = longestIdleMinutes;
+    }
+
+    /**
+     * Getter for contact ID.
+     *
+     * @return Returns the ID of the Contact
+     */
+    public int getContactID() {
+        return contactID;
+    }
+
+    /**
+     * Getter for first date.
+     *
+     * @return Returns the first date of the range
+     */
+    public LocalDate getFirstDate() {
+        return firstDate;
+    }
+
+    /**
+     * Getter for last date.
+     *
+     * @return Returns the last date of the range
+     */
+    public LocalDate getLastDate() {
+        return firstDate.plusDays(bookedMinutes.length - 1);
+    }
+
+    /**
+     * Gets the minutes of business hours on some days.
+     *
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return Returns the total minutes of the contact's business hours on the dates within the range
+     */
+    public int getOpenMinutes(LocalDate from, LocalDate to) {
+        return sum(openMinutes, from, to);
+    }
+
+    /**
+     * Gets the minutes booked on some days.
+     *
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return Returns the total minutes the contact has appointments on the dates within the range
+     */
+    public int getBookedMinutes(LocalDate from, LocalDate to) {
+        return sum(bookedMinutes, from, to);
+    }
+
+    /**
+     * Gets the idle minutes on some days.
+     *
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return Returns the total minutes between the contact's appointments on the dates within the range
+     */
+    public int getIdleMinutes(LocalDate from, LocalDate to) {
+        return sum(idleMinutes, from, to);
+    }
+
+    /**
+     * Gets the longest idle time on some days.
+     *
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return Returns the longest time between two of the contact's appointments on the same day, in minutes
+     */
+    public int getLongestIdleMinutes(LocalDate from, LocalDate to) {
+        return max(longestIdleMinutes, from, to);
+    }
+
+    /**
+     * Gets the peak concurrency on some days.
+     *
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return Returns the most appointments the contact has at the same time on the dates within the range
+     */
+    public int getPeakConcurrency(LocalDate from, LocalDate to) {
+        return max(peakConcurrency, from, to);
+    }
+
+    /**
+     * Gets the share of business hours booked on some days.
+     *
+     * <p> Appointments outside of business hours still count as booked, so the share can be above 1. </p>
+     * @param from The first date, inclusive
+     * @param to The last date, inclusive
+     * @return Returns the booked minutes divided by the open minutes, or 0 if there are no open minutes
+     */
+    public double getUtilization(LocalDate from, LocalDate to) {
+        int open = getOpenMinutes(from, to);
+        return open == 0 ? 0 : getBookedMinutes(from, to) / (double) open;
+    }
+
+    private int sum(int[] days, LocalDate from, LocalDate to) {
+        int total = 0;
+        for (int day = firstIndex(from); day <= lastIndex(to); day++)
+            total += days[day];
+        return total;
+    }
+
+    private int max(int[] days, LocalDate from, LocalDate to) {
+        int max = 0;
+        for (int day = firstIndex(from); day <= lastIndex(to); day++)
+            max = Math.max(max, days[day]);
+        return max;
+    }
+
+    private int firstIndex(LocalDate from) {
+        return (int) Math.max(0, ChronoUnit.DAYS.between(firstDate, from));
+    }
+
+    private int lastIndex(LocalDate to) {
+        return (int) Math.min(bookedMinutes.length - 1, ChronoUnit.DAYS.between(firstDate, to));
+    }
+}
@@ -0,0 +1,101 @@
+package com.C195.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Class for how many appointments a location holds at the same time.
+ *
+ * <p> This class holds the most appointments that were running at one location at the same moment over a range of
+ * months, and when that first happened, along with the peak and the total appointment minutes for each hour of the
+ * day. It is built by LoadProfiler, and is meant for sizing rooms. Times are in the user's time zone. </p>
+ */
+public class LocationLoad {
+    private final String location;
+    private final int peakConcurrency;
+    private final LocalDateTime peakTime;
+    private final int[] hourlyPeaks;
+    private final long[] hourlyMinutes;
+    private final long appointmentCount;
+    private final int days;
+
+    /**
+     * Constructor for LocationLoad.
+     *
+     * <p> This is the constructor for the LocationLoad class. </p>
+     * @param location The location
+     * @param peakConcurrency The most appointments running at the same time
+     * @param peakTime The first time the peak was reached, or null if there were no appointments
+     * @param hourlyPeaks The most appointments running at the same time during each hour of the day, from 0 to 23
+     * @param hourlyMinutes The total minutes of appointments during each hour of the day, from 0 to 23
+     * @param appointmentCount The amount of appointments and occurrences within the range
+     * @param days The amount of days in the range
+     */
+    public LocationLoad(String location, int peakConcurrency, LocalDateTime peakTime, int[] hourlyPeaks,
+                        long[] hourlyMinutes, long appointmentCount, int days) {
+        this.location = location;
+        this.peakConcurrency = peakConcurrency;
+        this.peakTime = peakTime;
+        this.hourlyPeaks = hourlyPeaks;
+        this.hourlyMinutes = hourlyMinutes;
+        this.appointmentCount = appointmentCount;
+        this.days = days;
+    }
+
+    /**
+     * Getter for location.
+     *
+     * @return Returns the location
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Getter for peak concurrency.
+     *
+     * @return Returns the most appointments running at the location at the same time
+     */
+    public int getPeakConcurrency() {
+        return peakConcurrency;
+    }
+
+    /**
+     * Getter for peak time.
+     *
+     * @return Returns the first time the peak was reached, or null if there were no appointments
+     */
+    public LocalDateTime getPeakTime() {
+        return peakTime;
+    }
+
+    /**
+     * Gets the peak of an hour of the day.
+     *
+     * @param hour The hour of the day, from 0 to 23
+     * @return Returns the most appointments running at the same time during that hour on any day
+     */
+    public int getHourlyPeak(int hour) {
+        return hourlyPeaks[hour];
+    }
+
+    /**
+     * Gets the average load of an hour of the day.
+     *
+     * <p> This method returns the average amount of appointments running during the hour, over every day of the
+     * range. </p>
+     * @param hour The hour of the day, from 0 to 23
+     * @return Returns the average amount of appointments running during that hour
+     */
+    public double getHourlyAverage(int hour) {
+        return days == 0 ? 0 : hourlyMinutes[hour] / (60.0 * days);
+    }
+
+    /**
+     * Getter for appointment count.
+     *
+     * @return Returns the amount of appointments and occurrences within the range
+     */
+    public long getAppointmentCount() {
+        return appointmentCount;
+    }
+}
@@ -0,0 +1,115 @@
+package com.C195.model;
+
+/**
+ * Class for the latency of the statements run by one DAOHelper method.
+ *
+ * <p> This class holds how many statements one DAOHelper method ran and how long they took, added up over every
+ * statement the method ran. It is built by DiagnosticsSnapshot from the timings kept by QueryStats. </p>
+ */
+public class OperationLatency {
+    private final String operation;
+    private final long statements;
+    private final long errors;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final double totalMillis;
+
+    /**
+     * Constructor for OperationLatency.
+     *
+     * <p> This is the constructor for the OperationLatency class. </p>
+     * @param operation The method, such as "DAOHelper.getAllAppointments"
+     * @param statements How many statements the method ran
+     * @param errors How many of them threw an exception
+     * @param p50Millis The milliseconds half of them were within
+     * @param p95Millis The milliseconds 95% of them were within
+     * @param p99Millis The milliseconds 99% of them were within
+     * @param maxMillis The milliseconds the longest took
+     * @param totalMillis The milliseconds they took in total
+     */
+    public OperationLatency(String operation, long statements, long errors, double p50Millis, double p95Millis,
+                            double p99Millis, double maxMillis, double totalMillis) {
+        this.operation = operation;
+        this.statements = statements;
+        this.errors = errors;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.totalMillis = totalMillis;
+    }
+
+    /**
+     * Getter for operation.
+     *
+     * @return Returns the method, such as "DAOHelper.getAllAppointments"
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Getter for statements.
+     *
+     * @return Returns how many statements the method ran
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * Getter for errors.
+     *
+     * @return Returns how many of its statements threw an exception
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Getter for p50 millis.
+     *
+     * @return Returns the milliseconds half of its statements were within
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     * Getter for p95 millis.
+     *
+     * @return Returns the milliseconds 95% of its statements were within
+     */
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    /**
+     * Getter for p99 millis.
+     *
+     * @return Returns the milliseconds 99% of its statements were within
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * Getter for max millis.
+     *
+     * @return Returns the milliseconds the longest of its statements took
+     */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * Getter for total millis.
+     *
+     * @return Returns the milliseconds its statements took in total
+     */
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+}
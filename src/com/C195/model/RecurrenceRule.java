@@ -0,0 +1,443 @@
+package com.C195.model;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * Class for how an appointment repeats.
+ *
+ * <p> This class is the repeat rule of a recurring Appointment. It holds a subset of the iCalendar RRULE: a daily,
+ * weekly, or monthly frequency, an interval, the days of the week for weekly rules, and an end given as a number of
+ * occurrences or a last date. Dates that were cancelled from the series are kept as exceptions. A series is stored
+ * once, and its occurrences are worked out only for the dates that are asked for. </p>
+ */
+public class RecurrenceRule {
+    private final Frequency frequency;
+    private final int interval;
+    private final int count;
+    private final LocalDate until;
+    private final DayOfWeek[] days;
+    private final LocalDate[] exceptions;
+
+    /**
+     * How far past the later of their starts two appointments are compared when neither of them ends.
+     */
+    public static final Period ENDLESS_HORIZON = Period.ofYears(2);
+
+    private static final DateTimeFormatter UNTIL_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * How often an appointment repeats.
+     */
+    public enum Frequency {
+        /** Repeats every interval days */
+        DAILY,
+        /** Repeats on the chosen days of every interval weeks */
+        WEEKLY,
+        /** Repeats on the same day of the month every interval months. Months without that day are skipped. */
+        MONTHLY
+    }
+
+    /**
+     * Constructor for RecurrenceRule.
+     *
+     * <p> This is the constructor for the RecurrenceRule class. </p>
+     * @param frequency How often the appointment repeats
+     * @param interval The number of days, weeks, or months between repeats, at least 1
+     * @param count The number of occurrences, including cancelled ones, or 0 if the count does not end the series
+     * @param until The last date an occurrence may start on, or null if no date ends the series
+     * @param days The days of the week a weekly rule repeats on. If empty the day of the first occurrence is used.
+     * @param exceptions The dates whose occurrences were cancelled
+     */
+    public RecurrenceRule(Frequency frequency, int interval, int count, LocalDate until, Collection<DayOfWeek> days,
+                          Collection<LocalDate> exceptions) {
+        if (frequency == null)
+            throw new IllegalArgumentException("A repeat rule needs a frequency");
+        if (interval < 1)
+            throw new IllegalArgumentException("A repeat interval must be at least 1: " + interval);
+        if (count < 0)
+            throw new IllegalArgumentException("A repeat count cannot be negative: " + count);
+
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.days = frequency == Frequency.WEEKLY && days != null && !days.isEmpty() ?
+                EnumSet.copyOf(days).toArray(new DayOfWeek[0]) : new DayOfWeek[0];
+        this.exceptions = exceptions == null ? new LocalDate[0] : new TreeSet<>(exceptions).toArray(new LocalDate[0]);
+    }
+
+    /**
+     * Reads a rule from the database.
+     *
+     * <p> This method reads a rule written by getRuleText(), such as "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;COUNT=10",
+     * and the comma separated ISO dates written by getExceptionText(). </p>
+     * @param rule The text of the rule
+     * @param exceptions The text of the cancelled dates, or null
+     * @return Returns the rule
+     * @throws IllegalArgumentException If the text is not a rule this class supports
+     */
+    public static RecurrenceRule parse(String rule, String exceptions) {
+        Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        LocalDate until = null;
+        List<DayOfWeek> days = new ArrayList<>();
+        List<LocalDate> cancelled = new ArrayList<>();
+
+        try {
+            for (String part : rule.trim().split(";")) {
+                String[] pair = part.split("=", 2);
+                if (pair.length != 2)
+                    throw new IllegalArgumentException("Repeat rule part has no value: " + part);
+
+                String value = pair[1].trim();
+                switch (pair[0].trim().toUpperCase(Locale.ROOT)) {
+                    case "FREQ":
+                        frequency = parseFrequency(value);
+                        break;
+                    case "INTERVAL":
+                        interval = Integer.parseInt(value);
+                        break;
+                    case "COUNT":
+                        count = Integer.parseInt(value);
+                        break;
+                    case "UNTIL":
+                        // Only the date is kept, a time such as 20271231T235959Z still ends on that date
+                        until = LocalDate.parse(value.substring(0, Math.min(8, value.length())), UNTIL_FORMAT);
+                        break;
+                    case "BYDAY":
+                        for (String day : value.split(","))
+                            days.add(parseDay(day.trim()));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported repeat rule part: " + part);
+                }
+            }
+
+            if (exceptions != null)
+                for (String date : exceptions.split(","))
+                    if (!date.trim().isEmpty())
+                        cancelled.add(LocalDate.parse(date.trim()));
+        } catch (NumberFormatException | DateTimeParseException exception) {
+            throw new IllegalArgumentException("Invalid repeat rule: " + rule, exception);
+        }
+
+        return new RecurrenceRule(frequency, interval, count, until, days, cancelled);
+    }
+
+    /**
+     * Getter for frequency.
+     *
+     * @return Returns how often the appointment repeats
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Getter for interval.
+     *
+     * @return Returns the number of days, weeks, or months between repeats
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Getter for count.
+     *
+     * @return Returns the number of occurrences, or 0 if the count does not end the series
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Getter for until.
+     *
+     * @return Returns the last date an occurrence may start on, or null if no date ends the series
+     */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Getter for days.
+     *
+     * @return Returns the days of the week a weekly rule repeats on, or an empty list for the day of the first
+     * occurrence
+     */
+    public List<DayOfWeek> getDays() {
+        return Arrays.asList(days.clone());
+    }
+
+    /**
+     * Getter for exceptions.
+     *
+     * @return Returns the cancelled dates, earliest first
+     */
+    public List<LocalDate> getExceptions() {
+        return Arrays.asList(exceptions.clone());
+    }
+
+    /**
+     * Checks if the series has no end.
+     *
+     * @return Returns true if neither a count nor a date ends the series
+     */
+    public boolean isEndless() {
+        return count == 0 && until == null;
+    }
+
+    /**
+     * Checks if a date was cancelled.
+     *
+     * @param date The date to check
+     * @return Returns true if the occurrence on the date was cancelled
+     */
+    public boolean isException(LocalDate date) {
+        return Arrays.binarySearch(exceptions, date) >= 0;
+    }
+
+    /**
+     * Cancels one occurrence.
+     *
+     * <p> This method returns a copy of the rule with the date added to its exceptions. The cancelled occurrence
+     * still counts toward the number of occurrences, so the series ends on the same date. </p>
+     * @param date The date of the occurrence to cancel
+     * @return Returns the new rule
+     */
+    public RecurrenceRule withException(LocalDate date) {
+        List<LocalDate> cancelled = new ArrayList<>(Arrays.asList(exceptions));
+        cancelled.add(date);
+        return new RecurrenceRule(frequency, interval, count, until, Arrays.asList(days), cancelled);
+    }
+
+    /**
+     * Gets the text of the rule.
+     *
+     * @return Returns the rule in the form parse() reads, such as "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE;COUNT=10"
+     */
+    public String getRuleText() {
+        StringBuilder text = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1)
+            text.append(";INTERVAL=").append(interval);
+        if (days.length > 0) {
+            StringJoiner byDay = new StringJoiner(",", ";BYDAY=", "");
+            for (DayOfWeek day : days)
+                byDay.add(day.name().substring(0, 2));
+            text.append(byDay);
+        }
+        if (count > 0)
+            text.append(";COUNT=").append(count);
+        if (until != null)
+            text.append(";UNTIL=").append(UNTIL_FORMAT.format(until));
+
+        return text.toString();
+    }
+
+    /**
+     * Gets the text of the cancelled dates.
+     *
+     * @return Returns the cancelled dates as comma separated ISO dates, or null if there are none
+     */
+    public String getExceptionText() {
+        if (exceptions.length == 0)
+            return null;
+
+        StringJoiner text = new StringJoiner(",");
+        for (LocalDate date : exceptions)
+            text.add(date.toString());
+        return text.toString();
+    }
+
+    /**
+     * Describes the rule.
+     *
+     * @return Returns a user friendly description, such as "Every 2 weeks on Mon, Wed, 10 times"
+     */
+    public String describe() {
+        String[] units = {"day", "week", "month"};
+        String unit = units[frequency.ordinal()];
+        StringBuilder text = new StringBuilder(interval == 1 ?
+                frequency.name().charAt(0) + frequency.name().substring(1).toLowerCase(Locale.ROOT) :
+                "Every " + interval + " " + unit + "s");
+
+        if (days.length > 0) {
+            StringJoiner names = new StringJoiner(", ", " on ", "");
+            for (DayOfWeek day : days)
+                names.add(day.getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+            text.append(names);
+        }
+        if (count > 0)
+            text.append(", ").append(count).append(count == 1 ? " time" : " times");
+        if (until != null)
+            text.append(", until ").append(until);
+
+        return text.toString();
+    }
+
+    /**
+     * Gets the occurrences in a window.
+     *
+     * <p> This method returns the start times of the occurrences that overlap the window, leaving out cancelled
+     * ones. Only the occurrences near the window are worked out: daily and weekly series skip straight to it, and
+     * monthly series step one month at a time. </p>
+     * @param seriesStart The start of the first occurrence
+     * @param length The length of each occurrence
+     * @param from The start of the window
+     * @param to The end of the window
+     * @return Returns the start times, earliest first
+     */
+    public List<LocalDateTime> occurrences(LocalDateTime seriesStart, Duration length, LocalDateTime from,
+                                           LocalDateTime to) {
+        List<LocalDateTime> starts = new ArrayList<>();
+
+        // Occurrences that started the day before the window can still run into it
+        LocalDate firstDate = from.minus(length).toLocalDate().minusDays(1);
+        forEachStart(seriesStart, firstDate, start -> {
+            if (!start.isBefore(to))
+                return false;
+
+            if (start.plus(length).isAfter(from) && !isException(start.toLocalDate()))
+                starts.add(start);
+            return true;
+        });
+
+        return starts;
+    }
+
+    /**
+     * Gets the end of the series.
+     *
+     * <p> This method returns the end of the last occurrence that was not cancelled. </p>
+     * @param seriesStart The start of the first occurrence
+     * @param length The length of each occurrence
+     * @return Returns the end of the last occurrence, or null if the series has no end
+     */
+    public LocalDateTime getLastEnd(LocalDateTime seriesStart, Duration length) {
+        if (isEndless())
+            return null;
+
+        LocalDateTime[] last = {seriesStart};
+        forEachStart(seriesStart, seriesStart.toLocalDate(), start -> {
+            if (!isException(start.toLocalDate()))
+                last[0] = start;
+            return true;
+        });
+
+        return last[0].plus(length);
+    }
+
+    // Receives each occurrence start in order and returns false to stop
+    private interface StartVisitor {
+        boolean visit(LocalDateTime start);
+    }
+
+    // Visits the occurrence starts in order, cancelled ones included, beginning near firstDate and ending with the
+    // series or when the visitor stops
+    private void forEachStart(LocalDateTime seriesStart, LocalDate firstDate, StartVisitor visitor) {
+        LocalDate startDate = seriesStart.toLocalDate();
+        LocalTime time = seriesStart.toLocalTime();
+
+        switch (frequency) {
+            case DAILY: {
+                // The number of the occurrence is known from the date, so the series can start at the window
+                long index = Math.max(0, Math.floorDiv(ChronoUnit.DAYS.between(startDate, firstDate), interval));
+                while (count == 0 || index < count) {
+                    LocalDate date = startDate.plusDays(index * interval);
+                    if ((until != null && date.isAfter(until)) || !visitor.visit(date.atTime(time)))
+                        return;
+                    index++;
+                }
+                return;
+            }
+            case WEEKLY: {
+                DayOfWeek[] weekDays = days.length > 0 ? days : new DayOfWeek[]{startDate.getDayOfWeek()};
+                LocalDate firstMonday = startDate.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+
+                // Each period after the first has one occurrence per day, the first skips days before the start
+                int firstPeriodCount = 0;
+                for (DayOfWeek day : weekDays)
+                    if (day.compareTo(startDate.getDayOfWeek()) >= 0)
+                        firstPeriodCount++;
+
+                long period = Math.max(0, Math.floorDiv(ChronoUnit.DAYS.between(firstMonday, firstDate),
+                        7L * interval));
+                long index = period == 0 ? 0 : firstPeriodCount + (period - 1) * weekDays.length;
+                while (true) {
+                    LocalDate monday = firstMonday.plusWeeks(period * interval);
+                    for (DayOfWeek day : weekDays) {
+                        LocalDate date = monday.plusDays(day.ordinal());
+                        if (date.isBefore(startDate))
+                            continue;
+                        if ((count > 0 && index >= count) || (until != null && date.isAfter(until)) ||
+                                !visitor.visit(date.atTime(time)))
+                            return;
+                        index++;
+                    }
+                    period++;
+                }
+            }
+            case MONTHLY: {
+                // Skipped months do not count, so a counted series has to be stepped from its start
+                long month = count > 0 ? 0 : Math.max(0, Math.floorDiv(ChronoUnit.MONTHS.between(
+                        startDate.withDayOfMonth(1), firstDate.withDayOfMonth(1)), interval) * interval);
+                long index = 0;
+                while (count == 0 || index < count) {
+                    LocalDate monthStart = startDate.withDayOfMonth(1).plusMonths(month);
+                    month += interval;
+                    if (startDate.getDayOfMonth() > monthStart.lengthOfMonth())
+                        continue;
+
+                    LocalDate date = monthStart.withDayOfMonth(startDate.getDayOfMonth());
+                    if ((until != null && date.isAfter(until)) || !visitor.visit(date.atTime(time)))
+                        return;
+                    index++;
+                }
+            }
+        }
+    }
+
+    // Reads a frequency this class supports, such as WEEKLY
+    private static Frequency parseFrequency(String frequency) {
+        for (Frequency value : Frequency.values())
+            if (value.name().equalsIgnoreCase(frequency))
+                return value;
+
+        throw new IllegalArgumentException("Unsupported repeat frequency: " + frequency);
+    }
+
+    // Reads a two letter iCalendar day such as MO
+    private static DayOfWeek parseDay(String day) {
+        for (DayOfWeek value : DayOfWeek.values())
+            if (value.name().substring(0, 2).equalsIgnoreCase(day))
+                return value;
+
+        throw new IllegalArgumentException("Unknown day in repeat rule: " + day);
+    }
+
+    @Override
+    public String toString() {
+        String exceptionText = getExceptionText();
+        return getRuleText() + (exceptionText == null ? "" : " EXDATE=" + exceptionText);
+    }
+}
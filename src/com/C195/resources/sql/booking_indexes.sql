@@ -0,0 +1,13 @@
+-- Indexes used when booking appointments.
+-- DAOHelper.bookAppointment() locks the rows of the appointment's customer, contact, and user, and then looks for
+-- their appointments that overlap the new one with a single query:
+--   (Customer_ID = ? OR Contact_ID = ? OR User_ID = ?) AND Start < ? AND End > ?
+-- With an index for each of the three columns, MySQL answers it with an index merge of three range scans that read
+-- only the appointments starting before the new one ends. Checking all three costs about the same as checking the
+-- customer alone, and the row locks are held as briefly as possible.
+
+USE client_schedule;
+
+CREATE INDEX idx_appointments_customer_start ON appointments (Customer_ID, Start, End);
+CREATE INDEX idx_appointments_contact_start ON appointments (Contact_ID, Start, End);
+CREATE INDEX idx_appointments_user_start ON appointments (User_ID, Start, End);
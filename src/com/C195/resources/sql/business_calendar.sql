@@ -0,0 +1,40 @@
+-- Tables for the business calendar.
+-- BusinessCalendar reads these once and uses them to check that appointments fall within business hours and to
+-- suggest open times. Hours and dates are in the business's time zone, America/New_York.
+--
+-- business_hours holds the hours for each day of the week, with Day_Of_Week from 1 for Monday to 7 for Sunday. A row
+-- with neither Contact_ID nor Location sets the hours of the whole business, a row with a Location sets the hours of
+-- that location, and a row with a Contact_ID sets the hours of that contact. A contact's hours are used before a
+-- location's, and a location's before the business's. Once a contact, location, or the business has any rows, the
+-- days of the week without a row are closed. A Close_Time of 00:00:00 means midnight at the end of the day.
+-- Without any rows the business is open from 8:00 to 17:00 every day.
+--
+-- business_closures holds dates, such as holidays, on which there can be no appointments. A closure without a
+-- Contact_ID or Location closes the whole business.
+
+USE client_schedule;
+
+CREATE TABLE business_hours (
+    Hours_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Contact_ID INT NULL,
+    Location VARCHAR(50) NULL,
+    Day_Of_Week TINYINT NOT NULL,
+    Open_Time TIME NOT NULL,
+    Close_Time TIME NOT NULL,
+    FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID) ON DELETE CASCADE
+);
+
+CREATE TABLE business_closures (
+    Closure_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Contact_ID INT NULL,
+    Location VARCHAR(50) NULL,
+    Closure_Date DATE NOT NULL,
+    Description VARCHAR(50),
+    FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID) ON DELETE CASCADE
+);
+
+-- Example: the business is open on weekdays and closed for New Year's Day.
+-- INSERT INTO business_hours (Day_Of_Week, Open_Time, Close_Time)
+--     VALUES (1, '08:00:00', '17:00:00'), (2, '08:00:00', '17:00:00'), (3, '08:00:00', '17:00:00'),
+--            (4, '08:00:00', '17:00:00'), (5, '08:00:00', '17:00:00');
+-- INSERT INTO business_closures (Closure_Date, Description) VALUES ('2027-01-01', 'New Year''s Day');
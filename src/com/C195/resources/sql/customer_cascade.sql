@@ -0,0 +1,14 @@
+-- Makes the database delete a customer's appointments along with the customer.
+-- DAOHelper.deleteCustomers() checks for this foreign key rule and, when it is present, removes customers with a
+-- single DELETE statement instead of deleting their appointments first.
+--
+-- The name of the existing constraint can be checked with:
+--   SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+--   WHERE TABLE_SCHEMA = 'client_schedule' AND TABLE_NAME = 'appointments' AND REFERENCED_TABLE_NAME = 'customers';
+
+USE client_schedule;
+
+ALTER TABLE appointments DROP FOREIGN KEY fk_customer_id;
+
+ALTER TABLE appointments ADD CONSTRAINT fk_customer_id FOREIGN KEY (Customer_ID)
+    REFERENCES customers (Customer_ID) ON DELETE CASCADE ON UPDATE CASCADE;
@@ -0,0 +1,68 @@
+-- Rows for a new embedded database.
+-- DriverDataSource runs this script after embedded_schema.sql, so the app can be tried without a database server. It
+-- adds the countries and first level divisions the customer forms offer, the users test and admin, whose passwords
+-- are their names, three contacts, three customers, and two appointments in the coming days. Rows refer to each other
+-- by name, so the IDs are left to the database.
+
+INSERT INTO countries (Country, Create_Date, Created_By, Last_Update, Last_Updated_By) VALUES
+    ('U.S', NOW(), 'script', NOW(), 'script'),
+    ('UK', NOW(), 'script', NOW(), 'script'),
+    ('Canada', NOW(), 'script', NOW(), 'script');
+
+INSERT INTO first_level_divisions (Division, Create_Date, Created_By, Last_Update, Last_Updated_By, Country_ID)
+SELECT d.Division, NOW(), 'script', NOW(), 'script', c.Country_ID
+FROM (VALUES
+    ('Alabama', 'U.S'), ('Alaska', 'U.S'), ('Arizona', 'U.S'), ('Arkansas', 'U.S'), ('California', 'U.S'),
+    ('Colorado', 'U.S'), ('Connecticut', 'U.S'), ('Delaware', 'U.S'), ('District of Columbia', 'U.S'),
+    ('Florida', 'U.S'), ('Georgia', 'U.S'), ('Hawaii', 'U.S'), ('Idaho', 'U.S'), ('Illinois', 'U.S'),
+    ('Indiana', 'U.S'), ('Iowa', 'U.S'), ('Kansas', 'U.S'), ('Kentucky', 'U.S'), ('Louisiana', 'U.S'),
+    ('Maine', 'U.S'), ('Maryland', 'U.S'), ('Massachusetts', 'U.S'), ('Michigan', 'U.S'), ('Minnesota', 'U.S'),
+    ('Mississippi', 'U.S'), ('Missouri', 'U.S'), ('Montana', 'U.S'), ('Nebraska', 'U.S'), ('Nevada', 'U.S'),
+    ('New Hampshire', 'U.S'), ('New Jersey', 'U.S'), ('New Mexico', 'U.S'), ('New York', 'U.S'),
+    ('North Carolina', 'U.S'), ('North Dakota', 'U.S'), ('Ohio', 'U.S'), ('Oklahoma', 'U.S'), ('Oregon', 'U.S'),
+    ('Pennsylvania', 'U.S'), ('Rhode Island', 'U.S'), ('South Carolina', 'U.S'), ('South Dakota', 'U.S'),
+    ('Tennessee', 'U.S'), ('Texas', 'U.S'), ('Utah', 'U.S'), ('Vermont', 'U.S'), ('Virginia', 'U.S'),
+    ('Washington', 'U.S'), ('West Virginia', 'U.S'), ('Wisconsin', 'U.S'), ('Wyoming', 'U.S'),
+    ('England', 'UK'), ('Wales', 'UK'), ('Scotland', 'UK'), ('Northern Ireland', 'UK'),
+    ('Alberta', 'Canada'), ('British Columbia', 'Canada'), ('Manitoba', 'Canada'), ('New Brunswick', 'Canada'),
+    ('Newfoundland and Labrador', 'Canada'), ('Northwest Territories', 'Canada'), ('Nova Scotia', 'Canada'),
+    ('Nunavut', 'Canada'), ('Ontario', 'Canada'), ('Prince Edward Island', 'Canada'), ('Québec', 'Canada'),
+    ('Saskatchewan', 'Canada'), ('Yukon', 'Canada')
+) AS d (Division, Country)
+JOIN countries c ON c.Country = d.Country;
+
+INSERT INTO users (User_Name, Password, Create_Date, Created_By, Last_Update, Last_Updated_By) VALUES
+    ('test', 'test', NOW(), 'script', NOW(), 'script'),
+    ('admin', 'admin', NOW(), 'script', NOW(), 'script');
+
+INSERT INTO contacts (Contact_Name, Email) VALUES
+    ('Anika Costa', 'acosta@company.com'),
+    ('Daniel Garcia', 'dgarcia@company.com'),
+    ('Li Lee', 'lee@company.com');
+
+INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update,
+                       Last_Updated_By, Division_ID)
+SELECT c.Customer_Name, c.Address, c.Postal_Code, c.Phone, NOW(), 'script', NOW(), 'script', d.Division_ID
+FROM (VALUES
+    ('Daddy Warbucks', '1919 Boardwalk', '01291', '869-908-1875', 'New Jersey'),
+    ('Lady McAnderson', '2 Wonder Way', 'AF19B', '11-445-910-2135', 'England'),
+    ('Dudley Do-Right', '48 Horse Manor', '28198', '874-916-2671', 'Ontario')
+) AS c (Customer_Name, Address, Postal_Code, Phone, Division)
+JOIN first_level_divisions d ON d.Division = c.Division;
+
+-- Tomorrow and the day after, at 10:00 and 14:00 in the time zone of the JVM that made the database
+INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update,
+                          Last_Updated_By, Customer_ID, User_ID, Contact_ID)
+SELECT a.Title, a.Description, a.Location, a.Type,
+       DATEADD(HOUR, a.Start_Hour, CAST(CURRENT_DATE AS TIMESTAMP)),
+       DATEADD(HOUR, a.Start_Hour + 1, CAST(CURRENT_DATE AS TIMESTAMP)),
+       NOW(), 'script', NOW(), 'script', cu.Customer_ID, u.User_ID, co.Contact_ID
+FROM (VALUES
+    ('Kickoff', 'Plan the coming quarter', 'Phoenix, Arizona', 'Planning Session', 34,
+        'Daddy Warbucks', 'test', 'Anika Costa'),
+    ('Review', 'Review the last project', 'London, England', 'De-Briefing', 62,
+        'Lady McAnderson', 'admin', 'Daniel Garcia')
+) AS a (Title, Description, Location, Type, Start_Hour, Customer_Name, User_Name, Contact_Name)
+JOIN customers cu ON cu.Customer_Name = a.Customer_Name
+JOIN users u ON u.User_Name = a.User_Name
+JOIN contacts co ON co.Contact_Name = a.Contact_Name;
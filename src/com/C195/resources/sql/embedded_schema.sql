@@ -0,0 +1,112 @@
+-- Tables for the embedded database.
+-- DriverDataSource runs this script, and then embedded_data.sql, the first time it opens an embedded H2 database in
+-- MySQL mode that has no tables, so the app runs without a database server, and BenchmarkDatabase runs it to make the
+-- database the benchmarks time. It is the client_schedule schema with the changes from the other scripts in this
+-- directory, which should be copied here when they change.
+
+CREATE TABLE countries (
+    Country_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Country VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE first_level_divisions (
+    Division_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Division VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Country_ID INT NOT NULL,
+    FOREIGN KEY (Country_ID) REFERENCES countries (Country_ID)
+);
+
+CREATE TABLE customers (
+    Customer_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Customer_Name VARCHAR(50),
+    Address VARCHAR(100),
+    Postal_Code VARCHAR(50),
+    Phone VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Division_ID INT NOT NULL,
+    FOREIGN KEY (Division_ID) REFERENCES first_level_divisions (Division_ID)
+);
+
+CREATE TABLE users (
+    User_ID INT AUTO_INCREMENT PRIMARY KEY,
+    User_Name VARCHAR(50) UNIQUE,
+    Password TEXT,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE contacts (
+    Contact_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Contact_Name VARCHAR(50),
+    Email VARCHAR(50)
+);
+
+CREATE TABLE appointments (
+    Appointment_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME,
+    End DATETIME,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Customer_ID INT NOT NULL,
+    User_ID INT NOT NULL,
+    Contact_ID INT NOT NULL,
+    CONSTRAINT fk_customer_id FOREIGN KEY (Customer_ID)
+        REFERENCES customers (Customer_ID) ON DELETE CASCADE ON UPDATE CASCADE,
+    FOREIGN KEY (User_ID) REFERENCES users (User_ID),
+    FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID)
+);
+
+-- booking_indexes.sql
+CREATE INDEX idx_appointments_customer_start ON appointments (Customer_ID, Start, End);
+CREATE INDEX idx_appointments_contact_start ON appointments (Contact_ID, Start, End);
+CREATE INDEX idx_appointments_user_start ON appointments (User_ID, Start, End);
+
+-- load_profile_index.sql
+CREATE INDEX idx_appointments_start ON appointments (Start, End, Location);
+
+-- recurrence.sql
+CREATE TABLE appointment_recurrences (
+    Appointment_ID INT PRIMARY KEY,
+    Rule VARCHAR(255) NOT NULL,
+    Exceptions TEXT NULL,
+    FOREIGN KEY (Appointment_ID) REFERENCES appointments (Appointment_ID) ON DELETE CASCADE
+);
+
+-- business_calendar.sql, left empty so the business is open from 8:00 to 17:00 every day
+CREATE TABLE business_hours (
+    Hours_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Contact_ID INT NULL,
+    Location VARCHAR(50) NULL,
+    Day_Of_Week TINYINT NOT NULL,
+    Open_Time TIME NOT NULL,
+    Close_Time TIME NOT NULL,
+    FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID) ON DELETE CASCADE
+);
+
+CREATE TABLE business_closures (
+    Closure_ID INT AUTO_INCREMENT PRIMARY KEY,
+    Contact_ID INT NULL,
+    Location VARCHAR(50) NULL,
+    Closure_Date DATE NOT NULL,
+    Description VARCHAR(50),
+    FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID) ON DELETE CASCADE
+);
@@ -0,0 +1,10 @@
+-- Index used when profiling the load of each location.
+-- LoadProfiler reads each month of appointments in order of start, on its own connection, with:
+--   a.Start >= ? AND a.Start < ? AND a.End > ? ORDER BY a.Start
+-- With Start first in the index, MySQL reads only the month's range in the order asked for without sorting it, and
+-- End and Location are read from the index itself, so a month of a table of tens of millions of rows is streamed to
+-- the client as it is read.
+
+USE client_schedule;
+
+CREATE INDEX idx_appointments_start ON appointments (Start, End, Location);
@@ -0,0 +1,21 @@
+-- Table for recurring appointments.
+-- A recurring appointment is stored once in appointments, with the Start and End of its first occurrence, and its
+-- repeat rule is stored here. The occurrences themselves are never stored, so a weekly appointment that runs for two
+-- years is still one row in each table.
+--
+-- Rule is a subset of the iCalendar RRULE: FREQ is DAILY, WEEKLY, or MONTHLY, and INTERVAL, BYDAY (weekly only),
+-- COUNT, and UNTIL (a date, yyyyMMdd) are optional. Exceptions is a comma separated list of the dates, yyyy-MM-dd, whose
+-- occurrences were cancelled. Both are read by RecurrenceRule.parse().
+
+USE client_schedule;
+
+CREATE TABLE appointment_recurrences (
+    Appointment_ID INT PRIMARY KEY,
+    Rule VARCHAR(255) NOT NULL,
+    Exceptions TEXT NULL,
+    FOREIGN KEY (Appointment_ID) REFERENCES appointments (Appointment_ID) ON DELETE CASCADE
+);
+
+-- Example: appointment 1 repeats every Monday and Wednesday for ten occurrences, except on New Year's Day.
+-- INSERT INTO appointment_recurrences (Appointment_ID, Rule, Exceptions)
+--     VALUES (1, 'FREQ=WEEKLY;BYDAY=MO,WE;COUNT=10', '2027-01-01');